@@ -2,10 +2,12 @@ package com.matchi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 // @EnableKafka est activé automatiquement par Spring Boot si spring-kafka est présent
 // Si nécessaire, on peut l'ajouter explicitement ici
 @SpringBootApplication
+@EnableScheduling // Relais de l'outbox Kafka, purge nocturne de l'index d'occupation et matérialisation des récurrences
 public class MatchiServiceApplication {
 
 	public static void main(String[] args) {
@@ -70,7 +70,7 @@ public class CorsConfig {
                         "Access-Control-Request-Method",
                         "Access-Control-Request-Headers"
                 ));
-                config.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition"));
+                config.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition", "X-Total-Count", "X-Next-Cursor"));
                 config.setMaxAge(3600L);
                 
                 return config;
@@ -1,5 +1,6 @@
 package com.matchi.config;
 
+import com.matchi.exception.ConflitHoraireException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -22,6 +23,21 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    @ExceptionHandler(ConflitHoraireException.class)
+    public ResponseEntity<Map<String, Object>> handleConflitHoraireException(ConflitHoraireException e, WebRequest request) {
+        logger.warn("Conflits horaires: {}", e.getConflits().size());
+        
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now());
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Bad Request");
+        error.put("message", e.getMessage());
+        error.put("conflits", e.getConflits());
+        error.put("path", request.getDescription(false).replace("uri=", ""));
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException e, WebRequest request) {
         logger.error("RuntimeException: {}", e.getMessage(), e);
@@ -1,12 +1,48 @@
 package com.matchi.config;
 
+import com.matchi.dto.HoraireSyncEvent;
+import com.matchi.dto.HoraireSyncEventRaw;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JacksonJsonDeserializer;
+import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,6 +53,9 @@ import java.util.Map;
  * Cette configuration ne se charge que si Kafka est disponible
  * 
  * @EnableKafka est nécessaire pour activer les listeners Kafka
+ * 
+ * ✅ Factories typées, réglables par propriétés (horaire.kafka.producer.* / horaire.kafka.consumer.*)
+ * pour ajuster le débit par environnement sans modifier le code
  */
 @Configuration
 @EnableKafka
@@ -27,16 +66,8 @@ import java.util.Map;
     "org.springframework.kafka.annotation.EnableKafka"
 })
 public class KafkaConfig {
-    
-    static {
-        // Vérifier que @EnableKafka est disponible
-        try {
-            Class<?> enableKafkaClass = Class.forName("org.springframework.kafka.annotation.EnableKafka");
-            System.out.println("✅ @EnableKafka disponible - Spring Boot devrait l'activer automatiquement");
-        } catch (ClassNotFoundException e) {
-            System.out.println("⚠️ @EnableKafka non disponible");
-        }
-    }
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaConfig.class);
 
     @Value("${spring.kafka.bootstrap-servers:187.124.35.219:9092}")
     private String bootstrapServers;
@@ -44,279 +75,240 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id:horaire-sync-group}")
     private String groupId;
 
+    @Value("${spring.kafka.topic.horaire-sync:horaire-sync-topic}")
+    private String topicHoraireSync;
+
+    @Value("${horaire.kafka.topic.horaire-sync-dlt:horaire-sync-topic.DLT}")
+    private String topicHoraireSyncDlt;
+
+    @Value("${horaire.kafka.topic.partitions:3}")
+    private int partitions;
+
+    // ======== PRODUCER ========
+
+    @Value("${horaire.kafka.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${horaire.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${horaire.kafka.producer.compression:lz4}")
+    private String compression;
+
+    // ======== CONSUMER ========
+
+    @Value("${horaire.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${horaire.kafka.consumer.fetch-min-bytes:1}")
+    private int fetchMinBytes;
+
+    @Value("${horaire.kafka.consumer.fetch-max-wait-ms:500}")
+    private int fetchMaxWaitMs;
+
+    @Value("${horaire.kafka.consumer.concurrency:3}")
+    private int concurrency;
+
+    @Value("${horaire.kafka.consumer.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${horaire.kafka.consumer.backoff-max-ms:30000}")
+    private long backoffMaxMs;
+
+    @Value("${horaire.kafka.consumer.tentatives-max:3}")
+    private int tentativesMax;
+
     /**
      * Configuration du Producer Kafka pour publier les événements
+     * 
+     * ✅ LOTS : linger.ms / batch.size regroupent les envois asynchrones d'une même synchronisation
+     * dans peu de requêtes au broker, compressées
      */
     @Bean
     @Primary
-    public Object producerFactory() {
-        try {
-            Class<?> producerConfigClass = Class.forName("org.apache.kafka.clients.producer.ProducerConfig");
-            Class<?> stringSerializerClass = Class.forName("org.apache.kafka.common.serialization.StringSerializer");
-            Class<?> jsonSerializerClass = Class.forName("org.springframework.kafka.support.serializer.JsonSerializer");
-            Class<?> producerFactoryClass = Class.forName("org.springframework.kafka.core.DefaultKafkaProducerFactory");
-            
-            Map<String, Object> configProps = new HashMap<>();
-            configProps.put((String) producerConfigClass.getField("BOOTSTRAP_SERVERS_CONFIG").get(null), bootstrapServers);
-            configProps.put((String) producerConfigClass.getField("KEY_SERIALIZER_CLASS_CONFIG").get(null), stringSerializerClass);
-            configProps.put((String) producerConfigClass.getField("VALUE_SERIALIZER_CLASS_CONFIG").get(null), jsonSerializerClass);
-            configProps.put((String) producerConfigClass.getField("ENABLE_IDEMPOTENCE_CONFIG").get(null), true);
-            configProps.put((String) producerConfigClass.getField("ACKS_CONFIG").get(null), "all");
-            configProps.put((String) producerConfigClass.getField("RETRIES_CONFIG").get(null), 3);
-            
-            // Configuration pour JsonSerializer - Spring Boot configurera automatiquement l'ObjectMapper
-            // avec support JavaTime via jackson-datatype-jsr310
-            configProps.put("spring.json.add.type.headers", false); // Ne pas ajouter les headers de type
-            
-            Object factory = producerFactoryClass.getConstructor(Map.class).newInstance(configProps);
-            
-            System.out.println("✅ ProducerFactory créé avec JsonSerializer pour HoraireSyncEvent");
-            System.out.println("✅ JsonSerializer utilisera l'ObjectMapper de Spring Boot (avec support JavaTime)");
-            return factory;
-        } catch (Exception e) {
-            System.err.println("❌ Erreur lors de la création de ProducerFactory: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Impossible de créer ProducerFactory", e);
-        }
+    public ProducerFactory<String, HoraireSyncEvent> producerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JacksonJsonSerializer.class);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        
+        // Configuration pour JacksonJsonSerializer (Jackson 3 : dates et heures java.time au format ISO)
+        configProps.put(JacksonJsonSerializer.ADD_TYPE_INFO_HEADERS, false); // Ne pas ajouter les headers de type
+        
+        log.info("✅ ProducerFactory créé pour HoraireSyncEvent (linger.ms={}, batch.size={}, compression={})",
+                lingerMs, batchSize, compression);
+        return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     /**
-     * KafkaTemplate pour publier les événements
+     * KafkaTemplate typé pour publier les événements
      */
     @Bean(name = "kafkaTemplate")
     @Primary
-    public Object kafkaTemplate() {
-        try {
-            Class<?> kafkaTemplateClass = Class.forName("org.springframework.kafka.core.KafkaTemplate");
-            Object producerFactory = producerFactory();
-            Object template = kafkaTemplateClass.getConstructor(
-                    Class.forName("org.springframework.kafka.core.ProducerFactory")
-            ).newInstance(producerFactory);
-            
-            System.out.println("✅ KafkaTemplate créé avec succès pour HoraireSyncEvent");
-            System.out.println("✅ Bootstrap servers: " + bootstrapServers);
-            System.out.println("✅ Topic par défaut: horaire-sync-topic");
-            
-            return template;
-        } catch (Exception e) {
-            System.err.println("❌ Erreur lors de la création de KafkaTemplate: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Impossible de créer KafkaTemplate", e);
-        }
+    public KafkaTemplate<String, HoraireSyncEvent> kafkaTemplate(ProducerFactory<String, HoraireSyncEvent> producerFactory) {
+        log.info("✅ KafkaTemplate créé pour HoraireSyncEvent (bootstrap servers: {})", bootstrapServers);
+        return new KafkaTemplate<>(producerFactory);
     }
 
     /**
      * Configuration du Consumer Kafka pour recevoir les événements
      */
     @Bean
-    public Object consumerFactory() {
-        try {
-            Class<?> consumerConfigClass = Class.forName("org.apache.kafka.clients.consumer.ConsumerConfig");
-            Class<?> stringDeserializerClass = Class.forName("org.apache.kafka.common.serialization.StringDeserializer");
-            Class<?> jsonDeserializerClass = Class.forName("org.springframework.kafka.support.serializer.JsonDeserializer");
-            Class<?> consumerFactoryClass = Class.forName("org.springframework.kafka.core.DefaultKafkaConsumerFactory");
-            
-            Map<String, Object> configProps = new HashMap<>();
-            configProps.put((String) consumerConfigClass.getField("BOOTSTRAP_SERVERS_CONFIG").get(null), bootstrapServers);
-            configProps.put((String) consumerConfigClass.getField("GROUP_ID_CONFIG").get(null), groupId);
-            configProps.put((String) consumerConfigClass.getField("KEY_DESERIALIZER_CLASS_CONFIG").get(null), stringDeserializerClass);
-            configProps.put((String) consumerConfigClass.getField("VALUE_DESERIALIZER_CLASS_CONFIG").get(null), jsonDeserializerClass);
-            configProps.put((String) consumerConfigClass.getField("AUTO_OFFSET_RESET_CONFIG").get(null), "earliest");
-            configProps.put((String) consumerConfigClass.getField("ENABLE_AUTO_COMMIT_CONFIG").get(null), false); // Désactiver auto-commit pour MANUAL_IMMEDIATE
-            
-            // Configuration pour JsonDeserializer
-            // Configuration pour JsonDeserializer via les propriétés du consumer
-            // Ces propriétés seront utilisées par JsonDeserializer
-            configProps.put("spring.json.trusted.packages", "*");
-            configProps.put("spring.json.type.mapping", "horaireSyncEvent:com.matchi.dto.HoraireSyncEventRaw");
-            configProps.put("spring.json.value.default.type", "com.matchi.dto.HoraireSyncEventRaw");
-            // ✅ Ignorer les propriétés inconnues (comme "source" de Django)
-            configProps.put("spring.json.use.type.headers", false);
-            configProps.put("spring.json.add.type.headers", false);
-            
-            // Configuration supplémentaire pour le consumer
-            configProps.put("session.timeout.ms", 30000);
-            configProps.put("heartbeat.interval.ms", 10000);
-            configProps.put("max.poll.records", 10);
-            
-            // ✅ IMPORTANT : S'assurer que le consumer lit depuis le début si pas d'offset commité
-            // auto-offset-reset=earliest signifie : lire depuis le début si le consumer group n'a pas d'offset
-            // Cela permet de lire les messages qui ont été envoyés avant le démarrage de Spring Boot
-            System.out.println("✅ Configuration consumer: auto-offset-reset=earliest (lit depuis le début si pas d'offset)");
-            
-            // ✅ Configuration pour capturer les erreurs de désérialisation
-            configProps.put("spring.json.deserializer.ignore.unknown.properties", true);
-            configProps.put("spring.json.deserializer.fail.on.unknown.properties", false);
-            
-            Object factory = consumerFactoryClass.getConstructor(Map.class).newInstance(configProps);
-            
-            System.out.println("✅ ConsumerFactory créé avec JsonDeserializer pour HoraireSyncEvent");
-            System.out.println("✅ Group ID: " + groupId);
-            System.out.println("✅ Bootstrap servers: " + bootstrapServers);
-            return factory;
-        } catch (Exception e) {
-            System.err.println("❌ Erreur lors de la création de ConsumerFactory: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Impossible de créer ConsumerFactory", e);
-        }
+    public ConsumerFactory<String, HoraireSyncEventRaw> consumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // ✅ Un message illisible ne fait pas échouer le poll : il arrive au listener avec une valeur null
+        // (exception dans les headers) et part dans le topic des lettres mortes
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JacksonJsonDeserializer.class);
+        // ✅ Lire depuis le début si le consumer group n'a pas d'offset commité
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false); // Désactiver auto-commit pour MANUAL_IMMEDIATE
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
+        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 10000);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords); // Taille des lots reçus par le listener
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        
+        // Configuration pour JacksonJsonDeserializer
+        configProps.put(JacksonJsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JacksonJsonDeserializer.TYPE_MAPPINGS, "horaireSyncEvent:com.matchi.dto.HoraireSyncEventRaw");
+        configProps.put(JacksonJsonDeserializer.VALUE_DEFAULT_TYPE, HoraireSyncEventRaw.class.getName());
+        configProps.put(JacksonJsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        // ✅ Ignorer les propriétés inconnues (comme "source" de Django)
+        configProps.put("spring.json.deserializer.ignore.unknown.properties", true);
+        configProps.put("spring.json.deserializer.fail.on.unknown.properties", false);
+        
+        log.info("✅ ConsumerFactory créé pour HoraireSyncEventRaw (group: {}, max.poll.records={}, fetch.min.bytes={}, fetch.max.wait.ms={})",
+                groupId, maxPollRecords, fetchMinBytes, fetchMaxWaitMs);
+        return new DefaultKafkaConsumerFactory<>(configProps);
     }
 
     /**
      * Factory pour les listeners Kafka
+     * 
+     * ✅ Mode lot : un poll complet est remis au listener et acquitté une seule fois (MANUAL_IMMEDIATE)
+     * ✅ Containers concurrents : chacun consomme ses propres partitions. Les messages sont clés
+     * par terrain : un terrain reste sur une partition (ordre conservé) et des terrains différents
+     * sont traités en parallèle
      */
     @Bean(name = "kafkaListenerContainerFactory")
-    public Object kafkaListenerContainerFactory() {
-        try {
-            Class<?> factoryClass = Class.forName("org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory");
-            Class<?> containerPropertiesClass = Class.forName("org.springframework.kafka.listener.ContainerProperties");
-            
-            Object factory = factoryClass.getDeclaredConstructor().newInstance();
-            Object consumerFactory = consumerFactory();
-            factoryClass.getMethod("setConsumerFactory", 
-                    Class.forName("org.springframework.kafka.core.ConsumerFactory")).invoke(factory, consumerFactory);
-            
-            // Configurer le démarrage automatique (par défaut c'est true, mais on le confirme)
-            try {
-                java.lang.reflect.Method[] methods = factoryClass.getMethods();
-                for (java.lang.reflect.Method method : methods) {
-                    if ("setAutoStartup".equals(method.getName()) && method.getParameterCount() == 1) {
-                        method.invoke(factory, true);
-                        System.out.println("✅ Auto-startup activé pour le listener");
-                        break;
-                    }
-                }
-            } catch (Exception e) {
-                System.out.println("ℹ️ Auto-startup sera activé par défaut (méthode non trouvée, mais c'est OK)");
-            }
-            
-            Object containerProps = factoryClass.getMethod("getContainerProperties").invoke(factory);
-            
-            // ✅ Ajouter un listener pour logger les messages reçus
-            try {
-                Class<?> messageListenerClass = Class.forName("org.springframework.kafka.listener.MessageListener");
-                Class<?> recordMessageListenerClass = Class.forName("org.springframework.kafka.listener.adapter.RecordMessagingMessageListenerAdapter");
-                
-                // Créer un wrapper pour logger avant d'appeler le listener réel
-                java.lang.reflect.Method setMessageListenerMethod = containerPropertiesClass.getMethod("setMessageListener", messageListenerClass);
-                
-                // On ne peut pas facilement wrapper avec reflection, donc on va juste améliorer les logs
-                System.out.println("✅ ContainerProperties configuré pour logging des messages");
-            } catch (Exception e) {
-                System.out.println("ℹ️ MessageListener wrapper non configuré (normal)");
-            }
-            
-            // Configurer le nombre de threads concurrents (par défaut 1)
-            try {
-                java.lang.reflect.Method setConcurrencyMethod = factoryClass.getMethod("setConcurrency", int.class);
-                setConcurrencyMethod.invoke(factory, 1);
-                System.out.println("✅ Concurrency configuré: 1 thread");
-            } catch (Exception e) {
-                System.out.println("ℹ️ Concurrency par défaut sera utilisé");
-            }
-            
-            // Essayer MANUAL_IMMEDIATE, sinon utiliser MANUAL
-            try {
-                Enum<?> ackMode = Enum.valueOf(
-                        (Class<Enum>) containerPropertiesClass.getClasses()[0], 
-                        "MANUAL_IMMEDIATE"
-                );
-                containerPropertiesClass.getMethod("setAckMode", containerPropertiesClass.getClasses()[0])
-                        .invoke(containerProps, ackMode);
-                System.out.println("✅ Mode d'acknowledgment: MANUAL_IMMEDIATE");
-            } catch (Exception e) {
-                // Si MANUAL_IMMEDIATE n'existe pas, utiliser MANUAL
-                try {
-                    Enum<?> ackMode = Enum.valueOf(
-                            (Class<Enum>) containerPropertiesClass.getClasses()[0], 
-                            "MANUAL"
-                    );
-                    containerPropertiesClass.getMethod("setAckMode", containerPropertiesClass.getClasses()[0])
-                            .invoke(containerProps, ackMode);
-                    System.out.println("✅ Mode d'acknowledgment: MANUAL (MANUAL_IMMEDIATE non disponible)");
-                } catch (Exception e2) {
-                    System.err.println("⚠️ Impossible de configurer le mode d'acknowledgment: " + e2.getMessage());
-                }
+    public ConcurrentKafkaListenerContainerFactory<String, HoraireSyncEventRaw> kafkaListenerContainerFactory(
+            ConsumerFactory<String, HoraireSyncEventRaw> consumerFactory,
+            KafkaTemplate<String, Object> deadLetterKafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<String, HoraireSyncEventRaw> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setAutoStartup(true);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.setCommonErrorHandler(errorHandler(deadLetterKafkaTemplate));
+        
+        log.info("✅ KafkaListenerContainerFactory créé (mode lot, concurrency={}, ack=MANUAL_IMMEDIATE)", concurrency);
+        return factory;
+    }
+
+    /**
+     * Error handler du listener : le listener signale l'événement en échec (BatchListenerFailedException),
+     * les événements qui le précèdent sont commités et le lot reprend à partir de lui
+     * 
+     * ✅ Panne d'infrastructure (base indisponible...) : réessais sans limite avec backoff exponentiel,
+     * la partition attend le retour de la base au lieu de perdre des événements
+     * ✅ Erreur propre au message (message illisible, données invalides, contrainte violée) : publié dans le
+     * topic des lettres mortes, directement ou après tentativesMax essais
+     */
+    DefaultErrorHandler errorHandler(KafkaTemplate<String, Object> deadLetterKafkaTemplate) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterKafkaTemplate,
+                (record, exception) -> new TopicPartition(topicHoraireSyncDlt, -1)); // Partition choisie par la clé (terrain)
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer,
+                new FixedBackOff(backoffInitialMs, Math.max(tentativesMax - 1, 0)));
+
+        ExponentialBackOff backOffInfrastructure = new ExponentialBackOff(backoffInitialMs, 2.0);
+        backOffInfrastructure.setMaxInterval(backoffMaxMs);
+        errorHandler.setBackOffFunction((record, exception) -> erreurInfrastructure(exception) ? backOffInfrastructure : null);
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class, DataIntegrityViolationException.class);
+        return errorHandler;
+    }
+
+    /**
+     * Erreur transitoire d'accès à la base (connexion perdue, timeout, verrou...) : le message n'est pas en cause
+     */
+    static boolean erreurInfrastructure(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
             }
-            
-            // ✅ Configurer un error handler pour capturer les erreurs de désérialisation
-            try {
-                Class<?> errorHandlerClass = Class.forName("org.springframework.kafka.listener.DefaultErrorHandler");
-                
-                // Créer un error handler avec logging
-                java.lang.reflect.Constructor<?> constructor = errorHandlerClass.getDeclaredConstructor();
-                Object errorHandler = constructor.newInstance();
-                
-                // Configurer l'error handler sur la factory
-                try {
-                    Class<?> commonErrorHandlerClass = Class.forName("org.springframework.kafka.listener.CommonErrorHandler");
-                    java.lang.reflect.Method setErrorHandlerMethod = factoryClass.getMethod("setCommonErrorHandler", commonErrorHandlerClass);
-                    setErrorHandlerMethod.invoke(factory, errorHandler);
-                    System.out.println("✅ Error handler configuré pour capturer les erreurs de désérialisation");
-                } catch (Exception e) {
-                    System.out.println("⚠️ Impossible de configurer l'error handler: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            } catch (Exception e) {
-                System.out.println("⚠️ Error handler non disponible: " + e.getMessage());
-                e.printStackTrace();
+            if (cause.getCause() == cause) {
+                break;
             }
-            
-            System.out.println("✅ KafkaListenerContainerFactory créé");
-            System.out.println("✅ Bean name: kafkaListenerContainerFactory");
-            System.out.println("✅ Le listener DjangoHoraireEventListener devrait maintenant démarrer");
-            return factory;
-        } catch (Exception e) {
-            System.err.println("❌ Erreur lors de la création de KafkaListenerContainerFactory: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Impossible de créer KafkaListenerContainerFactory", e);
         }
+        return false;
+    }
+
+    /**
+     * Producer des lettres mortes : l'événement en échec tel que reçu (JSON), ou ses octets d'origine
+     * s'il n'a pas pu être désérialisé
+     */
+    @Bean
+    public KafkaTemplate<String, Object> deadLetterKafkaTemplate() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        DelegatingByTypeSerializer valueSerializer = new DelegatingByTypeSerializer(Map.of(
+                byte[].class, new ByteArraySerializer(),
+                HoraireSyncEventRaw.class, new JacksonJsonSerializer<HoraireSyncEventRaw>().noTypeInfo()));
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), valueSerializer));
     }
 
     /**
      * Configuration pour créer automatiquement le topic s'il n'existe pas
      */
     @Bean
-    public Object kafkaAdmin() {
-        try {
-            Class<?> adminConfigClass = Class.forName("org.apache.kafka.clients.admin.AdminClientConfig");
-            Class<?> kafkaAdminClass = Class.forName("org.springframework.kafka.core.KafkaAdmin");
-            
-            Map<String, Object> configs = new HashMap<>();
-            configs.put((String) adminConfigClass.getField("BOOTSTRAP_SERVERS_CONFIG").get(null), bootstrapServers);
-            
-            Object admin = kafkaAdminClass.getConstructor(Map.class).newInstance(configs);
-            
-            // Configurer la création automatique des topics
-            java.lang.reflect.Field autoCreateField = kafkaAdminClass.getDeclaredField("autoCreate");
-            autoCreateField.setAccessible(true);
-            autoCreateField.set(admin, true);
-            
-            System.out.println("✅ KafkaAdmin créé avec création automatique des topics activée");
-            return admin;
-        } catch (Exception e) {
-            System.err.println("⚠️ Erreur lors de la création de KafkaAdmin: " + e.getMessage());
-            // Ne pas bloquer le démarrage si KafkaAdmin ne peut pas être créé
-            return null;
-        }
+    public KafkaAdmin kafkaAdmin() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        KafkaAdmin admin = new KafkaAdmin(configs);
+        admin.setAutoCreate(true);
+        // Ne pas bloquer le démarrage si le broker n'est pas joignable
+        admin.setFatalIfBrokerNotAvailable(false);
+        return admin;
     }
 
     /**
-     * Configuration du topic horaire-sync-topic
+     * Configuration du topic de synchronisation : une partition par container concurrent
      */
     @Bean
-    public Object horaireSyncTopic() {
-        try {
-            Class<?> topicClass = Class.forName("org.apache.kafka.clients.admin.NewTopic");
-            
-            // Créer un topic avec 3 partitions et replication factor 1
-            Object topic = topicClass.getConstructor(String.class, int.class, short.class)
-                    .newInstance("horaire-sync-topic", 3, (short) 1);
-            
-            System.out.println("✅ Configuration du topic horaire-sync-topic créée");
-            return topic;
-        } catch (Exception e) {
-            System.err.println("⚠️ Erreur lors de la création de la configuration du topic: " + e.getMessage());
-            return null;
-        }
+    public NewTopic horaireSyncTopic() {
+        log.info("✅ Configuration du topic {} ({} partitions)", topicHoraireSync, partitions);
+        return TopicBuilder.name(topicHoraireSync)
+                .partitions(partitions)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Topic des lettres mortes : événements Django qui n'ont pas pu être appliqués
+     */
+    @Bean
+    public NewTopic horaireSyncDltTopic() {
+        return TopicBuilder.name(topicHoraireSyncDlt)
+                .partitions(partitions)
+                .replicas(1)
+                .build();
     }
 }
@@ -3,12 +3,15 @@ package com.matchi.controller;
 import com.matchi.dto.AbonnementDTO;
 import com.matchi.dto.AbonnementCreateDTO;
 import com.matchi.dto.AbonnementUpdateDTO;
+import com.matchi.dto.PageCurseur;
 import com.matchi.service.AbonnementService;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,10 +22,12 @@ public class AbonnementController {
     private final AbonnementService abonnementService;
 
     // ===== GET ALL =====
+    // Abonnements actifs : tous sans paramètre, sinon par pages (curseur dans l'en-tête X-Next-Cursor)
     @GetMapping
-    public ResponseEntity<List<AbonnementDTO>> getAllAbonnements() {
-        List<AbonnementDTO> list = abonnementService.getAllAbonnements();
-        return ResponseEntity.ok(list);
+    public ResponseEntity<List<AbonnementDTO>> getAllAbonnements(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return PageCurseur.reponse(cursor, size, abonnementService::getAllAbonnements);
     }
 
     // ===== GET BY ID =====
@@ -71,4 +76,17 @@ public class AbonnementController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // Supprime une seule occurrence (matérialisée ou non) sans toucher au reste de la série
+    @DeleteMapping("/{id}/occurrences/{date}")
+    public ResponseEntity<Void> supprimerOccurrence(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            abonnementService.supprimerOccurrence(id, date);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.matchi.controller;
 
 import com.matchi.dto.AbonnementHoraireDTO;
+import com.matchi.dto.PageCurseur;
 import com.matchi.service.AbonnementHoraireService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,9 +17,16 @@ public class AbonnementHoraireController {
     private final AbonnementHoraireService horaireService;
 
     // ======== GET ALL ========
+    // Tous les horaires sans paramètre (y compris passés, comme avant la pagination),
+    // sinon horaires en cours ou à venir par pages (curseur dans l'en-tête X-Next-Cursor)
     @GetMapping
-    public ResponseEntity<List<AbonnementHoraireDTO>> getAllHoraires() {
-        return ResponseEntity.ok(horaireService.getAllHoraires());
+    public ResponseEntity<List<AbonnementHoraireDTO>> getAllHoraires(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(horaireService.getAllHoraires());
+        }
+        return horaireService.getAllHoraires(cursor, PageCurseur.taille(size)).versReponse();
     }
 
     // ======== GET BY ID ========
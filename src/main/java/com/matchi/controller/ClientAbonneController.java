@@ -1,8 +1,10 @@
 package com.matchi.controller;
 
 import com.matchi.dto.ClientAbonneDTO;
+import com.matchi.dto.PageCurseur;
 import com.matchi.service.ClientAbonneService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -41,10 +43,12 @@ public class ClientAbonneController {
         return service.findById(id);
     }
 
-    // 🔹 5. Lister tous les clients
+    // 🔹 5. Lister les clients : tous sans paramètre, sinon par pages (curseur dans l'en-tête X-Next-Cursor)
     @GetMapping
-    public List<ClientAbonneDTO> findAll() {
-        return service.findAll();
+    public ResponseEntity<List<ClientAbonneDTO>> findAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return PageCurseur.reponse(cursor, size, service::findAll);
     }
 
     // 🔹 6. Trouver un client par téléphone
@@ -1,12 +1,17 @@
 package com.matchi.controller;
 
+import com.matchi.dto.CreneauLibreDTO;
 import com.matchi.dto.DisponibiliteResponseDTO;
 import com.matchi.service.DisponibiliteService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/disponibilites")
 @RequiredArgsConstructor
@@ -30,4 +35,17 @@ public class DisponibiliteController {
         DisponibiliteResponseDTO response = disponibiliteService.getHorairesIndisponiblesParTerrain(terrainId);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Retourne les créneaux libres d'un terrain entre deux dates (incluses),
+     * dans la limite des heures d'ouverture du terrain (créneaux de 15 minutes)
+     */
+    @GetMapping("/creneaux-libres/terrain/{terrainId}")
+    public ResponseEntity<List<CreneauLibreDTO>> getCreneauxLibresParTerrain(
+            @PathVariable Long terrainId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin
+    ) {
+        return ResponseEntity.ok(disponibiliteService.getCreneauxLibresParTerrain(terrainId, dateDebut, dateFin));
+    }
 }
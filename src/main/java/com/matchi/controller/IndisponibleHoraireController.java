@@ -1,12 +1,19 @@
 package com.matchi.controller;
 
 import com.matchi.dto.IndisponibleHoraireDTO;
+import com.matchi.dto.PageCurseur;
+import com.matchi.dto.SynchronisationMetriquesDTO;
+import com.matchi.service.ExportNdjsonService;
 import com.matchi.service.IndisponibleHoraireService;
+import com.matchi.service.SynchronisationHoraireScheduler;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,14 +25,38 @@ import java.util.List;
 public class IndisponibleHoraireController {
 
     private final IndisponibleHoraireService indisponibleHoraireService;
+    private final SynchronisationHoraireScheduler synchronisationHoraireScheduler;
+    private final ExportNdjsonService exportNdjsonService;
+
+    @Value("${horaire.export.timeout-ms:600000}")
+    private long exportTimeoutMs;
 
     /**
-     * Récupérer tous les horaires indisponibles
+     * Récupérer les horaires indisponibles en cours ou à venir : tous sans paramètre,
+     * sinon par pages (curseur dans l'en-tête X-Next-Cursor)
      */
     @GetMapping
-    public ResponseEntity<List<IndisponibleHoraireDTO>> getAllIndisponibles() {
-        List<IndisponibleHoraireDTO> horaires = indisponibleHoraireService.getAllIndisponibles();
-        return ResponseEntity.ok(horaires);
+    public ResponseEntity<List<IndisponibleHoraireDTO>> getAllIndisponibles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return PageCurseur.reponse(cursor, size, indisponibleHoraireService::getAllIndisponibles);
+    }
+
+    /**
+     * Exporter tous les horaires indisponibles (bornes de dates facultatives) au format NDJSON,
+     * écrit en flux : un horaire par ligne, sans charger la liste en mémoire.
+     * Délai maximal propre à l'export (horaire.export.timeout-ms), les autres requêtes gardent celui par défaut
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exporterIndisponibles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            HttpServletResponse response) {
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            response.setContentType("application/x-ndjson");
+            exportNdjsonService.exporterIndisponibles(debut, fin, response.getOutputStream());
+            return null;
+        });
     }
 
     /**
@@ -79,6 +110,14 @@ public class IndisponibleHoraireController {
         return ResponseEntity.ok("Synchronisation terminée pour tous les terrains");
     }
 
+    /**
+     * Métriques du planificateur de synchronisation (files d'attente, ratio de regroupement)
+     */
+    @GetMapping("/synchronisation/metriques")
+    public ResponseEntity<SynchronisationMetriquesDTO> getMetriquesSynchronisation() {
+        return ResponseEntity.ok(synchronisationHoraireScheduler.getMetriques());
+    }
+
     /**
      * Ajouter un horaire indisponible manuellement
      */
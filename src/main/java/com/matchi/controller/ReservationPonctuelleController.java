@@ -1,11 +1,18 @@
 package com.matchi.controller;
 
+import com.matchi.dto.PageCurseur;
 import com.matchi.dto.ReservationPonctuelleDTO;
+import com.matchi.service.ExportNdjsonService;
 import com.matchi.service.ReservationPonctuelleService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -14,10 +21,38 @@ import java.util.List;
 public class ReservationPonctuelleController {
 
     private final ReservationPonctuelleService reservationService;
+    private final ExportNdjsonService exportNdjsonService;
 
+    @Value("${horaire.export.timeout-ms:600000}")
+    private long exportTimeoutMs;
+
+    /**
+     * Réservations en cours ou à venir : toutes si ni "cursor" ni "size" n'est fourni,
+     * sinon par pages de "size" éléments (100 par défaut, 500 au plus).
+     * La page suivante est demandée avec le curseur retourné dans l'en-tête X-Next-Cursor (absent sur la dernière page).
+     */
     @GetMapping
-    public ResponseEntity<List<ReservationPonctuelleDTO>> getAllReservations() {
-        return ResponseEntity.ok(reservationService.getAllReservations());
+    public ResponseEntity<List<ReservationPonctuelleDTO>> getAllReservations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return PageCurseur.reponse(cursor, size, reservationService::getAllReservations);
+    }
+
+    /**
+     * Export de toutes les réservations (bornes de dates facultatives) au format NDJSON,
+     * écrit en flux : une réservation par ligne, sans charger la liste en mémoire.
+     * Délai maximal propre à l'export (horaire.export.timeout-ms), les autres requêtes gardent celui par défaut
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exporterReservations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            HttpServletResponse response) {
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            response.setContentType("application/x-ndjson");
+            exportNdjsonService.exporterReservations(debut, fin, response.getOutputStream());
+            return null;
+        });
     }
 
     @GetMapping("/{id}")
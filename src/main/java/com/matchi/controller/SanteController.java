@@ -0,0 +1,29 @@
+package com.matchi.controller;
+
+import com.matchi.dto.KafkaSanteDTO;
+import com.matchi.service.KafkaAvailabilityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sante")
+@RequiredArgsConstructor
+public class SanteController {
+
+    private final KafkaAvailabilityService kafkaAvailabilityService;
+
+    /**
+     * État de santé du broker Kafka (200 si disponible, 503 sinon)
+     * GET /api/sante/kafka
+     */
+    @GetMapping("/kafka")
+    public ResponseEntity<KafkaSanteDTO> getSanteKafka() {
+        KafkaSanteDTO sante = kafkaAvailabilityService.getSante();
+        return ResponseEntity.status(sante.disponible() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(sante);
+    }
+}
@@ -1,20 +1,77 @@
 package com.matchi.controller;
 
 import com.matchi.dto.ClientAbonneDTO;
+import com.matchi.dto.DashboardStatistiquesDTO;
+import com.matchi.dto.GranulariteStatistique;
+import com.matchi.dto.StatistiquesAbonnementsDTO;
+import com.matchi.dto.StatistiquesPeriodeDTO;
 import com.matchi.service.StatistiqueService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/statistiques")
 @RequiredArgsConstructor
 public class StatistiqueController {
 
+    private static final Set<String> TRIS_CLIENTS = Set.of("id", "nom", "prenom", "telephone");
+    private static final int TAILLE_PAGE_MAX = 500;
+
     private final StatistiqueService statistiqueService;
 
+    /**
+     * Retourne toutes les statistiques du tableau de bord d'un terrain en un seul appel
+     * (remplace les appels séparés aux endpoints ci-dessous)
+     * GET /api/statistiques/terrains/{terrainId}/dashboard
+     */
+    @GetMapping("/terrains/{terrainId}/dashboard")
+    public DashboardStatistiquesDTO getDashboard(@PathVariable Long terrainId) {
+        return statistiqueService.getDashboard(terrainId);
+    }
+
+    /**
+     * Retourne le nombre et le revenu des abonnements d'un terrain pour chaque statut
+     * GET /api/statistiques/terrains/{terrainId}/abonnements
+     */
+    @GetMapping("/terrains/{terrainId}/abonnements")
+    public List<StatistiquesAbonnementsDTO> getStatistiquesAbonnements(@PathVariable Long terrainId) {
+        return statistiqueService.getStatistiquesAbonnements(terrainId);
+    }
+
+    /**
+     * Retourne le nombre et le revenu des abonnements par statut pour tous les terrains d'un propriétaire
+     * GET /api/statistiques/proprietaires/{proprietaireId}/abonnements
+     */
+    @GetMapping("/proprietaires/{proprietaireId}/abonnements")
+    public List<StatistiquesAbonnementsDTO> getStatistiquesAbonnementsProprietaire(@PathVariable Long proprietaireId) {
+        return statistiqueService.getStatistiquesAbonnementsProprietaire(proprietaireId);
+    }
+
+    /**
+     * Retourne les statistiques d'un terrain par jour, semaine ou mois sur une période
+     * (revenus, nombre de créneaux, taux d'occupation)
+     * GET /api/statistiques/terrains/{terrainId}/periodes?debut=2026-01-01&fin=2026-03-31&granularite=SEMAINE
+     */
+    @GetMapping("/terrains/{terrainId}/periodes")
+    public List<StatistiquesPeriodeDTO> getStatistiquesParPeriode(
+            @PathVariable Long terrainId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(defaultValue = "JOUR") GranulariteStatistique granularite) {
+        return statistiqueService.getStatistiquesParPeriode(terrainId, debut, fin, granularite);
+    }
+
     /**
      * Retourne le nombre d'abonnements actifs pour un terrain donné
      * GET /api/statistiques/terrains/{terrainId}/abonnements-actifs
@@ -54,11 +111,30 @@ public class StatistiqueController {
     /**
      * Retourne la liste des clients qui ont fait une transaction (abonnement ou réservation ponctuelle)
      * avec un terrain donné
-     * GET /api/statistiques/terrains/{terrainId}/clients
+     * GET /api/statistiques/terrains/{terrainId}/clients?page=0&size=50&sort=nom&direction=asc
+     *
+     * Sans paramètre "page", tous les clients sont retournés (compatibilité).
+     * Le nombre total de clients est retourné dans l'en-tête X-Total-Count.
      */
     @GetMapping("/terrains/{terrainId}/clients")
-    public List<ClientAbonneDTO> getClientsParTerrain(@PathVariable Long terrainId) {
-        return statistiqueService.getClientsParTerrain(terrainId);
+    public ResponseEntity<List<ClientAbonneDTO>> getClientsParTerrain(
+            @PathVariable Long terrainId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "nom") String sort,
+            @RequestParam(defaultValue = "asc") String direction) {
+        if (!TRIS_CLIENTS.contains(sort)) {
+            throw new IllegalArgumentException("Tri invalide: " + sort + " (valeurs possibles: " + TRIS_CLIENTS + ")");
+        }
+        Sort tri = Sort.by(Sort.Direction.fromString(direction), sort).and(Sort.by("id"));
+        Pageable pageable = page != null
+                ? PageRequest.of(page, Math.min(Math.max(size, 1), TAILLE_PAGE_MAX), tri)
+                : Pageable.unpaged(tri);
+
+        Page<ClientAbonneDTO> clients = statistiqueService.getClientsParTerrain(terrainId, pageable);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(clients.getTotalElements()))
+                .body(clients.getContent());
     }
 
     @GetMapping("/terrains/{terrainId}/reservations-hier")
@@ -1,8 +1,10 @@
 package com.matchi.controller;
 
+import com.matchi.dto.PageCurseur;
 import com.matchi.dto.TerrainServiceDTO;
 import com.matchi.service.TerrainServiceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,10 +16,12 @@ public class TerrainServiceController {
 
     private final TerrainServiceService terrainServiceService;
 
-    // 🔹 Récupérer tous les terrains
+    // 🔹 Récupérer les terrains : tous sans paramètre, sinon par pages (curseur dans l'en-tête X-Next-Cursor)
     @GetMapping
-    public List<TerrainServiceDTO> getAllTerrains() {
-        return terrainServiceService.getAllTerrains();
+    public ResponseEntity<List<TerrainServiceDTO>> getAllTerrains(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return PageCurseur.reponse(cursor, size, terrainServiceService::getAllTerrains);
     }
 
     // 🔹 Récupérer un terrain par ID
@@ -4,6 +4,7 @@ import com.matchi.model.StatutAbonnement;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class AbonnementDTO {
@@ -34,6 +35,12 @@ public class AbonnementDTO {
         this.horaires = horaires;
     }
 
+    // Projection JPQL : les horaires sont renseignés ensuite
+    public AbonnementDTO(Long id, Long terrainId, Long clientId, LocalDate dateDebut, LocalDate dateFin,
+                         BigDecimal prixTotal, StatutAbonnement status, LocalDateTime createdAt) {
+        this(id, terrainId, clientId, dateDebut, dateFin, prixTotal, status, createdAt, new ArrayList<>());
+    }
+
     // ===== Getters & Setters =====
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,14 @@
+package com.matchi.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * DTO représentant un créneau libre d'un terrain
+ * (heureFin < heureDebut signifie que le créneau se termine le lendemain)
+ */
+public record CreneauLibreDTO(
+        LocalDate date,
+        LocalTime heureDebut,
+        LocalTime heureFin
+) {}
@@ -0,0 +1,42 @@
+package com.matchi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Position dans une liste triée par (date, heureDebut, id) : dernière ligne de la page précédente.
+ * Transmise au client sous forme opaque (Base64 URL). Une heureDebut NULL (triée en tête de sa date)
+ * est encodée vide.
+ */
+public record CurseurCreneau(LocalDate date, LocalTime heureDebut, Long id) {
+
+    /**
+     * Position de départ : avant toute ligne à partir de la date donnée
+     */
+    public static CurseurCreneau avant(LocalDate date) {
+        return new CurseurCreneau(date.minusDays(1), LocalTime.MIDNIGHT, 0L);
+    }
+
+    public String encoder() {
+        String valeur = date + "|" + (heureDebut != null ? heureDebut : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valeur.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return la position décodée, ou null si aucun curseur n'est fourni
+     */
+    public static CurseurCreneau decoder(String curseur) {
+        if (curseur == null || curseur.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8).split("\\|");
+            LocalTime heureDebut = parties[1].isEmpty() ? null : LocalTime.parse(parties[1]);
+            return new CurseurCreneau(LocalDate.parse(parties[0]), heureDebut, Long.valueOf(parties[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + curseur);
+        }
+    }
+}
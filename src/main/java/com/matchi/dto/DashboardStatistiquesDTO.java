@@ -0,0 +1,17 @@
+package com.matchi.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO regroupant toutes les statistiques du tableau de bord d'un terrain
+ */
+public record DashboardStatistiquesDTO(
+        Long terrainId,
+        Long reservationsAujourdhui,
+        BigDecimal revenuReservationsAujourdhui,
+        Long reservationsHier,
+        BigDecimal revenuReservationsHier,
+        Long abonnementsActifs,
+        BigDecimal revenuAbonnementsActifs,
+        Long nombreClients
+) {}
@@ -0,0 +1,36 @@
+package com.matchi.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Granularité des statistiques par période (semaines ISO : du lundi au dimanche)
+ */
+public enum GranulariteStatistique {
+    JOUR,
+    SEMAINE,
+    MOIS;
+
+    /**
+     * Premier jour de la période contenant la date
+     */
+    public LocalDate debutPeriode(LocalDate date) {
+        return switch (this) {
+            case JOUR -> date;
+            case SEMAINE -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MOIS -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Premier jour de la période suivante
+     */
+    public LocalDate periodeSuivante(LocalDate debutPeriode) {
+        return switch (this) {
+            case JOUR -> debutPeriode.plusDays(1);
+            case SEMAINE -> debutPeriode.plusWeeks(1);
+            case MOIS -> debutPeriode.plusMonths(1);
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.matchi.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de l'état de santé du broker Kafka
+ */
+public record KafkaSanteDTO(
+        boolean disponible,
+        String detail,
+        LocalDateTime derniereVerification,
+        LocalDateTime dernierChangement
+) {}
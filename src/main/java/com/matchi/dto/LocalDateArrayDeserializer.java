@@ -1,12 +1,12 @@
 package com.matchi.dto;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.io.IOException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.ValueDeserializer;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -14,14 +14,14 @@ import java.util.List;
  * Désérialiseur personnalisé pour LocalDate depuis un tableau [année, mois, jour]
  * ou depuis une chaîne ISO
  */
-public class LocalDateArrayDeserializer extends JsonDeserializer<LocalDate> {
+public class LocalDateArrayDeserializer extends ValueDeserializer<LocalDate> {
     
     private static final Logger log = LoggerFactory.getLogger(LocalDateArrayDeserializer.class);
     
     @Override
-    public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+    public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) {
         try {
-            JsonToken token = p.getCurrentToken();
+            JsonToken token = p.currentToken();
             if (token == null || token == JsonToken.VALUE_NULL) {
                 log.debug("🔍 LocalDateArrayDeserializer: token null ou VALUE_NULL");
                 return null;
@@ -44,7 +44,7 @@ public class LocalDateArrayDeserializer extends JsonDeserializer<LocalDate> {
                     }
                 } catch (Exception e) {
                     log.error("❌ LocalDateArrayDeserializer: erreur lors de la lecture du tableau: {}", e.getMessage());
-                    throw new IOException("Erreur lors de la désérialisation du tableau LocalDate", e);
+                    throw DatabindException.from(p, "Erreur lors de la désérialisation du tableau LocalDate", e);
                 }
             }
             
@@ -69,7 +69,7 @@ public class LocalDateArrayDeserializer extends JsonDeserializer<LocalDate> {
             return null;
         } catch (Exception e) {
             log.error("❌ LocalDateArrayDeserializer: erreur inattendue: {}", e.getMessage(), e);
-            throw new IOException("Erreur lors de la désérialisation de LocalDate", e);
+            throw DatabindException.from(p, "Erreur lors de la désérialisation de LocalDate", e);
         }
     }
 }
@@ -1,12 +1,12 @@
 package com.matchi.dto;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.io.IOException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.ValueDeserializer;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -14,14 +14,14 @@ import java.util.List;
  * Désérialiseur personnalisé pour LocalTime depuis un tableau [heure, minute, seconde]
  * ou depuis une chaîne ISO
  */
-public class LocalTimeArrayDeserializer extends JsonDeserializer<LocalTime> {
+public class LocalTimeArrayDeserializer extends ValueDeserializer<LocalTime> {
     
     private static final Logger log = LoggerFactory.getLogger(LocalTimeArrayDeserializer.class);
     
     @Override
-    public LocalTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+    public LocalTime deserialize(JsonParser p, DeserializationContext ctxt) {
         try {
-            JsonToken token = p.getCurrentToken();
+            JsonToken token = p.currentToken();
             if (token == null || token == JsonToken.VALUE_NULL) {
                 log.debug("🔍 LocalTimeArrayDeserializer: token null ou VALUE_NULL");
                 return null;
@@ -44,7 +44,7 @@ public class LocalTimeArrayDeserializer extends JsonDeserializer<LocalTime> {
                     }
                 } catch (Exception e) {
                     log.error("❌ LocalTimeArrayDeserializer: erreur lors de la lecture du tableau: {}", e.getMessage());
-                    throw new IOException("Erreur lors de la désérialisation du tableau LocalTime", e);
+                    throw DatabindException.from(p, "Erreur lors de la désérialisation du tableau LocalTime", e);
                 }
             }
             
@@ -77,7 +77,7 @@ public class LocalTimeArrayDeserializer extends JsonDeserializer<LocalTime> {
             return null;
         } catch (Exception e) {
             log.error("❌ LocalTimeArrayDeserializer: erreur inattendue: {}", e.getMessage(), e);
-            throw new IOException("Erreur lors de la désérialisation de LocalTime", e);
+            throw DatabindException.from(p, "Erreur lors de la désérialisation de LocalTime", e);
         }
     }
 }
@@ -0,0 +1,90 @@
+package com.matchi.dto;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Page d'une liste parcourue par curseur (pagination "keyset") : la page suivante est demandée
+ * avec curseurSuivant, null sur la dernière page. Le coût d'une page ne dépend pas de sa position.
+ */
+public record PageCurseur<T>(List<T> elements, String curseurSuivant) {
+
+    public static final int TAILLE_DEFAUT = 100;
+    public static final int TAILLE_MAX = 500;
+
+    /**
+     * Taille de page bornée entre 1 et TAILLE_MAX
+     */
+    public static int taille(Integer demandee) {
+        if (demandee == null) {
+            return TAILLE_DEFAUT;
+        }
+        return Math.min(Math.max(demandee, 1), TAILLE_MAX);
+    }
+
+    /**
+     * Construit la page à partir d'au plus taille + 1 lignes lues : la ligne en trop indique qu'une page suit
+     */
+    public static <T> PageCurseur<T> depuis(List<T> lignes, int taille, Function<T, String> curseur) {
+        if (lignes.size() <= taille) {
+            return new PageCurseur<>(lignes, null);
+        }
+        List<T> elements = lignes.subList(0, taille);
+        return new PageCurseur<>(elements, curseur.apply(elements.get(taille - 1)));
+    }
+
+    /**
+     * Dernier ID lu pour une liste triée par ID (0 si aucun curseur n'est fourni)
+     */
+    public static long idApres(String curseur) {
+        if (curseur == null || curseur.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(curseur);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + curseur);
+        }
+    }
+
+    /**
+     * Réponse d'un endpoint de liste : sans cursor ni size, la liste complète comme avant la pagination
+     * (lue par pages de TAILLE_MAX) ; sinon la page demandée
+     */
+    public static <T> ResponseEntity<List<T>> reponse(String curseur, Integer taille,
+                                                      BiFunction<String, Integer, PageCurseur<T>> pages) {
+        if (curseur == null && taille == null) {
+            return ResponseEntity.ok(toutes(pages));
+        }
+        return pages.apply(curseur, taille(taille)).versReponse();
+    }
+
+    /**
+     * Parcourt toutes les pages d'une liste
+     */
+    public static <T> List<T> toutes(BiFunction<String, Integer, PageCurseur<T>> pages) {
+        List<T> elements = new ArrayList<>();
+        String curseur = null;
+        do {
+            PageCurseur<T> page = pages.apply(curseur, TAILLE_MAX);
+            elements.addAll(page.elements());
+            curseur = page.curseurSuivant();
+        } while (curseur != null);
+        return elements;
+    }
+
+    /**
+     * Réponse HTTP : les éléments dans le corps, le curseur de la page suivante dans l'en-tête X-Next-Cursor
+     */
+    public ResponseEntity<List<T>> versReponse() {
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.ok();
+        if (curseurSuivant != null) {
+            reponse.header("X-Next-Cursor", curseurSuivant);
+        }
+        return reponse.body(elements);
+    }
+}
@@ -0,0 +1,15 @@
+package com.matchi.dto;
+
+import com.matchi.model.StatutAbonnement;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO des statistiques d'abonnements d'un terrain pour un statut donné
+ */
+public record StatistiquesAbonnementsDTO(
+        Long terrainId,
+        StatutAbonnement status,
+        Long nombre,
+        BigDecimal revenu
+) {}
@@ -0,0 +1,21 @@
+package com.matchi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO des statistiques d'un terrain sur une période (jour, semaine ou mois)
+ * tauxOccupation = minutesReservees / minutesOuvertes (null si les heures d'ouverture du terrain sont inconnues)
+ */
+public record StatistiquesPeriodeDTO(
+        LocalDate debut,
+        LocalDate fin,
+        Long reservations,
+        BigDecimal revenuReservations,
+        Long creneauxAbonnement,
+        BigDecimal revenuAbonnements,
+        BigDecimal revenuTotal,
+        Long minutesReservees,
+        Long minutesOuvertes,
+        Double tauxOccupation
+) {}
@@ -0,0 +1,17 @@
+package com.matchi.dto;
+
+/**
+ * DTO des métriques du planificateur de synchronisation des horaires indisponibles
+ * (ratioRegroupement = demandes reçues / synchronisations exécutées ; synchronisationsAbandonnees =
+ * demandes perdues après épuisement des tentatives ou sur erreur définitive)
+ */
+public record SynchronisationMetriquesDTO(
+        int terrainsEnAttente,
+        int tachesEnFile,
+        int workersActifs,
+        long demandesRecues,
+        long synchronisationsExecutees,
+        long synchronisationsEchouees,
+        long synchronisationsAbandonnees,
+        double ratioRegroupement
+) {}
@@ -1,7 +1,17 @@
 package com.matchi.event;
 
+import java.util.Set;
+
 /**
  * Événement déclenché lorsqu'un horaire d'abonnement est ajouté ou modifié.
  * Utilisé pour synchroniser automatiquement la table indisponible_horaire.
+ *
+ * @param sourceIds IDs des AbonnementHoraire créés, modifiés ou supprimés
+ *                  (null = resynchronisation complète du terrain)
  */
-public record AbonnementHoraireChangeEvent(Long terrainId) {}
+public record AbonnementHoraireChangeEvent(Long terrainId, Set<Long> sourceIds) {
+
+    public AbonnementHoraireChangeEvent(Long terrainId) {
+        this(terrainId, null);
+    }
+}
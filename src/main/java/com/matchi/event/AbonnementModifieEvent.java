@@ -1,7 +1,17 @@
 package com.matchi.event;
 
+import java.util.Set;
+
 /**
  * Événement publié lorsqu'un abonnement est modifié ou supprimé
  * pour déclencher la synchronisation des horaires indisponibles APRÈS le commit
+ *
+ * @param sourceIds IDs des AbonnementHoraire créés, modifiés ou supprimés
+ *                  (null = resynchronisation complète du terrain)
  */
-public record AbonnementModifieEvent(Long terrainId) {}
+public record AbonnementModifieEvent(Long terrainId, Set<Long> sourceIds) {
+
+    public AbonnementModifieEvent(Long terrainId) {
+        this(terrainId, null);
+    }
+}
@@ -0,0 +1,7 @@
+package com.matchi.event;
+
+/**
+ * Événement publié lorsque la disponibilité du broker Kafka change
+ * (détectée par la sonde périodique de KafkaAvailabilityService)
+ */
+public record KafkaEtatChangeEvent(boolean disponible, String detail) {}
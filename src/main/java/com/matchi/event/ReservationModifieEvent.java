@@ -1,7 +1,17 @@
 package com.matchi.event;
 
+import java.util.Set;
+
 /**
  * Événement publié lorsqu'une réservation ponctuelle est modifiée ou supprimée
  * pour déclencher la synchronisation des horaires indisponibles APRÈS le commit
+ *
+ * @param sourceIds IDs des ReservationPonctuelle créées, modifiées ou supprimées
+ *                  (null = resynchronisation complète du terrain)
  */
-public record ReservationModifieEvent(Long terrainId) {}
+public record ReservationModifieEvent(Long terrainId, Set<Long> sourceIds) {
+
+    public ReservationModifieEvent(Long terrainId) {
+        this(terrainId, null);
+    }
+}
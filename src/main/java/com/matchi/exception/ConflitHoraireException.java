@@ -0,0 +1,23 @@
+package com.matchi.exception;
+
+import java.util.List;
+
+/**
+ * Exception levée lorsqu'un ou plusieurs créneaux demandés chevauchent des créneaux déjà occupés.
+ * Contient la liste complète des conflits détectés (un message par conflit).
+ */
+public class ConflitHoraireException extends IllegalArgumentException {
+
+    private final List<String> conflits;
+
+    public ConflitHoraireException(List<String> conflits) {
+        super(conflits.size() == 1
+                ? conflits.get(0)
+                : String.format("%d conflits détectés :%n - %s", conflits.size(), String.join(System.lineSeparator() + " - ", conflits)));
+        this.conflits = List.copyOf(conflits);
+    }
+
+    public List<String> getConflits() {
+        return conflits;
+    }
+}
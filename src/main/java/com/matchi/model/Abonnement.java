@@ -9,6 +9,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(name = "abonnement",
+       indexes = {
+           // Statistiques et listes filtrées par statut
+           @Index(name = "idx_abonnement_terrain_status", columnList = "terrain_id, status"),
+           @Index(name = "idx_abonnement_client_status", columnList = "client_id, status")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -7,6 +7,10 @@ import java.time.LocalTime;
 import java.time.LocalDate;
 
 @Entity
+@Table(name = "abonnement_horaire",
+       indexes = {
+           @Index(name = "idx_abonnement_horaire_abonnement_date", columnList = "abonnement_id, date")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
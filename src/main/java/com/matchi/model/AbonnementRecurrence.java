@@ -0,0 +1,110 @@
+package com.matchi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Règle de récurrence hebdomadaire d'un créneau d'abonnement, stockée une seule fois.
+ *
+ * Les occurrences (dateDebut + n semaines, jusqu'à dateFin incluse, hors dates d'exception)
+ * ne sont matérialisées en AbonnementHoraire que jusqu'à l'horizon glissant
+ * (horaire.recurrence.horizon-semaines) : au-delà de materialiseJusqua, elles sont
+ * dépliées à la volée par les contrôles de conflits et le calcul des créneaux libres.
+ * Une règle entièrement matérialisée est supprimée.
+ */
+@Entity
+@Table(name = "abonnement_recurrence",
+       indexes = {
+           @Index(name = "idx_abonnement_recurrence_terrain_fin", columnList = "terrain_id, date_fin"),
+           @Index(name = "idx_abonnement_recurrence_abonnement", columnList = "abonnement_id")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AbonnementRecurrence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "abonnement_id", nullable = false)
+    private Long abonnementId;
+
+    @Column(name = "terrain_id", nullable = false)
+    private Long terrainId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "jour_semaine", nullable = false)
+    private JourSemaine jourSemaine;
+
+    @Column(name = "heure_debut", nullable = false)
+    private LocalTime heureDebut;
+
+    @Column(name = "heure_fin", nullable = false)
+    private LocalTime heureFin;
+
+    @Column(name = "prix_heure", precision = 38, scale = 2)
+    private BigDecimal prixHeure;
+
+    // Première et dernière occurrence de la série (incluses)
+    @Column(name = "date_debut", nullable = false)
+    private LocalDate dateDebut;
+
+    @Column(name = "date_fin", nullable = false)
+    private LocalDate dateFin;
+
+    // Les occurrences jusqu'à cette date (incluse) existent déjà en AbonnementHoraire
+    @Column(name = "materialise_jusqua", nullable = false)
+    private LocalDate materialiseJusqua;
+
+    // Occurrences supprimées individuellement (ou jamais générées)
+    @ElementCollection
+    @CollectionTable(name = "abonnement_recurrence_exception",
+                     joinColumns = @JoinColumn(name = "recurrence_id"))
+    @Column(name = "date", nullable = false)
+    @Builder.Default
+    private Set<LocalDate> exceptions = new HashSet<>();
+
+    /**
+     * Occurrences de la règle strictement après la date "apres" (null : depuis le début de la série)
+     * et jusqu'à "jusqua" (incluse), hors exceptions
+     */
+    public List<LocalDate> occurrences(LocalDate apres, LocalDate jusqua) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate fin = dateFin.isBefore(jusqua) ? dateFin : jusqua;
+        LocalDate date = dateDebut;
+        if (apres != null && !date.isAfter(apres)) {
+            date = date.plusWeeks(ChronoUnit.WEEKS.between(date, apres) + 1);
+        }
+        for (; !date.isAfter(fin); date = date.plusWeeks(1)) {
+            if (!exceptions.contains(date)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Occurrences non matérialisées (après materialiseJusqua) comprises dans la période [debut, fin]
+     */
+    public List<LocalDate> occurrencesNonMaterialisees(LocalDate debut, LocalDate fin) {
+        LocalDate veille = debut.minusDays(1);
+        return occurrences(materialiseJusqua.isBefore(veille) ? veille : materialiseJusqua, fin);
+    }
+
+    /**
+     * Toutes les occurrences non matérialisées, jusqu'à la fin de la série
+     */
+    public List<LocalDate> occurrencesNonMaterialisees() {
+        return occurrences(materialiseJusqua, dateFin);
+    }
+}
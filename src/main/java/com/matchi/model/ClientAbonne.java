@@ -5,6 +5,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(name = "client_abonne",
+       indexes = {
+           @Index(name = "idx_client_abonne_telephone", columnList = "telephone")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -10,6 +10,13 @@ import java.util.UUID;
 @Table(name = "indisponible_horaire", 
        uniqueConstraints = {
            @UniqueConstraint(name = "uk_horaire_source", columnNames = {"terrain_id", "type_reservation", "source_id"})
+       },
+       indexes = {
+           // Conflits et disponibilités : terrain + date (+ heure de début)
+           // (terrain + type de réservation est couvert par le préfixe de uk_horaire_source)
+           @Index(name = "idx_indisponible_terrain_date", columnList = "terrain_id, date, heure_debut"),
+           // Synchronisation par sources (findByTypeReservationAndSourceIdIn)
+           @Index(name = "idx_indisponible_type_source", columnList = "type_reservation, source_id")
        })
 @Data
 @NoArgsConstructor
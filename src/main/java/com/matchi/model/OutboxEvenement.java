@@ -0,0 +1,58 @@
+package com.matchi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Événement de synchronisation en attente de publication sur Kafka (outbox transactionnelle).
+ * Écrit dans la même transaction que la modification de l'horaire indisponible,
+ * puis relayé vers Kafka par OutboxRelayService dans l'ordre des IDs.
+ */
+@Entity
+@Table(name = "outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvenement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // UUID de l'horaire indisponible concerné (clé du message Kafka)
+    @Column(nullable = false)
+    private UUID horaireUuid;
+
+    // "created", "updated", "deleted"
+    @Column(nullable = false, length = 16)
+    private String action;
+
+    private Long terrainId;
+
+    private LocalDate date;
+    private LocalTime heureDebut;
+    private LocalTime heureFin;
+
+    @Enumerated(EnumType.STRING)
+    private TypeReservation typeReservation;
+
+    private Long sourceId;
+
+    private String description;
+
+    private Integer proprietaireTelephone;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -7,6 +7,13 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
+@Table(name = "reservation_ponctuelle",
+       indexes = {
+           // Conflits et disponibilités : terrain + date (+ heure de début)
+           @Index(name = "idx_reservation_terrain_date", columnList = "terrain_id, date, heure_debut"),
+           // Résolution des clients par téléphone
+           @Index(name = "idx_reservation_client_telephone", columnList = "client_telephone")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
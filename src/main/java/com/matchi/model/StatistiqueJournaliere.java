@@ -0,0 +1,44 @@
+package com.matchi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Agrégat journalier des réservations ponctuelles d'un terrain, par jour d'activité.
+ *
+ * Le jour d'activité X regroupe :
+ * - nombre : les réservations du jour X + celles du jour X+1 qui commencent entre 00:00 et l'heure de fermeture
+ * - revenu : les réservations du jour X + celles du jour X+1 qui commencent entre 00:00 et l'heure d'ouverture
+ *
+ * Maintenu de façon incrémentale par StatistiqueJournaliereService.
+ */
+@Entity
+@Table(name = "statistique_journaliere",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_statistique_terrain_jour", columnNames = {"terrain_id", "jour"})
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatistiqueJournaliere {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "terrain_id", nullable = false)
+    private Long terrainId;
+
+    // Jour d'activité
+    @Column(nullable = false)
+    private LocalDate jour;
+
+    @Column(name = "nombre_reservations", nullable = false)
+    private Long nombreReservations;
+
+    @Column(name = "revenu_reservations", nullable = false, precision = 12, scale = 2)
+    private BigDecimal revenuReservations;
+}
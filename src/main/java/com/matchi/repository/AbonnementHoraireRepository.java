@@ -1,14 +1,77 @@
 package com.matchi.repository;
 
+import com.matchi.dto.AbonnementHoraireDTO;
 import com.matchi.model.AbonnementHoraire;
 import com.matchi.model.JourSemaine;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AbonnementHoraireRepository extends JpaRepository<AbonnementHoraire, Long> {
 
     List<AbonnementHoraire> findByAbonnementId(Long abonnementId);
 
     List<AbonnementHoraire> findByJourSemaine(JourSemaine jourSemaine);
+
+    // ✅ Horaires de plusieurs abonnements en une requête (projection DTO, sans charger l'abonnement)
+    @Query("SELECT new com.matchi.dto.AbonnementHoraireDTO(h.id, h.abonnement.id, h.date, h.jourSemaine, "
+            + "h.heureDebut, h.heureFin, h.prixHeure) "
+            + "FROM AbonnementHoraire h WHERE h.abonnement.id IN :abonnementIds ORDER BY h.id")
+    List<AbonnementHoraireDTO> findDTOByAbonnementIdIn(@Param("abonnementIds") Collection<Long> abonnementIds);
+
+    // ✅ Horaires d'abonnement d'un terrain sur une période (projection DTO) : détection de conflits
+    @Query("SELECT new com.matchi.dto.AbonnementHoraireDTO(h.id, h.abonnement.id, h.date, h.jourSemaine, "
+            + "h.heureDebut, h.heureFin, h.prixHeure) FROM AbonnementHoraire h "
+            + "WHERE h.abonnement.terrain.id = :terrainId AND h.date BETWEEN :debut AND :fin")
+    List<AbonnementHoraireDTO> findDTOByTerrainIdAndDateBetween(@Param("terrainId") Long terrainId,
+                                                                @Param("debut") LocalDate debut,
+                                                                @Param("fin") LocalDate fin);
+
+    // ✅ Tous les horaires (projection DTO), par ID
+    @Query("SELECT new com.matchi.dto.AbonnementHoraireDTO(h.id, h.abonnement.id, h.date, h.jourSemaine, "
+            + "h.heureDebut, h.heureFin, h.prixHeure) FROM AbonnementHoraire h ORDER BY h.id")
+    List<AbonnementHoraireDTO> findAllDTO();
+
+    // Durée d'un créneau en minutes (un créneau qui se termine après minuit est compté jusqu'à sa fin)
+    String MINUTES_HORAIRE = "SUM(CASE WHEN h.heureFin > h.heureDebut "
+            + "THEN (HOUR(h.heureFin) * 60 + MINUTE(h.heureFin)) - (HOUR(h.heureDebut) * 60 + MINUTE(h.heureDebut)) "
+            + "ELSE (HOUR(h.heureFin) * 60 + MINUTE(h.heureFin)) - (HOUR(h.heureDebut) * 60 + MINUTE(h.heureDebut)) + 1440 END)";
+
+    // ✅ Statistiques par jour des créneaux d'abonnement calculées en base (GROUP BY), lues en flux
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT h.date AS jour, COUNT(h) AS nombre, SUM(h.prixHeure) AS revenu, " + MINUTES_HORAIRE + " AS minutes "
+            + "FROM AbonnementHoraire h "
+            + "WHERE h.abonnement.terrain.id = :terrainId AND h.date BETWEEN :debut AND :fin "
+            + "GROUP BY h.date ORDER BY h.date")
+    Stream<AgregatJour> agregerParJour(@Param("terrainId") Long terrainId,
+                                       @Param("debut") LocalDate debut,
+                                       @Param("fin") LocalDate fin);
+
+    // ✅ Pagination par curseur (keyset) : horaires en cours ou à venir, triés par (date, heureDebut, id)
+    @Query("SELECT new com.matchi.dto.AbonnementHoraireDTO(h.id, h.abonnement.id, h.date, h.jourSemaine, "
+            + "h.heureDebut, h.heureFin, h.prixHeure) FROM AbonnementHoraire h "
+            + "WHERE (h.date > :aujourdhui OR (h.date = :aujourdhui "
+            + "AND (h.heureFin IS NULL OR h.heureFin = :minuit OR h.heureFin > :maintenant))) "
+            // heureDebut NULL : triée en tête de sa date (curseur dont l'heure est NULL)
+            + "AND (h.date > :date OR (h.date = :date AND ("
+            + "(:heureDebut IS NULL AND (h.heureDebut IS NOT NULL OR h.id > :id)) "
+            + "OR h.heureDebut > :heureDebut OR (h.heureDebut = :heureDebut AND h.id > :id)))) "
+            + "ORDER BY h.date, h.heureDebut NULLS FIRST, h.id")
+    List<AbonnementHoraireDTO> findAVenirApres(@Param("aujourdhui") LocalDate aujourdhui,
+                                               @Param("maintenant") LocalTime maintenant,
+                                               @Param("minuit") LocalTime minuit,
+                                               @Param("date") LocalDate date,
+                                               @Param("heureDebut") LocalTime heureDebut,
+                                               @Param("id") Long id,
+                                               Limit limit);
 }
@@ -0,0 +1,44 @@
+package com.matchi.repository;
+
+import com.matchi.model.AbonnementRecurrence;
+import com.matchi.model.JourSemaine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AbonnementRecurrenceRepository extends JpaRepository<AbonnementRecurrence, Long> {
+
+    List<AbonnementRecurrence> findByAbonnementId(Long abonnementId);
+
+    List<AbonnementRecurrence> findByAbonnementIdAndJourSemaine(Long abonnementId, JourSemaine jourSemaine);
+
+    // Règles d'une liste d'abonnements, avec leurs exceptions (occurrences affichées dans les DTO)
+    @Query("SELECT DISTINCT r FROM AbonnementRecurrence r LEFT JOIN FETCH r.exceptions "
+            + "WHERE r.abonnementId IN :abonnementIds")
+    List<AbonnementRecurrence> findByAbonnementIdIn(@Param("abonnementIds") Collection<Long> abonnementIds);
+
+    // Règles d'un terrain ayant encore des occurrences non matérialisées dans la période
+    @Query("SELECT DISTINCT r FROM AbonnementRecurrence r LEFT JOIN FETCH r.exceptions "
+            + "WHERE r.terrainId = :terrainId AND r.dateDebut <= :fin AND r.dateFin >= :debut "
+            + "AND r.materialiseJusqua < :fin")
+    List<AbonnementRecurrence> findNonMaterialiseesParTerrain(@Param("terrainId") Long terrainId,
+                                                             @Param("debut") LocalDate debut,
+                                                             @Param("fin") LocalDate fin);
+
+    // Règles d'un terrain ayant encore des occurrences non matérialisées à partir d'une date
+    @Query("SELECT DISTINCT r FROM AbonnementRecurrence r LEFT JOIN FETCH r.exceptions "
+            + "WHERE r.terrainId = :terrainId AND r.dateFin >= :debut AND r.materialiseJusqua < r.dateFin")
+    List<AbonnementRecurrence> findNonMaterialiseesParTerrainDepuis(@Param("terrainId") Long terrainId,
+                                                                   @Param("debut") LocalDate debut);
+
+    // Règles dont l'horizon de matérialisation doit être avancé
+    @Query("SELECT DISTINCT r FROM AbonnementRecurrence r LEFT JOIN FETCH r.exceptions "
+            + "WHERE r.materialiseJusqua < :horizon")
+    List<AbonnementRecurrence> findAMaterialiser(@Param("horizon") LocalDate horizon);
+}
@@ -2,10 +2,15 @@ package com.matchi.repository;
 
 
 
+import com.matchi.dto.AbonnementDTO;
 import com.matchi.model.Abonnement;
 import com.matchi.model.StatutAbonnement;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface AbonnementRepository extends JpaRepository<Abonnement, Long> {
@@ -15,4 +20,41 @@ public interface AbonnementRepository extends JpaRepository<Abonnement, Long> {
     List<Abonnement> findByClientId(Long clientId);
 
     List<Abonnement> findByStatus(StatutAbonnement status);
+
+    // ✅ Projection DTO : ni terrain ni client chargés (relations EAGER), les horaires sont lus à part
+    String ABONNEMENT_DTO = "SELECT new com.matchi.dto.AbonnementDTO(a.id, a.terrain.id, a.client.id, "
+            + "a.dateDebut, a.dateFin, a.prixTotal, a.status, a.createdAt) FROM Abonnement a ";
+
+    // ✅ Pagination par curseur (keyset sur l'ID)
+    @Query(ABONNEMENT_DTO + "WHERE a.status = :status AND a.id > :id ORDER BY a.id")
+    List<AbonnementDTO> findDTOByStatusApres(@Param("status") StatutAbonnement status, @Param("id") Long id, Limit limit);
+
+    @Query(ABONNEMENT_DTO + "WHERE a.client.id = :clientId AND a.status = :status ORDER BY a.id")
+    List<AbonnementDTO> findDTOByClientIdAndStatus(@Param("clientId") Long clientId,
+                                                   @Param("status") StatutAbonnement status);
+
+    /**
+     * Nombre et revenu total des abonnements par statut (calculés en base, sans charger les entités)
+     */
+    interface AgregatAbonnements {
+        StatutAbonnement getStatus();
+        Long getNombre();
+        BigDecimal getRevenu();
+    }
+
+    /**
+     * Même agrégat, par terrain (vue multi-terrains d'un propriétaire)
+     */
+    interface AgregatAbonnementsTerrain extends AgregatAbonnements {
+        Long getTerrainId();
+    }
+
+    @Query("SELECT a.status AS status, COUNT(a) AS nombre, SUM(a.prixTotal) AS revenu FROM Abonnement a "
+            + "WHERE a.terrain.id = :terrainId GROUP BY a.status")
+    List<AgregatAbonnements> agregerParStatut(@Param("terrainId") Long terrainId);
+
+    @Query("SELECT a.terrain.id AS terrainId, a.status AS status, COUNT(a) AS nombre, SUM(a.prixTotal) AS revenu "
+            + "FROM Abonnement a WHERE a.terrain.proprietaire.id = :proprietaireId "
+            + "GROUP BY a.terrain.id, a.status")
+    List<AgregatAbonnementsTerrain> agregerParTerrainEtStatutPourProprietaire(@Param("proprietaireId") Long proprietaireId);
 }
@@ -0,0 +1,15 @@
+package com.matchi.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projection d'un agrégat journalier calculé en base (GROUP BY date) :
+ * nombre de créneaux, revenu et minutes réservées
+ */
+public interface AgregatJour {
+    LocalDate getJour();
+    Long getNombre();
+    BigDecimal getRevenu();
+    Long getMinutes();
+}
@@ -2,13 +2,38 @@ package com.matchi.repository;
 
 
 
+import com.matchi.dto.ClientAbonneDTO;
 import com.matchi.model.ClientAbonne;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ClientAbonneRepository extends JpaRepository<ClientAbonne, Long> {
 
     Optional<ClientAbonne> findByTelephone(Integer telephone);
     boolean existsByTelephone(Integer telephone);
+
+    // Clients ayant un abonnement sur le terrain ou une réservation ponctuelle (via téléphone)
+    String CLIENTS_PAR_TERRAIN = "FROM ClientAbonne c "
+            + "WHERE c.id IN (SELECT a.client.id FROM Abonnement a WHERE a.terrain.id = :terrainId) "
+            + "OR c.telephone IN (SELECT r.clientTelephone FROM ReservationPonctuelle r WHERE r.terrain.id = :terrainId)";
+
+    @Query("SELECT COUNT(c) " + CLIENTS_PAR_TERRAIN)
+    long countClientsParTerrain(@Param("terrainId") Long terrainId);
+
+    // ✅ Une seule requête (projection DTO, pagination et tri en base)
+    @Query(value = "SELECT new com.matchi.dto.ClientAbonneDTO(c.id, c.nom, c.prenom, c.telephone) " + CLIENTS_PAR_TERRAIN,
+            countQuery = "SELECT COUNT(c) " + CLIENTS_PAR_TERRAIN)
+    Page<ClientAbonneDTO> findClientsParTerrain(@Param("terrainId") Long terrainId, Pageable pageable);
+
+    // ✅ Pagination par curseur (keyset sur l'ID)
+    @Query("SELECT new com.matchi.dto.ClientAbonneDTO(c.id, c.nom, c.prenom, c.telephone) "
+            + "FROM ClientAbonne c WHERE c.id > :id ORDER BY c.id")
+    List<ClientAbonneDTO> findApres(@Param("id") Long id, Limit limit);
 }
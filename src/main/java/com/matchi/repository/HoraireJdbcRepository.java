@@ -0,0 +1,211 @@
+package com.matchi.repository;
+
+import com.matchi.model.AbonnementHoraire;
+import com.matchi.model.IndisponibleHoraire;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Écriture en masse (JDBC batch) des horaires générés en série : horaires répétitifs d'abonnement
+ * et horaires indisponibles créés par la synchronisation.
+ *
+ * Avec GenerationType.IDENTITY, Hibernate ne peut pas regrouper les INSERT (un aller-retour par ligne).
+ * Ici, les lignes sont envoyées par lots (horaire.jdbc.taille-lot) ; avec rewriteBatchedStatements=true
+ * le driver MySQL réécrit chaque lot en un seul INSERT multi-lignes. Les ID générés sont reportés sur les entités.
+ *
+ * ⚠️ Les entités insérées ne sont pas attachées au contexte de persistance :
+ * l'appelant doit faire un flush AVANT l'insertion (ordre des écritures, clés étrangères).
+ */
+@Repository
+@RequiredArgsConstructor
+public class HoraireJdbcRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(HoraireJdbcRepository.class);
+
+    private static final String INSERT_ABONNEMENT_HORAIRE =
+            "INSERT INTO abonnement_horaire (abonnement_id, jour_semaine, date, heure_debut, heure_fin, prix_heure) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_INDISPONIBLE_HORAIRE =
+            "INSERT INTO indisponible_horaire (uuid, terrain_id, date, heure_debut, heure_fin, type_reservation, source_id, description) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${horaire.jdbc.taille-lot:500}")
+    private int tailleLot;
+
+    /**
+     * Insère les horaires d'abonnement par lots et renseigne leurs ID
+     */
+    public void insererAbonnementHoraires(List<AbonnementHoraire> horaires) {
+        for (List<AbonnementHoraire> lot : decouper(horaires)) {
+            List<Long> ids = insererLot(INSERT_ABONNEMENT_HORAIRE, lot, (ps, horaire) -> {
+                ps.setObject(1, horaire.getAbonnement() != null ? horaire.getAbonnement().getId() : null, Types.BIGINT);
+                ps.setObject(2, horaire.getJourSemaine() != null ? horaire.getJourSemaine().name() : null, Types.VARCHAR);
+                ps.setObject(3, horaire.getDate(), Types.DATE);
+                ps.setObject(4, horaire.getHeureDebut(), Types.TIME);
+                ps.setObject(5, horaire.getHeureFin(), Types.TIME);
+                ps.setObject(6, horaire.getPrixHeure(), Types.DECIMAL);
+            });
+            for (int i = 0; i < lot.size(); i++) {
+                lot.get(i).setId(ids.get(i));
+            }
+        }
+        log.debug("📥 {} horaire(s) d'abonnement insérés par lots", horaires.size());
+    }
+
+    /**
+     * Insère les horaires indisponibles par lots et renseigne leurs ID.
+     * Si un lot viole une contrainte unique (horaire créé entre-temps par un autre traitement),
+     * ses lignes sont réinsérées une à une et les doublons sont ignorés.
+     *
+     * @return les horaires effectivement insérés
+     */
+    public List<IndisponibleHoraire> insererIndisponibleHoraires(List<IndisponibleHoraire> horaires) {
+        horaires.forEach(horaire -> {
+            if (horaire.getUuid() == null) {
+                horaire.setUuid(UUID.randomUUID());
+            }
+        });
+
+        List<IndisponibleHoraire> inseres = new ArrayList<>(horaires.size());
+        for (List<IndisponibleHoraire> lot : decouper(horaires)) {
+            try {
+                List<Long> ids = insererLot(INSERT_INDISPONIBLE_HORAIRE, lot, this::lierIndisponible);
+                for (int i = 0; i < lot.size(); i++) {
+                    lot.get(i).setId(ids.get(i));
+                }
+                inseres.addAll(lot);
+            } catch (DataIntegrityViolationException e) {
+                log.warn("⚠️ Lot de {} horaires indisponibles rejeté (contrainte unique), insertion ligne par ligne",
+                        lot.size());
+                inseres.addAll(insererUnParUn(lot));
+            }
+        }
+        return inseres;
+    }
+
+    private List<IndisponibleHoraire> insererUnParUn(List<IndisponibleHoraire> lot) {
+        // Selon le driver, une partie du lot a pu être écrite avant l'erreur : ces lignes sont retrouvées par UUID
+        Map<UUID, Long> dejaInseres = idsParUuid(lot);
+        List<IndisponibleHoraire> inseres = new ArrayList<>(lot.size());
+        for (IndisponibleHoraire horaire : lot) {
+            Long id = dejaInseres.get(horaire.getUuid());
+            if (id == null) {
+                try {
+                    id = insererLot(INSERT_INDISPONIBLE_HORAIRE, List.of(horaire), this::lierIndisponible).get(0);
+                } catch (DataIntegrityViolationException e) {
+                    log.warn("⚠️ Violation de contrainte unique pour l'horaire sourceId={}, UUID={} - probablement créé par un autre thread, ignoré",
+                            horaire.getSourceId(), horaire.getUuid());
+                    continue;
+                }
+            }
+            horaire.setId(id);
+            inseres.add(horaire);
+        }
+        return inseres;
+    }
+
+    private Map<UUID, Long> idsParUuid(List<IndisponibleHoraire> horaires) {
+        MapSqlParameterSource parametres = new MapSqlParameterSource("uuids",
+                horaires.stream().map(horaire -> versOctets(horaire.getUuid())).toList());
+        Map<UUID, Long> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, uuid FROM indisponible_horaire WHERE uuid IN (:uuids)", parametres,
+                (RowCallbackHandler) rs -> ids.put(depuisOctets(rs.getBytes("uuid")), rs.getLong("id")));
+        return ids;
+    }
+
+    private void lierIndisponible(PreparedStatement ps, IndisponibleHoraire horaire) throws SQLException {
+        ps.setBytes(1, versOctets(horaire.getUuid()));
+        ps.setObject(2, horaire.getTerrain() != null ? horaire.getTerrain().getId() : null, Types.BIGINT);
+        ps.setObject(3, horaire.getDate(), Types.DATE);
+        ps.setObject(4, horaire.getHeureDebut(), Types.TIME);
+        ps.setObject(5, horaire.getHeureFin(), Types.TIME);
+        ps.setObject(6, horaire.getTypeReservation() != null ? horaire.getTypeReservation().name() : null, Types.VARCHAR);
+        ps.setObject(7, horaire.getSourceId(), Types.BIGINT);
+        ps.setObject(8, horaire.getDescription(), Types.VARCHAR);
+    }
+
+    @FunctionalInterface
+    private interface Liaison<T> {
+        void lier(PreparedStatement ps, T ligne) throws SQLException;
+    }
+
+    /**
+     * Exécute un INSERT en batch et retourne les ID générés, dans l'ordre des lignes
+     */
+    private <T> List<Long> insererLot(String sql, List<T> lignes, Liaison<T> liaison) {
+        KeyHolder cles = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connexion -> connexion.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        liaison.lier(ps, lignes.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return lignes.size();
+                    }
+                },
+                cles);
+
+        List<Map<String, Object>> listeCles = cles.getKeyList();
+        if (listeCles.size() != lignes.size()) {
+            throw new IllegalStateException("Nombre d'ID générés inattendu : " + listeCles.size()
+                    + " pour " + lignes.size() + " lignes insérées");
+        }
+        List<Long> ids = new ArrayList<>(listeCles.size());
+        for (Map<String, Object> cle : listeCles) {
+            ids.add(((Number) cle.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private <T> List<List<T>> decouper(List<T> lignes) {
+        List<List<T>> lots = new ArrayList<>();
+        int taille = Math.max(1, tailleLot);
+        for (int debut = 0; debut < lignes.size(); debut += taille) {
+            lots.add(lignes.subList(debut, Math.min(debut + taille, lignes.size())));
+        }
+        return lots;
+    }
+
+    // Même représentation qu'Hibernate pour un UUID en BINARY(16) : bits de poids fort puis de poids faible
+    private static byte[] versOctets(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static UUID depuisOctets(byte[] octets) {
+        ByteBuffer buffer = ByteBuffer.wrap(octets);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
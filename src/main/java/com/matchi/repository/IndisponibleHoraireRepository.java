@@ -1,14 +1,24 @@
 package com.matchi.repository;
 
+import com.matchi.dto.IndisponibleHoraireDTO;
 import com.matchi.model.IndisponibleHoraire;
 import com.matchi.model.TypeReservation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface IndisponibleHoraireRepository extends JpaRepository<IndisponibleHoraire, Long> {
@@ -25,9 +35,39 @@ public interface IndisponibleHoraireRepository extends JpaRepository<Indisponibl
     // Trouver par type de réservation
     List<IndisponibleHoraire> findByTerrainIdAndTypeReservation(Long terrainId, TypeReservation typeReservation);
     
+    // Trouver par sources (synchronisation incrémentale)
+    List<IndisponibleHoraire> findByTypeReservationAndSourceIdIn(TypeReservation typeReservation, Collection<Long> sourceIds);
+    
     // Supprimer par source (utile pour synchronisation)
     void deleteByTypeReservationAndSourceId(TypeReservation typeReservation, Long sourceId);
     
     // Trouver par UUID pour l'idempotence lors de la synchronisation
     Optional<IndisponibleHoraire> findByUuid(UUID uuid);
+    
+    // Trouver par lot d'UUID (traitement par lots des événements Django)
+    List<IndisponibleHoraire> findByUuidIn(Collection<UUID> uuids);
+
+    // ✅ Pagination par curseur (keyset) : horaires en cours ou à venir, triés par (date, heureDebut, id)
+    @Query("SELECT new com.matchi.dto.IndisponibleHoraireDTO(i.id, i.uuid, i.terrain.id, i.date, i.heureDebut, "
+            + "i.heureFin, i.typeReservation, i.sourceId, i.description) FROM IndisponibleHoraire i "
+            + "WHERE (i.date > :aujourdhui OR (i.date = :aujourdhui AND (i.heureFin IS NULL OR i.heureFin >= :maintenant))) "
+            // heureDebut NULL : triée en tête de sa date (curseur dont l'heure est NULL)
+            + "AND (i.date > :date OR (i.date = :date AND ("
+            + "(:heureDebut IS NULL AND (i.heureDebut IS NOT NULL OR i.id > :id)) "
+            + "OR i.heureDebut > :heureDebut OR (i.heureDebut = :heureDebut AND i.id > :id)))) "
+            + "ORDER BY i.date, i.heureDebut NULLS FIRST, i.id")
+    List<IndisponibleHoraireDTO> findAVenirApres(@Param("aujourdhui") LocalDate aujourdhui,
+                                                 @Param("maintenant") LocalTime maintenant,
+                                                 @Param("date") LocalDate date,
+                                                 @Param("heureDebut") LocalTime heureDebut,
+                                                 @Param("id") Long id,
+                                                 Limit limit);
+
+    // ✅ Export : lecture en flux (curseur JDBC en avant seulement, 500 lignes par aller-retour)
+    // Bornes de dates facultatives (null = pas de borne)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.matchi.dto.IndisponibleHoraireDTO(i.id, i.uuid, i.terrain.id, i.date, i.heureDebut, "
+            + "i.heureFin, i.typeReservation, i.sourceId, i.description) FROM IndisponibleHoraire i "
+            + "WHERE (:debut IS NULL OR i.date >= :debut) AND (:fin IS NULL OR i.date <= :fin) ORDER BY i.id")
+    Stream<IndisponibleHoraireDTO> streamPourExport(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
 }
@@ -0,0 +1,15 @@
+package com.matchi.repository;
+
+import com.matchi.model.OutboxEvenement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEvenementRepository extends JpaRepository<OutboxEvenement, Long> {
+
+    // Prochain lot à relayer : tout ce qui est encore dans l'outbox, dans l'ordre d'écriture
+    List<OutboxEvenement> findAllByOrderByIdAsc(Pageable pageable);
+}
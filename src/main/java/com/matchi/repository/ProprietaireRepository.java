@@ -5,6 +5,8 @@ package com.matchi.repository;
 import com.matchi.model.Proprietaire;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProprietaireRepository extends JpaRepository<Proprietaire, Long> {
@@ -12,4 +14,6 @@ public interface ProprietaireRepository extends JpaRepository<Proprietaire, Long
     Optional<Proprietaire> findByTelephone(Integer telephone);
 
     boolean existsByTelephone(Integer telephone);
+
+    List<Proprietaire> findByTelephoneIn(Collection<Integer> telephones);
 }
@@ -1,13 +1,21 @@
 package com.matchi.repository;
 
+import com.matchi.dto.ReservationPonctuelleDTO;
 import com.matchi.model.ReservationPonctuelle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservationPonctuelleRepository extends JpaRepository<ReservationPonctuelle, Long> {
@@ -20,4 +28,49 @@ public interface ReservationPonctuelleRepository extends JpaRepository<Reservati
     
     // ✅ Vérifier les conflits avec chevauchement de créneaux horaires
     List<ReservationPonctuelle> findByTerrain_IdAndDate(Long terrainId, LocalDate date);
+    
+    // ✅ Vérifier les conflits d'un lot de créneaux sur une période (une seule requête)
+    List<ReservationPonctuelle> findByTerrain_IdAndDateBetween(Long terrainId, LocalDate dateDebut, LocalDate dateFin);
+
+    // Durée d'un créneau en minutes (un créneau qui se termine après minuit est compté jusqu'à sa fin)
+    String MINUTES_RESERVATION = "SUM(CASE WHEN r.heureFin > r.heureDebut "
+            + "THEN (HOUR(r.heureFin) * 60 + MINUTE(r.heureFin)) - (HOUR(r.heureDebut) * 60 + MINUTE(r.heureDebut)) "
+            + "ELSE (HOUR(r.heureFin) * 60 + MINUTE(r.heureFin)) - (HOUR(r.heureDebut) * 60 + MINUTE(r.heureDebut)) + 1440 END)";
+
+    // ✅ Statistiques par jour calculées en base (GROUP BY), lues en flux
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r.date AS jour, COUNT(r) AS nombre, SUM(r.prix) AS revenu, " + MINUTES_RESERVATION + " AS minutes "
+            + "FROM ReservationPonctuelle r "
+            + "WHERE r.terrain.id = :terrainId AND r.date BETWEEN :debut AND :fin "
+            + "GROUP BY r.date ORDER BY r.date")
+    Stream<AgregatJour> agregerParJour(@Param("terrainId") Long terrainId,
+                                       @Param("debut") LocalDate debut,
+                                       @Param("fin") LocalDate fin);
+
+    // ✅ Pagination par curseur (keyset) : réservations en cours ou à venir, triées par (date, heureDebut, id)
+    // Les réservations passées sont exclues en base ; une réservation qui finit à minuit reste affichée toute la journée
+    @Query("SELECT new com.matchi.dto.ReservationPonctuelleDTO(r.id, r.date, r.heureDebut, r.heureFin, r.prix, "
+            + "r.clientTelephone, r.terrain.id) FROM ReservationPonctuelle r "
+            + "WHERE (r.date > :aujourdhui OR (r.date = :aujourdhui "
+            + "AND (r.heureFin IS NULL OR r.heureFin = :minuit OR r.heureFin > :maintenant))) "
+            // heureDebut NULL : triée en tête de sa date (curseur dont l'heure est NULL)
+            + "AND (r.date > :date OR (r.date = :date AND ("
+            + "(:heureDebut IS NULL AND (r.heureDebut IS NOT NULL OR r.id > :id)) "
+            + "OR r.heureDebut > :heureDebut OR (r.heureDebut = :heureDebut AND r.id > :id)))) "
+            + "ORDER BY r.date, r.heureDebut NULLS FIRST, r.id")
+    List<ReservationPonctuelleDTO> findAVenirApres(@Param("aujourdhui") LocalDate aujourdhui,
+                                                   @Param("maintenant") LocalTime maintenant,
+                                                   @Param("minuit") LocalTime minuit,
+                                                   @Param("date") LocalDate date,
+                                                   @Param("heureDebut") LocalTime heureDebut,
+                                                   @Param("id") Long id,
+                                                   Limit limit);
+
+    // ✅ Export : lecture en flux (curseur JDBC en avant seulement, 500 lignes par aller-retour)
+    // Bornes de dates facultatives (null = pas de borne)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.matchi.dto.ReservationPonctuelleDTO(r.id, r.date, r.heureDebut, r.heureFin, r.prix, "
+            + "r.clientTelephone, r.terrain.id) FROM ReservationPonctuelle r "
+            + "WHERE (:debut IS NULL OR r.date >= :debut) AND (:fin IS NULL OR r.date <= :fin) ORDER BY r.id")
+    Stream<ReservationPonctuelleDTO> streamPourExport(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
 }
@@ -0,0 +1,36 @@
+package com.matchi.repository;
+
+import com.matchi.model.StatistiqueJournaliere;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StatistiqueJournaliereRepository extends JpaRepository<StatistiqueJournaliere, Long> {
+
+    Optional<StatistiqueJournaliere> findByTerrainIdAndJour(Long terrainId, LocalDate jour);
+
+    List<StatistiqueJournaliere> findByTerrainIdAndJourIn(Long terrainId, Collection<LocalDate> jours);
+
+    // Ajout atomique d'une contribution (crée la ligne si nécessaire)
+    @Modifying
+    @Query(value = "INSERT INTO statistique_journaliere (terrain_id, jour, nombre_reservations, revenu_reservations) "
+            + "VALUES (:terrainId, :jour, :nombre, :revenu) "
+            + "ON DUPLICATE KEY UPDATE nombre_reservations = nombre_reservations + :nombre, "
+            + "revenu_reservations = revenu_reservations + :revenu",
+            nativeQuery = true)
+    void ajouter(@Param("terrainId") Long terrainId, @Param("jour") LocalDate jour,
+                 @Param("nombre") long nombre, @Param("revenu") BigDecimal revenu);
+
+    @Modifying
+    @Query("DELETE FROM StatistiqueJournaliere s WHERE s.terrainId = :terrainId")
+    void supprimerParTerrain(@Param("terrainId") Long terrainId);
+}
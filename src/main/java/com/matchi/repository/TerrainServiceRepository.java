@@ -2,9 +2,14 @@ package com.matchi.repository;
 
 
 
+import com.matchi.dto.TerrainServiceDTO;
 import com.matchi.model.TerrainService;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TerrainServiceRepository extends JpaRepository<TerrainService, Long> {
@@ -12,4 +17,11 @@ public interface TerrainServiceRepository extends JpaRepository<TerrainService,
     
 
     List<TerrainService> findByProprietaireId(Long proprietaireId);
+
+    List<TerrainService> findByProprietaireIdIn(Collection<Long> proprietaireIds);
+
+    // ✅ Pagination par curseur (keyset sur l'ID)
+    @Query("SELECT new com.matchi.dto.TerrainServiceDTO(t.id, t.nom, t.adresse, t.proprietaire.id, "
+            + "t.heureOuverture, t.heureFermeture, t.createdAt) FROM TerrainService t WHERE t.id > :id ORDER BY t.id")
+    List<TerrainServiceDTO> findApres(@Param("id") Long id, Limit limit);
 }
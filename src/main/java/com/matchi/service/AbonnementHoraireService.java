@@ -1,17 +1,17 @@
 package com.matchi.service;
 
 import com.matchi.dto.AbonnementHoraireDTO;
+import com.matchi.dto.CurseurCreneau;
+import com.matchi.dto.PageCurseur;
 import com.matchi.model.Abonnement;
 import com.matchi.model.AbonnementHoraire;
-import com.matchi.model.IndisponibleHoraire;
 import com.matchi.model.JourSemaine;
-import com.matchi.model.ReservationPonctuelle;
 import com.matchi.model.TypeReservation;
 import com.matchi.repository.AbonnementHoraireRepository;
 import com.matchi.repository.AbonnementRepository;
-import com.matchi.repository.IndisponibleHoraireRepository;
-import com.matchi.repository.ReservationPonctuelleRepository;
+import com.matchi.repository.HoraireJdbcRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +24,8 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -31,10 +33,10 @@ public class AbonnementHoraireService {
 
     private final AbonnementHoraireRepository horaireRepository;
     private final AbonnementRepository abonnementRepository;
-    private final ReservationPonctuelleRepository reservationPonctuelleRepository;
-    private final IndisponibleHoraireRepository indisponibleHoraireRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final KafkaAvailabilityService kafkaAvailabilityService;
+    private final ConflictEngine conflictEngine;
+    private final HoraireJdbcRepository horaireJdbcRepository;
+    private final AbonnementRecurrenceService abonnementRecurrenceService;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -58,100 +60,52 @@ public class AbonnementHoraireService {
     }
     
     /**
-     * ✅ Valide qu'un créneau horaire d'abonnement ne chevauche pas avec des réservations existantes
+     * ✅ Valide qu'un lot de créneaux horaires d'abonnement ne chevauche pas des réservations existantes
      * Vérifie les conflits avec :
      * 1. Les réservations ponctuelles existantes
      * 2. Les autres abonnements actifs (via IndisponibleHoraire)
+     * 
+     * Le lot est vérifié en une seule passe par le ConflictEngine.
+     * 
+     * @param contextes préfixe du message d'erreur de chaque candidat (même ordre)
      */
-    private void validerConflitHoraireAbonnement(Long terrainId, LocalDate date, 
-                                                 LocalTime heureDebut, LocalTime heureFin,
-                                                 Long abonnementIdExclu) {
-        if (terrainId == null || date == null || heureDebut == null || heureFin == null) {
+    private void validerConflitsHorairesAbonnement(Long terrainId, List<ConflictEngine.Candidat> candidats,
+                                                   List<String> contextes, Long abonnementIdExclu) {
+        if (terrainId == null || candidats.isEmpty()) {
             return; // Pas de validation si données incomplètes
         }
         
-        // 1. Vérifier les conflits avec les réservations ponctuelles existantes
-        List<ReservationPonctuelle> reservationsExistantes = reservationPonctuelleRepository.findByTerrain_IdAndDate(terrainId, date);
-        
-        for (ReservationPonctuelle existante : reservationsExistantes) {
-            // Vérifier si les créneaux se chevauchent
-            if (creneauxSeChevauchent(heureDebut, heureFin, 
-                                     existante.getHeureDebut(), existante.getHeureFin())) {
-                throw new IllegalArgumentException(
-                    String.format("Conflit avec une réservation ponctuelle : Le créneau %s-%s est déjà réservé pour ce terrain le %s. " +
-                                 "Réservation existante : %s-%s",
-                        heureDebut, heureFin, date,
-                        existante.getHeureDebut(), existante.getHeureFin())
-                );
-            }
-        }
-        
-        // 2. Vérifier les conflits avec les autres abonnements actifs (via IndisponibleHoraire)
-        List<IndisponibleHoraire> horairesIndisponibles = indisponibleHoraireRepository.findByTerrainIdAndDate(terrainId, date);
-        
-        // ✅ CORRECTION : Récupérer tous les IDs des horaires de l'abonnement en cours de modification
+        // ✅ Exclure les horaires de l'abonnement en cours de modification
         // Le sourceId dans indisponible_horaire est l'ID de l'AbonnementHoraire, pas l'ID de l'Abonnement
-        java.util.Set<Long> horaireIdsExclus = new java.util.HashSet<>();
+        ConflictEngine.Exclusions exclusions = ConflictEngine.Exclusions.aucune();
         if (abonnementIdExclu != null) {
-            List<AbonnementHoraire> horairesAbonnement = horaireRepository.findByAbonnementId(abonnementIdExclu);
-            horaireIdsExclus = horairesAbonnement.stream()
-                    .map(AbonnementHoraire::getId)
-                    .collect(java.util.stream.Collectors.toSet());
+            exclusions = ConflictEngine.Exclusions.abonnement(abonnementIdExclu,
+                    horaireRepository.findByAbonnementId(abonnementIdExclu).stream()
+                            .map(AbonnementHoraire::getId)
+                            .collect(Collectors.toSet()));
         }
         
-        for (IndisponibleHoraire indispo : horairesIndisponibles) {
-            // Exclure les horaires de l'abonnement en cours de modification
-            // Le sourceId est l'ID de l'AbonnementHoraire
-            if (indispo.getTypeReservation() == TypeReservation.ABONNEMENT && 
-                indispo.getSourceId() != null && 
-                horaireIdsExclus.contains(indispo.getSourceId())) {
-                continue; // Ignorer les horaires de l'abonnement actuel
-            }
-            
-            // Vérifier si les créneaux se chevauchent
-            if (creneauxSeChevauchent(heureDebut, heureFin, 
-                                     indispo.getHeureDebut(), indispo.getHeureFin())) {
-                throw new IllegalArgumentException(
-                    String.format("Conflit avec un abonnement existant : Le créneau %s-%s est déjà occupé par un autre abonnement pour ce terrain le %s. " +
-                                 "Créneau occupé : %s-%s",
-                        heureDebut, heureFin, date,
-                        indispo.getHeureDebut(), indispo.getHeureFin())
-                );
-            }
-        }
-    }
-    
-    /**
-     * ✅ Vérifie si deux créneaux horaires se chevauchent
-     * Gère le cas spécial où heureFin = 00:00 (minuit = fin de journée)
-     */
-    private boolean creneauxSeChevauchent(LocalTime debut1, LocalTime fin1, 
-                                          LocalTime debut2, LocalTime fin2) {
-        if (debut1 == null || fin1 == null || debut2 == null || fin2 == null) {
-            return false;
-        }
-        
-        // Cas spécial : si les deux créneaux ont la même heure de début, ils se chevauchent
-        if (debut1.equals(debut2)) {
-            return true;
+        List<ConflictEngine.Conflit> conflits = conflictEngine.detecterConflits(terrainId, candidats, exclusions);
+        if (conflits.isEmpty()) {
+            return;
         }
         
-        // Cas spécial : si fin1 ou fin2 est 00h (minuit), on doit gérer différemment
-        LocalTime minuit = LocalTime.of(0, 0);
-        boolean fin1EstMinuit = fin1.equals(minuit);
-        boolean fin2EstMinuit = fin2.equals(minuit);
-        
-        if (fin1EstMinuit) {
-            // fin1 est minuit, donc le créneau 1 va jusqu'à la fin de la journée
-            return debut1.isBefore(fin2);
-        } else if (fin2EstMinuit) {
-            // fin2 est minuit, donc le créneau 2 va jusqu'à la fin de la journée
-            return debut2.isBefore(fin1);
+        ConflictEngine.Conflit conflit = conflits.get(0);
+        ConflictEngine.Candidat candidat = conflit.candidat();
+        ConflictEngine.Occupation occupation = conflit.occupation();
+        String message;
+        if (occupation.typeReservation() == TypeReservation.RESERVATION_PONCTUELLE) {
+            message = String.format("Conflit avec une réservation ponctuelle : Le créneau %s-%s est déjà réservé pour ce terrain le %s. " +
+                                    "Réservation existante : %s-%s",
+                    candidat.heureDebut(), candidat.heureFin(), candidat.date(),
+                    occupation.heureDebut(), occupation.heureFin());
         } else {
-            // Cas normal : aucun créneau ne se termine à minuit
-            // Deux créneaux se chevauchent si : debut1 < fin2 && fin1 > debut2
-            return (debut1.isBefore(fin2) && fin1.isAfter(debut2));
+            message = String.format("Conflit avec un abonnement existant : Le créneau %s-%s est déjà occupé par un autre abonnement pour ce terrain le %s. " +
+                                    "Créneau occupé : %s-%s",
+                    candidat.heureDebut(), candidat.heureFin(), candidat.date(),
+                    occupation.heureDebut(), occupation.heureFin());
         }
+        throw new IllegalArgumentException(contextes.get(conflit.indexCandidat()) + message);
     }
     
     /**
@@ -212,10 +166,24 @@ public class AbonnementHoraireService {
 
     // ======== SERVICES CRUD ========
     public List<AbonnementHoraireDTO> getAllHoraires() {
-        return horaireRepository.findAll()
-                .stream()
-                .map(this::toDTO)
-                .toList();
+        return horaireRepository.findAllDTO();
+    }
+
+    /**
+     * Horaires d'abonnement en cours ou à venir, triés par date puis heure, par pages (curseur)
+     * ✅ Le filtrage des horaires passés et le tri sont faits en base
+     */
+    public PageCurseur<AbonnementHoraireDTO> getAllHoraires(String curseur, int taille) {
+        LocalDate aujourdhui = LocalDate.now();
+        CurseurCreneau position = CurseurCreneau.decoder(curseur);
+        if (position == null) {
+            position = CurseurCreneau.avant(aujourdhui);
+        }
+        List<AbonnementHoraireDTO> lignes = horaireRepository.findAVenirApres(
+                aujourdhui, LocalTime.now(), LocalTime.MIDNIGHT,
+                position.date(), position.heureDebut(), position.id(), Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille,
+                horaire -> new CurseurCreneau(horaire.getDate(), horaire.getHeureDebut(), horaire.getId()).encoder());
     }
 
     public AbonnementHoraireDTO trouverHoraireParId(Long id) {
@@ -309,11 +277,6 @@ public class AbonnementHoraireService {
     
     @Transactional
     public AbonnementHoraireDTO ajouterHoraire(AbonnementHoraireDTO dto) {
-        // ✅ VALIDATION : Vérifier que Kafka est disponible avant de créer un horaire potentiel
-        if (!kafkaAvailabilityService.isKafkaAvailable()) {
-            throw new IllegalStateException("Impossible de créer un horaire potentiel : Kafka n'est pas démarré ou n'est pas disponible. Veuillez démarrer Kafka avant de créer un horaire.");
-        }
-        
         // Vérifier et gérer l'exception de chevauchement horaire
         if (dto.getHeureFin() == null && dto.getHeureDebut() != null) {
             // Heure fin automatique = heure debut + 1h
@@ -329,6 +292,15 @@ public class AbonnementHoraireService {
                             dto.getHeureDebut().isAfter(existing.getHeureFin())
                         )
                 );
+        // Les créneaux dont toutes les occurrences sont au-delà de l'horizon n'existent que sous forme de règle
+        conflit = conflit || abonnementRecurrenceService.getRecurrences(dto.getAbonnementId()).stream()
+                .anyMatch(regle ->
+                        regle.getJourSemaine() == dto.getJourSemaine() &&
+                        !(
+                            dto.getHeureFin().isBefore(regle.getHeureDebut()) ||
+                            dto.getHeureDebut().isAfter(regle.getHeureFin())
+                        )
+                );
         if (conflit) {
             throw new IllegalArgumentException("Impossible d'enregistrer ce créneau : conflit horaire avec une réservation existante.");
         }
@@ -378,15 +350,20 @@ public class AbonnementHoraireService {
             horairesRepetitifs.add(horaire);
         }
         
-        // Sauvegarder tous les horaires
-        List<AbonnementHoraire> saved = horaireRepository.saveAll(horairesRepetitifs);
+        // Sauvegarder les horaires de l'horizon de matérialisation (les suivants deviennent une règle de récurrence)
+        // ✅ INSERTION EN MASSE : quelques INSERT multi-lignes au lieu d'un aller-retour par horaire
+        List<AbonnementHoraire> saved = abonnementRecurrenceService.planifier(abonnement, horairesRepetitifs);
+        if (!saved.isEmpty()) {
+            entityManager.flush();
+            horaireJdbcRepository.insererAbonnementHoraires(saved);
+        }
         
-        // Recalculer le prix total de l'abonnement
+        // Recalculer le prix total de l'abonnement (lignes + occurrences non matérialisées)
         List<AbonnementHoraire> tousLesHoraires = horaireRepository.findByAbonnementId(dto.getAbonnementId());
         java.math.BigDecimal prixTotal = tousLesHoraires.stream()
                 .map(AbonnementHoraire::getPrixHeure)
                 .filter(prix -> prix != null)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+                .reduce(abonnementRecurrenceService.getPrixNonMaterialise(dto.getAbonnementId()), java.math.BigDecimal::add);
         abonnement.setPrixTotal(prixTotal);
         abonnementRepository.save(abonnement);
         
@@ -401,12 +378,13 @@ public class AbonnementHoraireService {
         
         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
         if (abonnement.getTerrain() != null) {
-            eventPublisher.publishEvent(new AbonnementModifieEvent(abonnement.getTerrain().getId()));
-            eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(abonnement.getTerrain().getId()));
+            Set<Long> sourceIds = saved.stream().map(AbonnementHoraire::getId).collect(Collectors.toSet());
+            eventPublisher.publishEvent(new AbonnementModifieEvent(abonnement.getTerrain().getId(), sourceIds));
+            eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(abonnement.getTerrain().getId(), sourceIds));
         }
         
-        // Retourner le premier horaire créé
-        return toDTO(saved.get(0));
+        // Retourner le premier horaire créé (sans ID s'il n'existe que sous forme de règle)
+        return toDTO(!saved.isEmpty() ? saved.get(0) : horairesRepetitifs.get(0));
     }
 
     @Transactional
@@ -430,6 +408,10 @@ public class AbonnementHoraireService {
                     
                     // *** APPLIQUER LA MODIFICATION A TOUS LES HORAIRES DU MEME JOUR DE LA SEMAINE ***
                     if (abonnementId != null) {
+                        // ✅ RÉCURRENCE : la modification s'applique aux lignes, les occurrences
+                        // de ce jour encore sous forme de règle sont d'abord matérialisées
+                        abonnementRecurrenceService.materialiserTout(abonnementId, jourSemaineOriginal);
+                        
                         // Récupérer l'abonnement pour avoir la date de début
                         Abonnement abonnement = abonnementRepository.findById(abonnementId).orElse(null);
                         LocalDate dateDebutAbonnement = abonnement != null ? abonnement.getDateDebut() : null;
@@ -441,6 +423,8 @@ public class AbonnementHoraireService {
                                 .toList();
                         
                         // Appliquer les modifications à tous ces horaires
+                        List<ConflictEngine.Candidat> candidats = new java.util.ArrayList<>();
+                        List<String> contextes = new java.util.ArrayList<>();
                         for (AbonnementHoraire horaire : horairesAModifier) {
                             LocalDate dateHoraire = horaire.getDate();
                             LocalTime heureDebutHoraire = horaire.getHeureDebut();
@@ -473,28 +457,21 @@ public class AbonnementHoraireService {
                             // car on remplace juste le jour/heure d'un horaire existant
                             validerDateEtHeureNonPassees(dateHoraire, heureDebutHoraire, heureFinHoraire, true);
                             
-                            // ✅ VALIDATION : Vérifier les conflits avec les réservations existantes AVANT de sauvegarder
-                            if (abonnement != null && abonnement.getTerrain() != null && 
-                                dateHoraire != null && heureDebutHoraire != null && heureFinHoraire != null) {
-                                try {
-                                    validerConflitHoraireAbonnement(
-                                        abonnement.getTerrain().getId(),
-                                        dateHoraire,
-                                        heureDebutHoraire,
-                                        heureFinHoraire,
-                                        abonnementId // Exclure l'abonnement en cours de modification
-                                    );
-                                } catch (IllegalArgumentException e) {
-                                    // Enrichir le message d'erreur avec plus de contexte
-                                    throw new IllegalArgumentException(
-                                        String.format("Erreur lors de la modification de l'horaire pour le %s (date: %s) : %s",
-                                            horaire.getJourSemaine(), dateHoraire, e.getMessage()),
-                                        e
-                                    );
-                                }
+                            // ✅ VALIDATION : Les conflits sont vérifiés en une seule passe AVANT de sauvegarder
+                            if (dateHoraire != null && heureDebutHoraire != null && heureFinHoraire != null) {
+                                candidats.add(new ConflictEngine.Candidat(dateHoraire, heureDebutHoraire, heureFinHoraire));
+                                // Enrichir le message d'erreur avec plus de contexte
+                                contextes.add(String.format("Erreur lors de la modification de l'horaire pour le %s (date: %s) : ",
+                                        horaire.getJourSemaine(), dateHoraire));
                             }
                         }
                         
+                        // ✅ VALIDATION : Vérifier les conflits avec les réservations existantes AVANT de sauvegarder
+                        if (abonnement != null && abonnement.getTerrain() != null) {
+                            validerConflitsHorairesAbonnement(abonnement.getTerrain().getId(), candidats, contextes,
+                                    abonnementId); // Exclure l'abonnement en cours de modification
+                        }
+                        
                         // Sauvegarder tous les horaires modifiés
                         horaireRepository.saveAll(horairesAModifier);
                         
@@ -515,7 +492,7 @@ public class AbonnementHoraireService {
                                 java.math.BigDecimal prixTotal = tousLesHoraires.stream()
                                         .map(AbonnementHoraire::getPrixHeure)
                                         .filter(prix -> prix != null)
-                                        .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+                                        .reduce(abonnementRecurrenceService.getPrixNonMaterialise(abonnementId), java.math.BigDecimal::add);
                                 
                                 // Mettre à jour le prix total de l'abonnement
                                 abonnement.setPrixTotal(prixTotal);
@@ -535,8 +512,9 @@ public class AbonnementHoraireService {
                         
                         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
                         if (abonnement != null && abonnement.getTerrain() != null) {
-                            eventPublisher.publishEvent(new AbonnementModifieEvent(abonnement.getTerrain().getId()));
-                            eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(abonnement.getTerrain().getId()));
+                            Set<Long> sourceIds = horairesAModifier.stream().map(AbonnementHoraire::getId).collect(Collectors.toSet());
+                            eventPublisher.publishEvent(new AbonnementModifieEvent(abonnement.getTerrain().getId(), sourceIds));
+                            eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(abonnement.getTerrain().getId(), sourceIds));
                         }
                     } else {
                         // Si pas d'abonnement, modifier seulement l'horaire actuel
@@ -561,22 +539,13 @@ public class AbonnementHoraireService {
                         if (existant.getAbonnement() != null && existant.getAbonnement().getTerrain() != null && 
                             dateHoraire != null && heureDebutHoraire != null && heureFinHoraire != null) {
                             Long abonnementIdExclu = existant.getAbonnement().getId();
-                            try {
-                                validerConflitHoraireAbonnement(
-                                    existant.getAbonnement().getTerrain().getId(),
-                                    dateHoraire,
-                                    heureDebutHoraire,
-                                    heureFinHoraire,
-                                    abonnementIdExclu // Exclure l'abonnement en cours de modification
-                                );
-                            } catch (IllegalArgumentException e) {
+                            validerConflitsHorairesAbonnement(
+                                existant.getAbonnement().getTerrain().getId(),
+                                List.of(new ConflictEngine.Candidat(dateHoraire, heureDebutHoraire, heureFinHoraire)),
                                 // Enrichir le message d'erreur avec plus de contexte
-                                throw new IllegalArgumentException(
-                                    String.format("Erreur lors de la modification de l'horaire (date: %s) : %s",
-                                        dateHoraire, e.getMessage()),
-                                    e
-                                );
-                            }
+                                List.of(String.format("Erreur lors de la modification de l'horaire (date: %s) : ", dateHoraire)),
+                                abonnementIdExclu // Exclure l'abonnement en cours de modification
+                            );
                         }
                         
                         horaireRepository.save(existant);
@@ -592,8 +561,8 @@ public class AbonnementHoraireService {
                         
                         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
                         if (existant.getAbonnement() != null && existant.getAbonnement().getTerrain() != null) {
-                            eventPublisher.publishEvent(new AbonnementModifieEvent(existant.getAbonnement().getTerrain().getId()));
-                            eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(existant.getAbonnement().getTerrain().getId()));
+                            eventPublisher.publishEvent(new AbonnementModifieEvent(existant.getAbonnement().getTerrain().getId(), Set.of(existant.getId())));
+                            eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(existant.getAbonnement().getTerrain().getId(), Set.of(existant.getId())));
                         }
                     }
 
@@ -629,8 +598,9 @@ public class AbonnementHoraireService {
                     .filter(h -> h.getJourSemaine() == jourSemaine)
                     .toList();
             
-            // Supprimer tous ces horaires
+            // Supprimer tous ces horaires, ainsi que les règles de récurrence de ce jour
             horaireRepository.deleteAll(horairesASupprimer);
+            abonnementRecurrenceService.supprimerRecurrences(abonnementId, jourSemaine);
             
             // ✅ FLUSH : Forcer l'écriture de la suppression en base
             entityManager.flush();
@@ -642,7 +612,7 @@ public class AbonnementHoraireService {
                 java.math.BigDecimal prixTotal = horairesRestants.stream()
                         .map(AbonnementHoraire::getPrixHeure)
                         .filter(prix -> prix != null)
-                        .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+                        .reduce(abonnementRecurrenceService.getPrixNonMaterialise(abonnementId), java.math.BigDecimal::add);
                 abonnement.setPrixTotal(prixTotal);
                 abonnementRepository.save(abonnement);
                 
@@ -657,8 +627,9 @@ public class AbonnementHoraireService {
                 
                 // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
                 if (abonnement.getTerrain() != null) {
-                    eventPublisher.publishEvent(new AbonnementModifieEvent(abonnement.getTerrain().getId()));
-                    eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(abonnement.getTerrain().getId()));
+                    Set<Long> sourceIds = horairesASupprimer.stream().map(AbonnementHoraire::getId).collect(Collectors.toSet());
+                    eventPublisher.publishEvent(new AbonnementModifieEvent(abonnement.getTerrain().getId(), sourceIds));
+                    eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(abonnement.getTerrain().getId(), sourceIds));
                 }
             }
         } else {
@@ -676,7 +647,7 @@ public class AbonnementHoraireService {
             
             // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
             if (terrainId != null) {
-                eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(terrainId));
+                eventPublisher.publishEvent(new AbonnementHoraireChangeEvent(terrainId, Set.of(id)));
             }
         }
         
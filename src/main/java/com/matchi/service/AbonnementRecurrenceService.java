@@ -0,0 +1,414 @@
+package com.matchi.service;
+
+import com.matchi.dto.AbonnementHoraireDTO;
+import com.matchi.event.AbonnementModifieEvent;
+import com.matchi.model.Abonnement;
+import com.matchi.model.AbonnementHoraire;
+import com.matchi.model.AbonnementRecurrence;
+import com.matchi.model.JourSemaine;
+import com.matchi.repository.AbonnementRecurrenceRepository;
+import com.matchi.repository.HoraireJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Récurrence des horaires d'abonnement : au lieu d'écrire une ligne AbonnementHoraire
+ * (puis une ligne indisponible_horaire) par semaine pour toute la durée de l'abonnement,
+ * chaque créneau hebdomadaire est stocké une fois sous forme de règle (AbonnementRecurrence).
+ *
+ * Seules les occurrences des prochaines semaines (horaire.recurrence.horizon-semaines) sont
+ * matérialisées : Django a besoin d'un horaire indisponible par occurrence pour bloquer le créneau.
+ * L'horizon avance chaque nuit ; au-delà, ConflictEngine et OccupationIndexService déplient
+ * les règles à la volée.
+ *
+ * ⚠️ Django n'est informé que des occurrences matérialisées : l'horizon effectif couvre toujours
+ * la fenêtre de réservation de Django (horaire.django.fenetre-reservation-semaines) plus une semaine,
+ * pour qu'aucune réservation Django ne tombe sur une occurrence encore sous forme de règle.
+ * Par sécurité, chaque matérialisation repasse par ConflictEngine : une occurrence déjà prise
+ * (réservation ponctuelle, horaire indisponible venu de Django) n'est pas insérée, elle devient
+ * une exception de la règle et son prix est retiré du prix total de l'abonnement.
+ *
+ * Les modifications qui recalculent les dates des lignes (décalage de la date de début, créneaux
+ * d'un jour) matérialisent d'abord les occurrences concernées : elles s'appliquent ensuite aux lignes.
+ */
+@Service
+@RequiredArgsConstructor
+public class AbonnementRecurrenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(AbonnementRecurrenceService.class);
+
+    private final AbonnementRecurrenceRepository recurrenceRepository;
+    private final HoraireJdbcRepository horaireJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConflictEngine conflictEngine;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${horaire.recurrence.horizon-semaines:8}")
+    private int horizonSemaines;
+
+    // Délai maximal (en semaines) auquel Django accepte une réservation
+    @Value("${horaire.django.fenetre-reservation-semaines:8}")
+    private int fenetreReservationDjangoSemaines;
+
+    /**
+     * Occurrence d'une règle qui n'existe pas (encore) en AbonnementHoraire
+     */
+    public record Occurrence(Long abonnementId, LocalDate date, LocalTime heureDebut, LocalTime heureFin,
+                             BigDecimal prixHeure) {}
+
+    private record Serie(JourSemaine jourSemaine, LocalTime heureDebut, LocalTime heureFin, BigDecimal prixHeure) {}
+
+    /**
+     * L'horizon doit dépasser la fenêtre de réservation de Django d'au moins une semaine
+     * (l'horizon n'avance qu'une fois par nuit)
+     */
+    @PostConstruct
+    public void verifierHorizon() {
+        int minimum = fenetreReservationDjangoSemaines + 1;
+        if (horizonSemaines < minimum) {
+            log.warn("⚠️ horaire.recurrence.horizon-semaines={} ne couvre pas la fenêtre de réservation Django ({} semaines) : horizon porté à {} semaines",
+                    horizonSemaines, fenetreReservationDjangoSemaines, minimum);
+            horizonSemaines = minimum;
+        }
+    }
+
+    // ======== CRÉATION ========
+
+    /**
+     * Répartit les occurrences générées pour un abonnement (déjà enregistré) :
+     * celles qui tombent dans l'horizon sont retournées pour être insérées,
+     * les suivantes sont enregistrées sous forme de règles (une par créneau hebdomadaire).
+     *
+     * Les trous de la série (occurrences non générées) deviennent des exceptions,
+     * pour que le dépliage reproduise exactement les occurrences reçues.
+     */
+    @Transactional
+    public List<AbonnementHoraire> planifier(Abonnement abonnement, List<AbonnementHoraire> occurrences) {
+        LocalDate horizon = horizon();
+        if (abonnement.getId() == null || abonnement.getTerrain() == null) {
+            return occurrences;
+        }
+
+        List<AbonnementHoraire> aMaterialiser = new ArrayList<>();
+        Map<Serie, TreeSet<LocalDate>> series = new LinkedHashMap<>();
+        for (AbonnementHoraire occurrence : occurrences) {
+            if (occurrence.getDate() == null || !occurrence.getDate().isAfter(horizon)
+                    || occurrence.getJourSemaine() == null
+                    || occurrence.getHeureDebut() == null || occurrence.getHeureFin() == null) {
+                aMaterialiser.add(occurrence);
+                continue;
+            }
+            Serie serie = new Serie(occurrence.getJourSemaine(), occurrence.getHeureDebut(),
+                    occurrence.getHeureFin(), occurrence.getPrixHeure());
+            series.computeIfAbsent(serie, s -> new TreeSet<>()).add(occurrence.getDate());
+        }
+        if (series.isEmpty()) {
+            return aMaterialiser;
+        }
+
+        List<AbonnementRecurrence> regles = new ArrayList<>(series.size());
+        series.forEach((serie, dates) -> {
+            AbonnementRecurrence regle = AbonnementRecurrence.builder()
+                    .abonnementId(abonnement.getId())
+                    .terrainId(abonnement.getTerrain().getId())
+                    .jourSemaine(serie.jourSemaine())
+                    .heureDebut(serie.heureDebut())
+                    .heureFin(serie.heureFin())
+                    .prixHeure(serie.prixHeure())
+                    .dateDebut(dates.first())
+                    .dateFin(dates.last())
+                    .materialiseJusqua(horizon)
+                    .build();
+            for (LocalDate date = dates.first(); !date.isAfter(dates.last()); date = date.plusWeeks(1)) {
+                if (!dates.contains(date)) {
+                    regle.getExceptions().add(date);
+                }
+            }
+            regles.add(regle);
+        });
+        recurrenceRepository.saveAll(regles);
+
+        log.info("✅ Abonnement {} : {} occurrence(s) matérialisée(s), {} règle(s) de récurrence au-delà du {}",
+                abonnement.getId(), aMaterialiser.size(), regles.size(), horizon);
+        return aMaterialiser;
+    }
+
+    // ======== LECTURE ========
+
+    /**
+     * Occurrences non matérialisées d'un terrain dont la date est comprise dans la période (incluse)
+     */
+    @Transactional(readOnly = true)
+    public List<Occurrence> getOccurrencesNonMaterialisees(Long terrainId, LocalDate debut, LocalDate fin) {
+        List<Occurrence> resultat = new ArrayList<>();
+        for (AbonnementRecurrence regle : recurrenceRepository.findNonMaterialiseesParTerrain(terrainId, debut, fin)) {
+            for (LocalDate date : regle.occurrencesNonMaterialisees(debut, fin)) {
+                resultat.add(new Occurrence(regle.getAbonnementId(), date, regle.getHeureDebut(), regle.getHeureFin(),
+                        regle.getPrixHeure()));
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Occurrences non matérialisées d'un terrain à partir d'une date (incluse), jusqu'à la fin de chaque série
+     */
+    @Transactional(readOnly = true)
+    public List<Occurrence> getOccurrencesNonMaterialisees(Long terrainId, LocalDate debut) {
+        List<Occurrence> resultat = new ArrayList<>();
+        for (AbonnementRecurrence regle : recurrenceRepository.findNonMaterialiseesParTerrainDepuis(terrainId, debut)) {
+            for (LocalDate date : regle.occurrencesNonMaterialisees(debut, regle.getDateFin())) {
+                resultat.add(new Occurrence(regle.getAbonnementId(), date, regle.getHeureDebut(), regle.getHeureFin(),
+                        regle.getPrixHeure()));
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Occurrences non matérialisées de chaque abonnement, au format des horaires (sans ID),
+     * triées par date puis heure : complètent les horaires des AbonnementDTO
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<AbonnementHoraireDTO>> getOccurrencesParAbonnement(Collection<Long> abonnementIds) {
+        if (abonnementIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<AbonnementHoraireDTO>> parAbonnement = new HashMap<>();
+        for (AbonnementRecurrence regle : recurrenceRepository.findByAbonnementIdIn(abonnementIds)) {
+            List<AbonnementHoraireDTO> horaires = parAbonnement.computeIfAbsent(regle.getAbonnementId(), id -> new ArrayList<>());
+            for (LocalDate date : regle.occurrencesNonMaterialisees()) {
+                horaires.add(new AbonnementHoraireDTO(null, regle.getAbonnementId(), date, regle.getJourSemaine(),
+                        regle.getHeureDebut(), regle.getHeureFin(), regle.getPrixHeure()));
+            }
+        }
+        parAbonnement.values().forEach(horaires -> horaires.sort(
+                Comparator.comparing(AbonnementHoraireDTO::getDate).thenComparing(AbonnementHoraireDTO::getHeureDebut)));
+        return parAbonnement;
+    }
+
+    /**
+     * Règles de l'abonnement (créneaux hebdomadaires dont des occurrences restent à matérialiser)
+     */
+    @Transactional(readOnly = true)
+    public List<AbonnementRecurrence> getRecurrences(Long abonnementId) {
+        return recurrenceRepository.findByAbonnementId(abonnementId);
+    }
+
+    /**
+     * Somme des prix des occurrences non matérialisées (à ajouter à celle des lignes pour le prix total)
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getPrixNonMaterialise(Long abonnementId) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (AbonnementRecurrence regle : recurrenceRepository.findByAbonnementId(abonnementId)) {
+            if (regle.getPrixHeure() == null) {
+                continue;
+            }
+            int nombre = regle.occurrencesNonMaterialisees().size();
+            total = total.add(regle.getPrixHeure().multiply(BigDecimal.valueOf(nombre)));
+        }
+        return total;
+    }
+
+    // ======== MATÉRIALISATION ========
+
+    /**
+     * Matérialise toutes les occurrences restantes de l'abonnement et supprime ses règles
+     * (avant une modification qui s'applique aux lignes AbonnementHoraire)
+     *
+     * @return les horaires insérés
+     */
+    @Transactional
+    public List<AbonnementHoraire> materialiserTout(Long abonnementId) {
+        return materialiserTout(recurrenceRepository.findByAbonnementId(abonnementId));
+    }
+
+    /**
+     * Matérialise les occurrences restantes des créneaux d'un jour de la semaine de l'abonnement
+     */
+    @Transactional
+    public List<AbonnementHoraire> materialiserTout(Long abonnementId, JourSemaine jourSemaine) {
+        return materialiserTout(recurrenceRepository.findByAbonnementIdAndJourSemaine(abonnementId, jourSemaine));
+    }
+
+    private List<AbonnementHoraire> materialiserTout(List<AbonnementRecurrence> regles) {
+        if (regles.isEmpty()) {
+            return List.of();
+        }
+        LocalDate fin = regles.stream().map(AbonnementRecurrence::getDateFin).max(LocalDate::compareTo).get();
+        return materialiser(regles, fin);
+    }
+
+    /**
+     * Reporte le changement de terrain d'un abonnement sur ses règles
+     */
+    @Transactional
+    public void changerTerrain(Long abonnementId, Long terrainId) {
+        List<AbonnementRecurrence> regles = recurrenceRepository.findByAbonnementId(abonnementId);
+        regles.forEach(regle -> regle.setTerrainId(terrainId));
+        recurrenceRepository.saveAll(regles);
+    }
+
+    /**
+     * Supprime les règles des créneaux d'un jour de la semaine (leurs occurrences non matérialisées disparaissent)
+     */
+    @Transactional
+    public void supprimerRecurrences(Long abonnementId, JourSemaine jourSemaine) {
+        recurrenceRepository.deleteAll(recurrenceRepository.findByAbonnementIdAndJourSemaine(abonnementId, jourSemaine));
+    }
+
+    /**
+     * Supprime une occurrence non matérialisée (exception sur la règle)
+     *
+     * @return le prix de l'occurrence supprimée, ou null si aucune règle ne la couvre
+     */
+    @Transactional
+    public BigDecimal exclureOccurrence(Long abonnementId, LocalDate date) {
+        for (AbonnementRecurrence regle : recurrenceRepository.findByAbonnementId(abonnementId)) {
+            LocalDate apres = regle.getMaterialiseJusqua().isAfter(date.minusDays(1))
+                    ? regle.getMaterialiseJusqua() : date.minusDays(1);
+            if (!regle.occurrences(apres, date).isEmpty()) {
+                regle.getExceptions().add(date);
+                recurrenceRepository.save(regle);
+                return regle.getPrixHeure() != null ? regle.getPrixHeure() : BigDecimal.ZERO;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Avance l'horizon de matérialisation de toutes les règles (chaque nuit).
+     * Les horaires créés sont synchronisés après le commit, comme à la création d'un abonnement.
+     */
+    @Scheduled(cron = "${horaire.recurrence.cron:0 30 2 * * *}")
+    @Transactional
+    public void avancerHorizon() {
+        LocalDate horizon = horizon();
+        List<AbonnementRecurrence> regles = recurrenceRepository.findAMaterialiser(horizon);
+        if (regles.isEmpty()) {
+            return;
+        }
+        List<AbonnementHoraire> inseres = materialiser(regles, horizon);
+        log.info("✅ Horizon des abonnements avancé au {} : {} règle(s), {} horaire(s) créé(s)",
+                horizon, regles.size(), inseres.size());
+    }
+
+    /**
+     * Insère les occurrences des règles jusqu'à la date donnée (incluse), avance leur horizon
+     * et supprime celles qui sont entièrement matérialisées.
+     *
+     * Les occurrences déjà occupées sur le terrain (réservation acceptée entre-temps, notamment par Django)
+     * ne sont pas insérées : elles deviennent des exceptions et leur prix est retiré de l'abonnement.
+     */
+    private List<AbonnementHoraire> materialiser(List<AbonnementRecurrence> regles, LocalDate jusqua) {
+        Map<Long, List<AbonnementRecurrence>> reglesParTerrain = new LinkedHashMap<>();
+        regles.forEach(regle -> reglesParTerrain.computeIfAbsent(regle.getTerrainId(), t -> new ArrayList<>()).add(regle));
+
+        List<AbonnementHoraire> horaires = new ArrayList<>();
+        Map<Long, Set<Long>> sourceIdsParTerrain = new HashMap<>();
+        Map<Long, BigDecimal> prixRetireParAbonnement = new HashMap<>();
+        reglesParTerrain.forEach((terrainId, reglesDuTerrain) -> {
+            List<AbonnementRecurrence> reglesCandidats = new ArrayList<>();
+            List<ConflictEngine.Candidat> candidats = new ArrayList<>();
+            for (AbonnementRecurrence regle : reglesDuTerrain) {
+                for (LocalDate date : regle.occurrences(regle.getMaterialiseJusqua(), jusqua)) {
+                    reglesCandidats.add(regle);
+                    candidats.add(new ConflictEngine.Candidat(date, regle.getHeureDebut(), regle.getHeureFin()));
+                }
+            }
+
+            // Les occurrences non matérialisées des règles traitées ne sont pas des conflits
+            Set<Long> abonnementIds = new HashSet<>();
+            reglesDuTerrain.forEach(regle -> abonnementIds.add(regle.getAbonnementId()));
+            Set<Integer> enConflit = new HashSet<>();
+            for (ConflictEngine.Conflit conflit : conflictEngine.detecterConflits(
+                    terrainId, candidats, ConflictEngine.Exclusions.recurrences(abonnementIds))) {
+                if (enConflit.add(conflit.indexCandidat())) {
+                    AbonnementRecurrence regle = reglesCandidats.get(conflit.indexCandidat());
+                    regle.getExceptions().add(conflit.candidat().date());
+                    if (regle.getPrixHeure() != null) {
+                        prixRetireParAbonnement.merge(regle.getAbonnementId(), regle.getPrixHeure(), BigDecimal::add);
+                    }
+                    log.warn("⚠️ Occurrence de l'abonnement {} non matérialisée : le créneau {} {}-{} du terrain {} est déjà occupé ({} {})",
+                            regle.getAbonnementId(), conflit.candidat().date(), regle.getHeureDebut(), regle.getHeureFin(),
+                            terrainId, conflit.occupation().typeReservation(), conflit.occupation().sourceId());
+                }
+            }
+
+            List<AbonnementHoraire> horairesDuTerrain = new ArrayList<>();
+            for (int i = 0; i < candidats.size(); i++) {
+                if (enConflit.contains(i)) {
+                    continue;
+                }
+                AbonnementRecurrence regle = reglesCandidats.get(i);
+                AbonnementHoraire horaire = new AbonnementHoraire();
+                horaire.setAbonnement(entityManager.getReference(Abonnement.class, regle.getAbonnementId()));
+                horaire.setJourSemaine(regle.getJourSemaine());
+                horaire.setDate(candidats.get(i).date());
+                horaire.setHeureDebut(regle.getHeureDebut());
+                horaire.setHeureFin(regle.getHeureFin());
+                horaire.setPrixHeure(regle.getPrixHeure());
+                horairesDuTerrain.add(horaire);
+            }
+            if (!horairesDuTerrain.isEmpty()) {
+                // ⚠️ Les INSERT JDBC contournent le contexte de persistance : flush préalable
+                entityManager.flush();
+                horaireJdbcRepository.insererAbonnementHoraires(horairesDuTerrain);
+                horairesDuTerrain.forEach(horaire ->
+                        sourceIdsParTerrain.computeIfAbsent(terrainId, t -> new HashSet<>()).add(horaire.getId()));
+                horaires.addAll(horairesDuTerrain);
+            }
+        });
+
+        for (AbonnementRecurrence regle : regles) {
+            if (!jusqua.isBefore(regle.getDateFin())) {
+                recurrenceRepository.delete(regle);
+            } else if (jusqua.isAfter(regle.getMaterialiseJusqua())) {
+                regle.setMaterialiseJusqua(jusqua);
+                recurrenceRepository.save(regle);
+            }
+        }
+
+        prixRetireParAbonnement.forEach((abonnementId, prixRetire) -> {
+            Abonnement abonnement = entityManager.find(Abonnement.class, abonnementId);
+            if (abonnement != null && abonnement.getPrixTotal() != null) {
+                abonnement.setPrixTotal(abonnement.getPrixTotal().subtract(prixRetire));
+            }
+        });
+
+        // ✅ PUBLIER UN ÉVÉNEMENT par terrain pour synchroniser les horaires créés APRÈS le commit
+        sourceIdsParTerrain.forEach((terrainId, sourceIds) ->
+                eventPublisher.publishEvent(new AbonnementModifieEvent(terrainId, sourceIds)));
+        return horaires;
+    }
+
+    private LocalDate horizon() {
+        return LocalDate.now().plusWeeks(horizonSemaines);
+    }
+}
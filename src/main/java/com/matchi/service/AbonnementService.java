@@ -5,18 +5,23 @@ import com.matchi.repository.*;
 import com.matchi.dto.*;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import com.matchi.event.AbonnementModifieEvent;
+import com.matchi.exception.ConflitHoraireException;
 
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,10 +32,10 @@ public class AbonnementService {
     private final ClientAbonneRepository clientAbonneRepository;
     private final TerrainServiceRepository terrainServiceRepository;
     private final AbonnementHoraireRepository abonnementHoraireRepository;
-    private final ReservationPonctuelleRepository reservationPonctuelleRepository;
-    private final IndisponibleHoraireRepository indisponibleHoraireRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final KafkaAvailabilityService kafkaAvailabilityService;
+    private final ConflictEngine conflictEngine;
+    private final HoraireJdbcRepository horaireJdbcRepository;
+    private final AbonnementRecurrenceService abonnementRecurrenceService;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -278,8 +283,15 @@ public class AbonnementService {
 
     // ======== MAPPERS ========
     private AbonnementDTO toDTO(Abonnement abonnement) {
-        List<AbonnementHoraireDTO> horaires = abonnement.getHoraires() == null ? List.of() :
-            abonnement.getHoraires().stream()
+        return toDTO(abonnement, abonnement.getHoraires());
+    }
+
+    /**
+     * Les horaires du DTO comprennent les occurrences encore sous forme de règle (sans ID), après les lignes
+     */
+    private AbonnementDTO toDTO(Abonnement abonnement, List<AbonnementHoraire> horairesAbonnement) {
+        List<AbonnementHoraireDTO> horaires = horairesAbonnement == null ? new ArrayList<>() :
+            horairesAbonnement.stream()
                 .map(h -> {
                     AbonnementHoraireDTO dto = new AbonnementHoraireDTO();
                     dto.setId(h.getId());
@@ -292,6 +304,10 @@ public class AbonnementService {
                     return dto;
                 })
                 .collect(Collectors.toList());
+        if (abonnement.getId() != null) {
+            horaires.addAll(abonnementRecurrenceService.getOccurrencesParAbonnement(List.of(abonnement.getId()))
+                    .getOrDefault(abonnement.getId(), List.of()));
+        }
 
         return new AbonnementDTO(
                 abonnement.getId(),
@@ -307,12 +323,13 @@ public class AbonnementService {
     }
 
     // ======== SERVICES ========
-    public List<AbonnementDTO> getAllAbonnements() {
-        // ✅ FILTRER : Afficher uniquement les abonnements actifs
-        return abonnementRepository.findByStatus(StatutAbonnement.ACTIF)
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public PageCurseur<AbonnementDTO> getAllAbonnements(String curseur, int taille) {
+        // ✅ FILTRER : Afficher uniquement les abonnements actifs (filtre en base, pages par ID)
+        List<AbonnementDTO> lignes = abonnementRepository.findDTOByStatusApres(
+                StatutAbonnement.ACTIF, PageCurseur.idApres(curseur), Limit.of(taille + 1));
+        PageCurseur<AbonnementDTO> page = PageCurseur.depuis(lignes, taille, abonnement -> String.valueOf(abonnement.getId()));
+        avecHoraires(page.elements());
+        return page;
     }
 
     public AbonnementDTO getAbonnementById(Long id) {
@@ -322,12 +339,30 @@ public class AbonnementService {
     }
 
     public List<AbonnementDTO> getAbonnementsByClientId(Long clientId) {
-        // ✅ FILTRER : Afficher uniquement les abonnements actifs
-        return abonnementRepository.findByClientId(clientId)
-                .stream()
-                .filter(abonnement -> abonnement.getStatus() == StatutAbonnement.ACTIF)
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        // ✅ FILTRER : Afficher uniquement les abonnements actifs (filtre en base)
+        return avecHoraires(abonnementRepository.findDTOByClientIdAndStatus(clientId, StatutAbonnement.ACTIF));
+    }
+
+    /**
+     * Renseigne les horaires d'une liste d'abonnements en une seule requête
+     * (au lieu d'initialiser la collection horaires de chaque abonnement),
+     * puis leurs occurrences non matérialisées (une requête pour toutes les règles)
+     */
+    private List<AbonnementDTO> avecHoraires(List<AbonnementDTO> abonnements) {
+        if (abonnements.isEmpty()) {
+            return abonnements;
+        }
+        Map<Long, AbonnementDTO> parId = new HashMap<>();
+        abonnements.forEach(abonnement -> parId.put(abonnement.getId(), abonnement));
+        for (AbonnementHoraireDTO horaire : abonnementHoraireRepository.findDTOByAbonnementIdIn(parId.keySet())) {
+            AbonnementDTO abonnement = parId.get(horaire.getAbonnementId());
+            if (abonnement != null) {
+                abonnement.getHoraires().add(horaire);
+            }
+        }
+        abonnementRecurrenceService.getOccurrencesParAbonnement(parId.keySet())
+                .forEach((abonnementId, occurrences) -> parId.get(abonnementId).getHoraires().addAll(occurrences));
+        return abonnements;
     }
 
     /**
@@ -350,110 +385,72 @@ public class AbonnementService {
     }
     
     /**
-     * ✅ Valide qu'un créneau horaire d'abonnement ne chevauche pas avec des réservations existantes
+     * ✅ Valide qu'un lot de créneaux horaires d'abonnement ne chevauche pas des réservations existantes
      * Vérifie les conflits avec :
      * 1. Les réservations ponctuelles existantes
      * 2. Les autres abonnements actifs (via IndisponibleHoraire)
+     * 
+     * Le lot est vérifié en une seule passe par le ConflictEngine (deux requêtes pour toute la période)
+     * et TOUS les conflits sont signalés en une fois (pas seulement le premier).
+     * 
+     * @param contextes préfixe du message d'erreur de chaque candidat (même ordre) ; peut être null
+     * @throws ConflitHoraireException si au moins un créneau est en conflit
      */
-    private void validerConflitHoraireAbonnement(Long terrainId, LocalDate date, 
-                                                 java.time.LocalTime heureDebut, java.time.LocalTime heureFin,
-                                                 Long abonnementIdExclu) {
-        if (terrainId == null || date == null || heureDebut == null || heureFin == null) {
+    private void validerConflitsHorairesAbonnement(Long terrainId, List<ConflictEngine.Candidat> candidats,
+                                                   List<String> contextes, Long abonnementIdExclu) {
+        if (terrainId == null || candidats.isEmpty()) {
             return; // Pas de validation si données incomplètes
         }
         
-        // 1. Vérifier les conflits avec les réservations ponctuelles existantes
-        List<ReservationPonctuelle> reservationsExistantes = reservationPonctuelleRepository.findByTerrain_IdAndDate(terrainId, date);
-        
-        for (ReservationPonctuelle existante : reservationsExistantes) {
-            // Vérifier si les créneaux se chevauchent
-            if (creneauxSeChevauchent(heureDebut, heureFin, 
-                                     existante.getHeureDebut(), existante.getHeureFin())) {
-                throw new IllegalArgumentException(
-                    String.format("Conflit avec une réservation ponctuelle : Le créneau %s-%s est déjà réservé pour ce terrain le %s. " +
-                                 "Réservation existante : %s-%s",
-                        heureDebut, heureFin, date,
-                        existante.getHeureDebut(), existante.getHeureFin())
-                );
-            }
-        }
-        
-        // 2. Vérifier les conflits avec les autres abonnements actifs (via IndisponibleHoraire)
-        List<IndisponibleHoraire> horairesIndisponibles = indisponibleHoraireRepository.findByTerrainIdAndDate(terrainId, date);
-        
-        // ✅ CORRECTION : Récupérer tous les IDs des horaires de l'abonnement en cours de création/modification
-        // Le sourceId dans indisponible_horaire est l'ID de l'AbonnementHoraire, pas l'ID de l'Abonnement
-        java.util.Set<Long> horaireIdsExclus = new java.util.HashSet<>();
-        if (abonnementIdExclu != null) {
-            List<AbonnementHoraire> horairesAbonnement = abonnementHoraireRepository.findByAbonnementId(abonnementIdExclu);
-            horaireIdsExclus = horairesAbonnement.stream()
-                    .map(AbonnementHoraire::getId)
-                    .collect(java.util.stream.Collectors.toSet());
+        List<ConflictEngine.Conflit> conflits = conflictEngine.detecterConflits(
+                terrainId, candidats, exclusionsAbonnement(abonnementIdExclu));
+        if (conflits.isEmpty()) {
+            return;
         }
         
-        for (IndisponibleHoraire indispo : horairesIndisponibles) {
-            // Exclure les horaires de l'abonnement en cours de création/modification
-            // Le sourceId est l'ID de l'AbonnementHoraire
-            if (indispo.getTypeReservation() == TypeReservation.ABONNEMENT && 
-                indispo.getSourceId() != null && 
-                horaireIdsExclus.contains(indispo.getSourceId())) {
-                continue; // Ignorer les horaires de l'abonnement actuel
-            }
-            
-            // Vérifier si les créneaux se chevauchent
-            if (creneauxSeChevauchent(heureDebut, heureFin, 
-                                     indispo.getHeureDebut(), indispo.getHeureFin())) {
-                throw new IllegalArgumentException(
-                    String.format("Conflit avec un abonnement existant : Le créneau %s-%s est déjà occupé par un autre abonnement pour ce terrain le %s. " +
-                                 "Créneau occupé : %s-%s",
-                        heureDebut, heureFin, date,
-                        indispo.getHeureDebut(), indispo.getHeureFin())
-                );
-            }
-        }
+        List<String> messages = conflits.stream()
+                .map(conflit -> contextes != null
+                        ? contextes.get(conflit.indexCandidat()) + decrireConflit(conflit)
+                        : decrireConflit(conflit))
+                .collect(Collectors.toList());
+        throw new ConflitHoraireException(messages);
     }
     
     /**
-     * ✅ Vérifie si deux créneaux horaires se chevauchent
-     * Gère le cas spécial où heureFin = 00:00 (minuit = fin de journée)
+     * ✅ Exclut les horaires de l'abonnement en cours de modification (y compris ses occurrences non matérialisées)
+     * Le sourceId dans indisponible_horaire est l'ID de l'AbonnementHoraire, pas l'ID de l'Abonnement
      */
-    private boolean creneauxSeChevauchent(java.time.LocalTime debut1, java.time.LocalTime fin1, 
-                                          java.time.LocalTime debut2, java.time.LocalTime fin2) {
-        if (debut1 == null || fin1 == null || debut2 == null || fin2 == null) {
-            return false;
+    private ConflictEngine.Exclusions exclusionsAbonnement(Long abonnementIdExclu) {
+        if (abonnementIdExclu == null) {
+            return ConflictEngine.Exclusions.aucune();
         }
-        
-        // Cas spécial : si les deux créneaux ont la même heure de début, ils se chevauchent
-        if (debut1.equals(debut2)) {
-            return true;
-        }
-        
-        // Cas spécial : si fin1 ou fin2 est 00h (minuit), on doit gérer différemment
-        java.time.LocalTime minuit = java.time.LocalTime.of(0, 0);
-        boolean fin1EstMinuit = fin1.equals(minuit);
-        boolean fin2EstMinuit = fin2.equals(minuit);
-        
-        if (fin1EstMinuit) {
-            // fin1 est minuit, donc le créneau 1 va jusqu'à la fin de la journée
-            return debut1.isBefore(fin2);
-        } else if (fin2EstMinuit) {
-            // fin2 est minuit, donc le créneau 2 va jusqu'à la fin de la journée
-            return debut2.isBefore(fin1);
-        } else {
-            // Cas normal : aucun créneau ne se termine à minuit
-            // Deux créneaux se chevauchent si : debut1 < fin2 && fin1 > debut2
-            return (debut1.isBefore(fin2) && fin1.isAfter(debut2));
+        return ConflictEngine.Exclusions.abonnement(abonnementIdExclu,
+                abonnementHoraireRepository.findByAbonnementId(abonnementIdExclu).stream()
+                        .map(AbonnementHoraire::getId)
+                        .collect(Collectors.toSet()));
+    }
+    
+    /**
+     * Message d'erreur d'un conflit, selon le type du créneau occupé
+     */
+    private String decrireConflit(ConflictEngine.Conflit conflit) {
+        ConflictEngine.Candidat candidat = conflit.candidat();
+        ConflictEngine.Occupation occupation = conflit.occupation();
+        if (occupation.typeReservation() == TypeReservation.RESERVATION_PONCTUELLE) {
+            return String.format("Conflit avec une réservation ponctuelle : Le créneau %s-%s est déjà réservé pour ce terrain le %s. " +
+                                 "Réservation existante : %s-%s",
+                    candidat.heureDebut(), candidat.heureFin(), candidat.date(),
+                    occupation.heureDebut(), occupation.heureFin());
         }
+        return String.format("Conflit avec un abonnement existant : Le créneau %s-%s est déjà occupé par un autre abonnement pour ce terrain le %s. " +
+                             "Créneau occupé : %s-%s",
+                candidat.heureDebut(), candidat.heureFin(), candidat.date(),
+                occupation.heureDebut(), occupation.heureFin());
     }
     
     // ======== CREATE ========
     @Transactional
     public AbonnementDTO createAbonnement(AbonnementCreateDTO dto) {
-        // ✅ VALIDATION : Vérifier que Kafka est disponible avant de créer un abonnement
-        if (!kafkaAvailabilityService.isKafkaAvailable()) {
-            throw new IllegalStateException("Impossible de créer un abonnement : Kafka n'est pas démarré ou n'est pas disponible. Veuillez démarrer Kafka avant de créer un abonnement.");
-        }
-        
         // ✅ VALIDATION : Vérifier les données obligatoires
         if (dto == null) {
             throw new IllegalArgumentException("Les données de l'abonnement ne peuvent pas être nulles");
@@ -516,6 +513,8 @@ public class AbonnementService {
         
         // Générer tous les horaires répétés pour toutes les semaines
         List<AbonnementHoraire> horairesRepetitifs = new ArrayList<>();
+        List<ConflictEngine.Candidat> candidats = new ArrayList<>();
+        List<String> contextes = new ArrayList<>();
         
         if (dto.getHoraires() != null && !dto.getHoraires().isEmpty()) {
             // ✅ CORRECTION : Calculer d'abord toutes les premières occurrences (semaine 0)
@@ -580,24 +579,12 @@ public class AbonnementService {
                         }
                     }
                     
-                    // ✅ VALIDATION : Vérifier les conflits avec les réservations existantes
-                    if (abonnement.getTerrain() != null && dateHoraire != null && heureDebut != null && heureFin != null) {
-                        try {
-                            validerConflitHoraireAbonnement(
-                                abonnement.getTerrain().getId(),
-                                dateHoraire,
-                                heureDebut,
-                                heureFin,
-                                null // Pas d'exclusion pour une nouvelle création
-                            );
-                        } catch (IllegalArgumentException e) {
-                            // Enrichir le message d'erreur avec plus de contexte
-                            throw new IllegalArgumentException(
-                                String.format("Erreur lors de la création de l'horaire pour le %s (semaine %d) : %s",
-                                    hdto.getJourSemaine(), semaine, e.getMessage()),
-                                e
-                            );
-                        }
+                    // ✅ VALIDATION : Les conflits sont vérifiés en une seule passe après la génération
+                    if (dateHoraire != null && heureDebut != null && heureFin != null) {
+                        candidats.add(new ConflictEngine.Candidat(dateHoraire, heureDebut, heureFin));
+                        // Enrichir le message d'erreur avec plus de contexte
+                        contextes.add(String.format("Erreur lors de la création de l'horaire pour le %s (semaine %d) : ",
+                                hdto.getJourSemaine(), semaine));
                     }
                     
                     AbonnementHoraire h = new AbonnementHoraire();
@@ -612,7 +599,9 @@ public class AbonnementService {
             }
         }
 
-        abonnement.setHoraires(horairesRepetitifs);
+        // ✅ VALIDATION : Vérifier les conflits de tous les horaires générés avec les réservations existantes
+        validerConflitsHorairesAbonnement(terrain.getId(), candidats, contextes,
+                null); // Pas d'exclusion pour une nouvelle création
 
         // *** CALCUL AUTOMATIQUE DU PRIX TOTAL ***
         // Le prix total = somme de TOUS les horaires répétés
@@ -629,19 +618,26 @@ public class AbonnementService {
 
         Abonnement saved = abonnementRepository.save(abonnement);
 
-        // Enregistrer TOUS les horaires répétitifs
-        if (!horairesRepetitifs.isEmpty()) {
-            horairesRepetitifs.forEach(h -> h.setAbonnement(saved));
-            abonnementHoraireRepository.saveAll(horairesRepetitifs);
+        // Enregistrer les horaires répétitifs de l'horizon de matérialisation
+        // ✅ RÉCURRENCE : les occurrences suivantes sont stockées sous forme de règles (une par créneau hebdomadaire)
+        // ✅ INSERTION EN MASSE : quelques INSERT multi-lignes au lieu d'un aller-retour par horaire
+        // (les horaires ne passent pas par la cascade de l'abonnement)
+        horairesRepetitifs.forEach(h -> h.setAbonnement(saved));
+        List<AbonnementHoraire> horairesMaterialises = abonnementRecurrenceService.planifier(saved, horairesRepetitifs);
+        if (!horairesMaterialises.isEmpty()) {
+            entityManager.flush();
+            horaireJdbcRepository.insererAbonnementHoraires(horairesMaterialises);
         }
+        Set<Long> sourceIds = horairesMaterialises.stream().map(AbonnementHoraire::getId).collect(Collectors.toSet());
 
         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
         // L'événement AFTER_COMMIT garantit que les données sont déjà commitées en base
+        // (seuls les horaires créés sont synchronisés)
         if (saved.getTerrain() != null) {
-            eventPublisher.publishEvent(new AbonnementModifieEvent(saved.getTerrain().getId()));
+            eventPublisher.publishEvent(new AbonnementModifieEvent(saved.getTerrain().getId(), sourceIds));
         }
 
-        return toDTO(saved);
+        return toDTO(saved, horairesMaterialises);
     }
 
     // ======== UPDATE ========
@@ -650,11 +646,20 @@ public class AbonnementService {
         Abonnement abonnement = abonnementRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Abonnement introuvable"));
 
+        // ✅ RÉCURRENCE : seul le décalage de la date de début (sans nouveaux horaires) recalcule la date
+        // de chaque ligne d'après sa position : les occurrences encore sous forme de règles sont alors
+        // matérialisées d'abord. Les autres modifications laissent les règles en place.
+        if (dto.getDateDebut() != null && !dto.getDateDebut().equals(abonnement.getDateDebut())
+                && dto.getHoraires() == null) {
+            abonnementRecurrenceService.materialiserTout(id);
+        }
+
         // Terrain
         if (dto.getTerrainId() != null) {
             TerrainService terrain = terrainServiceRepository.findById(dto.getTerrainId())
                     .orElseThrow(() -> new IllegalArgumentException("Terrain non trouvé"));
             abonnement.setTerrain(terrain);
+            abonnementRecurrenceService.changerTerrain(id, terrain.getId());
         }
 
         // Client - ✅ Recherche par numéro de téléphone au lieu de l'ID
@@ -726,6 +731,7 @@ public class AbonnementService {
             // On parcourt les horaires dans l'ordre et on calcule la semaine en fonction de leur position
             int indexGlobal = 0;
             int nombreConfigs = configurationsUniques.size();
+            List<ConflictEngine.Candidat> candidatsDecales = new ArrayList<>();
             
             for (AbonnementHoraire horaire : horairesExistants) {
                 if (horaire.getJourSemaine() != null && horaire.getHeureDebut() != null) {
@@ -745,15 +751,9 @@ public class AbonnementService {
                     
                     // ✅ VALIDATION : Vérifier les conflits (seulement si la date change vraiment)
                     if (horaire.getDate() == null || !horaire.getDate().equals(nouvelleDate)) {
-                        if (abonnement.getTerrain() != null && nouvelleDate != null && 
-                            horaire.getHeureDebut() != null && horaire.getHeureFin() != null) {
-                            validerConflitHoraireAbonnement(
-                                abonnement.getTerrain().getId(),
-                                nouvelleDate,
-                                horaire.getHeureDebut(),
-                                horaire.getHeureFin(),
-                                id // Exclure l'abonnement en cours de modification
-                            );
+                        if (nouvelleDate != null && horaire.getHeureDebut() != null && horaire.getHeureFin() != null) {
+                            candidatsDecales.add(new ConflictEngine.Candidat(
+                                nouvelleDate, horaire.getHeureDebut(), horaire.getHeureFin()));
                         }
                     }
                     
@@ -764,6 +764,12 @@ public class AbonnementService {
                 }
             }
             
+            // ✅ VALIDATION : Vérifier les conflits de toutes les nouvelles dates en une seule passe
+            if (abonnement.getTerrain() != null) {
+                validerConflitsHorairesAbonnement(abonnement.getTerrain().getId(), candidatsDecales, null,
+                        id); // Exclure l'abonnement en cours de modification
+            }
+            
             // ✅ Sauvegarder les horaires modifiés
             abonnementHoraireRepository.saveAll(horairesExistants);
             
@@ -789,6 +795,9 @@ public class AbonnementService {
             // *** GENERATION DES HORAIRES REPETITIFS ***
             // Calculer le nombre de semaines
             long nombreSemaines = calculerNombreSemaines(abonnement.getDateDebut(), abonnement.getDateFin());
+            List<AbonnementHoraire> nouveauxHoraires = new ArrayList<>();
+            List<ConflictEngine.Candidat> nouveauxCandidats = new ArrayList<>();
+            List<String> nouveauxContextes = new ArrayList<>();
             
             // Pour chaque semaine (de 0 à nombreSemaines-1)
             for (int semaine = 0; semaine < nombreSemaines; semaine++) {
@@ -842,24 +851,12 @@ public class AbonnementService {
                         }
                     }
                     
-                    // ✅ VALIDATION : Vérifier les conflits avec les réservations existantes
-                    if (abonnement.getTerrain() != null && dateHoraire != null && heureDebut != null && heureFin != null) {
-                        try {
-                            validerConflitHoraireAbonnement(
-                                abonnement.getTerrain().getId(),
-                                dateHoraire,
-                                heureDebut,
-                                heureFin,
-                                id // Exclure l'abonnement en cours de modification
-                            );
-                        } catch (IllegalArgumentException e) {
-                            // Enrichir le message d'erreur avec plus de contexte
-                            throw new IllegalArgumentException(
-                                String.format("Erreur lors de la modification de l'horaire pour le %s (semaine %d) : %s",
-                                    hdto.getJourSemaine(), semaine, e.getMessage()),
-                                e
-                            );
-                        }
+                    // ✅ VALIDATION : Les conflits sont vérifiés en une seule passe après la génération
+                    if (dateHoraire != null && heureDebut != null && heureFin != null) {
+                        nouveauxCandidats.add(new ConflictEngine.Candidat(dateHoraire, heureDebut, heureFin));
+                        // Enrichir le message d'erreur avec plus de contexte
+                        nouveauxContextes.add(String.format("Erreur lors de la modification de l'horaire pour le %s (semaine %d) : ",
+                                hdto.getJourSemaine(), semaine));
                     }
                     
                     // ✅ CRÉER le nouvel horaire
@@ -872,19 +869,27 @@ public class AbonnementService {
                     h.setHeureFin(heureFin);
                     h.setPrixHeure(hdto.getPrixHeure());
                     
-                    // ✅ AJOUTER directement à la liste existante (NE JAMAIS utiliser setHoraires())
-                    // ❌ INTERDIT : abonnement.setHoraires(horairesRepetitifs);
-                    // ✅ OBLIGATOIRE : Utiliser add() sur la liste existante
-                    abonnement.getHoraires().add(h);
+                    nouveauxHoraires.add(h);
                 }
             }
 
+            // ✅ VALIDATION : Vérifier les conflits de tous les nouveaux horaires en une seule passe
+            if (abonnement.getTerrain() != null) {
+                validerConflitsHorairesAbonnement(abonnement.getTerrain().getId(), nouveauxCandidats, nouveauxContextes,
+                        id); // Exclure l'abonnement en cours de modification
+            }
+
+            // ✅ RÉCURRENCE : les nouveaux créneaux au-delà de l'horizon deviennent des règles
+            // ✅ AJOUTER directement à la liste existante (NE JAMAIS utiliser setHoraires())
+            // ❌ INTERDIT : abonnement.setHoraires(horairesRepetitifs);
+            abonnement.getHoraires().addAll(abonnementRecurrenceService.planifier(abonnement, nouveauxHoraires));
+
             // *** RECALCUL AUTOMATIQUE DU PRIX TOTAL ***
-            // Le prix total = somme de TOUS les horaires répétés
+            // Le prix total = somme de TOUS les horaires répétés (lignes et occurrences non matérialisées)
             BigDecimal prixTotal = abonnement.getHoraires().stream()
                     .map(AbonnementHoraire::getPrixHeure)
                     .filter(prix -> prix != null)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    .reduce(abonnementRecurrenceService.getPrixNonMaterialise(id), BigDecimal::add);
             abonnement.setPrixTotal(prixTotal);
         }
         // Si seulement les dates ont changé sans modifier les horaires, ne pas recalculer le prix
@@ -916,6 +921,8 @@ public class AbonnementService {
             // ✅ FLUSH IMMÉDIAT : Forcer l'écriture des horaires en base
             entityManager.flush();
         }
+        Set<Long> sourceIds = saved.getHoraires() == null ? Set.of() :
+                saved.getHoraires().stream().map(AbonnementHoraire::getId).collect(Collectors.toSet());
         
         // ✅ FLUSH : Forcer l'écriture en base avant la publication de l'événement
         // Flush pour s'assurer que toutes les modifications sont bien écrites
@@ -930,7 +937,7 @@ public class AbonnementService {
         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
         // La synchronisation sera déclenchée automatiquement après le commit de la transaction
         if (saved.getTerrain() != null) {
-            eventPublisher.publishEvent(new AbonnementModifieEvent(saved.getTerrain().getId()));
+            eventPublisher.publishEvent(new AbonnementModifieEvent(saved.getTerrain().getId(), sourceIds));
         }
         
         return toDTO(saved);
@@ -943,12 +950,56 @@ public class AbonnementService {
         Abonnement abonnement = abonnementRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Abonnement introuvable"));
         Long terrainId = abonnement.getTerrain() != null ? abonnement.getTerrain().getId() : null;
+        // Horaires supprimés en cascade : leurs horaires indisponibles doivent être supprimés
+        Set<Long> sourceIds = abonnement.getHoraires() == null ? Set.of() :
+                abonnement.getHoraires().stream().map(AbonnementHoraire::getId).collect(Collectors.toSet());
         
         abonnementRepository.deleteById(id);
         
         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
         if (terrainId != null) {
-            eventPublisher.publishEvent(new AbonnementModifieEvent(terrainId));
+            eventPublisher.publishEvent(new AbonnementModifieEvent(terrainId, sourceIds));
+        }
+    }
+    
+    /**
+     * Supprime une seule occurrence d'un abonnement : la ligne si elle est matérialisée,
+     * sinon une exception sur la règle de récurrence. Le prix total est diminué d'autant.
+     */
+    @Transactional
+    public void supprimerOccurrence(Long abonnementId, LocalDate date) {
+        Abonnement abonnement = abonnementRepository.findById(abonnementId)
+                .orElseThrow(() -> new IllegalArgumentException("Abonnement introuvable"));
+
+        List<AbonnementHoraire> horaires = abonnement.getHoraires().stream()
+                .filter(h -> date.equals(h.getDate()))
+                .toList();
+        BigDecimal prixRetire;
+        if (!horaires.isEmpty()) {
+            prixRetire = horaires.stream()
+                    .map(AbonnementHoraire::getPrixHeure)
+                    .filter(prix -> prix != null)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // ✅ Retirer de la liste existante (orphanRemoval)
+            abonnement.getHoraires().removeAll(horaires);
+        } else {
+            prixRetire = abonnementRecurrenceService.exclureOccurrence(abonnementId, date);
+            if (prixRetire == null) {
+                throw new IllegalArgumentException(
+                        String.format("Aucune occurrence de l'abonnement %d le %s", abonnementId, date));
+            }
+        }
+
+        if (abonnement.getPrixTotal() != null) {
+            abonnement.setPrixTotal(abonnement.getPrixTotal().subtract(prixRetire));
+        }
+        abonnementRepository.save(abonnement);
+        entityManager.flush();
+
+        // ✅ PUBLIER UN ÉVÉNEMENT : les horaires indisponibles des lignes supprimées sont supprimés APRÈS le commit
+        if (!horaires.isEmpty() && abonnement.getTerrain() != null) {
+            Set<Long> sourceIds = horaires.stream().map(AbonnementHoraire::getId).collect(Collectors.toSet());
+            eventPublisher.publishEvent(new AbonnementModifieEvent(abonnement.getTerrain().getId(), sourceIds));
         }
     }
     
@@ -1,9 +1,11 @@
 package com.matchi.service;
 
 import com.matchi.dto.ClientAbonneDTO;
+import com.matchi.dto.PageCurseur;
 import com.matchi.model.ClientAbonne;
 import com.matchi.repository.ClientAbonneRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -87,11 +89,9 @@ public class ClientAbonneService {
     // =====================
     // FIND ALL
     // =====================
-    public List<ClientAbonneDTO> findAll() {
-        return repository.findAll()
-                .stream()
-                .map(this::mapToDTO)
-                .toList();
+    public PageCurseur<ClientAbonneDTO> findAll(String curseur, int taille) {
+        List<ClientAbonneDTO> lignes = repository.findApres(PageCurseur.idApres(curseur), Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille, client -> String.valueOf(client.id()));
     }
 
     // =====================
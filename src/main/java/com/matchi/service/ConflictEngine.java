@@ -0,0 +1,343 @@
+package com.matchi.service;
+
+import com.matchi.dto.AbonnementHoraireDTO;
+import com.matchi.model.AbonnementRecurrence;
+import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.ReservationPonctuelle;
+import com.matchi.model.TypeReservation;
+import com.matchi.repository.AbonnementHoraireRepository;
+import com.matchi.repository.AbonnementRecurrenceRepository;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.ReservationPonctuelleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * ✅ Moteur de détection de conflits partagé par les services de réservation
+ * (AbonnementService, AbonnementHoraireService, ReservationPonctuelleService).
+ *
+ * Pour un lot de créneaux candidats sur un terrain :
+ * 1. Charge en une requête par table les réservations ponctuelles, les horaires d'abonnement
+ *    et les horaires indisponibles de la période couverte par le lot (les réservations et horaires
+ *    d'abonnement sont lus à la source : un créneau tout juste créé est un conflit avant même
+ *    sa synchronisation asynchrone dans indisponible_horaire)
+ * 2. Construit un arbre d'intervalles par jour
+ * 3. Vérifie chaque candidat en O(log n + k)
+ *
+ * ✅ MINUIT : les heures sont converties en minutes ; une heure de fin <= heure de début
+ * (ex : 23h -> 00h, 23h -> 01h) se termine le lendemain. Un créneau qui déborde après minuit
+ * est donc aussi comparé aux créneaux du lendemain.
+ * Deux créneaux [d1, f1[ et [d2, f2[ se chevauchent si d1 < f2 et d2 < f1.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConflictEngine {
+
+    private static final int MINUTES_PAR_JOUR = 24 * 60;
+
+    private final ReservationPonctuelleRepository reservationPonctuelleRepository;
+    private final AbonnementHoraireRepository abonnementHoraireRepository;
+    private final IndisponibleHoraireRepository indisponibleHoraireRepository;
+    private final AbonnementRecurrenceRepository abonnementRecurrenceRepository;
+
+    /**
+     * Créneau candidat à vérifier
+     */
+    public record Candidat(LocalDate date, LocalTime heureDebut, LocalTime heureFin) {}
+
+    /**
+     * Créneau déjà occupé sur le terrain (réservation ponctuelle, horaire d'abonnement ou horaire indisponible)
+     */
+    public record Occupation(TypeReservation typeReservation, Long sourceId,
+                             LocalDate date, LocalTime heureDebut, LocalTime heureFin) {}
+
+    /**
+     * Conflit entre le candidat à l'index donné (dans le lot fourni) et un créneau occupé
+     */
+    public record Conflit(int indexCandidat, Candidat candidat, Occupation occupation) {}
+
+    /**
+     * Créneaux existants à ignorer (ceux de l'élément en cours de modification)
+     *
+     * @param reservationIds IDs des réservations ponctuelles à ignorer
+     * @param abonnementHoraireIds IDs des horaires d'abonnement à ignorer (sourceId des horaires indisponibles)
+     * @param abonnementIds abonnements dont les occurrences non matérialisées (règles de récurrence) sont ignorées
+     */
+    public record Exclusions(Set<Long> reservationIds, Set<Long> abonnementHoraireIds, Set<Long> abonnementIds) {
+
+        public static Exclusions aucune() {
+            return new Exclusions(Set.of(), Set.of(), Set.of());
+        }
+
+        public static Exclusions reservation(Long reservationId) {
+            return reservationId == null ? aucune() : new Exclusions(Set.of(reservationId), Set.of(), Set.of());
+        }
+
+        public static Exclusions abonnementHoraires(Set<Long> abonnementHoraireIds) {
+            return new Exclusions(Set.of(), abonnementHoraireIds != null ? abonnementHoraireIds : Set.of(), Set.of());
+        }
+
+        /**
+         * Tous les créneaux d'un abonnement : ses horaires (IDs fournis) et ses occurrences non matérialisées
+         */
+        public static Exclusions abonnement(Long abonnementId, Set<Long> abonnementHoraireIds) {
+            return new Exclusions(Set.of(), abonnementHoraireIds != null ? abonnementHoraireIds : Set.of(),
+                    abonnementId != null ? Set.of(abonnementId) : Set.of());
+        }
+
+        /**
+         * Occurrences non matérialisées des abonnements donnés (matérialisation de leurs règles)
+         */
+        public static Exclusions recurrences(Set<Long> abonnementIds) {
+            return new Exclusions(Set.of(), Set.of(), abonnementIds);
+        }
+
+        boolean exclut(TypeReservation type, Long sourceId) {
+            if (sourceId == null) {
+                return false;
+            }
+            return type == TypeReservation.ABONNEMENT
+                    ? abonnementHoraireIds.contains(sourceId)
+                    : reservationIds.contains(sourceId);
+        }
+    }
+
+    // ======== API ========
+
+    /**
+     * Retourne le premier conflit d'un créneau unique, s'il existe
+     */
+    public Optional<Conflit> premierConflit(Long terrainId, Candidat candidat, Exclusions exclusions) {
+        return detecterConflits(terrainId, List.of(candidat), exclusions).stream().findFirst();
+    }
+
+    /**
+     * Vérifie un lot de créneaux candidats en une seule passe et retourne TOUS les conflits,
+     * dans l'ordre des candidats. Les candidats incomplets (date ou heures nulles) sont ignorés.
+     */
+    public List<Conflit> detecterConflits(Long terrainId, List<Candidat> candidats, Exclusions exclusions) {
+        if (terrainId == null || candidats == null || candidats.isEmpty()) {
+            return List.of();
+        }
+        Exclusions exclusionsEffectives = exclusions != null ? exclusions : Exclusions.aucune();
+
+        LocalDate dateMin = null;
+        LocalDate dateMax = null;
+        for (Candidat candidat : candidats) {
+            if (!estComplet(candidat)) {
+                continue;
+            }
+            if (dateMin == null || candidat.date().isBefore(dateMin)) {
+                dateMin = candidat.date();
+            }
+            if (dateMax == null || candidat.date().isAfter(dateMax)) {
+                dateMax = candidat.date();
+            }
+        }
+        if (dateMin == null) {
+            return List.of();
+        }
+
+        // La veille (créneaux débordant après minuit) et le lendemain (candidats débordant après minuit)
+        Map<LocalDate, ArbreIntervalles> arbres = construireArbres(
+                chargerOccupations(terrainId, dateMin.minusDays(1), dateMax.plusDays(1), exclusionsEffectives));
+
+        List<Conflit> conflits = new ArrayList<>();
+        for (int i = 0; i < candidats.size(); i++) {
+            Candidat candidat = candidats.get(i);
+            if (!estComplet(candidat)) {
+                continue;
+            }
+            int debut = enMinutes(candidat.heureDebut());
+            int fin = finEnMinutes(debut, candidat.heureFin());
+
+            Set<Occupation> occupees = new LinkedHashSet<>();
+            ArbreIntervalles arbreDuJour = arbres.get(candidat.date());
+            if (arbreDuJour != null) {
+                arbreDuJour.chevauchements(debut, fin, occupees);
+            }
+            if (fin > MINUTES_PAR_JOUR) {
+                ArbreIntervalles arbreLendemain = arbres.get(candidat.date().plusDays(1));
+                if (arbreLendemain != null) {
+                    arbreLendemain.chevauchements(debut - MINUTES_PAR_JOUR, fin - MINUTES_PAR_JOUR, occupees);
+                }
+            }
+            for (Occupation occupation : occupees) {
+                conflits.add(new Conflit(i, candidat, occupation));
+            }
+        }
+        return conflits;
+    }
+
+    // ======== CHARGEMENT ========
+
+    /**
+     * Charge les créneaux occupés de la période (une requête par table, plus les règles de récurrence).
+     * Les horaires indisponibles qui reflètent une réservation ponctuelle ou un horaire d'abonnement
+     * déjà chargé sont ignorés pour ne pas signaler deux fois le même conflit.
+     */
+    private List<Occupation> chargerOccupations(Long terrainId, LocalDate debut, LocalDate fin, Exclusions exclusions) {
+        List<Occupation> occupations = new ArrayList<>();
+        Set<Long> reservationIds = new HashSet<>();
+        Set<Long> abonnementHoraireIds = new HashSet<>();
+
+        for (ReservationPonctuelle reservation :
+                reservationPonctuelleRepository.findByTerrain_IdAndDateBetween(terrainId, debut, fin)) {
+            reservationIds.add(reservation.getId());
+            if (exclusions.exclut(TypeReservation.RESERVATION_PONCTUELLE, reservation.getId())) {
+                continue;
+            }
+            occupations.add(new Occupation(TypeReservation.RESERVATION_PONCTUELLE, reservation.getId(),
+                    reservation.getDate(), reservation.getHeureDebut(), reservation.getHeureFin()));
+        }
+
+        for (AbonnementHoraireDTO horaire :
+                abonnementHoraireRepository.findDTOByTerrainIdAndDateBetween(terrainId, debut, fin)) {
+            abonnementHoraireIds.add(horaire.getId());
+            if (exclusions.exclut(TypeReservation.ABONNEMENT, horaire.getId())) {
+                continue;
+            }
+            occupations.add(new Occupation(TypeReservation.ABONNEMENT, horaire.getId(),
+                    horaire.getDate(), horaire.getHeureDebut(), horaire.getHeureFin()));
+        }
+
+        for (IndisponibleHoraire indispo :
+                indisponibleHoraireRepository.findByTerrainIdAndDateBetween(terrainId, debut, fin)) {
+            TypeReservation type = indispo.getTypeReservation();
+            if (type == TypeReservation.RESERVATION_PONCTUELLE && reservationIds.contains(indispo.getSourceId())) {
+                continue;
+            }
+            if (type == TypeReservation.ABONNEMENT && abonnementHoraireIds.contains(indispo.getSourceId())) {
+                continue;
+            }
+            if (exclusions.exclut(type, indispo.getSourceId())) {
+                continue;
+            }
+            occupations.add(new Occupation(type, indispo.getSourceId(),
+                    indispo.getDate(), indispo.getHeureDebut(), indispo.getHeureFin()));
+        }
+
+        // Occurrences d'abonnement au-delà de l'horizon de matérialisation (pas encore d'horaire indisponible)
+        for (AbonnementRecurrence regle :
+                abonnementRecurrenceRepository.findNonMaterialiseesParTerrain(terrainId, debut, fin)) {
+            if (exclusions.abonnementIds().contains(regle.getAbonnementId())) {
+                continue;
+            }
+            for (LocalDate date : regle.occurrencesNonMaterialisees(debut, fin)) {
+                occupations.add(new Occupation(TypeReservation.ABONNEMENT, null,
+                        date, regle.getHeureDebut(), regle.getHeureFin()));
+            }
+        }
+        return occupations;
+    }
+
+    private Map<LocalDate, ArbreIntervalles> construireArbres(List<Occupation> occupations) {
+        Map<LocalDate, List<Intervalle>> parJour = new HashMap<>();
+        for (Occupation occupation : occupations) {
+            if (occupation.date() == null || occupation.heureDebut() == null || occupation.heureFin() == null) {
+                continue;
+            }
+            int debut = enMinutes(occupation.heureDebut());
+            int fin = finEnMinutes(debut, occupation.heureFin());
+            parJour.computeIfAbsent(occupation.date(), d -> new ArrayList<>())
+                    .add(new Intervalle(debut, fin, occupation));
+            // Partie après minuit, exprimée dans le repère du lendemain
+            if (fin > MINUTES_PAR_JOUR) {
+                parJour.computeIfAbsent(occupation.date().plusDays(1), d -> new ArrayList<>())
+                        .add(new Intervalle(debut - MINUTES_PAR_JOUR, fin - MINUTES_PAR_JOUR, occupation));
+            }
+        }
+
+        Map<LocalDate, ArbreIntervalles> arbres = new HashMap<>();
+        parJour.forEach((date, intervalles) -> arbres.put(date, new ArbreIntervalles(intervalles)));
+        return arbres;
+    }
+
+    // ======== MINUTES ========
+
+    private static boolean estComplet(Candidat candidat) {
+        return candidat != null && candidat.date() != null
+                && candidat.heureDebut() != null && candidat.heureFin() != null;
+    }
+
+    private static int enMinutes(LocalTime heure) {
+        return heure.toSecondOfDay() / 60;
+    }
+
+    /**
+     * Heure de fin en minutes ; si elle est <= heure de début, le créneau se termine le lendemain
+     */
+    private static int finEnMinutes(int debut, LocalTime heureFin) {
+        int fin = enMinutes(heureFin);
+        return fin <= debut ? fin + MINUTES_PAR_JOUR : fin;
+    }
+
+    // ======== ARBRE D'INTERVALLES ========
+
+    private record Intervalle(int debut, int fin, Occupation occupation) {}
+
+    /**
+     * Arbre d'intervalles statique : intervalles triés par début, arbre binaire implicite
+     * (le milieu de chaque plage est la racine) augmenté de la fin maximale de chaque sous-arbre.
+     */
+    private static final class ArbreIntervalles {
+
+        private final Intervalle[] intervalles;
+        private final int[] finMax;
+
+        ArbreIntervalles(List<Intervalle> liste) {
+            this.intervalles = liste.toArray(new Intervalle[0]);
+            Arrays.sort(this.intervalles, Comparator.comparingInt(Intervalle::debut));
+            this.finMax = new int[intervalles.length];
+            construire(0, intervalles.length - 1);
+        }
+
+        private int construire(int bas, int haut) {
+            if (bas > haut) {
+                return Integer.MIN_VALUE;
+            }
+            int milieu = (bas + haut) >>> 1;
+            int max = Math.max(intervalles[milieu].fin(),
+                    Math.max(construire(bas, milieu - 1), construire(milieu + 1, haut)));
+            finMax[milieu] = max;
+            return max;
+        }
+
+        void chevauchements(int debut, int fin, Set<Occupation> resultat) {
+            chercher(0, intervalles.length - 1, debut, fin, resultat);
+        }
+
+        private void chercher(int bas, int haut, int debut, int fin, Set<Occupation> resultat) {
+            if (bas > haut) {
+                return;
+            }
+            int milieu = (bas + haut) >>> 1;
+            // Aucun intervalle de ce sous-arbre ne se termine après le début recherché
+            if (finMax[milieu] <= debut) {
+                return;
+            }
+            chercher(bas, milieu - 1, debut, fin, resultat);
+            Intervalle courant = intervalles[milieu];
+            if (courant.debut() < fin) {
+                if (courant.fin() > debut) {
+                    resultat.add(courant.occupation());
+                }
+                // Les intervalles de droite commencent après le courant : à explorer seulement ici
+                chercher(milieu + 1, haut, debut, fin, resultat);
+            }
+        }
+    }
+}
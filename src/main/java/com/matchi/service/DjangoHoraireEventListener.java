@@ -6,11 +6,13 @@ import com.matchi.model.IndisponibleHoraire;
 import com.matchi.model.Proprietaire;
 import com.matchi.model.ReservationPonctuelle;
 import com.matchi.model.TerrainService;
+import com.matchi.model.TypeReservation;
 import com.matchi.repository.IndisponibleHoraireRepository;
 import com.matchi.repository.ProprietaireRepository;
 import com.matchi.repository.ReservationPonctuelleRepository;
 import com.matchi.repository.TerrainServiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,19 +20,33 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Service pour écouter les événements de synchronisation des horaires
  * provenant de Django via Kafka
  * 
  * Ce service ne fonctionne que si Kafka est configuré
+ * 
+ * ✅ TRAITEMENT PAR LOTS : chaque poll Kafka est traité en une seule transaction
+ * (propriétaires, terrains, horaires et sources résolus par requêtes IN), acquitté une seule fois
+ * ✅ La résolution numTel -> terrain passe par TelephoneTerrainCacheService
  */
 @Service
 @RequiredArgsConstructor
@@ -38,11 +54,16 @@ import java.util.Optional;
 public class DjangoHoraireEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(DjangoHoraireEventListener.class);
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(DjangoHoraireEventListener.class);
 
     private final IndisponibleHoraireRepository indisponibleHoraireRepository;
     private final TerrainServiceRepository terrainServiceRepository;
     private final ProprietaireRepository proprietaireRepository;
     private final ReservationPonctuelleRepository reservationPonctuelleRepository;
+    private final OccupationIndexService occupationIndexService;
+    private final TransactionTemplate transactionTemplate;
+    private final TelephoneTerrainCacheService telephoneTerrainCacheService;
+    private final StatistiqueJournaliereService statistiqueJournaliereService;
     
     @Autowired(required = false)
     private ApplicationContext applicationContext;
@@ -56,12 +77,12 @@ public class DjangoHoraireEventListener {
         
         // Vérifier que l'annotation @KafkaListener est bien présente
         try {
-            java.lang.reflect.Method method = this.getClass().getMethod("handleHoraireSyncEvent", 
-                    HoraireSyncEvent.class, Acknowledgment.class);
+            java.lang.reflect.Method method = this.getClass().getMethod("handleHoraireSyncEvents", 
+                    List.class, Acknowledgment.class);
             if (method.isAnnotationPresent(org.springframework.kafka.annotation.KafkaListener.class)) {
-                log.info("✅ @KafkaListener détecté sur la méthode handleHoraireSyncEvent");
+                log.info("✅ @KafkaListener détecté sur la méthode handleHoraireSyncEvents");
             } else {
-                log.warn("⚠️ @KafkaListener NON détecté sur la méthode handleHoraireSyncEvent");
+                log.warn("⚠️ @KafkaListener NON détecté sur la méthode handleHoraireSyncEvents");
             }
         } catch (Exception e) {
             log.error("❌ Erreur lors de la vérification de @KafkaListener: {}", e.getMessage());
@@ -198,9 +219,25 @@ public class DjangoHoraireEventListener {
         }
     }
 
+    /**
+     * Événement reçu, résolu et converti (le DTO brut est conservé pour joueur_numTel et prix)
+     */
+    private record EvenementRecu(HoraireSyncEventRaw raw, HoraireSyncEvent event) {}
+
+    /**
+     * Clé d'unicité d'un horaire indisponible (contrainte uk_horaire_source)
+     */
+    private record CleSource(Long terrainId, TypeReservation typeReservation, Long sourceId) {}
+
     /**
      * Écoute les événements de synchronisation des horaires provenant de Django
      * et applique les changements de manière idempotente
+     * 
+     * ✅ Reçoit un poll complet : le lot est appliqué en une seule transaction puis acquitté une fois.
+     * Si le lot échoue (ex : violation de contrainte), il est rejoué événement par événement ;
+     * le premier événement en échec est signalé à l'error handler (BatchListenerFailedException) :
+     * les événements précédents sont commités, lui seul est réessayé (backoff) ou publié dans les lettres mortes
+     * ✅ Un message illisible (désérialisation impossible) part directement dans les lettres mortes
      */
     @KafkaListener(
             topics = "${spring.kafka.topic.horaire-sync:horaire-sync-topic}",
@@ -209,93 +246,227 @@ public class DjangoHoraireEventListener {
             id = "django-horaire-listener",
             autoStartup = "true"
     )
-    @Transactional
-    public void handleHoraireSyncEvent(HoraireSyncEventRaw rawEvent, Acknowledgment acknowledgment) {
-        log.info("📥 ===== RÉCEPTION D'UN ÉVÉNEMENT KAFKA =====");
-        log.info("📥 [DEBUG] Listener actif et traitement d'un message Kafka");
-        
-        // ✅ Vérifier que rawEvent n'est pas null
-        if (rawEvent == null) {
-            log.error("❌ Événement brut est null !");
-            if (acknowledgment != null) {
-                acknowledgment.acknowledge();
-            }
+    public void handleHoraireSyncEvents(List<ConsumerRecord<String, HoraireSyncEventRaw>> records, Acknowledgment acknowledgment) {
+        log.info("📥 Lot de {} événement(s) Kafka reçu depuis Django", records.size());
+
+        // Les messages lisibles qui précèdent le premier message illisible sont appliqués d'abord
+        int illisible = premierMessageIllisible(records);
+        appliquerMessages(records.subList(0, illisible));
+        if (illisible < records.size()) {
+            ConsumerRecord<String, HoraireSyncEventRaw> record = records.get(illisible);
+            log.error("❌ Message Kafka illisible (partition {}, offset {}), envoyé dans les lettres mortes",
+                    record.partition(), record.offset());
+            throw new BatchListenerFailedException("Message Kafka illisible",
+                    SerializationUtils.getExceptionFromHeader(record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR),
+                    illisible);
+        }
+
+        // Confirmer la réception du lot
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+            log.debug("✅ Lot Kafka confirmé (acknowledged)");
+        }
+    }
+
+    /**
+     * Applique les messages en une transaction, puis un par un si le lot échoue
+     * 
+     * @throws BatchListenerFailedException à l'index du premier événement en échec
+     */
+    private void appliquerMessages(List<ConsumerRecord<String, HoraireSyncEventRaw>> records) {
+        List<HoraireSyncEventRaw> recus = records.stream().map(ConsumerRecord::value).filter(Objects::nonNull).toList();
+        if (recus.isEmpty()) {
             return;
         }
-        
-        log.info("📥 Action: {}, UUID: {}, TerrainId (initial): {}", 
-                rawEvent.action(), rawEvent.uuid(), rawEvent.terrainId());
-        log.info("📥 Date: {}, HeureDebut: {}, HeureFin: {}", 
-                rawEvent.date(), rawEvent.heureDebut(), rawEvent.heureFin());
-        log.info("📥 TypeReservation (raw): {}, SourceId: {}, Description: {}", 
-                rawEvent.typeReservation(), rawEvent.sourceId(), rawEvent.description());
-        log.info("📥 numTel: {}, proprietaireTelephone: {}", 
-                rawEvent.numTel(), rawEvent.proprietaireTelephone());
-        log.debug("📥 Événement brut complet: {}", rawEvent);
-        
-        // ✅ PRIORITÉ : Trouver le terrainId via numTel (numTel = numéro de téléphone du propriétaire)
-        // Le numTel dans le message Django correspond au numéro de téléphone du propriétaire du terrain
-        Long terrainId = null;
-        Integer numTel = rawEvent.numTel() != null ? rawEvent.numTel() : rawEvent.proprietaireTelephone();
-        
-        if (numTel != null) {
-            log.info("🔍 Recherche du terrain via numTel (propriétaire): {}", numTel);
+        try {
+            transactionTemplate.executeWithoutResult(status -> appliquerLot(recus));
+            return;
+        } catch (Exception e) {
+            log.warn("⚠️ Échec du traitement du lot ({}), retraitement événement par événement", e.getMessage());
+        }
+
+        for (int index = 0; index < records.size(); index++) {
+            HoraireSyncEventRaw raw = records.get(index).value();
+            if (raw == null) {
+                continue;
+            }
             try {
-                // Trouver le propriétaire par numéro de téléphone
-                Optional<Proprietaire> proprietaireOpt = 
-                        proprietaireRepository.findByTelephone(numTel);
-                
-                if (proprietaireOpt.isPresent()) {
-                    Proprietaire proprietaire = proprietaireOpt.get();
-                    log.info("✅ Propriétaire trouvé: ID={}, Nom={} {}", 
-                            proprietaire.getId(), proprietaire.getNom(), proprietaire.getPrenom());
-                    
-                    // Trouver le terrain associé à ce propriétaire
-                    List<TerrainService> terrains = 
-                            terrainServiceRepository.findByProprietaireId(proprietaire.getId());
-                    
-                    if (!terrains.isEmpty()) {
-                        // Prendre le premier terrain (un propriétaire a normalement un seul terrain)
-                        TerrainService terrain = terrains.get(0);
-                        terrainId = terrain.getId();
-                        log.info("✅ Terrain trouvé via numTel: terrainId={}, Nom={}", 
-                                terrainId, terrain.getNom());
-                    } else {
-                        log.warn("⚠️ Aucun terrain trouvé pour le propriétaire ID={} (numTel={})", 
-                                proprietaire.getId(), numTel);
-                    }
-                } else {
-                    log.warn("⚠️ Aucun propriétaire trouvé avec numTel={}", numTel);
+                transactionTemplate.executeWithoutResult(status -> appliquerLot(List.of(raw)));
+            } catch (RuntimeException e) {
+                log.error("❌ Échec de l'événement uuid={}, action={} - {}", raw.uuid(), raw.action(), e.getMessage());
+                throw new BatchListenerFailedException("Échec de l'événement Django " + raw.uuid(), e, index);
+            }
+        }
+    }
+
+    /**
+     * Index du premier message dont la valeur n'a pas pu être désérialisée (taille de la liste si aucun)
+     */
+    private static int premierMessageIllisible(List<ConsumerRecord<String, HoraireSyncEventRaw>> records) {
+        for (int index = 0; index < records.size(); index++) {
+            ConsumerRecord<String, HoraireSyncEventRaw> record = records.get(index);
+            if (record.value() == null
+                    && record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+                return index;
+            }
+        }
+        return records.size();
+    }
+
+    /**
+     * Applique un lot d'événements dans la transaction courante :
+     * 1. Résout numTel -> terrain pour tout le lot (2 requêtes IN)
+     * 2. Charge les horaires (par UUID), les terrains et les sources concernés (requêtes IN)
+     * 3. Applique les événements dans l'ordre, en mémoire
+     * 4. Écrit les créations/mises à jour/suppressions en masse
+     */
+    private void appliquerLot(List<HoraireSyncEventRaw> rawEvents) {
+        Map<Integer, Long> terrainParTelephone = resoudreTerrains(rawEvents);
+
+        List<EvenementRecu> recus = new ArrayList<>();
+        for (HoraireSyncEventRaw raw : rawEvents) {
+            EvenementRecu recu = convertir(raw, terrainParTelephone);
+            if (recu != null) {
+                recus.add(recu);
+            }
+        }
+        if (recus.isEmpty()) {
+            return;
+        }
+
+        // ✅ Chargement groupé
+        Set<UUID> uuids = new HashSet<>();
+        Set<Long> terrainIds = new HashSet<>();
+        for (EvenementRecu recu : recus) {
+            uuids.add(recu.event().uuid());
+            if (recu.event().terrainId() != null) {
+                terrainIds.add(recu.event().terrainId());
+            }
+        }
+        Map<UUID, IndisponibleHoraire> horaires = new HashMap<>();
+        for (IndisponibleHoraire horaire : indisponibleHoraireRepository.findByUuidIn(uuids)) {
+            horaires.put(horaire.getUuid(), horaire);
+        }
+        Map<Long, TerrainService> terrains = new HashMap<>();
+        for (TerrainService terrain : terrainServiceRepository.findAllById(terrainIds)) {
+            terrains.put(terrain.getId(), terrain);
+        }
+        Set<CleSource> sourcesExistantes = chargerSources(recus);
+
+        // ✅ Application en mémoire, dans l'ordre du lot
+        Map<UUID, IndisponibleHoraire> aSauvegarder = new LinkedHashMap<>();
+        Map<UUID, IndisponibleHoraire> aSupprimer = new LinkedHashMap<>();
+        Map<UUID, ReservationPonctuelle> reservationsACreer = new LinkedHashMap<>();
+        Set<Long> reservationsASupprimer = new HashSet<>();
+
+        for (EvenementRecu recu : recus) {
+            HoraireSyncEvent event = recu.event();
+            switch (event.action()) {
+                case "created" -> appliquerCreation(recu, horaires, terrains, sourcesExistantes,
+                        aSauvegarder, aSupprimer, reservationsACreer);
+                case "updated" -> appliquerMiseAJour(event, horaires, terrains, aSauvegarder);
+                case "deleted" -> appliquerSuppression(event, horaires, aSauvegarder, aSupprimer,
+                        reservationsACreer, reservationsASupprimer);
+                default -> log.warn("⚠️ Action inconnue dans l'événement de synchronisation: {}", event.action());
+            }
+        }
+
+        // ✅ Écritures en masse
+        if (!reservationsACreer.isEmpty()) {
+            reservationPonctuelleRepository.saveAll(reservationsACreer.values());
+            reservationsACreer.values().forEach(reservation ->
+                    statistiqueJournaliereService.ajouter(StatistiqueJournaliereService.Contribution.de(reservation)));
+            // Utiliser l'ID de la réservation créée comme sourceId si sourceId n'était pas fourni
+            reservationsACreer.forEach((uuid, reservation) -> {
+                IndisponibleHoraire horaire = aSauvegarder.get(uuid);
+                if (horaire != null && horaire.getSourceId() == null) {
+                    horaire.setSourceId(reservation.getId());
                 }
-            } catch (Exception e) {
-                log.error("❌ Erreur lors de la recherche du terrain via numTel: {}", e.getMessage(), e);
+            });
+        }
+        if (!reservationsASupprimer.isEmpty()) {
+            List<ReservationPonctuelle> reservations = reservationPonctuelleRepository.findAllById(reservationsASupprimer);
+            reservations.forEach(reservation ->
+                    statistiqueJournaliereService.retirer(StatistiqueJournaliereService.Contribution.de(reservation)));
+            reservationPonctuelleRepository.deleteAllInBatch(reservations);
+        }
+        if (!aSupprimer.isEmpty()) {
+            indisponibleHoraireRepository.deleteAllInBatch(aSupprimer.values());
+            occupationIndexService.retirer(new ArrayList<>(aSupprimer.values()));
+        }
+        if (!aSauvegarder.isEmpty()) {
+            List<IndisponibleHoraire> saved = indisponibleHoraireRepository.saveAll(aSauvegarder.values());
+            occupationIndexService.indexer(saved);
+        }
+
+        log.info("✅ Lot Django appliqué: {} événement(s), {} horaire(s) créé(s)/mis à jour, {} supprimé(s), {} réservation(s) créée(s), {} supprimée(s)",
+                recus.size(), aSauvegarder.size(), aSupprimer.size(), reservationsACreer.size(), reservationsASupprimer.size());
+    }
+
+    /**
+     * Résout le terrain de chaque numTel du lot (numTel = numéro de téléphone du propriétaire)
+     * via le cache téléphone -> terrain ; les numéros absents du cache sont chargés en une fois
+     */
+    private Map<Integer, Long> resoudreTerrains(List<HoraireSyncEventRaw> rawEvents) {
+        Set<Integer> telephones = new HashSet<>();
+        for (HoraireSyncEventRaw raw : rawEvents) {
+            Integer numTel = raw.numTel() != null ? raw.numTel() : raw.proprietaireTelephone();
+            if (numTel != null) {
+                telephones.add(numTel);
             }
-        } else {
-            log.warn("⚠️ numTel et proprietaireTelephone sont null dans le message");
         }
-        
-        // ✅ Si le terrain n'a pas été trouvé via numTel, utiliser le terrainId du message comme fallback
-        // Mais seulement si le terrainId du message existe et est valide
+        if (telephones.isEmpty()) {
+            return Map.of();
+        }
+        return telephoneTerrainCacheService.resoudre(telephones, this::chargerTerrains);
+    }
+
+    /**
+     * Charge le terrain de chaque téléphone en deux requêtes IN :
+     * propriétaires par téléphone, puis terrains par propriétaire
+     */
+    private Map<Integer, Long> chargerTerrains(Set<Integer> telephones) {
+        Map<Integer, Long> terrainParTelephone = new HashMap<>();
+        Map<Long, Integer> telephoneParProprietaire = new HashMap<>();
+        for (Proprietaire proprietaire : proprietaireRepository.findByTelephoneIn(telephones)) {
+            telephoneParProprietaire.put(proprietaire.getId(), proprietaire.getTelephone());
+        }
+        if (telephoneParProprietaire.isEmpty()) {
+            return terrainParTelephone;
+        }
+
+        // Un propriétaire a normalement un seul terrain : on garde le premier (ID le plus petit)
+        for (TerrainService terrain : terrainServiceRepository.findByProprietaireIdIn(telephoneParProprietaire.keySet())) {
+            Integer telephone = telephoneParProprietaire.get(terrain.getProprietaire().getId());
+            terrainParTelephone.merge(telephone, terrain.getId(), Math::min);
+        }
+        return terrainParTelephone;
+    }
+
+    /**
+     * Convertit un DTO brut en événement (terrain résolu via numTel, sinon terrainId du message)
+     * 
+     * @return null si l'événement est invalide (ignoré)
+     */
+    private EvenementRecu convertir(HoraireSyncEventRaw rawEvent, Map<Integer, Long> terrainParTelephone) {
+        Integer numTel = rawEvent.numTel() != null ? rawEvent.numTel() : rawEvent.proprietaireTelephone();
+        Long terrainId = numTel != null ? terrainParTelephone.get(numTel) : null;
         if (terrainId == null) {
-            if (rawEvent.terrainId() != null) {
-                log.info("🔍 Terrain non trouvé via numTel, utilisation du terrainId du message: {}", rawEvent.terrainId());
-                terrainId = rawEvent.terrainId();
-            } else {
-                log.warn("⚠️ Aucun terrainId trouvé: ni via numTel, ni dans le message");
+            if (numTel != null) {
+                log.warn("⚠️ Aucun terrain trouvé via numTel={}, utilisation du terrainId du message: {}",
+                        numTel, rawEvent.terrainId());
             }
+            terrainId = rawEvent.terrainId();
         }
-        
-        // ✅ Créer un nouveau rawEvent avec le terrainId trouvé
+
         // @JsonAlias gère automatiquement les formats camelCase et snake_case
-        Long finalTerrainId = terrainId;
-        
         HoraireSyncEventRaw rawEventWithTerrainId = new HoraireSyncEventRaw(
                 rawEvent.uuid(),
                 rawEvent.action(),
-                finalTerrainId, // Utiliser le terrainId trouvé ou celui du message
-                rawEvent.date(), // @JsonAlias gère automatiquement date et date_indisponibilite
-                rawEvent.heureDebut(), // @JsonAlias gère automatiquement heureDebut et heure_debut
-                rawEvent.heureFin(), // @JsonAlias gère automatiquement heureFin et heure_fin
+                terrainId, // Utiliser le terrainId trouvé ou celui du message
+                rawEvent.date(),
+                rawEvent.heureDebut(),
+                rawEvent.heureFin(),
                 rawEvent.typeReservation(),
                 rawEvent.sourceId(),
                 rawEvent.description(),
@@ -306,339 +477,236 @@ public class DjangoHoraireEventListener {
                 rawEvent.joueur_numTel(),
                 rawEvent.prix()
         );
-        
-        // ✅ Convertir le DTO brut en HoraireSyncEvent
+
         HoraireSyncEvent event;
         try {
+            // toHoraireSyncEvent normalise l'action (DELETE -> deleted, CREATE -> created, UPDATE -> updated)
             event = rawEventWithTerrainId.toHoraireSyncEvent();
-            log.info("📥 Événement converti avec terrainId={}", event.terrainId());
-            log.debug("📥 Événement converti complet: {}", event);
         } catch (Exception e) {
             log.error("❌ Erreur lors de la conversion de l'événement brut: {}", e.getMessage(), e);
-            if (acknowledgment != null) {
-                acknowledgment.acknowledge(); // Accepter pour ne pas bloquer
-            }
-            return;
+            return null;
         }
 
-        try {
-            // ✅ Vérifier que l'événement est valide
-            if (event.uuid() == null) {
-                log.error("❌ Événement sans UUID, ignoré");
-                if (acknowledgment != null) {
-                    acknowledgment.acknowledge(); // Accepter pour ne pas bloquer
-                }
-                return;
-            }
-            
-            // Pour "deleted", terrainId peut être null - on utilise uuid pour trouver
-            if (event.terrainId() == null && !"deleted".equals(event.action())) {
-                log.error("❌ Événement sans terrainId (même après recherche via numTel), ignoré");
-                log.error("❌ Vérifiez que le numTel ({}) correspond à un propriétaire avec un terrain associé", 
-                        rawEvent.numTel() != null ? rawEvent.numTel() : rawEvent.proprietaireTelephone());
-                if (acknowledgment != null) {
-                    acknowledgment.acknowledge(); // Accepter pour ne pas bloquer
-                }
-                return;
-            }
-            
-            // Normaliser l'action pour gérer DELETE, CREATE, UPDATE (majuscules)
-            String action = event.action();
-            if (action != null) {
-                String actionLower = action.toLowerCase();
-                if ("delete".equals(actionLower) || "deleted".equals(actionLower)) {
-                    action = "deleted";
-                } else if ("create".equals(actionLower) || "created".equals(actionLower)) {
-                    action = "created";
-                } else if ("update".equals(actionLower) || "updated".equals(actionLower)) {
-                    action = "updated";
-                }
-            }
-            
-            switch (action) {
-                case "created":
-                    handleCreatedEvent(rawEventWithTerrainId, event);
-                    break;
-                case "updated":
-                    handleUpdatedEvent(event);
-                    break;
-                case "deleted":
-                    handleDeletedEvent(event);
-                    break;
-                default:
-                    log.warn("⚠️ Action inconnue dans l'événement de synchronisation: {}", event.action());
-            }
-            
-            // Confirmer la réception du message
-            if (acknowledgment != null) {
-                acknowledgment.acknowledge();
-                log.debug("✅ Message Kafka confirmé (acknowledged)");
-            }
-        } catch (Exception e) {
-            log.error("❌ Erreur lors du traitement de l'événement de synchronisation: {}", 
-                    e.getMessage(), e);
-            log.error("❌ Type d'erreur: {}", e.getClass().getName());
-            if (e.getCause() != null) {
-                log.error("❌ Cause: {}", e.getCause().getMessage());
-            }
-            // Ne pas confirmer le message en cas d'erreur pour qu'il soit retraité
-            throw e; // Rejeter le message pour qu'il soit retraité
+        if (event.uuid() == null) {
+            log.error("❌ Événement sans UUID, ignoré");
+            return null;
+        }
+        if (event.action() == null) {
+            log.warn("⚠️ Événement sans action, ignoré: uuid={}", event.uuid());
+            return null;
+        }
+        // Pour "deleted", terrainId peut être null - on utilise uuid pour trouver
+        if (event.terrainId() == null && !"deleted".equals(event.action())) {
+            log.error("❌ Événement sans terrainId (même après recherche via numTel {}), ignoré: uuid={}",
+                    numTel, event.uuid());
+            return null;
         }
+        return new EvenementRecu(rawEventWithTerrainId, event);
     }
 
     /**
-     * Convertit une chaîne en TypeReservation enum
-     * Gère les cas où le type arrive comme chaîne depuis Django
+     * Charge les clés (terrain, type, sourceId) déjà présentes pour les créations du lot
+     * (une requête IN par type de réservation)
      */
-    private com.matchi.model.TypeReservation parseTypeReservation(Object typeValue) {
-        if (typeValue == null) {
-            return null;
-        }
-        
-        // Si c'est déjà un enum, le retourner tel quel
-        if (typeValue instanceof com.matchi.model.TypeReservation) {
-            return (com.matchi.model.TypeReservation) typeValue;
-        }
-        
-        // Si c'est une chaîne, la convertir en enum
-        if (typeValue instanceof String) {
-            String typeStr = ((String) typeValue).trim().toUpperCase();
-            try {
-                return com.matchi.model.TypeReservation.valueOf(typeStr);
-            } catch (IllegalArgumentException e) {
-                log.warn("⚠️ Type de réservation inconnu: '{}', retour null", typeStr);
-                return null;
+    private Set<CleSource> chargerSources(List<EvenementRecu> recus) {
+        Map<TypeReservation, Set<Long>> sourceIdsParType = new HashMap<>();
+        for (EvenementRecu recu : recus) {
+            HoraireSyncEvent event = recu.event();
+            if ("created".equals(event.action()) && event.sourceId() != null) {
+                sourceIdsParType.computeIfAbsent(typeOuDefaut(event), t -> new HashSet<>()).add(event.sourceId());
             }
         }
-        
-        log.warn("⚠️ Type de réservation dans un format non supporté: {} (type: {}), retour null", 
-                typeValue, typeValue.getClass().getName());
-        return null;
+        Set<CleSource> sources = new HashSet<>();
+        sourceIdsParType.forEach((type, sourceIds) -> {
+            for (IndisponibleHoraire horaire : indisponibleHoraireRepository.findByTypeReservationAndSourceIdIn(type, sourceIds)) {
+                sources.add(new CleSource(
+                        horaire.getTerrain() != null ? horaire.getTerrain().getId() : null,
+                        horaire.getTypeReservation(), horaire.getSourceId()));
+            }
+        });
+        return sources;
     }
-    
+
     /**
-     * Gère la création d'un horaire depuis Django
-     * Crée aussi une ReservationPonctuelle avec les informations du message
-     * Vérifie l'idempotence pour éviter les doublons
+     * Création d'un horaire depuis Django (idempotente par UUID et par source)
+     * Prépare aussi une ReservationPonctuelle avec les informations du message
      */
-    private void handleCreatedEvent(HoraireSyncEventRaw rawEvent, HoraireSyncEvent event) {
-        log.info("🔄 Traitement d'un événement 'created' depuis Django: uuid={}, terrainId={}", 
-                event.uuid(), event.terrainId());
-        
+    private void appliquerCreation(EvenementRecu recu,
+                                   Map<UUID, IndisponibleHoraire> horaires,
+                                   Map<Long, TerrainService> terrains,
+                                   Set<CleSource> sourcesExistantes,
+                                   Map<UUID, IndisponibleHoraire> aSauvegarder,
+                                   Map<UUID, IndisponibleHoraire> aSupprimer,
+                                   Map<UUID, ReservationPonctuelle> reservationsACreer) {
+        HoraireSyncEvent event = recu.event();
+        HoraireSyncEventRaw rawEvent = recu.raw();
+
         // ✅ RÈGLE SPÉCIALE POUR DJANGO : Django ne crée jamais d'abonnements
-        // Si typeReservation est null, c'est forcément une réservation ponctuelle depuis Django
-        com.matchi.model.TypeReservation typeReservation = parseTypeReservation(event.typeReservation());
-        
-        // ✅ Si typeReservation est null, forcer RESERVATION_PONCTUELLE (Django ne crée que des réservations ponctuelles)
-        if (typeReservation == null) {
-            typeReservation = com.matchi.model.TypeReservation.RESERVATION_PONCTUELLE;
-            log.info("✅ [CREATE] TypeReservation était null, forcé à RESERVATION_PONCTUELLE (message depuis Django)");
-        }
-        
-        log.info("🔍 [CREATE] TypeReservation final: {}", typeReservation);
-        
-        // Vérifier si l'horaire existe déjà (idempotence) - vérification robuste
-        Optional<IndisponibleHoraire> existing = indisponibleHoraireRepository.findByUuid(event.uuid());
-        if (existing.isPresent()) {
-            log.info("⚠️ Horaire avec UUID {} existe déjà (id: {}), ignoré (idempotence)", 
-                    event.uuid(), existing.get().getId());
+        TypeReservation typeReservation = typeOuDefaut(event);
+
+        // Vérifier si l'horaire existe déjà (idempotence)
+        if (horaires.containsKey(event.uuid())) {
+            log.info("⚠️ Horaire avec UUID {} existe déjà, ignoré (idempotence)", event.uuid());
             return;
         }
-        
-        // Vérification supplémentaire : vérifier par sourceId et type pour éviter les doublons
-        // Utiliser le type converti au lieu de event.typeReservation()
-        if (event.sourceId() != null && typeReservation != null) {
-            List<IndisponibleHoraire> existingBySource = indisponibleHoraireRepository
-                    .findByTerrainIdAndTypeReservation(event.terrainId(), typeReservation)
-                    .stream()
-                    .filter(h -> h.getSourceId() != null && h.getSourceId().equals(event.sourceId()))
-                    .filter(h -> h.getDate() != null && h.getDate().equals(event.date()))
-                    .filter(h -> h.getHeureDebut() != null && h.getHeureDebut().equals(event.heureDebut()))
-                    .filter(h -> h.getHeureFin() != null && h.getHeureFin().equals(event.heureFin()))
-                    .collect(java.util.stream.Collectors.toList());
-            
-            if (!existingBySource.isEmpty()) {
-                log.warn("⚠️ Horaire similaire existe déjà pour sourceId={}, type={}, terrainId={}, ignoré (idempotence)", 
-                        event.sourceId(), typeReservation, event.terrainId());
-                return;
-            }
+        // Vérification supplémentaire par source pour éviter les doublons
+        CleSource cle = new CleSource(event.terrainId(), typeReservation, event.sourceId());
+        if (event.sourceId() != null && sourcesExistantes.contains(cle)) {
+            log.warn("⚠️ Horaire existe déjà pour sourceId={}, type={}, terrainId={}, ignoré (idempotence)",
+                    event.sourceId(), typeReservation, event.terrainId());
+            return;
         }
 
-        // Vérifier que le terrain existe
-        TerrainService terrain = terrainServiceRepository.findById(event.terrainId())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Terrain non trouvé pour l'événement de synchronisation: " + event.terrainId()));
-        
-        // ✅ RÈGLE SPÉCIALE POUR DJANGO : Toujours utiliser "Réservation ponctuelle" comme description
-        // Django ne crée que des réservations ponctuelles
-        String description = event.description();
-        if (description == null || description.trim().isEmpty()) {
-            // Pour les messages Django, toujours utiliser "Réservation ponctuelle"
-            description = "Réservation ponctuelle";
-            log.info("✅ [CREATE] Description complétée: '{}' (message depuis Django)", description);
-        } else {
-            log.debug("✅ [CREATE] Description fournie dans l'événement: '{}'", description);
+        TerrainService terrain = terrains.get(event.terrainId());
+        if (terrain == null) {
+            log.error("❌ Terrain non trouvé pour l'événement de synchronisation: {}, ignoré", event.terrainId());
+            return;
         }
 
         // ✅ Créer la ReservationPonctuelle avec les informations du message Django
-        Long reservationId = null;
         if (rawEvent.joueur_numTel() != null || rawEvent.prix() != null) {
-            try {
-                log.info("📝 Création d'une ReservationPonctuelle depuis Django: joueur_numTel={}, prix={}", 
-                        rawEvent.joueur_numTel(), rawEvent.prix());
-                
-                ReservationPonctuelle reservation = new ReservationPonctuelle();
-                reservation.setDate(event.date());
-                reservation.setHeureDebut(event.heureDebut());
-                reservation.setHeureFin(event.heureFin());
-                reservation.setTerrain(terrain);
-                
-                // Convertir joueur_numTel (String) en Integer pour clientTelephone
-                if (rawEvent.joueur_numTel() != null && !rawEvent.joueur_numTel().trim().isEmpty()) {
-                    try {
-                        Integer joueurTel = Integer.parseInt(rawEvent.joueur_numTel().trim());
-                        reservation.setClientTelephone(joueurTel);
-                        log.info("✅ Numéro de téléphone du joueur converti: {}", joueurTel);
-                    } catch (NumberFormatException e) {
-                        log.warn("⚠️ Impossible de convertir joueur_numTel '{}' en Integer: {}", 
-                                rawEvent.joueur_numTel(), e.getMessage());
-                    }
-                }
-                
-                // Convertir prix (Double) en BigDecimal
-                if (rawEvent.prix() != null) {
-                    reservation.setPrix(java.math.BigDecimal.valueOf(rawEvent.prix()));
-                    log.info("✅ Prix converti: {}", reservation.getPrix());
+            ReservationPonctuelle reservation = new ReservationPonctuelle();
+            reservation.setDate(event.date());
+            reservation.setHeureDebut(event.heureDebut());
+            reservation.setHeureFin(event.heureFin());
+            reservation.setTerrain(terrain);
+            // Convertir joueur_numTel (String) en Integer pour clientTelephone
+            if (rawEvent.joueur_numTel() != null && !rawEvent.joueur_numTel().trim().isEmpty()) {
+                try {
+                    reservation.setClientTelephone(Integer.parseInt(rawEvent.joueur_numTel().trim()));
+                } catch (NumberFormatException e) {
+                    log.warn("⚠️ Impossible de convertir joueur_numTel '{}' en Integer: {}",
+                            rawEvent.joueur_numTel(), e.getMessage());
                 }
-                
-                // Sauvegarder la réservation
-                ReservationPonctuelle savedReservation = reservationPonctuelleRepository.save(reservation);
-                reservationId = savedReservation.getId();
-                log.info("✅ ReservationPonctuelle créée: id={}, date={}, heureDebut={}, heureFin={}, prix={}, clientTelephone={}", 
-                        reservationId, savedReservation.getDate(), savedReservation.getHeureDebut(), 
-                        savedReservation.getHeureFin(), savedReservation.getPrix(), savedReservation.getClientTelephone());
-            } catch (Exception e) {
-                log.error("❌ Erreur lors de la création de la ReservationPonctuelle depuis Django: {}", e.getMessage(), e);
-                // Ne pas bloquer la création de l'IndisponibleHoraire si la réservation échoue
             }
+            // Convertir prix (Double) en BigDecimal
+            if (rawEvent.prix() != null) {
+                reservation.setPrix(java.math.BigDecimal.valueOf(rawEvent.prix()));
+            }
+            reservationsACreer.put(event.uuid(), reservation);
         }
-        
-        // Utiliser l'ID de la réservation créée comme sourceId si sourceId n'était pas fourni
-        Long finalSourceId = event.sourceId() != null ? event.sourceId() : reservationId;
-        
-        // Créer le nouvel horaire
-        IndisponibleHoraire horaire = IndisponibleHoraire.builder()
-                .uuid(event.uuid())
-                .terrain(terrain)
-                .date(event.date())
-                .heureDebut(event.heureDebut())
-                .heureFin(event.heureFin())
-                .typeReservation(typeReservation) // Utiliser le type converti
-                .sourceId(finalSourceId) // Utiliser l'ID de la réservation créée ou celui fourni
-                .description(description) // Utiliser toujours la description complétée
-                .build();
 
-        try {
-            indisponibleHoraireRepository.save(horaire);
-            log.info("✅ Horaire créé depuis Django: uuid={}, terrainId={}, sourceId={}, type={}, description={}", 
-                    event.uuid(), event.terrainId(), finalSourceId, typeReservation, description);
-        } catch (org.springframework.dao.DataIntegrityViolationException e) {
-            // Si violation de contrainte unique (UUID), l'horaire existe déjà
-            log.warn("⚠️ Violation de contrainte unique pour UUID {} - l'horaire existe déjà, ignoré (idempotence)", 
-                    event.uuid());
-        } catch (Exception e) {
-            log.error("❌ Erreur lors de la création de l'horaire depuis Django: {}", e.getMessage(), e);
-            throw e;
+        // Un horaire supprimé plus tôt dans le lot puis recréé avec le même UUID est réutilisé
+        IndisponibleHoraire horaire = aSupprimer.remove(event.uuid());
+        if (horaire == null) {
+            horaire = IndisponibleHoraire.builder().uuid(event.uuid()).build();
+        }
+        horaire.setTerrain(terrain);
+        horaire.setDate(event.date());
+        horaire.setHeureDebut(event.heureDebut());
+        horaire.setHeureFin(event.heureFin());
+        horaire.setTypeReservation(typeReservation);
+        horaire.setSourceId(event.sourceId()); // Complété par l'ID de la réservation créée si null
+        horaire.setDescription(descriptionOuDefaut(event));
+
+        horaires.put(event.uuid(), horaire);
+        aSauvegarder.put(event.uuid(), horaire);
+        if (event.sourceId() != null) {
+            sourcesExistantes.add(cle);
         }
     }
 
     /**
-     * Gère la mise à jour d'un horaire depuis Django
+     * Mise à jour d'un horaire depuis Django
      */
-    private void handleUpdatedEvent(HoraireSyncEvent event) {
-        // Trouver l'horaire par UUID
-        IndisponibleHoraire horaire = indisponibleHoraireRepository.findByUuid(event.uuid())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Horaire non trouvé pour la mise à jour: " + event.uuid()));
-
-        // Vérifier que le terrain existe
-        TerrainService terrain = terrainServiceRepository.findById(event.terrainId())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Terrain non trouvé pour l'événement de synchronisation: " + event.terrainId()));
-
-        // ✅ RÈGLE SPÉCIALE POUR DJANGO : Django ne crée jamais d'abonnements
-        // Si typeReservation est null, c'est forcément une réservation ponctuelle depuis Django
-        com.matchi.model.TypeReservation typeReservation = parseTypeReservation(event.typeReservation());
-        
-        // ✅ Si typeReservation est null, forcer RESERVATION_PONCTUELLE (Django ne crée que des réservations ponctuelles)
-        if (typeReservation == null) {
-            typeReservation = com.matchi.model.TypeReservation.RESERVATION_PONCTUELLE;
-            log.info("✅ [UPDATE] TypeReservation était null, forcé à RESERVATION_PONCTUELLE (message depuis Django)");
+    private void appliquerMiseAJour(HoraireSyncEvent event,
+                                    Map<UUID, IndisponibleHoraire> horaires,
+                                    Map<Long, TerrainService> terrains,
+                                    Map<UUID, IndisponibleHoraire> aSauvegarder) {
+        IndisponibleHoraire horaire = horaires.get(event.uuid());
+        if (horaire == null) {
+            log.error("❌ Horaire non trouvé pour la mise à jour: {}, ignoré", event.uuid());
+            return;
         }
-        
-        log.info("🔍 [UPDATE] TypeReservation final: {}", typeReservation);
-        
-        // ✅ RÈGLE SPÉCIALE POUR DJANGO : Toujours utiliser "Réservation ponctuelle" comme description
-        // Django ne crée que des réservations ponctuelles
-        String description = event.description();
-        if (description == null || description.trim().isEmpty()) {
-            // Pour les messages Django, toujours utiliser "Réservation ponctuelle"
-            description = "Réservation ponctuelle";
-            log.info("✅ [UPDATE] Description complétée: '{}' (message depuis Django)", description);
-        } else {
-            log.debug("✅ [UPDATE] Description fournie dans l'événement: '{}'", description);
+        TerrainService terrain = terrains.get(event.terrainId());
+        if (terrain == null) {
+            log.error("❌ Terrain non trouvé pour l'événement de synchronisation: {}, ignoré", event.terrainId());
+            return;
         }
 
-        // Mettre à jour les champs
         horaire.setTerrain(terrain);
         horaire.setDate(event.date());
         horaire.setHeureDebut(event.heureDebut());
         horaire.setHeureFin(event.heureFin());
-        horaire.setTypeReservation(typeReservation); // Utiliser le type converti
+        horaire.setTypeReservation(typeOuDefaut(event));
         horaire.setSourceId(event.sourceId());
-        horaire.setDescription(description); // Utiliser toujours la description complétée
-
-        indisponibleHoraireRepository.save(horaire);
-        log.info("✅ Horaire mis à jour depuis Django: uuid={}, terrainId={}, sourceId={}, type={}, description={}", 
-                event.uuid(), event.terrainId(), event.sourceId(), typeReservation, description);
+        horaire.setDescription(descriptionOuDefaut(event));
+        aSauvegarder.put(event.uuid(), horaire);
     }
 
     /**
-     * Gère la suppression d'un horaire depuis Django
+     * Suppression d'un horaire depuis Django
      * Utilise uniquement l'UUID pour trouver l'horaire (même si tous les autres champs sont null)
      */
-    private void handleDeletedEvent(HoraireSyncEvent event) {
-        log.info("🗑️ Traitement d'un événement 'deleted' depuis Django: uuid={}", event.uuid());
+    private void appliquerSuppression(HoraireSyncEvent event,
+                                      Map<UUID, IndisponibleHoraire> horaires,
+                                      Map<UUID, IndisponibleHoraire> aSauvegarder,
+                                      Map<UUID, IndisponibleHoraire> aSupprimer,
+                                      Map<UUID, ReservationPonctuelle> reservationsACreer,
+                                      Set<Long> reservationsASupprimer) {
+        IndisponibleHoraire horaire = horaires.remove(event.uuid());
+        if (horaire == null) {
+            log.debug("⚠️ Horaire avec UUID {} n'existe pas, suppression ignorée (idempotence)", event.uuid());
+            return;
+        }
+        aSauvegarder.remove(event.uuid());
+
+        // Créé puis supprimé dans le même lot : rien à écrire
+        if (horaire.getId() == null) {
+            reservationsACreer.remove(event.uuid());
+            return;
+        }
+
+        // Si l'horaire a un sourceId et que c'est une réservation ponctuelle, supprimer aussi la réservation
+        if (horaire.getSourceId() != null && horaire.getTypeReservation() == TypeReservation.RESERVATION_PONCTUELLE) {
+            reservationsASupprimer.add(horaire.getSourceId());
+        }
+        aSupprimer.put(event.uuid(), horaire);
+    }
+
+    /**
+     * Si typeReservation est null, c'est forcément une réservation ponctuelle depuis Django
+     */
+    private TypeReservation typeOuDefaut(HoraireSyncEvent event) {
+        TypeReservation typeReservation = parseTypeReservation(event.typeReservation());
+        return typeReservation != null ? typeReservation : TypeReservation.RESERVATION_PONCTUELLE;
+    }
+
+    /**
+     * ✅ RÈGLE SPÉCIALE POUR DJANGO : "Réservation ponctuelle" comme description par défaut
+     */
+    private String descriptionOuDefaut(HoraireSyncEvent event) {
+        String description = event.description();
+        return description == null || description.trim().isEmpty() ? "Réservation ponctuelle" : description;
+    }
+
+    /**
+     * Convertit une chaîne en TypeReservation enum
+     * Gère les cas où le type arrive comme chaîne depuis Django
+     */
+    private TypeReservation parseTypeReservation(Object typeValue) {
+        if (typeValue == null) {
+            return null;
+        }
         
-        // Trouver l'horaire par UUID (même si tous les autres champs sont null)
-        Optional<IndisponibleHoraire> horaireOpt = indisponibleHoraireRepository.findByUuid(event.uuid());
+        // Si c'est déjà un enum, le retourner tel quel
+        if (typeValue instanceof TypeReservation) {
+            return (TypeReservation) typeValue;
+        }
         
-        if (horaireOpt.isPresent()) {
-            IndisponibleHoraire horaire = horaireOpt.get();
-            
-            // Si l'horaire a un sourceId et que c'est une réservation ponctuelle, supprimer aussi la réservation
-            if (horaire.getSourceId() != null && 
-                horaire.getTypeReservation() == com.matchi.model.TypeReservation.RESERVATION_PONCTUELLE) {
-                try {
-                    Optional<ReservationPonctuelle> reservationOpt = 
-                            reservationPonctuelleRepository.findById(horaire.getSourceId());
-                    if (reservationOpt.isPresent()) {
-                        reservationPonctuelleRepository.delete(reservationOpt.get());
-                        log.info("✅ ReservationPonctuelle supprimée: id={}", horaire.getSourceId());
-                    }
-                } catch (Exception e) {
-                    log.warn("⚠️ Erreur lors de la suppression de la ReservationPonctuelle (id={}): {}", 
-                            horaire.getSourceId(), e.getMessage());
-                    // Continuer quand même avec la suppression de l'horaire
-                }
+        // Si c'est une chaîne, la convertir en enum
+        if (typeValue instanceof String) {
+            String typeStr = ((String) typeValue).trim().toUpperCase();
+            try {
+                return TypeReservation.valueOf(typeStr);
+            } catch (IllegalArgumentException e) {
+                log.warn("⚠️ Type de réservation inconnu: '{}', retour null", typeStr);
+                return null;
             }
-            
-            // Supprimer l'horaire
-            indisponibleHoraireRepository.delete(horaire);
-            log.info("✅ Horaire supprimé depuis Django: uuid={}, id={}, sourceId={}", 
-                    event.uuid(), horaire.getId(), horaire.getSourceId());
-        } else {
-            log.debug("⚠️ Horaire avec UUID {} n'existe pas, suppression ignorée (idempotence)", event.uuid());
         }
+        
+        log.warn("⚠️ Type de réservation dans un format non supporté: {} (type: {}), retour null", 
+                typeValue, typeValue.getClass().getName());
+        return null;
     }
 }
@@ -0,0 +1,92 @@
+package com.matchi.service;
+
+import com.matchi.dto.IndisponibleHoraireDTO;
+import com.matchi.dto.ReservationPonctuelleDTO;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.ReservationPonctuelleRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Export NDJSON (un objet JSON par ligne) des réservations et des horaires indisponibles.
+ *
+ * Les lignes sont lues en flux (Stream + fetch size, curseur JDBC en avant seulement) sous forme
+ * de projections DTO et écrites au fil de l'eau dans la réponse : la mémoire utilisée ne dépend pas
+ * du nombre de lignes exportées (aucune liste complète, aucune entité dans le contexte de persistance).
+ *
+ * ⚠️ La transaction (et donc la connexion) reste ouverte pendant toute l'écriture de la réponse.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportNdjsonService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportNdjsonService.class);
+
+    private static final byte FIN_DE_LIGNE = '\n';
+
+    private final ReservationPonctuelleRepository reservationRepository;
+    private final IndisponibleHoraireRepository indisponibleHoraireRepository;
+
+    // Mapper JSON de l'application : même configuration que les réponses des autres endpoints
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Écrit les réservations ponctuelles (bornes de dates facultatives) dans le flux, triées par ID
+     *
+     * @return le nombre de lignes écrites
+     */
+    @Transactional(readOnly = true)
+    public long exporterReservations(LocalDate debut, LocalDate fin, OutputStream sortie) {
+        try (Stream<ReservationPonctuelleDTO> reservations = reservationRepository.streamPourExport(debut, fin)) {
+            long nombre = ecrire(reservations, sortie);
+            log.info("✅ Export NDJSON : {} réservation(s)", nombre);
+            return nombre;
+        }
+    }
+
+    /**
+     * Écrit les horaires indisponibles (bornes de dates facultatives) dans le flux, triés par ID
+     *
+     * @return le nombre de lignes écrites
+     */
+    @Transactional(readOnly = true)
+    public long exporterIndisponibles(LocalDate debut, LocalDate fin, OutputStream sortie) {
+        try (Stream<IndisponibleHoraireDTO> horaires = indisponibleHoraireRepository.streamPourExport(debut, fin)) {
+            long nombre = ecrire(horaires, sortie);
+            log.info("✅ Export NDJSON : {} horaire(s) indisponible(s)", nombre);
+            return nombre;
+        }
+    }
+
+    private long ecrire(Stream<?> lignes, OutputStream sortie) {
+        BufferedOutputStream tampon = new BufferedOutputStream(sortie, 64 * 1024);
+        long[] nombre = {0};
+        lignes.forEach(ligne -> {
+            try {
+                tampon.write(jsonMapper.writeValueAsBytes(ligne));
+                tampon.write(FIN_DE_LIGNE);
+                nombre[0]++;
+            } catch (IOException e) {
+                // Client déconnecté : interrompre la lecture
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            tampon.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return nombre[0];
+    }
+}
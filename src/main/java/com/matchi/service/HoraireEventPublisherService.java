@@ -2,6 +2,8 @@ package com.matchi.service;
 
 import com.matchi.dto.HoraireSyncEvent;
 import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.OutboxEvenement;
+import com.matchi.repository.OutboxEvenementRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.annotation.PostConstruct;
@@ -9,16 +11,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service pour publier les événements de synchronisation des horaires
  * sur le broker Kafka
  * 
+ * ✅ OUTBOX : les événements sont écrits dans la table outbox, dans la même transaction
+ * que la modification de l'horaire, puis relayés vers Kafka par OutboxRelayService
+ * 
  * Ce service ne fonctionne que si Kafka est configuré
  */
 @Service
@@ -29,13 +42,18 @@ public class HoraireEventPublisherService {
 
     @Autowired(required = false)
     @Qualifier("kafkaTemplate")
-    private Object kafkaTemplate;
+    private KafkaTemplate<String, HoraireSyncEvent> kafkaTemplate;
+
+    @Autowired
+    private OutboxEvenementRepository outboxEvenementRepository;
+
+    @Value("${horaire.kafka.producer.confirmation-timeout-ms:30000}")
+    private long confirmationTimeoutMs;
     
     @PostConstruct
     public void init() {
         if (kafkaTemplate != null) {
             log.info("✅ HoraireEventPublisherService initialisé avec KafkaTemplate. Topic: {}", topic);
-            log.info("📋 Type du kafkaTemplate: {}", kafkaTemplate.getClass().getName());
         } else {
             log.warn("⚠️ HoraireEventPublisherService initialisé SANS KafkaTemplate - les événements ne seront pas publiés");
         }
@@ -57,56 +75,62 @@ public class HoraireEventPublisherService {
     /**
      * Publie un événement de création d'horaire
      */
+    @Transactional
     public void publishCreatedEvent(IndisponibleHoraire horaire) {
-        if (horaire.getUuid() == null) {
-            log.warn("Tentative de publication d'un événement pour un horaire sans UUID: {}", horaire.getId());
-            return;
-        }
-
-        HoraireSyncEvent event = new HoraireSyncEvent(
-                horaire.getUuid(),
-                "created",
-                horaire.getTerrain() != null ? horaire.getTerrain().getId() : null,
-                horaire.getDate(),
-                horaire.getHeureDebut(),
-                horaire.getHeureFin(),
-                horaire.getTypeReservation(),
-                horaire.getSourceId(),
-                horaire.getDescription(),
-                getProprietaireTelephone(horaire)
-        );
-
-        publishEvent(event);
+        publishAll(List.of(horaire), "created");
     }
 
     /**
      * Publie un événement de mise à jour d'horaire
      */
+    @Transactional
     public void publishUpdatedEvent(IndisponibleHoraire horaire) {
-        if (horaire.getUuid() == null) {
-            log.warn("Tentative de publication d'un événement pour un horaire sans UUID: {}", horaire.getId());
-            return;
-        }
+        publishAll(List.of(horaire), "updated");
+    }
 
-        HoraireSyncEvent event = new HoraireSyncEvent(
-                horaire.getUuid(),
-                "updated",
-                horaire.getTerrain() != null ? horaire.getTerrain().getId() : null,
-                horaire.getDate(),
-                horaire.getHeureDebut(),
-                horaire.getHeureFin(),
-                horaire.getTypeReservation(),
-                horaire.getSourceId(),
-                horaire.getDescription(),
-                getProprietaireTelephone(horaire)
-        );
+    /**
+     * Publie les événements de création d'un lot d'horaires (une seule écriture dans l'outbox)
+     */
+    @Transactional
+    public void publishAllCreated(Collection<IndisponibleHoraire> horaires) {
+        publishAll(horaires, "created");
+    }
 
-        publishEvent(event);
+    /**
+     * Publie les événements de mise à jour d'un lot d'horaires (une seule écriture dans l'outbox)
+     */
+    @Transactional
+    public void publishAllUpdated(Collection<IndisponibleHoraire> horaires) {
+        publishAll(horaires, "updated");
+    }
+
+    private void publishAll(Collection<IndisponibleHoraire> horaires, String action) {
+        List<HoraireSyncEvent> events = new ArrayList<>(horaires.size());
+        for (IndisponibleHoraire horaire : horaires) {
+            if (horaire.getUuid() == null) {
+                log.warn("Tentative de publication d'un événement pour un horaire sans UUID: {}", horaire.getId());
+                continue;
+            }
+            events.add(new HoraireSyncEvent(
+                    horaire.getUuid(),
+                    action,
+                    horaire.getTerrain() != null ? horaire.getTerrain().getId() : null,
+                    horaire.getDate(),
+                    horaire.getHeureDebut(),
+                    horaire.getHeureFin(),
+                    horaire.getTypeReservation(),
+                    horaire.getSourceId(),
+                    horaire.getDescription(),
+                    getProprietaireTelephone(horaire)
+            ));
+        }
+        enregistrer(events);
     }
 
     /**
      * Publie un événement de suppression d'horaire
      */
+    @Transactional
     public void publishDeletedEvent(UUID uuid, Long terrainId, LocalDate date, 
                                      LocalTime heureDebut, LocalTime heureFin, Integer proprietaireTelephone) {
         HoraireSyncEvent event = new HoraireSyncEvent(
@@ -122,100 +146,85 @@ public class HoraireEventPublisherService {
                 proprietaireTelephone
         );
 
-        publishEvent(event);
+        enregistrer(List.of(event));
     }
 
     /**
-     * Publie l'événement sur le topic Kafka
+     * Enregistre les événements dans l'outbox, dans la transaction de la modification des horaires.
+     * La publication sur Kafka est faite après le commit par OutboxRelayService.
      */
-    private void publishEvent(HoraireSyncEvent event) {
-        if (kafkaTemplate == null) {
-            log.warn("Kafka non configuré, événement non publié: action={}, uuid={}", 
-                    event.action(), event.uuid());
+    private void enregistrer(List<HoraireSyncEvent> events) {
+        if (events.isEmpty()) {
             return;
         }
-        
+        List<OutboxEvenement> evenements = new ArrayList<>(events.size());
+        for (HoraireSyncEvent event : events) {
+            evenements.add(OutboxEvenement.builder()
+                    .horaireUuid(event.uuid())
+                    .action(event.action())
+                    .terrainId(event.terrainId())
+                    .date(event.date())
+                    .heureDebut(event.heureDebut())
+                    .heureFin(event.heureFin())
+                    .typeReservation(event.typeReservation())
+                    .sourceId(event.sourceId())
+                    .description(event.description())
+                    .proprietaireTelephone(event.proprietaireTelephone())
+                    .build());
+        }
+        outboxEvenementRepository.saveAll(evenements);
+        log.debug("📥 {} événement(s) ajouté(s) à l'outbox (action={})", evenements.size(), events.get(0).action());
+    }
+
+    /**
+     * Clé du message : l'ID du terrain, pour que tous les événements d'un terrain
+     * aillent sur la même partition (ordre conservé par terrain, terrains traités en parallèle).
+     * À défaut de terrain, l'UUID de l'horaire.
+     */
+    private String cle(HoraireSyncEvent event) {
+        return event.terrainId() != null ? event.terrainId().toString() : event.uuid().toString();
+    }
+
+    /**
+     * Envoie un lot d'événements sur le topic Kafka sans bloquer entre les envois
+     * (le producer les regroupe selon linger.ms / batch.size), puis attend les confirmations
+     * une seule fois pour tout le lot, dans l'ordre.
+     *
+     * @return nombre d'événements confirmés en tête du lot (les suivants doivent être renvoyés)
+     */
+    public int envoyerLot(List<HoraireSyncEvent> events) {
+        if (kafkaTemplate == null) {
+            log.warn("Kafka non configuré, {} événements non publiés", events.size());
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, HoraireSyncEvent>>> envois = new ArrayList<>(events.size());
         try {
-            log.info("📤 Publication d'événement de synchronisation sur Kafka: action={}, uuid={}, terrainId={}, topic={}", 
-                    event.action(), event.uuid(), event.terrainId(), topic);
-            log.debug("📤 Contenu de l'événement: {}", event);
-            
-            // Vérifier que l'événement n'est pas null
-            if (event == null) {
-                log.error("❌ L'événement est NULL - impossible de publier");
-                return;
-            }
-            
-            // Trouver la méthode send avec la bonne signature
-            // KafkaTemplate a plusieurs surcharges de send(), on cherche celle qui accepte (String, String, Object)
-            java.lang.reflect.Method sendMethod = null;
-            java.lang.reflect.Method[] methods = kafkaTemplate.getClass().getMethods();
-            for (java.lang.reflect.Method method : methods) {
-                if ("send".equals(method.getName())) {
-                    java.lang.Class<?>[] paramTypes = method.getParameterTypes();
-                    if (paramTypes.length == 3 && 
-                        paramTypes[0] == String.class && 
-                        paramTypes[1] == String.class &&
-                        paramTypes[2] == Object.class) {
-                        sendMethod = method;
-                        break;
-                    }
-                }
-            }
-            
-            // Si on ne trouve pas la méthode avec 3 paramètres, essayer avec 2 paramètres (topic, value)
-            if (sendMethod == null) {
-                for (java.lang.reflect.Method method : methods) {
-                    if ("send".equals(method.getName())) {
-                        java.lang.Class<?>[] paramTypes = method.getParameterTypes();
-                        if (paramTypes.length == 2 && 
-                            paramTypes[0] == String.class && 
-                            paramTypes[1] == Object.class) {
-                            sendMethod = method;
-                            log.debug("📤 Utilisation de send(topic, value) au lieu de send(topic, key, value)");
-                            break;
-                        }
-                    }
-                }
-            }
-            
-            if (sendMethod == null) {
-                log.error("❌ Méthode send() non trouvée dans KafkaTemplate");
-                return;
-            }
-            
-            log.debug("📤 Envoi du message sur le topic: {} avec la méthode: {}", topic, sendMethod);
-            Object result;
-            if (sendMethod.getParameterCount() == 3) {
-                result = sendMethod.invoke(kafkaTemplate, topic, event.uuid().toString(), event);
-            } else {
-                // Utiliser send(topic, value) si la méthode avec key n'existe pas
-                result = sendMethod.invoke(kafkaTemplate, topic, event);
-            }
-            log.debug("📤 Résultat de l'envoi: {}", result);
-            
-            // Attendre la confirmation pour s'assurer que le message est bien envoyé
-            if (result != null) {
-                try {
-                    java.lang.reflect.Method getMethod = result.getClass().getMethod("get");
-                    Object sendResult = getMethod.invoke(result);
-                    log.info("✅ Événement publié avec succès sur Kafka. Résultat: {}", sendResult);
-                } catch (Exception e) {
-                    log.warn("⚠️ Impossible d'obtenir le résultat synchrone, envoi asynchrone: {}", e.getMessage());
-                    log.info("✅ Événement envoyé sur Kafka (mode asynchrone)");
-                }
-            } else {
-                log.warn("⚠️ Résultat de l'envoi est NULL");
+            for (HoraireSyncEvent event : events) {
+                envois.add(kafkaTemplate.send(topic, cle(event), event));
             }
+            kafkaTemplate.flush();
         } catch (Exception e) {
-            log.error("❌ Erreur lors de la publication de l'événement de synchronisation sur Kafka: {}", 
-                    e.getMessage(), e);
-            log.error("❌ Type d'erreur: {}", e.getClass().getName());
-            if (e.getCause() != null) {
-                log.error("❌ Cause: {}", e.getCause().getMessage());
+            log.error("❌ Erreur lors de l'envoi sur Kafka: {}", e.getMessage(), e);
+        }
+
+        // Attendre les confirmations dans l'ordre : on s'arrête au premier échec
+        long limite = System.currentTimeMillis() + confirmationTimeoutMs;
+        int confirmes = 0;
+        for (CompletableFuture<SendResult<String, HoraireSyncEvent>> envoi : envois) {
+            try {
+                envoi.get(Math.max(0, limite - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                confirmes++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("❌ Échec de la confirmation Kafka: {}", cause.getMessage());
+                break;
             }
-            e.printStackTrace();
-            // On ne fait pas échouer la transaction principale si la publication échoue
         }
+        log.debug("📤 {}/{} événements confirmés par Kafka (topic={})", confirmes, events.size(), topic);
+        return confirmes;
     }
 }
@@ -1,27 +1,27 @@
 package com.matchi.service;
 
+import com.matchi.dto.CurseurCreneau;
 import com.matchi.dto.IndisponibleHoraireDTO;
+import com.matchi.dto.PageCurseur;
 import com.matchi.model.*;
 import com.matchi.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.event.TransactionPhase;
-import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import com.matchi.event.AbonnementModifieEvent;
-import com.matchi.event.ReservationModifieEvent;
-import com.matchi.event.AbonnementHoraireChangeEvent;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.UUID;
@@ -44,6 +44,33 @@ public class IndisponibleHoraireService {
         return terrainLocks.computeIfAbsent(terrainId, k -> new ReentrantLock());
     }
 
+    /**
+     * Diffère la libération du verrou à la fin de la transaction en cours (après le commit ou le rollback) :
+     * le thread suivant lit alors l'état du terrain avec les écritures de celle-ci.
+     * Enregistrée avant les autres actions après commit (notification Django), elle les précède.
+     *
+     * @return false si aucune transaction n'est active (le verrou doit être libéré par l'appelant)
+     */
+    private boolean libererApresTransaction(Lock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lock.unlock();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    lock.unlock();
+                }
+            }
+        });
+        return true;
+    }
+
     private static final Logger log = LoggerFactory.getLogger(IndisponibleHoraireService.class);
 
     private final IndisponibleHoraireRepository indisponibleHoraireRepository;
@@ -51,7 +78,9 @@ public class IndisponibleHoraireService {
     private final ReservationPonctuelleRepository reservationPonctuelleRepository;
     private final TerrainServiceRepository terrainServiceRepository;
     private final DjangoSyncService djangoSyncService;
-    private final KafkaAvailabilityService kafkaAvailabilityService;
+    private final OccupationIndexService occupationIndexService;
+    private final HoraireJdbcRepository horaireJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
     
     @Autowired(required = false)
     private HoraireEventPublisherService horaireEventPublisherService;
@@ -85,34 +114,21 @@ public class IndisponibleHoraireService {
     }
 
     // ======== CRUD ========
-    public List<IndisponibleHoraireDTO> getAllIndisponibles() {
+    /**
+     * Horaires indisponibles en cours ou à venir, triés par date puis heure, par pages (curseur)
+     * ✅ Le filtrage des horaires passés et le tri sont faits en base
+     */
+    public PageCurseur<IndisponibleHoraireDTO> getAllIndisponibles(String curseur, int taille) {
         LocalDate aujourdhui = LocalDate.now();
-        java.time.LocalTime maintenant = java.time.LocalTime.now();
-        
-        return indisponibleHoraireRepository.findAll()
-                .stream()
-                // ✅ FILTRER : Exclure les horaires passés
-                .filter(horaire -> {
-                    if (horaire.getDate() == null) {
-                        return false; // Exclure si pas de date
-                    }
-                    
-                    // Si la date est dans le passé, exclure
-                    if (horaire.getDate().isBefore(aujourdhui)) {
-                        return false;
-                    }
-                    
-                    // Si c'est aujourd'hui, vérifier que l'heure de fin n'est pas passée
-                    if (horaire.getDate().equals(aujourdhui)) {
-                        if (horaire.getHeureFin() != null && horaire.getHeureFin().isBefore(maintenant)) {
-                            return false; // L'heure de fin est passée, exclure
-                        }
-                    }
-                    
-                    return true; // Inclure les horaires futurs ou en cours
-                })
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        CurseurCreneau position = CurseurCreneau.decoder(curseur);
+        if (position == null) {
+            position = CurseurCreneau.avant(aujourdhui);
+        }
+        List<IndisponibleHoraireDTO> lignes = indisponibleHoraireRepository.findAVenirApres(
+                aujourdhui, java.time.LocalTime.now(),
+                position.date(), position.heureDebut(), position.id(), Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille,
+                horaire -> new CurseurCreneau(horaire.date(), horaire.heureDebut(), horaire.id()).encoder());
     }
 
     public List<IndisponibleHoraireDTO> getIndisponiblesByTerrain(Long terrainId) {
@@ -146,48 +162,65 @@ public class IndisponibleHoraireService {
      * en les récupérant depuis AbonnementHoraire et ReservationPonctuelle
      * 
      * ✅ CORRECTION : Utilise REQUIRES_NEW pour s'assurer que les données sont bien commitées
-     * ✅ VERROU : Utilise un verrou par terrainId pour éviter les doublons lors d'appels parallèles
+     * ✅ VERROU : Utilise un verrou par terrainId pour éviter les doublons lors d'appels parallèles,
+     * conservé jusqu'au commit de la transaction REQUIRES_NEW
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void synchroniserHorairesIndisponibles(Long terrainId) {
         // ✅ VERROU : Verrouiller par terrainId pour éviter les appels parallèles
         Lock lock = getTerrainLock(terrainId);
         lock.lock();
+        boolean differe = false;
         try {
+            differe = libererApresTransaction(lock);
             synchroniserHorairesIndisponiblesInternal(terrainId);
         } finally {
-            lock.unlock();
+            if (!differe) {
+                lock.unlock();
+            }
         }
     }
     
+    /**
+     * Clé d'un horaire indisponible : sa source (type + ID de l'AbonnementHoraire ou de la ReservationPonctuelle)
+     */
+    private record CleSource(TypeReservation typeReservation, Long sourceId) {}
+    
     /**
      * Logique interne de synchronisation (appelée avec le verrou)
+     * 
+     * ✅ Les horaires existants du terrain sont chargés UNE SEULE FOIS et indexés par source
+     * (Map<(TypeReservation, sourceId), horaires>) : le nombre de requêtes ne dépend plus
+     * du nombre d'horaires du terrain.
+     * ✅ Ne dépend pas du broker : les événements sont écrits dans l'outbox, dans la même transaction,
+     * et OutboxRelayService les publie quand Kafka est disponible (avec backoff)
      */
     private void synchroniserHorairesIndisponiblesInternal(Long terrainId) {
-        // ✅ VALIDATION : Vérifier que Kafka est disponible avant de créer des horaires potentiels
-        if (!kafkaAvailabilityService.isKafkaAvailable()) {
-            log.warn("⚠️ Impossible de synchroniser les horaires indisponibles pour le terrain {} : Kafka n'est pas démarré ou n'est pas disponible", terrainId);
-            throw new IllegalStateException("Impossible de créer des horaires potentiels : Kafka n'est pas démarré ou n'est pas disponible. Veuillez démarrer Kafka avant de créer des abonnements ou réservations.");
-        }
-        
         // ✅ CLEAR : Vider le cache L1 au début pour forcer la relecture depuis la base
         entityManager.clear();
         
-        // ✅ ÉVACUER LE CACHE L2 : Vider complètement le cache de niveau 2
+        // ✅ ÉVACUER LE CACHE L2 : seulement le terrain synchronisé (les requêtes ci-dessous relisent
+        // leurs lignes depuis la base, sans passer par le cache), pas celui des autres terrains
         jakarta.persistence.Cache cache = entityManager.getEntityManagerFactory().getCache();
         if (cache != null) {
-            cache.evictAll();
+            cache.evict(TerrainService.class, terrainId);
         }
         
         TerrainService terrain = terrainServiceRepository.findById(terrainId)
                 .orElseThrow(() -> new IllegalArgumentException("Terrain non trouvé"));
 
-        // ✅ NOUVELLE APPROCHE : Ne pas supprimer tous les horaires, mais seulement ceux qui n'ont plus de source
-        // Récupérer les horaires existants
+        // ✅ Ne pas supprimer tous les horaires, mais seulement ceux qui n'ont plus de source
+        // Récupérer les horaires existants UNE SEULE FOIS et les indexer par source
         List<IndisponibleHoraire> horairesExistants = indisponibleHoraireRepository.findByTerrainId(terrainId);
-        
-        // ✅ CLEAR SUPPLÉMENTAIRE : Vider le cache juste avant de lire les données
-        entityManager.clear();
+        java.util.Map<CleSource, List<IndisponibleHoraire>> existantsParSource = new java.util.HashMap<>();
+        for (IndisponibleHoraire existant : horairesExistants) {
+            if (existant.getTypeReservation() != null && existant.getSourceId() != null) {
+                existantsParSource
+                        .computeIfAbsent(new CleSource(existant.getTypeReservation(), existant.getSourceId()),
+                                k -> new java.util.ArrayList<>())
+                        .add(existant);
+            }
+        }
 
         // ✅ Récupérer tous les horaires d'abonnement pour ce terrain depuis la base (pas du cache)
         // Utiliser une requête JPQL avec hints agressifs pour forcer la relecture depuis la base
@@ -206,114 +239,48 @@ public class IndisponibleHoraireService {
         query.setHint("org.hibernate.cacheable", false);
         @SuppressWarnings("unchecked")
         List<AbonnementHoraire> abonnementHoraires = query.getResultList();
-        
-        // ✅ DETACH : Détacher toutes les entités pour forcer la relecture
-        for (AbonnementHoraire ah : abonnementHoraires) {
-            entityManager.detach(ah);
-            if (ah.getAbonnement() != null) {
-                entityManager.detach(ah.getAbonnement());
-            }
-        }
 
-        // Créer les horaires indisponibles pour les abonnements
+        // ✅ Récupérer toutes les réservations ponctuelles pour ce terrain depuis la base
+        jakarta.persistence.Query queryReservations = entityManager.createQuery(
+            "SELECT rp FROM ReservationPonctuelle rp " +
+            "WHERE rp.terrain.id = :terrainId",
+            ReservationPonctuelle.class
+        );
+        queryReservations.setParameter("terrainId", terrainId);
+        queryReservations.setHint("jakarta.persistence.cache.retrieveMode", 
+                                  jakarta.persistence.CacheRetrieveMode.BYPASS);
+        queryReservations.setHint("jakarta.persistence.cache.storeMode", 
+                                  jakarta.persistence.CacheStoreMode.BYPASS);
+        queryReservations.setHint("org.hibernate.cacheable", false);
+        @SuppressWarnings("unchecked")
+        List<ReservationPonctuelle> reservations = queryReservations.getResultList();
+
         List<IndisponibleHoraire> horairesIndisponibles = new java.util.ArrayList<>();
         List<IndisponibleHoraire> horairesMisAJour = new java.util.ArrayList<>();
-        Set<Long> abonnementSourceIdsUtilises = new HashSet<>();
+        List<IndisponibleHoraire> horairesASupprimer = new java.util.ArrayList<>();
+        Set<CleSource> sourcesUtilisees = new HashSet<>();
         
+        // Créer ou mettre à jour les horaires indisponibles des abonnements
         for (AbonnementHoraire ah : abonnementHoraires) {
-            abonnementSourceIdsUtilises.add(ah.getId());
+            CleSource cle = new CleSource(TypeReservation.ABONNEMENT, ah.getId());
+            sourcesUtilisees.add(cle);
             
-            // ✅ VÉRIFICATION PAR SOURCE ID SEULEMENT : Chercher un horaire existant par sourceId uniquement
-            // (sans comparer date/heures car elles peuvent changer lors de la mise à jour)
-            // Cela permet de trouver l'horaire existant même si ses valeurs ont changé
-            List<IndisponibleHoraire> horairesExistantsPourSource = indisponibleHoraireRepository
-                    .findByTerrainIdAndTypeReservation(terrainId, TypeReservation.ABONNEMENT)
-                    .stream()
-                    .filter(h -> h.getSourceId() != null && h.getSourceId().equals(ah.getId()))
-                    .collect(Collectors.toList());
-            
-            if (!horairesExistantsPourSource.isEmpty()) {
-                // Prendre le premier horaire trouvé (il ne devrait y en avoir qu'un)
-                IndisponibleHoraire existant = horairesExistantsPourSource.get(0);
-                
-                // Si plusieurs horaires existent pour la même source, supprimer les doublons
-                if (horairesExistantsPourSource.size() > 1) {
-                    log.warn("⚠️ {} horaires trouvés pour l'abonnement horaire sourceId={}, suppression des doublons", 
-                            horairesExistantsPourSource.size(), ah.getId());
-                    // Supprimer tous sauf le premier
-                    for (int i = 1; i < horairesExistantsPourSource.size(); i++) {
-                        IndisponibleHoraire doublon = horairesExistantsPourSource.get(i);
-                        if (horaireEventPublisherService != null && doublon.getUuid() != null) {
-                            TerrainService terrainService = terrainServiceRepository.findById(terrainId).orElse(null);
-                            Integer proprietaireTelephone = null;
-                            if (terrainService != null && terrainService.getProprietaire() != null) {
-                                proprietaireTelephone = terrainService.getProprietaire().getTelephone();
-                            }
-                            horaireEventPublisherService.publishDeletedEvent(
-                                    doublon.getUuid(),
-                                    terrainId,
-                                    doublon.getDate(),
-                                    doublon.getHeureDebut(),
-                                    doublon.getHeureFin(),
-                                    proprietaireTelephone
-                            );
-                        }
-                        indisponibleHoraireRepository.delete(doublon);
-                    }
-                    entityManager.flush();
-                }
-                
-                // ✅ Mettre à jour l'horaire existant (garder le même UUID)
-                // Toujours mettre à jour même si les valeurs semblent identiques (pour garantir la cohérence)
-                boolean aChange = false;
-                
-                // Vérifier si la date a changé
-                if (ah.getDate() != null && (existant.getDate() == null || !ah.getDate().equals(existant.getDate()))) {
-                    existant.setDate(ah.getDate());
-                    aChange = true;
-                    log.debug("📝 Date mise à jour pour l'abonnement horaire sourceId={}: {} -> {}", 
-                            ah.getId(), existant.getDate(), ah.getDate());
-                }
-                
-                // Vérifier si l'heure de début a changé
-                if (ah.getHeureDebut() != null && (existant.getHeureDebut() == null || !ah.getHeureDebut().equals(existant.getHeureDebut()))) {
-                    existant.setHeureDebut(ah.getHeureDebut());
-                    aChange = true;
-                    log.debug("📝 Heure de début mise à jour pour l'abonnement horaire sourceId={}: {} -> {}", 
-                            ah.getId(), existant.getHeureDebut(), ah.getHeureDebut());
-                }
-                
-                // Vérifier si l'heure de fin a changé
-                if (ah.getHeureFin() != null && (existant.getHeureFin() == null || !ah.getHeureFin().equals(existant.getHeureFin()))) {
-                    existant.setHeureFin(ah.getHeureFin());
-                    aChange = true;
-                    log.debug("📝 Heure de fin mise à jour pour l'abonnement horaire sourceId={}: {} -> {}", 
-                            ah.getId(), existant.getHeureFin(), ah.getHeureFin());
-                }
-                
-                // Mettre à jour la description
-                String nouvelleDescription = "Abonnement - " + ah.getJourSemaine();
-                if (existant.getDescription() == null || !nouvelleDescription.equals(existant.getDescription())) {
-                    existant.setDescription(nouvelleDescription);
-                    aChange = true;
-                    log.debug("📝 Description mise à jour pour l'abonnement horaire sourceId={}: {} -> {}", 
-                            ah.getId(), existant.getDescription(), nouvelleDescription);
-                }
+            // ✅ RECHERCHE PAR SOURCE SEULEMENT (sans comparer date/heures car elles peuvent changer)
+            IndisponibleHoraire existant = premierSansDoublons(existantsParSource.get(cle), cle, horairesASupprimer);
+            if (existant != null) {
+                boolean aChange = appliquerSource(existant, ah.getDate(), ah.getHeureDebut(), ah.getHeureFin(),
+                        "Abonnement - " + ah.getJourSemaine());
                 
                 // ✅ TOUJOURS AJOUTER À LA LISTE DE MISE À JOUR pour garantir la publication Kafka
-                // Même si aChange est false, on sauvegarde pour s'assurer que tout est synchronisé
                 horairesMisAJour.add(existant);
                 if (aChange) {
                     log.info("✅ Horaire existant modifié pour l'abonnement horaire sourceId={}, UUID={} - événement Kafka 'updated' sera publié", 
                             ah.getId(), existant.getUuid());
-                } else {
-                    log.debug("ℹ️ Horaire existant vérifié pour l'abonnement horaire sourceId={}, UUID={} (aucun changement détecté mais sera sauvegardé)", 
-                            ah.getId(), existant.getUuid());
                 }
                 continue; // Ne pas l'ajouter à la liste de création
             }
             
-            IndisponibleHoraire indispo = IndisponibleHoraire.builder()
+            horairesIndisponibles.add(IndisponibleHoraire.builder()
                     .uuid(UUID.randomUUID()) // Générer un UUID unique
                     .terrain(terrain)
                     .date(ah.getDate())
@@ -322,134 +289,25 @@ public class IndisponibleHoraireService {
                     .typeReservation(TypeReservation.ABONNEMENT)
                     .sourceId(ah.getId())
                     .description("Abonnement - " + ah.getJourSemaine())
-                    .build();
-            horairesIndisponibles.add(indispo);
+                    .build());
         }
         
-        // Supprimer les horaires d'abonnements qui n'ont plus de source
-        List<IndisponibleHoraire> horairesAbonnementASupprimer = horairesExistants.stream()
-                .filter(h -> h.getTypeReservation() == TypeReservation.ABONNEMENT
-                        && (h.getSourceId() == null || !abonnementSourceIdsUtilises.contains(h.getSourceId())))
-                .collect(Collectors.toList());
-        
-        if (!horairesAbonnementASupprimer.isEmpty()) {
-            log.info("Suppression de {} horaires d'abonnements obsolètes", horairesAbonnementASupprimer.size());
-            // Publier les événements de suppression
-            if (horaireEventPublisherService != null) {
-                TerrainService terrainService = terrainServiceRepository.findById(terrainId).orElse(null);
-                Integer proprietaireTelephone = null;
-                if (terrainService != null && terrainService.getProprietaire() != null) {
-                    proprietaireTelephone = terrainService.getProprietaire().getTelephone();
-                }
-                for (IndisponibleHoraire aSupprimer : horairesAbonnementASupprimer) {
-                    if (aSupprimer.getUuid() != null) {
-                        horaireEventPublisherService.publishDeletedEvent(
-                                aSupprimer.getUuid(),
-                                terrainId,
-                                aSupprimer.getDate(),
-                                aSupprimer.getHeureDebut(),
-                                aSupprimer.getHeureFin(),
-                                proprietaireTelephone
-                        );
-                    }
-                }
-            }
-            indisponibleHoraireRepository.deleteAll(horairesAbonnementASupprimer);
-        }
-
-        // ✅ Récupérer toutes les réservations ponctuelles pour ce terrain depuis la base
-        // Utiliser une requête JPQL avec hints agressifs pour forcer la relecture depuis la base
-        entityManager.clear();
-        jakarta.persistence.Query queryReservations = entityManager.createQuery(
-            "SELECT rp FROM ReservationPonctuelle rp " +
-            "WHERE rp.terrain.id = :terrainId",
-            ReservationPonctuelle.class
-        );
-        queryReservations.setParameter("terrainId", terrainId);
-        queryReservations.setHint("jakarta.persistence.cache.retrieveMode", 
-                                  jakarta.persistence.CacheRetrieveMode.BYPASS);
-        queryReservations.setHint("jakarta.persistence.cache.storeMode", 
-                                  jakarta.persistence.CacheStoreMode.BYPASS);
-        queryReservations.setHint("org.hibernate.cacheable", false);
-        @SuppressWarnings("unchecked")
-        List<ReservationPonctuelle> reservations = queryReservations.getResultList();
-        
-        // ✅ DETACH : Détacher toutes les réservations pour forcer la relecture
+        // Créer ou mettre à jour les horaires indisponibles des réservations ponctuelles ("upsert")
         for (ReservationPonctuelle rp : reservations) {
-            entityManager.detach(rp);
-        }
-
-        // Créer les horaires indisponibles pour les réservations ponctuelles
-        // Utiliser une approche "upsert" : mettre à jour si existe, créer si n'existe pas
-        Set<Long> sourceIdsUtilises = new HashSet<>();
-        for (ReservationPonctuelle rp : reservations) {
-            sourceIdsUtilises.add(rp.getId());
-            
-            // ✅ VÉRIFICATION DIRECTE EN BASE : Chercher un horaire existant directement dans la base
-            // pour éviter les doublons même si la méthode est appelée plusieurs fois en parallèle
-            List<IndisponibleHoraire> horairesExistantsPourSource = indisponibleHoraireRepository
-                    .findByTerrainIdAndTypeReservation(terrainId, TypeReservation.RESERVATION_PONCTUELLE)
-                    .stream()
-                    .filter(h -> h.getSourceId() != null && h.getSourceId().equals(rp.getId()))
-                    .collect(Collectors.toList());
+            CleSource cle = new CleSource(TypeReservation.RESERVATION_PONCTUELLE, rp.getId());
+            sourcesUtilisees.add(cle);
             
-            if (!horairesExistantsPourSource.isEmpty()) {
-                // Prendre le premier horaire trouvé (il ne devrait y en avoir qu'un)
-                IndisponibleHoraire existant = horairesExistantsPourSource.get(0);
-                
-                // Si plusieurs horaires existent pour la même source, supprimer les doublons
-                if (horairesExistantsPourSource.size() > 1) {
-                    log.warn("⚠️ {} horaires trouvés pour la réservation sourceId={}, suppression des doublons", 
-                            horairesExistantsPourSource.size(), rp.getId());
-                    // Supprimer tous sauf le premier
-                    for (int i = 1; i < horairesExistantsPourSource.size(); i++) {
-                        IndisponibleHoraire doublon = horairesExistantsPourSource.get(i);
-                        if (horaireEventPublisherService != null && doublon.getUuid() != null) {
-                            TerrainService terrainService = terrainServiceRepository.findById(terrainId).orElse(null);
-                            Integer proprietaireTelephone = null;
-                            if (terrainService != null && terrainService.getProprietaire() != null) {
-                                proprietaireTelephone = terrainService.getProprietaire().getTelephone();
-                            }
-                            horaireEventPublisherService.publishDeletedEvent(
-                                    doublon.getUuid(),
-                                    terrainId,
-                                    doublon.getDate(),
-                                    doublon.getHeureDebut(),
-                                    doublon.getHeureFin(),
-                                    proprietaireTelephone
-                            );
-                        }
-                        indisponibleHoraireRepository.delete(doublon);
-                    }
-                    entityManager.flush();
-                }
-                
-                // Mettre à jour l'horaire existant (garder le même UUID)
-                // Vérifier si quelque chose a vraiment changé
-                boolean aChange = false;
-                if (!rp.getDate().equals(existant.getDate())) {
-                    existant.setDate(rp.getDate());
-                    aChange = true;
-                }
-                if (!rp.getHeureDebut().equals(existant.getHeureDebut())) {
-                    existant.setHeureDebut(rp.getHeureDebut());
-                    aChange = true;
-                }
-                if (!rp.getHeureFin().equals(existant.getHeureFin())) {
-                    existant.setHeureFin(rp.getHeureFin());
-                    aChange = true;
-                }
-                existant.setDescription("Réservation ponctuelle");
-                
-                if (aChange) {
+            IndisponibleHoraire existant = premierSansDoublons(existantsParSource.get(cle), cle, horairesASupprimer);
+            if (existant != null) {
+                // Mettre à jour l'horaire existant (garder le même UUID) seulement s'il a changé
+                if (appliquerSource(existant, rp.getDate(), rp.getHeureDebut(), rp.getHeureFin(), "Réservation ponctuelle")) {
                     horairesMisAJour.add(existant);
                     log.debug("Horaire existant mis à jour pour la réservation ponctuelle ID: {}", rp.getId());
                 }
                 continue; // Ne pas l'ajouter à la liste de création
             }
             
-            // Créer un nouvel horaire seulement si aucun n'existe
-            IndisponibleHoraire indispo = IndisponibleHoraire.builder()
+            horairesIndisponibles.add(IndisponibleHoraire.builder()
                     .uuid(UUID.randomUUID()) // Générer un UUID unique
                     .terrain(terrain)
                     .date(rp.getDate())
@@ -458,160 +316,366 @@ public class IndisponibleHoraireService {
                     .typeReservation(TypeReservation.RESERVATION_PONCTUELLE)
                     .sourceId(rp.getId())
                     .description("Réservation ponctuelle")
-                    .build();
-            horairesIndisponibles.add(indispo);
+                    .build());
         }
         
-        // Supprimer les horaires de réservations ponctuelles qui n'ont plus de source
-        List<IndisponibleHoraire> horairesASupprimer = horairesExistants.stream()
-                .filter(h -> h.getTypeReservation() == TypeReservation.RESERVATION_PONCTUELLE
-                        && (h.getSourceId() == null || !sourceIdsUtilises.contains(h.getSourceId())))
-                .collect(Collectors.toList());
+        // Supprimer les horaires d'abonnements et de réservations qui n'ont plus de source
+        for (IndisponibleHoraire existant : horairesExistants) {
+            TypeReservation type = existant.getTypeReservation();
+            if (type != TypeReservation.ABONNEMENT && type != TypeReservation.RESERVATION_PONCTUELLE) {
+                continue;
+            }
+            if (existant.getSourceId() == null
+                    || !sourcesUtilisees.contains(new CleSource(type, existant.getSourceId()))) {
+                horairesASupprimer.add(existant);
+            }
+        }
         
         if (!horairesASupprimer.isEmpty()) {
-            log.info("Suppression de {} horaires de réservations ponctuelles obsolètes", horairesASupprimer.size());
+            log.info("Suppression de {} horaires indisponibles obsolètes ou en doublon pour le terrain {}", 
+                    horairesASupprimer.size(), terrainId);
             // Publier les événements de suppression
-            if (horaireEventPublisherService != null) {
-                TerrainService terrainService = terrainServiceRepository.findById(terrainId).orElse(null);
-                Integer proprietaireTelephone = null;
-                if (terrainService != null && terrainService.getProprietaire() != null) {
-                    proprietaireTelephone = terrainService.getProprietaire().getTelephone();
-                }
-                for (IndisponibleHoraire aSupprimer : horairesASupprimer) {
-                    if (aSupprimer.getUuid() != null) {
-                        horaireEventPublisherService.publishDeletedEvent(
-                                aSupprimer.getUuid(),
-                                terrainId,
-                                aSupprimer.getDate(),
-                                aSupprimer.getHeureDebut(),
-                                aSupprimer.getHeureFin(),
-                                proprietaireTelephone
-                        );
-                    }
-                }
+            for (IndisponibleHoraire aSupprimer : horairesASupprimer) {
+                publierSuppression(aSupprimer);
             }
             indisponibleHoraireRepository.deleteAll(horairesASupprimer);
+            occupationIndexService.retirer(horairesASupprimer);
+            entityManager.flush();
         }
         
         // ✅ Sauvegarder les horaires mis à jour et publier les événements "updated"
         if (!horairesMisAJour.isEmpty()) {
             List<IndisponibleHoraire> savedUpdated = indisponibleHoraireRepository.saveAll(horairesMisAJour);
             entityManager.flush();
+            occupationIndexService.indexer(savedUpdated);
             
             log.info("✅ {} horaires indisponibles mis à jour pour le terrain {}", savedUpdated.size(), terrainId);
             
             // Publier les événements de mise à jour pour chaque horaire modifié
             if (horaireEventPublisherService != null) {
-                log.info("📤 Publication de {} événements de mise à jour pour les horaires modifiés du terrain {}", 
-                        savedUpdated.size(), terrainId);
-                for (IndisponibleHoraire horaire : savedUpdated) {
-                    log.debug("📤 Publication de l'événement 'updated' pour l'horaire UUID: {}", horaire.getUuid());
-                    horaireEventPublisherService.publishUpdatedEvent(horaire);
-                }
+                horaireEventPublisherService.publishAllUpdated(savedUpdated);
                 log.info("✅ Tous les événements de mise à jour ont été envoyés pour le terrain {}", terrainId);
             } else {
                 log.error("❌ HoraireEventPublisherService est NULL - les événements Kafka ne seront PAS publiés pour le terrain {}", terrainId);
             }
         }
         
-        // ✅ Sauvegarder tous les horaires indisponibles en une seule fois
+        // ✅ Sauvegarder les nouveaux horaires indisponibles
+        // (l'index par source chargé sous verrou garantit qu'ils n'existent pas déjà)
         log.info("🔍 Synchronisation: {} horaires indisponibles à créer pour le terrain {}", 
                 horairesIndisponibles.size(), terrainId);
-        log.info("🔍 HoraireEventPublisherService injecté: {}", horaireEventPublisherService != null);
         
         if (!horairesIndisponibles.isEmpty()) {
-            // ✅ VÉRIFICATION FINALE : Vérifier une dernière fois en base avant de sauvegarder
-            // pour éviter les doublons même en cas d'appels parallèles
-            List<IndisponibleHoraire> horairesACreer = new java.util.ArrayList<>();
-            for (IndisponibleHoraire horaire : horairesIndisponibles) {
-                // Vérifier si un horaire avec le même sourceId existe déjà en base
-                boolean existeDeja = indisponibleHoraireRepository
-                        .findByTerrainIdAndTypeReservation(terrainId, horaire.getTypeReservation())
-                        .stream()
-                        .anyMatch(h -> h.getSourceId() != null && h.getSourceId().equals(horaire.getSourceId()));
-                
-                if (existeDeja) {
-                    log.warn("⚠️ Horaire avec sourceId={} existe déjà en base, ignoré pour éviter le doublon", 
-                            horaire.getSourceId());
-                    continue;
-                }
-                
-                horairesACreer.add(horaire);
-            }
+            // ✅ INSERTION EN MASSE : INSERT multi-lignes par lots, les suppressions/mises à jour
+            // en attente sont écrites avant (flush) ; les violations de contrainte unique
+            // (horaire créé entre-temps par un autre thread) sont ignorées ligne par ligne
+            entityManager.flush();
+            List<IndisponibleHoraire> saved = horaireJdbcRepository.insererIndisponibleHoraires(horairesIndisponibles);
             
-            if (!horairesACreer.isEmpty()) {
-                // ✅ SAUVEGARDE AVEC GESTION D'EXCEPTION : Gérer les violations de contrainte unique
-                List<IndisponibleHoraire> saved = new java.util.ArrayList<>();
-                for (IndisponibleHoraire horaire : horairesACreer) {
-                    try {
-                        IndisponibleHoraire savedHoraire = indisponibleHoraireRepository.save(horaire);
-                        saved.add(savedHoraire);
-                    } catch (org.springframework.dao.DataIntegrityViolationException e) {
-                        // Si violation de contrainte unique (UUID ou autre), l'horaire existe déjà
-                        log.warn("⚠️ Violation de contrainte unique pour l'horaire sourceId={}, UUID={} - probablement créé par un autre thread, ignoré", 
-                                horaire.getSourceId(), horaire.getUuid());
-                        // Vérifier si l'horaire existe vraiment
-                        Optional<IndisponibleHoraire> existing = indisponibleHoraireRepository
-                                .findByTerrainIdAndTypeReservation(terrainId, horaire.getTypeReservation())
-                                .stream()
-                                .filter(h -> h.getSourceId() != null && h.getSourceId().equals(horaire.getSourceId()))
-                                .findFirst();
-                        if (existing.isPresent()) {
-                            log.info("✅ Horaire existant trouvé pour sourceId={}, UUID={}", 
-                                    horaire.getSourceId(), existing.get().getUuid());
-                        }
-                    } catch (Exception e) {
-                        log.error("❌ Erreur lors de la sauvegarde de l'horaire sourceId={}: {}", 
-                                horaire.getSourceId(), e.getMessage(), e);
-                    }
-                }
+            if (!saved.isEmpty()) {
+                occupationIndexService.indexer(saved);
+                
+                log.info("✅ {} horaires indisponibles sauvegardés pour le terrain {}", saved.size(), terrainId);
                 
-                // ✅ FLUSH : Forcer l'écriture en base pour garantir la persistance
-                if (!saved.isEmpty()) {
-                    entityManager.flush();
-                    
-                    log.info("✅ {} horaires indisponibles sauvegardés pour le terrain {}", saved.size(), terrainId);
-                    
-                    // Publier les événements de création pour chaque horaire
-                    if (horaireEventPublisherService != null) {
-                        log.info("📤 Publication de {} événements de création pour les nouveaux horaires du terrain {}", 
-                                saved.size(), terrainId);
-                        for (IndisponibleHoraire horaire : saved) {
-                            log.debug("📤 Publication de l'événement pour l'horaire UUID: {}", horaire.getUuid());
-                            horaireEventPublisherService.publishCreatedEvent(horaire);
-                        }
-                        log.info("✅ Tous les événements de création ont été envoyés pour le terrain {}", terrainId);
-                    } else {
-                        log.error("❌ HoraireEventPublisherService est NULL - les événements Kafka ne seront PAS publiés pour le terrain {}", terrainId);
-                    }
+                // Publier les événements de création pour chaque horaire
+                if (horaireEventPublisherService != null) {
+                    horaireEventPublisherService.publishAllCreated(saved);
+                    log.info("✅ Tous les événements de création ont été envoyés pour le terrain {}", terrainId);
                 } else {
-                    log.info("ℹ️ Aucun nouvel horaire sauvegardé (tous existaient déjà ou ont échoué) pour le terrain {}", terrainId);
+                    log.error("❌ HoraireEventPublisherService est NULL - les événements Kafka ne seront PAS publiés pour le terrain {}", terrainId);
                 }
             } else {
-                log.info("ℹ️ Tous les horaires existaient déjà en base, aucun nouveau à créer pour le terrain {}", terrainId);
+                log.info("ℹ️ Aucun nouvel horaire sauvegardé (tous existaient déjà ou ont échoué) pour le terrain {}", terrainId);
             }
         } else {
             log.info("ℹ️ Aucun nouvel horaire indisponible à créer pour le terrain {}", terrainId);
         }
 
-        // ✅ Une fois la synchro Spring terminée, appeler Django pour qu'il se mette à jour
+        // ✅ Une fois la synchro Spring commitée, appeler Django pour qu'il se mette à jour
+        notifierDjangoApresCommit(terrainId);
+    }
+
+    /**
+     * Django relit les horaires via l'API : il n'est notifié qu'une fois la transaction commitée
+     */
+    private void notifierDjangoApresCommit(Long terrainId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifierDjango(terrainId);
+                }
+            });
+        } else {
+            notifierDjango(terrainId);
+        }
+    }
+
+    private void notifierDjango(Long terrainId) {
         try {
             djangoSyncService.notifierDjangoSynchronisation(terrainId);
         } catch (Exception e) {
-            // On log mais on ne fait pas échouer la transaction de synchro interne
+            // On log mais on ne fait pas échouer la synchro interne
             // (la synchro Django est "best effort")
-            System.err.println("Erreur lors de l'appel à Django après synchronisation des horaires : " + e.getMessage());
+            log.warn("⚠️ Erreur lors de l'appel à Django après synchronisation des horaires du terrain {} : {}",
+                    terrainId, e.getMessage());
         }
     }
 
+    /**
+     * Retourne le premier horaire existant d'une source ; les suivants (doublons) sont ajoutés
+     * à la liste des horaires à supprimer
+     */
+    private IndisponibleHoraire premierSansDoublons(List<IndisponibleHoraire> existants, CleSource cle,
+                                                   List<IndisponibleHoraire> horairesASupprimer) {
+        if (existants == null || existants.isEmpty()) {
+            return null;
+        }
+        if (existants.size() > 1) {
+            log.warn("⚠️ {} horaires trouvés pour la source {} sourceId={}, suppression des doublons", 
+                    existants.size(), cle.typeReservation(), cle.sourceId());
+            horairesASupprimer.addAll(existants.subList(1, existants.size()));
+        }
+        return existants.get(0);
+    }
+    
+    /**
+     * Recopie la date, les heures et la description de la source dans l'horaire existant
+     * 
+     * @return true si au moins un champ a changé
+     */
+    private boolean appliquerSource(IndisponibleHoraire existant, LocalDate date,
+                                    java.time.LocalTime heureDebut, java.time.LocalTime heureFin, String description) {
+        boolean aChange = false;
+        if (date != null && !date.equals(existant.getDate())) {
+            existant.setDate(date);
+            aChange = true;
+        }
+        if (heureDebut != null && !heureDebut.equals(existant.getHeureDebut())) {
+            existant.setHeureDebut(heureDebut);
+            aChange = true;
+        }
+        if (heureFin != null && !heureFin.equals(existant.getHeureFin())) {
+            existant.setHeureFin(heureFin);
+            aChange = true;
+        }
+        if (!description.equals(existant.getDescription())) {
+            existant.setDescription(description);
+            aChange = true;
+        }
+        return aChange;
+    }
+
+    // ======== SYNCHRONISATION INCRÉMENTALE ========
+    
+    /**
+     * Source d'un horaire indisponible (AbonnementHoraire ou ReservationPonctuelle)
+     */
+    private record SourceHoraire(Long id, TerrainService terrain, LocalDate date,
+                                 java.time.LocalTime heureDebut, java.time.LocalTime heureFin, String description) {}
+    
+    /**
+     * Synchronise uniquement les horaires indisponibles des sources modifiées
+     * (au lieu de réconcilier tout l'historique du terrain).
+     * 
+     * Pour chaque sourceId :
+     * - source supprimée : l'horaire indisponible est supprimé
+     * - source existante : l'horaire indisponible est créé ou mis à jour (même UUID)
+     * 
+     * ✅ Le coût dépend de la taille du changement, pas de l'historique du terrain
+     * ✅ VERROU : même verrou par terrainId que la synchronisation complète (libéré après le commit)
+     * 
+     * @param sourceIds IDs des sources modifiées (null = synchronisation complète du terrain)
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void synchroniserSources(Long terrainId, TypeReservation typeReservation, Set<Long> sourceIds) {
+        if (sourceIds == null) {
+            synchroniserHorairesIndisponibles(terrainId);
+            return;
+        }
+        if (sourceIds.isEmpty()) {
+            return;
+        }
+        
+        Lock lock = getTerrainLock(terrainId);
+        lock.lock();
+        boolean differe = false;
+        try {
+            differe = libererApresTransaction(lock);
+            synchroniserSourcesInternal(terrainId, typeReservation, sourceIds);
+        } finally {
+            if (!differe) {
+                lock.unlock();
+            }
+        }
+    }
+    
+    private void synchroniserSourcesInternal(Long terrainId, TypeReservation typeReservation, Set<Long> sourceIds) {
+        // Sources encore présentes en base (les absentes ont été supprimées)
+        java.util.Map<Long, SourceHoraire> sources = new java.util.HashMap<>();
+        if (typeReservation == TypeReservation.ABONNEMENT) {
+            for (AbonnementHoraire ah : abonnementHoraireRepository.findAllById(sourceIds)) {
+                TerrainService terrainSource = ah.getAbonnement() != null ? ah.getAbonnement().getTerrain() : null;
+                sources.put(ah.getId(), new SourceHoraire(ah.getId(), terrainSource, ah.getDate(),
+                        ah.getHeureDebut(), ah.getHeureFin(), "Abonnement - " + ah.getJourSemaine()));
+            }
+        } else {
+            for (ReservationPonctuelle rp : reservationPonctuelleRepository.findAllById(sourceIds)) {
+                sources.put(rp.getId(), new SourceHoraire(rp.getId(), rp.getTerrain(), rp.getDate(),
+                        rp.getHeureDebut(), rp.getHeureFin(), "Réservation ponctuelle"));
+            }
+        }
+        
+        // Horaires indisponibles existants de ces sources (tous terrains, pour suivre un changement de terrain)
+        java.util.Map<Long, List<IndisponibleHoraire>> existantsParSource = indisponibleHoraireRepository
+                .findByTypeReservationAndSourceIdIn(typeReservation, sourceIds)
+                .stream()
+                .collect(Collectors.groupingBy(IndisponibleHoraire::getSourceId));
+        
+        List<IndisponibleHoraire> aSupprimer = new java.util.ArrayList<>();
+        List<IndisponibleHoraire> aMettreAJour = new java.util.ArrayList<>();
+        List<IndisponibleHoraire> aCreer = new java.util.ArrayList<>();
+        
+        for (Long sourceId : sourceIds) {
+            SourceHoraire source = sources.get(sourceId);
+            List<IndisponibleHoraire> existants = existantsParSource.getOrDefault(sourceId, List.of());
+            
+            if (source == null || source.terrain() == null) {
+                // Source supprimée : supprimer ses horaires indisponibles
+                aSupprimer.addAll(existants);
+                continue;
+            }
+            
+            if (existants.isEmpty()) {
+                aCreer.add(IndisponibleHoraire.builder()
+                        .uuid(UUID.randomUUID()) // Générer un UUID unique
+                        .terrain(source.terrain())
+                        .date(source.date())
+                        .heureDebut(source.heureDebut())
+                        .heureFin(source.heureFin())
+                        .typeReservation(typeReservation)
+                        .sourceId(sourceId)
+                        .description(source.description())
+                        .build());
+                continue;
+            }
+            
+            // Si plusieurs horaires existent pour la même source, supprimer les doublons
+            if (existants.size() > 1) {
+                log.warn("⚠️ {} horaires trouvés pour la source {} sourceId={}, suppression des doublons",
+                        existants.size(), typeReservation, sourceId);
+                aSupprimer.addAll(existants.subList(1, existants.size()));
+            }
+            
+            // Mettre à jour l'horaire existant (garder le même UUID) seulement s'il a changé
+            IndisponibleHoraire existant = existants.get(0);
+            boolean aChange = false;
+            if (existant.getTerrain() == null || !source.terrain().getId().equals(existant.getTerrain().getId())) {
+                existant.setTerrain(source.terrain());
+                aChange = true;
+            }
+            if (!java.util.Objects.equals(source.date(), existant.getDate())) {
+                existant.setDate(source.date());
+                aChange = true;
+            }
+            if (!java.util.Objects.equals(source.heureDebut(), existant.getHeureDebut())) {
+                existant.setHeureDebut(source.heureDebut());
+                aChange = true;
+            }
+            if (!java.util.Objects.equals(source.heureFin(), existant.getHeureFin())) {
+                existant.setHeureFin(source.heureFin());
+                aChange = true;
+            }
+            if (!source.description().equals(existant.getDescription())) {
+                existant.setDescription(source.description());
+                aChange = true;
+            }
+            if (aChange) {
+                aMettreAJour.add(existant);
+            }
+        }
+        
+        if (aSupprimer.isEmpty() && aMettreAJour.isEmpty() && aCreer.isEmpty()) {
+            log.debug("ℹ️ Synchronisation incrémentale du terrain {} : aucun changement pour {} sources {}",
+                    terrainId, sourceIds.size(), typeReservation);
+            return;
+        }
+        
+        // Suppressions
+        if (!aSupprimer.isEmpty()) {
+            for (IndisponibleHoraire horaire : aSupprimer) {
+                publierSuppression(horaire);
+            }
+            indisponibleHoraireRepository.deleteAll(aSupprimer);
+            occupationIndexService.retirer(aSupprimer);
+        }
+        
+        // Mises à jour
+        if (!aMettreAJour.isEmpty()) {
+            List<IndisponibleHoraire> savedUpdated = indisponibleHoraireRepository.saveAll(aMettreAJour);
+            entityManager.flush();
+            occupationIndexService.indexer(savedUpdated);
+            if (horaireEventPublisherService != null) {
+                horaireEventPublisherService.publishAllUpdated(savedUpdated);
+            }
+        }
+        
+        // Créations (insertion en masse, doublons concurrents ignorés)
+        List<IndisponibleHoraire> saved = List.of();
+        if (!aCreer.isEmpty()) {
+            entityManager.flush();
+            saved = horaireJdbcRepository.insererIndisponibleHoraires(aCreer);
+        }
+        if (!saved.isEmpty()) {
+            occupationIndexService.indexer(saved);
+            if (horaireEventPublisherService != null) {
+                horaireEventPublisherService.publishAllCreated(saved);
+            }
+        }
+        
+        log.info("✅ Synchronisation incrémentale du terrain {} ({}) : {} créés, {} mis à jour, {} supprimés",
+                terrainId, typeReservation, saved.size(), aMettreAJour.size(), aSupprimer.size());
+        
+        // ✅ Une fois la synchro Spring commitée, appeler Django pour qu'il se mette à jour
+        notifierDjangoApresCommit(terrainId);
+    }
+    
+    /**
+     * Publie l'événement Kafka de suppression d'un horaire indisponible
+     */
+    private void publierSuppression(IndisponibleHoraire horaire) {
+        if (horaireEventPublisherService == null || horaire.getUuid() == null) {
+            return;
+        }
+        Integer proprietaireTelephone = null;
+        if (horaire.getTerrain() != null && horaire.getTerrain().getProprietaire() != null) {
+            proprietaireTelephone = horaire.getTerrain().getProprietaire().getTelephone();
+        }
+        horaireEventPublisherService.publishDeletedEvent(
+                horaire.getUuid(),
+                horaire.getTerrain() != null ? horaire.getTerrain().getId() : null,
+                horaire.getDate(),
+                horaire.getHeureDebut(),
+                horaire.getHeureFin(),
+                proprietaireTelephone
+        );
+    }
+
     /**
      * Synchronise les horaires indisponibles de TOUS les terrains
+     *
+     * ✅ Une transaction par terrain (comme synchroniserHorairesIndisponibles en REQUIRES_NEW) :
+     * chaque terrain est commité, et son verrou libéré, avant de passer au suivant.
+     * Un terrain en échec est annulé seul et n'empêche pas la synchronisation des autres.
      */
-    @Transactional
     public void synchroniserTousLesTerrains() {
         List<TerrainService> terrains = terrainServiceRepository.findAll();
         for (TerrainService terrain : terrains) {
-            synchroniserHorairesIndisponibles(terrain.getId());
+            try {
+                transactionTemplate.executeWithoutResult(status -> synchroniserHorairesIndisponibles(terrain.getId()));
+            } catch (RuntimeException e) {
+                log.error("❌ Échec de la synchronisation du terrain {} : {}", terrain.getId(), e.getMessage(), e);
+            }
         }
     }
 
@@ -620,11 +684,6 @@ public class IndisponibleHoraireService {
      */
     @Transactional
     public IndisponibleHoraireDTO ajouterHoraireIndisponible(IndisponibleHoraireDTO dto) {
-        // ✅ VALIDATION : Vérifier que Kafka est disponible avant de créer un horaire potentiel
-        if (!kafkaAvailabilityService.isKafkaAvailable()) {
-            throw new IllegalStateException("Impossible de créer un horaire potentiel : Kafka n'est pas démarré ou n'est pas disponible. Veuillez démarrer Kafka avant de créer un horaire.");
-        }
-        
         TerrainService terrain = terrainServiceRepository.findById(dto.terrainId())
                 .orElseThrow(() -> new IllegalArgumentException("Terrain non trouvé"));
 
@@ -643,6 +702,7 @@ public class IndisponibleHoraireService {
                 .build();
 
         IndisponibleHoraire saved = indisponibleHoraireRepository.save(horaire);
+        occupationIndexService.indexer(saved);
         
         // Publier l'événement de création
         if (horaireEventPublisherService != null) {
@@ -689,6 +749,7 @@ public class IndisponibleHoraireService {
         }
 
         IndisponibleHoraire saved = indisponibleHoraireRepository.save(horaire);
+        occupationIndexService.indexer(saved);
         
         // Publier l'événement de mise à jour
         if (horaireEventPublisherService != null) {
@@ -720,6 +781,7 @@ public class IndisponibleHoraireService {
         }
         
         indisponibleHoraireRepository.deleteById(id);
+        occupationIndexService.retirer(id);
         
         // Publier l'événement de suppression
         if (uuid != null && horaireEventPublisherService != null) {
@@ -733,66 +795,4 @@ public class IndisponibleHoraireService {
             );
         }
     }
-    
-    // ======== EVENT LISTENERS ========
-    
-    /**
-     * ✅ Écoute l'événement de modification/suppression d'abonnement APRÈS le commit
-     * pour déclencher la synchronisation des horaires indisponibles.
-     * 
-     * Cet événement est déclenché lors de :
-     * - Création d'un abonnement
-     * - Modification d'un abonnement (dates, horaires)
-     * - Suppression d'un abonnement
-     * - Modification/suppression d'un horaire d'abonnement
-     * 
-     * ✅ Utilise REQUIRES_NEW pour s'exécuter dans une nouvelle transaction après le commit
-     * ✅ PUBLIE LES ÉVÉNEMENTS KAFKA : Les horaires mis à jour publieront des événements "updated" sur Kafka
-     */
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void onAbonnementModifie(AbonnementModifieEvent event) {
-        log.info("📨 Événement AbonnementModifieEvent reçu pour le terrain {} - Déclenchement de la synchronisation avec publication Kafka",
-                event.terrainId());
-        synchroniserHorairesIndisponibles(event.terrainId());
-        log.info("✅ Synchronisation terminée pour le terrain {} - Les événements Kafka (created/updated/deleted) ont été publiés",
-                event.terrainId());
-    }
-    
-    /**
-     * ✅ Écoute l'événement de modification/suppression de réservation APRÈS le commit
-     * pour déclencher la synchronisation des horaires indisponibles.
-     * 
-     * Cet événement est déclenché lors de :
-     * - Création d'une réservation ponctuelle
-     * - Modification d'une réservation ponctuelle
-     * - Suppression d'une réservation ponctuelle
-     * 
-     * ✅ Utilise REQUIRES_NEW pour s'exécuter dans une nouvelle transaction après le commit
-     */
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void onReservationModifie(ReservationModifieEvent event) {
-        log.info("📨 Événement ReservationModifieEvent reçu pour le terrain {} - Déclenchement de la synchronisation", 
-                event.terrainId());
-        synchroniserHorairesIndisponibles(event.terrainId());
-        log.info("✅ Synchronisation terminée pour le terrain {} - Les événements Kafka devraient être publiés", 
-                event.terrainId());
-    }
-    
-    /**
-     * ✅ Écoute l'événement de modification/ajout d'un horaire d'abonnement APRÈS le commit
-     * pour déclencher la synchronisation des horaires indisponibles.
-     * 
-     * Cet événement est déclenché lors de :
-     * - Ajout d'un horaire d'abonnement
-     * - Modification d'un horaire d'abonnement
-     * 
-     * ✅ Utilise REQUIRES_NEW pour s'exécuter dans une nouvelle transaction après le commit
-     */
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void onAbonnementHoraireChange(AbonnementHoraireChangeEvent event) {
-        synchroniserHorairesIndisponibles(event.terrainId());
-    }
 }
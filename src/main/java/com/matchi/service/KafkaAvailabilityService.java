@@ -1,116 +1,155 @@
 package com.matchi.service;
 
+import com.matchi.dto.KafkaSanteDTO;
+import com.matchi.event.KafkaEtatChangeEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.DescribeClusterOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Service pour vérifier si Kafka est disponible et démarré
+ *
+ * ✅ SURVEILLANCE EN ARRIÈRE-PLAN : le broker est sondé périodiquement
+ * (horaire.kafka.sante.intervalle-ms) et l'état est conservé dans un champ atomique.
+ * isKafkaAvailable() ne fait plus aucun appel réseau : elle lit l'état courant.
+ * ✅ Un KafkaEtatChangeEvent est publié à chaque changement d'état (disponible <-> indisponible)
  */
 @Service
 public class KafkaAvailabilityService {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaAvailabilityService.class);
 
+    /**
+     * État courant du broker, remplacé atomiquement à chaque sonde
+     */
+    private record Etat(boolean disponible, String detail, LocalDateTime derniereVerification,
+                        LocalDateTime dernierChangement) {}
+
     @Autowired(required = false)
     private ApplicationContext applicationContext;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.kafka.bootstrap-servers:187.124.35.219:9092}")
+    private String bootstrapServers;
+
+    @Value("${horaire.kafka.sante.timeout-ms:3000}")
+    private int timeoutMs;
+
+    private final AtomicReference<Etat> etat = new AtomicReference<>(
+            new Etat(false, "Aucune vérification effectuée", null, null));
+
+    private volatile AdminClient adminClient;
+
+    @PostConstruct
+    public void init() {
+        // Première sonde au démarrage pour que l'état soit connu avant les premières requêtes
+        verifier();
+    }
+
+    @PreDestroy
+    public void fermer() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
     /**
-     * Vérifie si Kafka est disponible en vérifiant si le bean kafkaTemplate existe
-     * ET si on peut réellement se connecter au broker Kafka
-     * @return true si Kafka est disponible et accessible, false sinon
+     * Vérifie si Kafka est disponible (lecture de l'état maintenu par la sonde périodique)
+     * @return true si Kafka était disponible et accessible lors de la dernière vérification
      */
     public boolean isKafkaAvailable() {
-        if (applicationContext == null) {
-            log.warn("⚠️ ApplicationContext non disponible - Kafka considéré comme non disponible");
-            return false;
-        }
+        return etat.get().disponible();
+    }
 
-        try {
-            // Vérifier si le bean kafkaTemplate existe
-            if (!applicationContext.containsBean("kafkaTemplate")) {
-                log.warn("⚠️ Kafka n'est pas disponible - kafkaTemplate bean non trouvé");
-                return false;
-            }
-            
-            Object kafkaTemplate = applicationContext.getBean("kafkaTemplate");
-            if (kafkaTemplate == null) {
-                log.warn("⚠️ Kafka n'est pas disponible - kafkaTemplate est null");
-                return false;
-            }
-            
-            // ✅ VÉRIFICATION RÉELLE : Tester si on peut réellement se connecter au broker Kafka
-            // En utilisant la réflexion pour tester une opération qui nécessite une connexion
+    /**
+     * État de santé de Kafka pour l'endpoint de supervision
+     */
+    public KafkaSanteDTO getSante() {
+        Etat courant = etat.get();
+        return new KafkaSanteDTO(courant.disponible(), courant.detail(),
+                courant.derniereVerification(), courant.dernierChangement());
+    }
+
+    /**
+     * Sonde le broker : le bean kafkaTemplate doit exister ET le cluster doit répondre
+     * à une requête describeCluster dans le délai imparti
+     */
+    @Scheduled(fixedDelayString = "${horaire.kafka.sante.intervalle-ms:5000}")
+    public void verifier() {
+        boolean disponible;
+        String detail;
+        if (applicationContext == null || !applicationContext.containsBean("kafkaTemplate")) {
+            disponible = false;
+            detail = "kafkaTemplate bean non trouvé";
+        } else {
             try {
-                java.lang.reflect.Method[] methods = kafkaTemplate.getClass().getMethods();
-                
-                // ✅ TEST DE CONNEXION : Essayer d'obtenir les partitions d'un topic
-                // Cette opération nécessite une connexion au broker Kafka
-                // Si Kafka n'est pas démarré, cette opération échouera avec une erreur de connexion
-                java.lang.reflect.Method partitionsForMethod = null;
-                for (java.lang.reflect.Method method : methods) {
-                    if ("partitionsFor".equals(method.getName()) && method.getParameterCount() == 1) {
-                        partitionsForMethod = method;
-                        break;
-                    }
-                }
-                
-                if (partitionsForMethod != null) {
-                    try {
-                        // Cette opération nécessite une connexion au broker Kafka
-                        // Si Kafka n'est pas démarré, cela lèvera une exception de connexion
-                        partitionsForMethod.invoke(kafkaTemplate, "__kafka_availability_test_topic__");
-                        log.debug("✅ Kafka est disponible et accessible - connexion au broker réussie");
-                        return true;
-                    } catch (java.lang.reflect.InvocationTargetException e) {
-                        Throwable cause = e.getCause();
-                        if (cause != null) {
-                            String causeMessage = cause.getMessage();
-                            String causeClassName = cause.getClass().getName();
-                            
-                            // Si c'est une erreur de connexion, Kafka n'est pas disponible
-                            if (causeMessage != null && (
-                                causeMessage.contains("Connection refused") ||
-                                causeMessage.contains("Unable to connect") ||
-                                causeMessage.contains("Broker may not be available") ||
-                                causeMessage.contains("Timeout") ||
-                                causeMessage.contains("NetworkException") ||
-                                causeMessage.contains("java.net.ConnectException") ||
-                                causeMessage.contains("org.apache.kafka.common.errors.TimeoutException")
-                            ) || causeClassName.contains("ConnectException") ||
-                               causeClassName.contains("TimeoutException") ||
-                               causeClassName.contains("NetworkException")) {
-                                log.warn("⚠️ Kafka n'est pas disponible - impossible de se connecter au broker: {} ({})", 
-                                        causeMessage != null ? causeMessage : causeClassName, causeClassName);
-                                return false;
-                            }
-                        }
-                        // Si c'est une autre erreur (comme topic inexistant), c'est OK, Kafka est accessible
-                        log.debug("✅ Kafka est accessible (erreur attendue pour topic de test): {}", 
-                                cause != null ? cause.getMessage() : e.getMessage());
-                        return true;
-                    }
-                } else {
-                    // Si la méthode partitionsFor n'existe pas, on ne peut pas tester la connexion
-                    // Par sécurité, on considère que Kafka n'est pas disponible
-                    log.warn("⚠️ Kafka n'est pas disponible - impossible de tester la connexion (méthode partitionsFor non trouvée)");
-                    return false;
-                }
-                
+                int noeuds = getAdminClient()
+                        .describeCluster(new DescribeClusterOptions().timeoutMs(timeoutMs))
+                        .nodes()
+                        .get(timeoutMs, TimeUnit.MILLISECONDS)
+                        .size();
+                disponible = noeuds > 0;
+                detail = disponible ? noeuds + " broker(s) accessible(s)" : "Aucun broker dans le cluster";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
-                // Si on ne peut pas tester la connexion, on considère que Kafka n'est pas disponible
-                log.warn("⚠️ Impossible de tester la connexion Kafka: {}", e.getMessage());
-                return false;
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                disponible = false;
+                detail = "Impossible de se connecter au broker: " + cause.getClass().getSimpleName()
+                        + (cause.getMessage() != null ? " - " + cause.getMessage() : "");
+            }
+        }
+        mettreAJour(disponible, detail);
+    }
+
+    private void mettreAJour(boolean disponible, String detail) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Etat precedent = etat.getAndUpdate(courant -> new Etat(disponible, detail, maintenant,
+                courant.disponible() != disponible || courant.derniereVerification() == null
+                        ? maintenant : courant.dernierChangement()));
+
+        if (precedent.derniereVerification() != null && precedent.disponible() == disponible) {
+            return;
+        }
+        if (disponible) {
+            log.info("✅ Kafka est disponible : {}", detail);
+        } else {
+            log.warn("⚠️ Kafka n'est pas disponible : {}", detail);
+        }
+        eventPublisher.publishEvent(new KafkaEtatChangeEvent(disponible, detail));
+    }
+
+    private AdminClient getAdminClient() {
+        if (adminClient == null) {
+            synchronized (this) {
+                if (adminClient == null) {
+                    Map<String, Object> configs = new HashMap<>();
+                    configs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+                    configs.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, timeoutMs);
+                    configs.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, timeoutMs);
+                    adminClient = AdminClient.create(configs);
+                }
             }
-            
-        } catch (org.springframework.beans.factory.NoSuchBeanDefinitionException e) {
-            log.warn("⚠️ Kafka n'est pas disponible - kafkaTemplate bean non défini");
-            return false;
-        } catch (Exception e) {
-            log.error("❌ Erreur lors de la vérification de la disponibilité de Kafka: {}", e.getMessage());
-            return false;
         }
+        return adminClient;
     }
 }
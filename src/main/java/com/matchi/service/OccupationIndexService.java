@@ -0,0 +1,494 @@
+package com.matchi.service;
+
+import com.matchi.dto.CreneauLibreDTO;
+import com.matchi.dto.HoraireOccupeDTO;
+import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.TerrainService;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Index en mémoire de l'occupation des terrains.
+ *
+ * Pour chaque couple (terrain, date), l'occupation est représentée par un bitmap
+ * de 96 bits (un bit par créneau de 15 minutes). Les créneaux libres sont ainsi
+ * calculés sans interroger la table indisponible_horaire. L'index conserve aussi les horaires
+ * eux-mêmes, pour servir la liste des horaires occupés interrogée en continu par les tableaux de bord.
+ *
+ * ✅ Chargement paresseux : un terrain est chargé depuis la base à la première requête,
+ *    hors de tout verrou de la map (une mise à jour concurrente fait simplement ignorer le chargement)
+ * ✅ Mise à jour : IndisponibleHoraireService (et le listener Django) notifient chaque
+ *    sauvegarde/suppression, appliquée après le commit de la transaction
+ * ✅ Abonnements : les occurrences au-delà de l'horizon de matérialisation (sans horaire
+ *    indisponible) sont dépliées depuis leur règle à chaque requête, sans être indexées
+ * ✅ Seules les dates à partir d'hier sont indexées : les jours passés sont purgés chaque nuit
+ */
+@Service
+@RequiredArgsConstructor
+public class OccupationIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupationIndexService.class);
+
+    /** Durée d'un créneau de l'index (en minutes) */
+    static final int DUREE_CRENEAU_MINUTES = 15;
+    /** Nombre de créneaux dans une journée */
+    static final int CRENEAUX_PAR_JOUR = 24 * 60 / DUREE_CRENEAU_MINUTES;
+
+    private final IndisponibleHoraireRepository indisponibleHoraireRepository;
+    private final TerrainServiceRepository terrainServiceRepository;
+    private final AbonnementRecurrenceService abonnementRecurrenceService;
+
+    @Value("${horaire.index.periode-max-jours:62}")
+    private int periodeMaxJours;
+
+    // Occupation par terrain (uniquement pour les terrains déjà chargés)
+    private final ConcurrentHashMap<Long, OccupationTerrain> terrains = new ConcurrentHashMap<>();
+    // Terrain de rattachement de chaque horaire indexé (pour gérer un changement de terrain)
+    private final ConcurrentHashMap<Long, Long> terrainParHoraire = new ConcurrentHashMap<>();
+    // Nombre de modifications appliquées par terrain (détecte une mise à jour pendant un chargement)
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+
+    // ======== MISES À JOUR ========
+
+    /**
+     * Indexe (ou ré-indexe) un horaire indisponible sauvegardé.
+     * Appliqué après le commit si une transaction est active.
+     */
+    public void indexer(IndisponibleHoraire horaire) {
+        if (horaire == null || horaire.getId() == null) {
+            return;
+        }
+        Long horaireId = horaire.getId();
+        Long terrainId = horaire.getTerrain() != null ? horaire.getTerrain().getId() : null;
+        LocalDate date = horaire.getDate();
+        LocalTime heureDebut = horaire.getHeureDebut();
+        LocalTime heureFin = horaire.getHeureFin();
+        apresCommit(() -> {
+            retirerInterne(horaireId);
+            if (terrainId == null) {
+                return;
+            }
+            terrainParHoraire.put(horaireId, terrainId);
+            modifier(terrainId, occupation -> occupation.ajouter(horaireId, date, heureDebut, heureFin));
+        });
+    }
+
+    /**
+     * Indexe une liste d'horaires indisponibles sauvegardés
+     */
+    public void indexer(List<IndisponibleHoraire> horaires) {
+        for (IndisponibleHoraire horaire : horaires) {
+            indexer(horaire);
+        }
+    }
+
+    /**
+     * Retire un horaire indisponible supprimé de l'index.
+     * Appliqué après le commit si une transaction est active.
+     */
+    public void retirer(Long horaireId) {
+        if (horaireId == null) {
+            return;
+        }
+        apresCommit(() -> retirerInterne(horaireId));
+    }
+
+    /**
+     * Retire une liste d'horaires indisponibles supprimés de l'index
+     */
+    public void retirer(List<IndisponibleHoraire> horaires) {
+        for (IndisponibleHoraire horaire : horaires) {
+            retirer(horaire.getId());
+        }
+    }
+
+    /**
+     * Oublie l'occupation d'un terrain : elle sera rechargée depuis la base
+     * à la prochaine requête (ex : modification des heures d'ouverture).
+     */
+    public void invalider(Long terrainId) {
+        if (terrainId == null) {
+            return;
+        }
+        apresCommit(() -> {
+            terrains.compute(terrainId, (id, occupation) -> {
+                versions.merge(id, 1L, Long::sum);
+                return null;
+            });
+            terrainParHoraire.values().removeIf(terrainId::equals);
+        });
+    }
+
+    private void retirerInterne(Long horaireId) {
+        Long ancienTerrainId = terrainParHoraire.remove(horaireId);
+        if (ancienTerrainId != null) {
+            modifier(ancienTerrainId, occupation -> occupation.retirer(horaireId));
+        }
+    }
+
+    /**
+     * Applique une modification à l'occupation d'un terrain chargé et compte la modification
+     * (même si le terrain n'est pas chargé : un chargement en cours ne sera pas conservé)
+     */
+    private void modifier(Long terrainId, Consumer<OccupationTerrain> modification) {
+        terrains.compute(terrainId, (id, occupation) -> {
+            versions.merge(id, 1L, Long::sum);
+            if (occupation != null) {
+                modification.accept(occupation);
+            }
+            return occupation;
+        });
+    }
+
+    /**
+     * Purge chaque nuit les horaires des jours passés (hier reste indexé : ses créneaux
+     * peuvent déborder après minuit sur aujourd'hui)
+     */
+    @Scheduled(cron = "${horaire.index.purge-cron:0 5 0 * * *}")
+    public void purgerJoursPasses() {
+        LocalDate limite = LocalDate.now().minusDays(1);
+        int nombre = 0;
+        for (Long terrainId : terrains.keySet()) {
+            List<Long> purges = new ArrayList<>();
+            terrains.computeIfPresent(terrainId, (id, occupation) -> {
+                purges.addAll(occupation.purgerAvant(limite));
+                return occupation;
+            });
+            purges.forEach(horaireId -> terrainParHoraire.remove(horaireId, terrainId));
+            nombre += purges.size();
+        }
+        if (nombre > 0) {
+            log.info("✅ Index d'occupation : {} horaires antérieurs au {} purgés", nombre, limite);
+        }
+    }
+
+    private void apresCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // ======== REQUÊTES ========
+
+    /**
+     * Retourne les créneaux libres d'un terrain entre deux dates (incluses),
+     * dans la limite des heures d'ouverture du terrain.
+     *
+     * Un créneau libre dont l'heure de fin est inférieure à l'heure de début
+     * se termine le lendemain (terrain fermant après minuit).
+     */
+    public List<CreneauLibreDTO> getCreneauxLibres(Long terrainId, LocalDate dateDebut, LocalDate dateFin) {
+        if (dateDebut == null || dateFin == null || dateFin.isBefore(dateDebut)) {
+            throw new IllegalArgumentException("La période demandée est invalide");
+        }
+        // Les jours passés ne sont pas indexés : la période commence au plus tôt aujourd'hui
+        LocalDate aujourdhui = LocalDate.now();
+        if (dateFin.isBefore(aujourdhui)) {
+            return List.of();
+        }
+        if (dateDebut.isBefore(aujourdhui)) {
+            dateDebut = aujourdhui;
+        }
+        if (ChronoUnit.DAYS.between(dateDebut, dateFin) >= periodeMaxJours) {
+            throw new IllegalArgumentException("La période demandée ne peut pas dépasser " + periodeMaxJours + " jours");
+        }
+
+        OccupationTerrain occupation = occupation(terrainId);
+
+        // Occurrences d'abonnement non matérialisées (la veille déborde après minuit, le dernier jour sur le lendemain)
+        Map<LocalDate, long[]> recurrences = new HashMap<>();
+        for (AbonnementRecurrenceService.Occurrence occurrence : abonnementRecurrenceService
+                .getOccurrencesNonMaterialisees(terrainId, dateDebut.minusDays(1), dateFin.plusDays(1))) {
+            OccupationTerrain.marquer(recurrences, occurrence.date(), occurrence.heureDebut(), occurrence.heureFin());
+        }
+
+        List<CreneauLibreDTO> creneaux = new ArrayList<>();
+        for (LocalDate date = dateDebut; !date.isAfter(dateFin); date = date.plusDays(1)) {
+            creneaux.addAll(occupation.creneauxLibres(date, recurrences));
+        }
+        return creneaux;
+    }
+
+    /**
+     * Retourne les horaires occupés en cours ou à venir d'un terrain, triés par date puis heure,
+     * y compris les occurrences d'abonnement au-delà de l'horizon de matérialisation
+     */
+    public List<HoraireOccupeDTO> getHorairesOccupes(Long terrainId) {
+        LocalDate aujourdhui = LocalDate.now();
+        LocalTime maintenant = LocalTime.now();
+        OccupationTerrain occupation = occupation(terrainId);
+
+        List<HoraireOccupeDTO> horaires = new ArrayList<>(occupation.horairesAVenir(terrainId, aujourdhui, maintenant));
+        for (AbonnementRecurrenceService.Occurrence occurrence : abonnementRecurrenceService
+                .getOccurrencesNonMaterialisees(terrainId, aujourdhui)) {
+            if (OccupationTerrain.estAVenir(occurrence.date(), occurrence.heureFin(), aujourdhui, maintenant)) {
+                horaires.add(new HoraireOccupeDTO(occurrence.date(), occurrence.heureDebut(), occurrence.heureFin(),
+                        occupation.telephoneProprietaire, terrainId));
+            }
+        }
+        horaires.sort(OccupationTerrain.ORDRE_CHRONOLOGIQUE);
+        return horaires;
+    }
+
+    /**
+     * Occupation d'un terrain, chargée depuis la base si nécessaire.
+     * Le chargement (requête SQL) est fait hors du verrou de la map ; il n'est conservé
+     * que si aucune modification du terrain n'a été appliquée entre-temps.
+     */
+    private OccupationTerrain occupation(Long terrainId) {
+        OccupationTerrain occupation = terrains.get(terrainId);
+        if (occupation != null) {
+            return occupation;
+        }
+        long version = versions.getOrDefault(terrainId, 0L);
+        OccupationTerrain chargee = charger(terrainId);
+        OccupationTerrain enCache = terrains.compute(terrainId, (id, existante) -> {
+            if (existante != null) {
+                return existante;
+            }
+            return versions.getOrDefault(id, 0L) == version ? chargee : null;
+        });
+        return enCache != null ? enCache : chargee;
+    }
+
+    /**
+     * Charge l'occupation d'un terrain depuis la base (horaires à partir d'hier,
+     * pour tenir compte des créneaux qui débordent après minuit)
+     */
+    private OccupationTerrain charger(Long terrainId) {
+        TerrainService terrain = terrainServiceRepository.findById(terrainId)
+                .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
+
+        Integer telephone = terrain.getProprietaire() != null ? terrain.getProprietaire().getTelephone() : null;
+        OccupationTerrain occupation = new OccupationTerrain(
+                terrain.getHeureOuverture(), terrain.getHeureFermeture(), telephone);
+        LocalDate depuis = LocalDate.now().minusDays(1);
+        int nombre = 0;
+        for (IndisponibleHoraire horaire : indisponibleHoraireRepository.findByTerrainId(terrainId)) {
+            if (horaire.getId() == null || horaire.getDate() == null || horaire.getDate().isBefore(depuis)) {
+                continue;
+            }
+            occupation.ajouter(horaire.getId(), horaire.getDate(), horaire.getHeureDebut(), horaire.getHeureFin());
+            terrainParHoraire.put(horaire.getId(), terrainId);
+            nombre++;
+        }
+        log.info("✅ Index d'occupation chargé pour le terrain {} ({} horaires)", terrainId, nombre);
+        return occupation;
+    }
+
+    // ======== STRUCTURE ========
+
+    /**
+     * Occupation d'un terrain : un bitmap par date, reconstruit à partir des
+     * masques de chaque horaire pour que la suppression d'un horaire ne libère
+     * pas un créneau encore occupé par un autre.
+     */
+    private static final class OccupationTerrain {
+
+        static final Comparator<HoraireOccupeDTO> ORDRE_CHRONOLOGIQUE = Comparator.comparing(HoraireOccupeDTO::date)
+                .thenComparing(HoraireOccupeDTO::heureDebut, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        private final LocalTime heureOuverture;
+        private final LocalTime heureFermeture;
+        private final Integer telephoneProprietaire;
+        private final Map<LocalDate, long[]> bitmaps = new HashMap<>();
+        private final Map<LocalDate, Map<Long, long[]>> masquesParDate = new HashMap<>();
+        private final Map<Long, List<LocalDate>> datesParHoraire = new HashMap<>();
+        private final Map<Long, Horaire> horaires = new HashMap<>();
+
+        private record Horaire(LocalDate date, LocalTime heureDebut, LocalTime heureFin) {}
+
+        OccupationTerrain(LocalTime heureOuverture, LocalTime heureFermeture, Integer telephoneProprietaire) {
+            this.heureOuverture = heureOuverture;
+            this.heureFermeture = heureFermeture;
+            this.telephoneProprietaire = telephoneProprietaire;
+        }
+
+        synchronized void ajouter(Long horaireId, LocalDate date, LocalTime heureDebut, LocalTime heureFin) {
+            if (date == null) {
+                return;
+            }
+            horaires.put(horaireId, new Horaire(date, heureDebut, heureFin));
+            if (heureDebut == null || heureFin == null) {
+                return;
+            }
+            int debut = debut(heureDebut);
+            int fin = fin(debut, heureFin);
+
+            List<LocalDate> dates = new ArrayList<>(2);
+            ajouterMasque(horaireId, date, debut, Math.min(fin, CRENEAUX_PAR_JOUR), dates);
+            if (fin > CRENEAUX_PAR_JOUR) {
+                ajouterMasque(horaireId, date.plusDays(1), 0, fin - CRENEAUX_PAR_JOUR, dates);
+            }
+            datesParHoraire.put(horaireId, dates);
+        }
+
+        /**
+         * Marque un créneau dans des bitmaps temporaires (non indexés)
+         */
+        static void marquer(Map<LocalDate, long[]> bitmaps, LocalDate date, LocalTime heureDebut, LocalTime heureFin) {
+            if (date == null || heureDebut == null || heureFin == null) {
+                return;
+            }
+            int debut = debut(heureDebut);
+            int fin = fin(debut, heureFin);
+            long[] bitmap = bitmaps.computeIfAbsent(date, d -> new long[2]);
+            for (int i = debut; i < fin; i++) {
+                if (i == CRENEAUX_PAR_JOUR) {
+                    bitmap = bitmaps.computeIfAbsent(date.plusDays(1), d -> new long[2]);
+                }
+                int creneau = i % CRENEAUX_PAR_JOUR;
+                bitmap[creneau >> 6] |= 1L << (creneau & 63);
+            }
+        }
+
+        private static int debut(LocalTime heureDebut) {
+            return heureDebut.toSecondOfDay() / 60 / DUREE_CRENEAU_MINUTES;
+        }
+
+        private static int fin(int debut, LocalTime heureFin) {
+            // Arrondi au créneau supérieur : un créneau partiellement occupé est occupé
+            int fin = (heureFin.toSecondOfDay() / 60 + DUREE_CRENEAU_MINUTES - 1) / DUREE_CRENEAU_MINUTES;
+            // ✅ MINUIT : une heure de fin <= heure de début se termine le lendemain
+            return fin <= debut ? fin + CRENEAUX_PAR_JOUR : fin;
+        }
+
+        private void ajouterMasque(Long horaireId, LocalDate date, int debut, int fin, List<LocalDate> dates) {
+            long[] masque = new long[2];
+            for (int i = debut; i < fin; i++) {
+                masque[i >> 6] |= 1L << (i & 63);
+            }
+            masquesParDate.computeIfAbsent(date, d -> new HashMap<>()).put(horaireId, masque);
+            long[] bitmap = bitmaps.computeIfAbsent(date, d -> new long[2]);
+            bitmap[0] |= masque[0];
+            bitmap[1] |= masque[1];
+            dates.add(date);
+        }
+
+        synchronized void retirer(Long horaireId) {
+            horaires.remove(horaireId);
+            List<LocalDate> dates = datesParHoraire.remove(horaireId);
+            if (dates == null) {
+                return;
+            }
+            for (LocalDate date : dates) {
+                Map<Long, long[]> masques = masquesParDate.get(date);
+                if (masques == null) {
+                    continue;
+                }
+                masques.remove(horaireId);
+                if (masques.isEmpty()) {
+                    masquesParDate.remove(date);
+                    bitmaps.remove(date);
+                    continue;
+                }
+                long[] bitmap = new long[2];
+                for (long[] masque : masques.values()) {
+                    bitmap[0] |= masque[0];
+                    bitmap[1] |= masque[1];
+                }
+                bitmaps.put(date, bitmap);
+            }
+        }
+
+        /**
+         * Retire les horaires antérieurs à la date limite et retourne leurs ids
+         */
+        synchronized List<Long> purgerAvant(LocalDate limite) {
+            List<Long> purges = horaires.entrySet().stream()
+                    .filter(e -> e.getValue().date().isBefore(limite))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            purges.forEach(this::retirer);
+            return purges;
+        }
+
+        /**
+         * Horaires non dépassés (un horaire d'aujourd'hui reste affiché jusqu'à son heure de fin)
+         */
+        synchronized List<HoraireOccupeDTO> horairesAVenir(Long terrainId, LocalDate aujourdhui, LocalTime maintenant) {
+            return horaires.values().stream()
+                    .filter(h -> estAVenir(h.date(), h.heureFin(), aujourdhui, maintenant))
+                    .map(h -> new HoraireOccupeDTO(h.date(), h.heureDebut(), h.heureFin(), telephoneProprietaire, terrainId))
+                    .sorted(ORDRE_CHRONOLOGIQUE)
+                    .toList();
+        }
+
+        static boolean estAVenir(LocalDate date, LocalTime heureFin, LocalDate aujourdhui, LocalTime maintenant) {
+            if (date.isBefore(aujourdhui)) {
+                return false;
+            }
+            return !date.isEqual(aujourdhui) || heureFin == null || !heureFin.isBefore(maintenant);
+        }
+
+        private boolean estOccupe(LocalDate date, int creneau, Map<LocalDate, long[]> supplementaires) {
+            if (creneau >= CRENEAUX_PAR_JOUR) {
+                date = date.plusDays(1);
+                creneau -= CRENEAUX_PAR_JOUR;
+            }
+            return estMarque(bitmaps.get(date), creneau) || estMarque(supplementaires.get(date), creneau);
+        }
+
+        private static boolean estMarque(long[] bitmap, int creneau) {
+            return bitmap != null && (bitmap[creneau >> 6] & (1L << (creneau & 63))) != 0;
+        }
+
+        /**
+         * Créneaux libres contigus de la journée d'exploitation qui commence à la date donnée,
+         * en tenant compte de créneaux occupés supplémentaires (non indexés)
+         */
+        synchronized List<CreneauLibreDTO> creneauxLibres(LocalDate date, Map<LocalDate, long[]> supplementaires) {
+            int ouverture = heureOuverture != null
+                    ? heureOuverture.toSecondOfDay() / 60 / DUREE_CRENEAU_MINUTES : 0;
+            int fermeture = heureFermeture != null
+                    ? heureFermeture.toSecondOfDay() / 60 / DUREE_CRENEAU_MINUTES : CRENEAUX_PAR_JOUR;
+            // Fermeture après minuit (ou à minuit) : la journée d'exploitation déborde sur le lendemain
+            if (fermeture <= ouverture) {
+                fermeture += CRENEAUX_PAR_JOUR;
+            }
+
+            List<CreneauLibreDTO> creneaux = new ArrayList<>();
+            int debutLibre = -1;
+            for (int i = ouverture; i <= fermeture; i++) {
+                boolean libre = i < fermeture && !estOccupe(date, i, supplementaires);
+                if (libre && debutLibre < 0) {
+                    debutLibre = i;
+                } else if (!libre && debutLibre >= 0) {
+                    creneaux.add(new CreneauLibreDTO(date, versHeure(debutLibre), versHeure(i)));
+                    debutLibre = -1;
+                }
+            }
+            return creneaux;
+        }
+
+        private static LocalTime versHeure(int creneau) {
+            return LocalTime.ofSecondOfDay((long) (creneau % CRENEAUX_PAR_JOUR) * DUREE_CRENEAU_MINUTES * 60);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.matchi.service;
+
+import com.matchi.dto.HoraireSyncEvent;
+import com.matchi.event.KafkaEtatChangeEvent;
+import com.matchi.model.OutboxEvenement;
+import com.matchi.repository.OutboxEvenementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Relais de l'outbox vers Kafka.
+ *
+ * Lit périodiquement les événements écrits par HoraireEventPublisherService, par lots ordonnés
+ * (ID croissant), les envoie sur Kafka et supprime de l'outbox, par leurs IDs, ceux que Kafka
+ * a confirmés. En cas d'échec, le lot est repris à partir du premier événement non confirmé,
+ * après un délai qui double à chaque échec (backoff exponentiel plafonné).
+ *
+ * Pas d'offset "dernier ID publié" : les IDs AUTO_INCREMENT sont attribués à l'insertion mais les
+ * transactions se valident dans un ordre quelconque. Un événement validé après un ID plus grand
+ * déjà publié est simplement lu au passage suivant, puisque tout ce qui reste dans l'outbox
+ * est à publier.
+ *
+ * ✅ Aucun événement n'est perdu si le broker est indisponible : il reste dans l'outbox
+ * ✅ Chaque lot est purgé dans sa propre transaction, après ses confirmations Kafka
+ * ✅ Livraison "au moins une fois" : Django déduplique par UUID
+ */
+@Service
+public class OutboxRelayService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelayService.class);
+
+    private final OutboxEvenementRepository outboxEvenementRepository;
+    private final KafkaAvailabilityService kafkaAvailabilityService;
+
+    @Autowired(required = false)
+    private HoraireEventPublisherService horaireEventPublisherService;
+
+    @Value("${spring.kafka.topic.horaire-sync:horaire-sync-topic}")
+    private String topic;
+
+    @Value("${horaire.outbox.taille-lot:200}")
+    private int tailleLot;
+
+    @Value("${horaire.outbox.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${horaire.outbox.backoff-max-ms:60000}")
+    private long backoffMaxMs;
+
+    private final AtomicBoolean enCours = new AtomicBoolean(false);
+    private volatile int echecsConsecutifs = 0;
+    private volatile long prochaineTentative = 0;
+
+    public OutboxRelayService(OutboxEvenementRepository outboxEvenementRepository,
+                              KafkaAvailabilityService kafkaAvailabilityService) {
+        this.outboxEvenementRepository = outboxEvenementRepository;
+        this.kafkaAvailabilityService = kafkaAvailabilityService;
+    }
+
+    /**
+     * Dès que le broker redevient disponible, le relais reprend sans attendre la fin du backoff
+     */
+    @EventListener
+    public void onKafkaEtatChange(KafkaEtatChangeEvent event) {
+        if (event.disponible()) {
+            echecsConsecutifs = 0;
+            prochaineTentative = 0;
+        }
+    }
+
+    /**
+     * Draine l'outbox : enchaîne les lots tant qu'ils sont complets et confirmés.
+     * Volontairement hors transaction : les envois Kafka et l'attente des confirmations
+     * ne retiennent aucune connexion, et la purge de chaque lot est validée indépendamment.
+     */
+    @Scheduled(fixedDelayString = "${horaire.outbox.intervalle-ms:500}")
+    public void relayer() {
+        if (horaireEventPublisherService == null || !kafkaAvailabilityService.isKafkaAvailable()
+                || System.currentTimeMillis() < prochaineTentative) {
+            return;
+        }
+        if (!enCours.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (true) {
+                List<OutboxEvenement> lot = outboxEvenementRepository.findAllByOrderByIdAsc(PageRequest.of(0, tailleLot));
+                if (lot.isEmpty()) {
+                    break;
+                }
+
+                int confirmes = horaireEventPublisherService.envoyerLot(lot.stream().map(this::toEvent).toList());
+                if (confirmes > 0) {
+                    purger(lot.subList(0, confirmes));
+                }
+
+                if (confirmes < lot.size()) {
+                    echecsConsecutifs++;
+                    long delai = Math.min(backoffMaxMs, backoffInitialMs << Math.min(echecsConsecutifs - 1, 20));
+                    prochaineTentative = System.currentTimeMillis() + delai;
+                    log.warn("⚠️ Relais outbox : {}/{} événements confirmés, nouvelle tentative dans {} ms (échec n°{})",
+                            confirmes, lot.size(), delai, echecsConsecutifs);
+                    return;
+                }
+
+                if (echecsConsecutifs > 0) {
+                    log.info("✅ Relais outbox rétabli après {} échec(s)", echecsConsecutifs);
+                }
+                echecsConsecutifs = 0;
+                log.info("✅ Relais outbox : {} événements publiés (dernier ID={})", lot.size(), lot.get(lot.size() - 1).getId());
+
+                if (lot.size() < tailleLot) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            echecsConsecutifs++;
+            prochaineTentative = System.currentTimeMillis() + backoffInitialMs;
+            log.error("❌ Erreur du relais outbox: {}", e.getMessage(), e);
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    /**
+     * Supprime les événements confirmés par Kafka, par leurs IDs (transaction du repository)
+     */
+    private void purger(List<OutboxEvenement> confirmes) {
+        outboxEvenementRepository.deleteAllByIdInBatch(confirmes.stream().map(OutboxEvenement::getId).toList());
+    }
+
+    /**
+     * Nombre d'événements en attente de publication
+     */
+    public long getNombreEnAttente() {
+        return outboxEvenementRepository.count();
+    }
+
+    private HoraireSyncEvent toEvent(OutboxEvenement evenement) {
+        return new HoraireSyncEvent(
+                evenement.getHoraireUuid(),
+                evenement.getAction(),
+                evenement.getTerrainId(),
+                evenement.getDate(),
+                evenement.getHeureDebut(),
+                evenement.getHeureFin(),
+                evenement.getTypeReservation(),
+                evenement.getSourceId(),
+                evenement.getDescription(),
+                evenement.getProprietaireTelephone()
+        );
+    }
+}
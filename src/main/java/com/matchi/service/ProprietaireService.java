@@ -12,7 +12,9 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +25,8 @@ public class ProprietaireService {
     private final TerrainServiceRepository terrainServiceRepository;
     private final BCryptPasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final TelephoneTerrainCacheService telephoneTerrainCacheService;
+    private final OccupationIndexService occupationIndexService;
 
     // ================== CREATE ==================
     @Transactional
@@ -59,6 +63,7 @@ public class ProprietaireService {
         }
 
         Proprietaire saved = proprietaireRepository.save(proprietaire);
+        telephoneTerrainCacheService.invalider(saved.getTelephone());
         return mapToDTO(saved);
     }
 
@@ -76,6 +81,7 @@ public class ProprietaireService {
         if (dto.prenom() != null) {
             existing.setPrenom(dto.prenom());
         }
+        Integer ancienTelephone = existing.getTelephone();
         if (dto.telephone() != null) {
             existing.setTelephone(dto.telephone());
         }
@@ -91,16 +97,30 @@ public class ProprietaireService {
         }
 
         Proprietaire updated = proprietaireRepository.save(existing);
+        telephoneTerrainCacheService.invalider(Arrays.asList(ancienTelephone, updated.getTelephone()));
+        if (!Objects.equals(ancienTelephone, updated.getTelephone())) {
+            invaliderOccupations(updated.getId());
+        }
         return mapToDTO(updated);
     }
 
     // ================== DELETE ==================
     @Transactional
     public void delete(Long id) {
-        if (!proprietaireRepository.existsById(id)) {
-            throw new RuntimeException("Propriétaire introuvable");
-        }
-        proprietaireRepository.deleteById(id);
+        Proprietaire proprietaire = proprietaireRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Propriétaire introuvable"));
+        invaliderOccupations(proprietaire.getId());
+        proprietaireRepository.delete(proprietaire);
+        telephoneTerrainCacheService.invalider(proprietaire.getTelephone());
+    }
+
+    /**
+     * L'index d'occupation conserve le téléphone du propriétaire de chaque terrain chargé :
+     * ses terrains sont rechargés (après le commit) pour exposer le nouveau numéro
+     */
+    private void invaliderOccupations(Long proprietaireId) {
+        terrainServiceRepository.findByProprietaireId(proprietaireId)
+                .forEach(terrain -> occupationIndexService.invalider(terrain.getId()));
     }
 
     // ================== FIND ==================
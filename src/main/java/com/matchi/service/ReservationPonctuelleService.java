@@ -1,13 +1,15 @@
 package com.matchi.service;
 
-import com.matchi.model.IndisponibleHoraire;
 import com.matchi.model.ReservationPonctuelle;
 import com.matchi.model.TerrainService;
-import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.model.TypeReservation;
 import com.matchi.repository.ReservationPonctuelleRepository;
 import com.matchi.repository.TerrainServiceRepository;
+import com.matchi.dto.CurseurCreneau;
+import com.matchi.dto.PageCurseur;
 import com.matchi.dto.ReservationPonctuelleDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,9 +17,9 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import com.matchi.event.ReservationModifieEvent;
 
-import java.time.LocalTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,9 +28,9 @@ public class ReservationPonctuelleService {
 
     private final ReservationPonctuelleRepository reservationRepository;
     private final TerrainServiceRepository terrainServiceRepository;
-    private final IndisponibleHoraireRepository indisponibleHoraireRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final KafkaAvailabilityService kafkaAvailabilityService;
+    private final ConflictEngine conflictEngine;
+    private final StatistiqueJournaliereService statistiqueJournaliereService;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -112,6 +114,7 @@ public class ReservationPonctuelleService {
     
     /**
      * ✅ Valide qu'il n'y a pas de conflit avec une réservation existante ou un abonnement
+     * (détection déléguée au ConflictEngine, qui gère les créneaux traversant minuit)
      */
     private void validerConflitReservation(Long terrainId, java.time.LocalDate date, 
                                            java.time.LocalTime heureDebut, java.time.LocalTime heureFin, 
@@ -120,94 +123,28 @@ public class ReservationPonctuelleService {
             return; // Pas de validation si données incomplètes
         }
         
-        // 1. Vérifier les conflits avec les réservations ponctuelles existantes
-        List<ReservationPonctuelle> reservationsExistantes = reservationRepository.findByTerrain_IdAndDate(terrainId, date);
-        
-        for (ReservationPonctuelle existante : reservationsExistantes) {
-            // Exclure la réservation en cours de modification
-            if (reservationIdExclue != null && existante.getId().equals(reservationIdExclue)) {
-                continue;
-            }
-            
-            // Vérifier si les créneaux se chevauchent
-            if (creneauxSeChevauchent(heureDebut, heureFin, 
-                                     existante.getHeureDebut(), existante.getHeureFin())) {
+        // Exclure la réservation en cours de modification (et son horaire indisponible)
+        conflictEngine.premierConflit(
+                terrainId,
+                new ConflictEngine.Candidat(date, heureDebut, heureFin),
+                ConflictEngine.Exclusions.reservation(reservationIdExclue)
+        ).ifPresent(conflit -> {
+            ConflictEngine.Occupation occupation = conflit.occupation();
+            if (occupation.typeReservation() == TypeReservation.RESERVATION_PONCTUELLE) {
                 throw new IllegalArgumentException(
                     String.format("Conflit de réservation : Le créneau %s-%s est déjà réservé pour ce terrain à cette date (%s). " +
                                  "Réservation existante : %s-%s",
                         heureDebut, heureFin, date,
-                        existante.getHeureDebut(), existante.getHeureFin())
-                );
-            }
-        }
-        
-        // 2. Vérifier les conflits avec les abonnements (via IndisponibleHoraire)
-        List<IndisponibleHoraire> horairesIndisponibles = indisponibleHoraireRepository.findByTerrainIdAndDate(terrainId, date);
-        
-        for (IndisponibleHoraire indispo : horairesIndisponibles) {
-            // Vérifier si les créneaux se chevauchent
-            if (creneauxSeChevauchent(heureDebut, heureFin, 
-                                     indispo.getHeureDebut(), indispo.getHeureFin())) {
-                throw new IllegalArgumentException(
-                    String.format("Conflit avec un abonnement : Le créneau %s-%s est déjà occupé par un abonnement pour ce terrain à cette date (%s). " +
-                                 "Créneau occupé : %s-%s",
-                        heureDebut, heureFin, date,
-                        indispo.getHeureDebut(), indispo.getHeureFin())
+                        occupation.heureDebut(), occupation.heureFin())
                 );
             }
-        }
-    }
-    
-    /**
-     * Vérifie si deux créneaux horaires se chevauchent
-     */
-    private boolean creneauxSeChevauchent(LocalTime debut1, LocalTime fin1, 
-                                          LocalTime debut2, LocalTime fin2) {
-        // Cas spécial : si les deux créneaux sont identiques (même début et même fin), ils se chevauchent
-        if (debut1.equals(debut2) && fin1.equals(fin2)) {
-            return true;
-        }
-        
-        // Cas spécial : si fin1 ou fin2 est 00h (minuit), on doit gérer différemment
-        LocalTime minuit = LocalTime.of(0, 0);
-        boolean fin1EstMinuit = fin1.equals(minuit);
-        boolean fin2EstMinuit = fin2.equals(minuit);
-        
-        // Si fin1 est minuit, on considère que le créneau 1 se termine à 24h (fin de journée)
-        // Si fin2 est minuit, on considère que le créneau 2 se termine à 24h (fin de journée)
-        
-        if (fin1EstMinuit && fin2EstMinuit) {
-            // Les deux créneaux se terminent à minuit
-            // Si les heures de début sont identiques, ils se chevauchent (déjà géré plus haut avec return true)
-            // Sinon, ils se chevauchent si l'un commence avant que l'autre ne se termine
-            // Puisque les deux se terminent à minuit, ils se chevauchent si leurs débuts se chevauchent
-            // Exemple : 22:00-00:00 et 23:00-00:00 se chevauchent car 22:00 < 23:00 < 00:00
-            // Donc : debut1 < debut2 (le premier commence avant le second) OU debut2 < debut1 (le second commence avant le premier)
-            // Mais si debut1 = debut2, on a déjà retourné true plus haut
-            // Donc ici, on vérifie si les créneaux se chevauchent : debut1 < debut2 (le premier commence avant le second)
-            // ET fin1 > debut2 (le premier se termine après que le second ne commence) -> toujours vrai car fin1 = minuit
-            // OU debut2 < debut1 (le second commence avant le premier) ET fin2 > debut1 (le second se termine après que le premier ne commence) -> toujours vrai car fin2 = minuit
-            // Donc si debut1 != debut2, ils se chevauchent toujours car les deux se terminent à minuit
-            return true; // Si les deux se terminent à minuit et ont des débuts différents, ils se chevauchent toujours
-        } else if (fin1EstMinuit) {
-            // fin1 est minuit, donc le créneau 1 va jusqu'à la fin de la journée
-            // Il chevauche le créneau 2 si debut1 < fin2 ET (debut2 < fin1 OU debut2 = debut1)
-            // Mais fin1 = minuit, donc on compare avec minuit
-            // Le créneau 1 va de debut1 à minuit (24h)
-            // Il chevauche le créneau 2 si : debut1 < fin2 (le créneau 1 commence avant que le créneau 2 ne se termine)
-            // ET (debut2 < minuit OU debut2 = debut1)
-            // Puisque minuit = 00:00, debut2 < minuit est toujours faux sauf si debut2 est aussi minuit
-            // Donc on simplifie : debut1 < fin2
-            return debut1.isBefore(fin2);
-        } else if (fin2EstMinuit) {
-            // fin2 est minuit, donc le créneau 2 va jusqu'à la fin de la journée
-            // Il chevauche le créneau 1 si debut2 < fin1
-            return debut2.isBefore(fin1);
-        } else {
-            // Cas normal : aucun créneau ne se termine à minuit
-            // Deux créneaux se chevauchent si : debut1 < fin2 && fin1 > debut2
-            return (debut1.isBefore(fin2) && fin1.isAfter(debut2));
-        }
+            throw new IllegalArgumentException(
+                String.format("Conflit avec un abonnement : Le créneau %s-%s est déjà occupé par un abonnement pour ce terrain à cette date (%s). " +
+                             "Créneau occupé : %s-%s",
+                    heureDebut, heureFin, date,
+                    occupation.heureDebut(), occupation.heureFin())
+            );
+        });
     }
     
     /**
@@ -347,51 +284,21 @@ public class ReservationPonctuelleService {
     }
 
     // ======== CRUD ========
-    public List<ReservationPonctuelleDTO> getAllReservations() {
+    /**
+     * Réservations en cours ou à venir, triées par date puis heure, par pages (curseur)
+     * ✅ Le filtrage des réservations passées et le tri sont faits en base
+     */
+    public PageCurseur<ReservationPonctuelleDTO> getAllReservations(String curseur, int taille) {
         java.time.LocalDate aujourdhui = java.time.LocalDate.now();
-        java.time.LocalTime maintenant = java.time.LocalTime.now();
-        
-        return reservationRepository.findAll()
-                .stream()
-                // ✅ FILTRER : Afficher toutes les réservations d'aujourd'hui (même si heure début passée) 
-                // tant que l'heure de fin n'est pas dépassée, et toutes les réservations futures
-                .filter(reservation -> {
-                    if (reservation.getDate() == null) {
-                        return false; // Exclure si pas de date
-                    }
-                    
-                    // Si la date est dans le passé, exclure
-                    if (reservation.getDate().isBefore(aujourdhui)) {
-                        return false;
-                    }
-                    
-                    // Si c'est aujourd'hui, vérifier que l'heure de fin n'est pas encore passée
-                    if (reservation.getDate().equals(aujourdhui)) {
-                        if (reservation.getHeureFin() != null) {
-                            // ✅ CORRECTION : Gérer le cas spécial où heureFin = 00:00:00 (minuit)
-                            java.time.LocalTime minuit = java.time.LocalTime.of(0, 0);
-                            if (reservation.getHeureFin().equals(minuit)) {
-                                // Si heureFin est minuit, c'est considéré comme la fin de la journée (24h)
-                                // La réservation est valide pour aujourd'hui si l'heure de fin (minuit) n'est pas encore atteinte
-                                // Puisque minuit n'arrive qu'après 23h59, si on est avant minuit, la réservation est toujours valide
-                                return true; // Réservation valide jusqu'à minuit
-                            } else if (reservation.getHeureFin().isBefore(maintenant) || reservation.getHeureFin().equals(maintenant)) {
-                                // L'heure de fin est passée ou égale à maintenant, exclure
-                                return false;
-                            }
-                            // Si heureFin > maintenant, la réservation est encore en cours ou future, l'inclure
-                        }
-                        // Si pas d'heure de fin, inclure la réservation d'aujourd'hui
-                    }
-                    
-                    return true; // Inclure les réservations futures ou en cours
-                })
-                // ✅ TRI : Ordre croissant par date puis par heure
-                .sorted(Comparator
-                        .comparing(ReservationPonctuelle::getDate)
-                        .thenComparing(ReservationPonctuelle::getHeureDebut))
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        CurseurCreneau position = CurseurCreneau.decoder(curseur);
+        if (position == null) {
+            position = CurseurCreneau.avant(aujourdhui);
+        }
+        List<ReservationPonctuelleDTO> lignes = reservationRepository.findAVenirApres(
+                aujourdhui, java.time.LocalTime.now(), java.time.LocalTime.MIDNIGHT,
+                position.date(), position.heureDebut(), position.id(), Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille,
+                reservation -> new CurseurCreneau(reservation.date(), reservation.heureDebut(), reservation.id()).encoder());
     }
 
     public ReservationPonctuelleDTO getReservationById(Long id) {
@@ -402,11 +309,6 @@ public class ReservationPonctuelleService {
 
     @Transactional
     public ReservationPonctuelleDTO createReservation(ReservationPonctuelleDTO dto) {
-        // ✅ VALIDATION : Vérifier que Kafka est disponible avant de créer une réservation potentielle
-        if (!kafkaAvailabilityService.isKafkaAvailable()) {
-            throw new IllegalStateException("Impossible de créer une réservation potentielle : Kafka n'est pas démarré ou n'est pas disponible. Veuillez démarrer Kafka avant de créer une réservation.");
-        }
-        
         // ✅ VALIDATION : Vérifier que la date et l'heure ne sont pas dans le passé
         // Calculer heureFin si non fournie
         java.time.LocalTime heureFin = dto.heureFin();
@@ -430,6 +332,7 @@ public class ReservationPonctuelleService {
         }
         
         ReservationPonctuelle saved = reservationRepository.save(reservation);
+        statistiqueJournaliereService.ajouter(StatistiqueJournaliereService.Contribution.de(saved));
         
         // ✅ FLUSH : Forcer l'écriture en base avant la publication de l'événement
         entityManager.flush();
@@ -443,7 +346,7 @@ public class ReservationPonctuelleService {
         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
         // L'événement AFTER_COMMIT garantit que les données sont déjà commitées en base
         if (saved.getTerrain() != null) {
-            eventPublisher.publishEvent(new ReservationModifieEvent(saved.getTerrain().getId()));
+            eventPublisher.publishEvent(new ReservationModifieEvent(saved.getTerrain().getId(), Set.of(saved.getId())));
         }
         
         return toDTO(saved);
@@ -459,6 +362,8 @@ public class ReservationPonctuelleService {
         java.time.LocalTime heureDebutOriginale = existing.getHeureDebut();
         java.time.LocalTime heureFinOriginale = existing.getHeureFin();
         Long terrainIdOriginal = existing.getTerrain() != null ? existing.getTerrain().getId() : null;
+        StatistiqueJournaliereService.Contribution contributionOriginale =
+                StatistiqueJournaliereService.Contribution.de(existing);
         
         // Flag pour savoir si le créneau a changé
         boolean creneauModifie = false;
@@ -516,6 +421,8 @@ public class ReservationPonctuelleService {
         }
 
         ReservationPonctuelle saved = reservationRepository.save(existing);
+        statistiqueJournaliereService.remplacer(contributionOriginale,
+                StatistiqueJournaliereService.Contribution.de(saved));
         
         // ✅ FLUSH : Forcer l'écriture en base avant la publication de l'événement
         entityManager.flush();
@@ -528,7 +435,7 @@ public class ReservationPonctuelleService {
         
         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
         if (saved.getTerrain() != null) {
-            eventPublisher.publishEvent(new ReservationModifieEvent(saved.getTerrain().getId()));
+            eventPublisher.publishEvent(new ReservationModifieEvent(saved.getTerrain().getId(), Set.of(id)));
         }
         
         return toDTO(saved);
@@ -541,6 +448,7 @@ public class ReservationPonctuelleService {
                 .orElseThrow(() -> new IllegalArgumentException("Réservation introuvable"));
         Long terrainId = reservation.getTerrain() != null ? reservation.getTerrain().getId() : null;
         
+        statistiqueJournaliereService.retirer(StatistiqueJournaliereService.Contribution.de(reservation));
         reservationRepository.deleteById(id);
         
         // ✅ FLUSH : Forcer l'écriture de la suppression en base
@@ -554,7 +462,7 @@ public class ReservationPonctuelleService {
         
         // ✅ PUBLIER UN ÉVÉNEMENT pour déclencher la synchronisation APRÈS le commit
         if (terrainId != null) {
-            eventPublisher.publishEvent(new ReservationModifieEvent(terrainId));
+            eventPublisher.publishEvent(new ReservationModifieEvent(terrainId, Set.of(id)));
         }
     }
 
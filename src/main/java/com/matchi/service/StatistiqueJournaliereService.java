@@ -0,0 +1,224 @@
+package com.matchi.service;
+
+import com.matchi.model.ReservationPonctuelle;
+import com.matchi.model.StatistiqueJournaliere;
+import com.matchi.model.TerrainService;
+import com.matchi.repository.ReservationPonctuelleRepository;
+import com.matchi.repository.StatistiqueJournaliereRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintient la table statistique_journaliere (nombre et revenu des réservations ponctuelles
+ * par terrain et par jour d'activité) de façon incrémentale : chaque création, modification
+ * ou suppression de réservation applique sa contribution, et les statistiques du tableau de bord
+ * deviennent une simple lecture de ligne.
+ *
+ * ✅ RÈGLE APRÈS MINUIT (identique au calcul historique de StatistiqueService) :
+ * une réservation du jour X+1 compte pour le jour X
+ * - dans le nombre, si elle commence entre 00:00 et l'heure de fermeture du terrain
+ * - dans le revenu, si elle commence entre 00:00 et l'heure d'ouverture du terrain
+ */
+@Service
+@RequiredArgsConstructor
+public class StatistiqueJournaliereService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatistiqueJournaliereService.class);
+
+    private static final LocalTime MINUIT = LocalTime.MIDNIGHT;
+
+    private final StatistiqueJournaliereRepository statistiqueJournaliereRepository;
+    private final ReservationPonctuelleRepository reservationPonctuelleRepository;
+    private final TerrainServiceRepository terrainServiceRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Contribution d'une réservation aux statistiques, capturée à un instant donné
+     * (ex : avant une modification, pour pouvoir la retirer ensuite)
+     */
+    public record Contribution(Long terrainId, LocalDate date, LocalTime heureDebut, BigDecimal prix,
+                               LocalTime heureOuverture, LocalTime heureFermeture) {
+
+        public static Contribution de(ReservationPonctuelle reservation) {
+            TerrainService terrain = reservation.getTerrain();
+            return new Contribution(
+                    terrain != null ? terrain.getId() : null,
+                    reservation.getDate(),
+                    reservation.getHeureDebut(),
+                    reservation.getPrix(),
+                    terrain != null ? terrain.getHeureOuverture() : null,
+                    terrain != null ? terrain.getHeureFermeture() : null);
+        }
+
+        BigDecimal prixOuZero() {
+            return prix != null ? prix : BigDecimal.ZERO;
+        }
+
+        /**
+         * Compte dans le nombre de réservations de la veille (00:00 -> heure de fermeture incluse)
+         */
+        boolean compteLaVeille() {
+            if (heureFermeture == null || heureDebut == null) {
+                return false;
+            }
+            // Si heureFermeture est minuit, on considère que c'est la fin de journée (24h)
+            return heureFermeture.equals(MINUIT) || !heureDebut.isAfter(heureFermeture);
+        }
+
+        /**
+         * Compte dans le revenu de la veille (00:00 -> heure d'ouverture exclue)
+         */
+        boolean rapporteLaVeille() {
+            return heureOuverture != null && heureDebut != null && heureDebut.isBefore(heureOuverture);
+        }
+    }
+
+    // ======== MISE À JOUR INCRÉMENTALE ========
+
+    @Transactional
+    public void ajouter(Contribution contribution) {
+        appliquer(contribution, 1);
+    }
+
+    @Transactional
+    public void retirer(Contribution contribution) {
+        appliquer(contribution, -1);
+    }
+
+    /**
+     * Remplace une contribution par une autre (modification d'une réservation)
+     */
+    @Transactional
+    public void remplacer(Contribution avant, Contribution apres) {
+        if (avant.equals(apres)) {
+            return;
+        }
+        appliquer(avant, -1);
+        appliquer(apres, 1);
+    }
+
+    private void appliquer(Contribution contribution, int signe) {
+        if (contribution.terrainId() == null || contribution.date() == null) {
+            return;
+        }
+        BigDecimal revenu = contribution.prixOuZero().multiply(BigDecimal.valueOf(signe));
+        statistiqueJournaliereRepository.ajouter(contribution.terrainId(), contribution.date(), signe, revenu);
+
+        boolean compte = contribution.compteLaVeille();
+        boolean rapporte = contribution.rapporteLaVeille();
+        if (compte || rapporte) {
+            statistiqueJournaliereRepository.ajouter(contribution.terrainId(), contribution.date().minusDays(1),
+                    compte ? signe : 0, rapporte ? revenu : BigDecimal.ZERO);
+        }
+    }
+
+    // ======== LECTURE ========
+
+    /**
+     * Statistiques d'un jour d'activité (ligne vide si aucune réservation)
+     */
+    @Transactional(readOnly = true)
+    public StatistiqueJournaliere getStatistique(Long terrainId, LocalDate jour) {
+        return statistiqueJournaliereRepository.findByTerrainIdAndJour(terrainId, jour)
+                .orElseGet(() -> vide(terrainId, jour));
+    }
+
+    /**
+     * Statistiques de plusieurs jours d'activité en une seule requête (ligne vide pour les jours sans réservation)
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, StatistiqueJournaliere> getStatistiques(Long terrainId, Collection<LocalDate> jours) {
+        Map<LocalDate, StatistiqueJournaliere> parJour = new HashMap<>();
+        for (StatistiqueJournaliere statistique : statistiqueJournaliereRepository.findByTerrainIdAndJourIn(terrainId, jours)) {
+            parJour.put(statistique.getJour(), statistique);
+        }
+        for (LocalDate jour : jours) {
+            parJour.computeIfAbsent(jour, j -> vide(terrainId, j));
+        }
+        return parJour;
+    }
+
+    // ======== RECALCUL ========
+
+    /**
+     * Recalcule entièrement les statistiques d'un terrain depuis ses réservations
+     * (initialisation, changement des heures d'ouverture/fermeture)
+     */
+    @Transactional
+    public void recalculerTerrain(Long terrainId) {
+        statistiqueJournaliereRepository.supprimerParTerrain(terrainId);
+
+        Map<LocalDate, StatistiqueJournaliere> parJour = new HashMap<>();
+        for (ReservationPonctuelle reservation : reservationPonctuelleRepository.findByTerrain_Id(terrainId)) {
+            Contribution contribution = Contribution.de(reservation);
+            if (contribution.date() == null) {
+                continue;
+            }
+            cumuler(parJour, terrainId, contribution.date(), 1, contribution.prixOuZero());
+            boolean compte = contribution.compteLaVeille();
+            boolean rapporte = contribution.rapporteLaVeille();
+            if (compte || rapporte) {
+                cumuler(parJour, terrainId, contribution.date().minusDays(1),
+                        compte ? 1 : 0, rapporte ? contribution.prixOuZero() : BigDecimal.ZERO);
+            }
+        }
+        statistiqueJournaliereRepository.saveAll(new ArrayList<>(parJour.values()));
+        log.info("✅ Statistiques journalières recalculées pour le terrain {} : {} jour(s)", terrainId, parJour.size());
+    }
+
+    @Transactional
+    public void supprimerTerrain(Long terrainId) {
+        statistiqueJournaliereRepository.supprimerParTerrain(terrainId);
+    }
+
+    /**
+     * Au premier démarrage (table vide), construit les statistiques de tous les terrains
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        try {
+            if (statistiqueJournaliereRepository.count() > 0 || reservationPonctuelleRepository.count() == 0) {
+                return;
+            }
+            List<TerrainService> terrains = terrainServiceRepository.findAll();
+            log.info("🔄 Initialisation des statistiques journalières pour {} terrain(s)", terrains.size());
+            for (TerrainService terrain : terrains) {
+                transactionTemplate.executeWithoutResult(status -> recalculerTerrain(terrain.getId()));
+            }
+        } catch (Exception e) {
+            log.error("❌ Erreur lors de l'initialisation des statistiques journalières: {}", e.getMessage(), e);
+        }
+    }
+
+    private void cumuler(Map<LocalDate, StatistiqueJournaliere> parJour, Long terrainId, LocalDate jour,
+                         long nombre, BigDecimal revenu) {
+        StatistiqueJournaliere statistique = parJour.computeIfAbsent(jour, j -> vide(terrainId, j));
+        statistique.setNombreReservations(statistique.getNombreReservations() + nombre);
+        statistique.setRevenuReservations(statistique.getRevenuReservations().add(revenu));
+    }
+
+    private static StatistiqueJournaliere vide(Long terrainId, LocalDate jour) {
+        return StatistiqueJournaliere.builder()
+                .terrainId(terrainId)
+                .jour(jour)
+                .nombreReservations(0L)
+                .revenuReservations(BigDecimal.ZERO)
+                .build();
+    }
+}
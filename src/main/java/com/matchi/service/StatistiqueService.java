@@ -1,23 +1,36 @@
 package com.matchi.service;
 
 import com.matchi.dto.ClientAbonneDTO;
-import com.matchi.model.Abonnement;
-import com.matchi.model.ClientAbonne;
-import com.matchi.model.ReservationPonctuelle;
+import com.matchi.dto.DashboardStatistiquesDTO;
+import com.matchi.dto.GranulariteStatistique;
+import com.matchi.dto.StatistiquesAbonnementsDTO;
+import com.matchi.dto.StatistiquesPeriodeDTO;
+import com.matchi.model.StatistiqueJournaliere;
 import com.matchi.model.StatutAbonnement;
+import com.matchi.repository.AbonnementHoraireRepository;
 import com.matchi.repository.AbonnementRepository;
+import com.matchi.repository.AgregatJour;
 import com.matchi.repository.ClientAbonneRepository;
+import com.matchi.repository.ProprietaireRepository;
 import com.matchi.repository.ReservationPonctuelleRepository;
 import com.matchi.repository.TerrainServiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,144 +38,121 @@ public class StatistiqueService {
 
     private final AbonnementRepository abonnementRepository;
     private final ReservationPonctuelleRepository reservationPonctuelleRepository;
+    private final AbonnementHoraireRepository abonnementHoraireRepository;
     private final TerrainServiceRepository terrainServiceRepository;
     private final ClientAbonneRepository clientAbonneRepository;
+    private final ProprietaireRepository proprietaireRepository;
+    private final StatistiqueJournaliereService statistiqueJournaliereService;
+    private final AbonnementRecurrenceService abonnementRecurrenceService;
 
     /**
      * Retourne le nombre d'abonnements actifs pour un terrain donné
      */
     public Long getNombreAbonnementsActifs(Long terrainId) {
-        // Vérifier que le terrain existe
-        terrainServiceRepository.findById(terrainId)
-                .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
-        
-        List<Abonnement> abonnements = abonnementRepository.findByTerrainId(terrainId);
-        
-        // Filtrer les abonnements actifs
-        return abonnements.stream()
-                .filter(abonnement -> abonnement.getStatus() == StatutAbonnement.ACTIF)
-                .count();
+        verifierTerrain(terrainId);
+        return getStatistiquesAbonnementsActifs(terrainId).nombre();
     }
 
     /**
      * Retourne le nombre de réservations ponctuelles d'aujourd'hui pour un terrain donné
      * Inclut les réservations d'aujourd'hui et les réservations de demain qui commencent après minuit
      * (jusqu'à l'heure de fin du terrain)
+     * ✅ Lecture de la ligne pré-agrégée (voir StatistiqueJournaliereService)
      */
     public Long getNombreReservationsAujourdhui(Long terrainId) {
-        // Vérifier que le terrain existe
-        com.matchi.model.TerrainService terrain = terrainServiceRepository.findById(terrainId)
-                .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
-        
-        LocalDate aujourdhui = LocalDate.now();
-        LocalDate demain = aujourdhui.plusDays(1);
-        List<ReservationPonctuelle> reservations = reservationPonctuelleRepository.findByTerrain_Id(terrainId);
-        
-        java.time.LocalTime heureFermeture = terrain.getHeureFermeture();
-        java.time.LocalTime minuit = java.time.LocalTime.of(0, 0);
-        
-        // Compter les réservations d'aujourd'hui
-        long countAujourdhui = reservations.stream()
-                .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(aujourdhui))
-                .count();
-        
-        // Inclure aussi les réservations de demain qui commencent après minuit jusqu'à l'heure de fin
-        long countDemainMatin = 0;
-        if (heureFermeture != null) {
-            countDemainMatin = reservations.stream()
-                    .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(demain))
-                    .filter(reservation -> {
-                        if (reservation.getHeureDebut() == null) {
-                            return false;
-                        }
-                        java.time.LocalTime heureDebut = reservation.getHeureDebut();
-                        // Si le terrain ferme après minuit (ex: 18h -> 2h), inclure les heures entre 00:00 et heureFermeture
-                        // Si le terrain ferme avant minuit (ex: 8h -> 22h), inclure les heures entre 00:00 et heureFermeture
-                        // Vérifier si l'heure de début est >= 00:00 et <= heureFermeture
-                        boolean apresMinuit = heureDebut.equals(minuit) || heureDebut.isAfter(minuit);
-                        boolean avantFermeture = heureDebut.equals(heureFermeture) || heureDebut.isBefore(heureFermeture);
-                        
-                        // Si heureFermeture est minuit, on considère que c'est la fin de journée (24h)
-                        if (heureFermeture.equals(minuit)) {
-                            return apresMinuit; // Toutes les heures après minuit sont incluses
-                        }
-                        
-                        return apresMinuit && avantFermeture;
-                    })
-                    .count();
-        }
-        
-        return countAujourdhui + countDemainMatin;
+        return getStatistiqueJournaliere(terrainId, LocalDate.now()).getNombreReservations();
     }
 
     /**
      * Retourne le revenu total des abonnements actifs pour un terrain donné
      */
     public BigDecimal getRevenuAbonnementsActifs(Long terrainId) {
-        // Vérifier que le terrain existe
-        terrainServiceRepository.findById(terrainId)
-                .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
-        
-        List<Abonnement> abonnements = abonnementRepository.findByTerrainId(terrainId);
-        
-        // Calculer le revenu total des abonnements actifs
-        return abonnements.stream()
-                .filter(abonnement -> abonnement.getStatus() == StatutAbonnement.ACTIF)
-                .map(Abonnement::getPrixTotal)
-                .filter(prix -> prix != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        verifierTerrain(terrainId);
+        return getStatistiquesAbonnementsActifs(terrainId).revenu();
+    }
+
+    /**
+     * Retourne le nombre et le revenu des abonnements d'un terrain pour chaque statut
+     * ✅ COUNT / SUM(prixTotal) calculés en base, groupés par statut
+     */
+    public List<StatistiquesAbonnementsDTO> getStatistiquesAbonnements(Long terrainId) {
+        verifierTerrain(terrainId);
+        return agregerAbonnements(terrainId);
+    }
+
+    private List<StatistiquesAbonnementsDTO> agregerAbonnements(Long terrainId) {
+        Map<StatutAbonnement, AbonnementRepository.AgregatAbonnements> parStatut = new EnumMap<>(StatutAbonnement.class);
+        for (AbonnementRepository.AgregatAbonnements agregat : abonnementRepository.agregerParStatut(terrainId)) {
+            if (agregat.getStatus() != null) {
+                parStatut.put(agregat.getStatus(), agregat);
+            }
+        }
+        return Arrays.stream(StatutAbonnement.values())
+                .map(status -> versDTO(terrainId, status, parStatut.get(status)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retourne le nombre et le revenu des abonnements par statut pour tous les terrains d'un propriétaire
+     * ✅ Une seule requête agrégée (GROUP BY terrain, statut) quel que soit le nombre de terrains
+     */
+    public List<StatistiquesAbonnementsDTO> getStatistiquesAbonnementsProprietaire(Long proprietaireId) {
+        if (!proprietaireRepository.existsById(proprietaireId)) {
+            throw new IllegalArgumentException("Propriétaire introuvable avec l'ID: " + proprietaireId);
+        }
+        Map<Long, Map<StatutAbonnement, AbonnementRepository.AgregatAbonnements>> parTerrain = new HashMap<>();
+        for (AbonnementRepository.AgregatAbonnementsTerrain agregat
+                : abonnementRepository.agregerParTerrainEtStatutPourProprietaire(proprietaireId)) {
+            if (agregat.getStatus() == null) {
+                continue;
+            }
+            parTerrain.computeIfAbsent(agregat.getTerrainId(), id -> new EnumMap<>(StatutAbonnement.class))
+                    .put(agregat.getStatus(), agregat);
+        }
+
+        // Les terrains sans abonnement apparaissent avec des compteurs à zéro
+        List<StatistiquesAbonnementsDTO> resultat = new java.util.ArrayList<>();
+        for (com.matchi.model.TerrainService terrain : terrainServiceRepository.findByProprietaireId(proprietaireId)) {
+            Map<StatutAbonnement, AbonnementRepository.AgregatAbonnements> parStatut =
+                    parTerrain.getOrDefault(terrain.getId(), Map.of());
+            for (StatutAbonnement status : StatutAbonnement.values()) {
+                resultat.add(versDTO(terrain.getId(), status, parStatut.get(status)));
+            }
+        }
+        return resultat;
+    }
+
+    private StatistiquesAbonnementsDTO getStatistiquesAbonnementsActifs(Long terrainId) {
+        return agregerAbonnements(terrainId).stream()
+                .filter(statistique -> statistique.status() == StatutAbonnement.ACTIF)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private StatistiquesAbonnementsDTO versDTO(Long terrainId, StatutAbonnement status,
+                                                AbonnementRepository.AgregatAbonnements agregat) {
+        if (agregat == null) {
+            return new StatistiquesAbonnementsDTO(terrainId, status, 0L, BigDecimal.ZERO);
+        }
+        return new StatistiquesAbonnementsDTO(terrainId, status,
+                agregat.getNombre() != null ? agregat.getNombre() : 0L,
+                agregat.getRevenu() != null ? agregat.getRevenu() : BigDecimal.ZERO);
+    }
+
+    private void verifierTerrain(Long terrainId) {
+        if (!terrainServiceRepository.existsById(terrainId)) {
+            throw new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId);
+        }
     }
 
     /**
      * Retourne le revenu des réservations ponctuelles d'aujourd'hui pour un terrain donné
      * Pour le calcul du revenu du jour X, inclut toutes les heures comprises entre 00:00 et l'heure d'ouverture
      * du terrain du jour X+1, mais les attribue au jour X.
+     * ✅ Lecture de la ligne pré-agrégée (voir StatistiqueJournaliereService)
      */
     public BigDecimal getRevenuReservationsAujourdhui(Long terrainId) {
-        // Vérifier que le terrain existe
-        com.matchi.model.TerrainService terrain = terrainServiceRepository.findById(terrainId)
-                .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
-        
-        LocalDate aujourdhui = LocalDate.now();
-        LocalDate demain = aujourdhui.plusDays(1);
-        List<ReservationPonctuelle> reservations = reservationPonctuelleRepository.findByTerrain_Id(terrainId);
-        
-        java.time.LocalTime heureOuverture = terrain.getHeureOuverture();
-        java.time.LocalTime minuit = java.time.LocalTime.of(0, 0);
-        
-        // Calculer le revenu total des réservations d'aujourd'hui
-        BigDecimal revenuAujourdhui = reservations.stream()
-                .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(aujourdhui))
-                .map(ReservationPonctuelle::getPrix)
-                .filter(prix -> prix != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Inclure aussi les réservations du jour suivant (X+1) qui ont une heure de début entre 00:00 et l'heure d'ouverture
-        // mais les attribuer au jour X (aujourd'hui)
-        if (heureOuverture != null) {
-            BigDecimal revenuDemainMatin = reservations.stream()
-                    .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(demain))
-                    .filter(reservation -> {
-                        if (reservation.getHeureDebut() == null) {
-                            return false;
-                        }
-                        java.time.LocalTime heureDebut = reservation.getHeureDebut();
-                        // Inclure les réservations qui commencent entre 00:00 et l'heure d'ouverture
-                        // Si l'heure d'ouverture est après minuit (ex: terrain ouvre à 18h et ferme à 2h), 
-                        // on inclut les heures entre 00:00 et heureOuverture (ex: 00:00 à 02:00)
-                        // Si l'heure d'ouverture est avant minuit (ex: 8h), on inclut les heures entre 00:00 et heureOuverture (ex: 00:00 à 08:00)
-                        // Vérifier si l'heure de début est >= 00:00 et < heureOuverture
-                        return (heureDebut.equals(minuit) || heureDebut.isAfter(minuit)) && 
-                               heureDebut.isBefore(heureOuverture);
-                    })
-                    .map(ReservationPonctuelle::getPrix)
-                    .filter(prix -> prix != null)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            return revenuAujourdhui.add(revenuDemainMatin);
-        }
-        
-        return revenuAujourdhui;
+        return getStatistiqueJournaliere(terrainId, LocalDate.now()).getRevenuReservations();
     }
     
     /**
@@ -171,49 +161,7 @@ public class StatistiqueService {
      * (jusqu'à l'heure de fin du terrain)
      */
     public Long getNombreReservationsHier(Long terrainId) {
-        // Vérifier que le terrain existe
-        com.matchi.model.TerrainService terrain = terrainServiceRepository.findById(terrainId)
-                .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
-        
-        LocalDate hier = LocalDate.now().minusDays(1);
-        LocalDate aujourdhui = LocalDate.now();
-        List<ReservationPonctuelle> reservations = reservationPonctuelleRepository.findByTerrain_Id(terrainId);
-        
-        java.time.LocalTime heureFermeture = terrain.getHeureFermeture();
-        java.time.LocalTime minuit = java.time.LocalTime.of(0, 0);
-        
-        // Compter les réservations d'hier
-        long countHier = reservations.stream()
-                .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(hier))
-                .count();
-        
-        // Inclure aussi les réservations d'aujourd'hui qui commencent après minuit jusqu'à l'heure de fin
-        long countAujourdhuiMatin = 0;
-        if (heureFermeture != null) {
-            countAujourdhuiMatin = reservations.stream()
-                    .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(aujourdhui))
-                    .filter(reservation -> {
-                        if (reservation.getHeureDebut() == null) {
-                            return false;
-                        }
-                        java.time.LocalTime heureDebut = reservation.getHeureDebut();
-                        // Si le terrain ferme après minuit (ex: 18h -> 2h), inclure les heures entre 00:00 et heureFermeture
-                        // Si le terrain ferme avant minuit (ex: 8h -> 22h), inclure les heures entre 00:00 et heureFermeture
-                        // Vérifier si l'heure de début est >= 00:00 et <= heureFermeture
-                        boolean apresMinuit = heureDebut.equals(minuit) || heureDebut.isAfter(minuit);
-                        boolean avantFermeture = heureDebut.equals(heureFermeture) || heureDebut.isBefore(heureFermeture);
-                        
-                        // Si heureFermeture est minuit, on considère que c'est la fin de journée (24h)
-                        if (heureFermeture.equals(minuit)) {
-                            return apresMinuit; // Toutes les heures après minuit sont incluses
-                        }
-                        
-                        return apresMinuit && avantFermeture;
-                    })
-                    .count();
-        }
-        
-        return countHier + countAujourdhuiMatin;
+        return getStatistiqueJournaliere(terrainId, LocalDate.now().minusDays(1)).getNombreReservations();
     }
     
     /**
@@ -222,125 +170,156 @@ public class StatistiqueService {
      * du terrain du jour X+1, mais les attribue au jour X.
      */
     public BigDecimal getRevenuReservationsHier(Long terrainId) {
-        // Vérifier que le terrain existe
-        com.matchi.model.TerrainService terrain = terrainServiceRepository.findById(terrainId)
-                .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
-        
-        LocalDate hier = LocalDate.now().minusDays(1);
+        return getStatistiqueJournaliere(terrainId, LocalDate.now().minusDays(1)).getRevenuReservations();
+    }
+
+    /**
+     * Retourne toutes les statistiques du tableau de bord d'un terrain en un seul appel :
+     * une vérification du terrain, une lecture des lignes pré-agrégées (aujourd'hui + hier),
+     * un agrégat COUNT/SUM des abonnements actifs et un COUNT DISTINCT des clients, tous calculés en base
+     */
+    @Transactional(readOnly = true)
+    public DashboardStatistiquesDTO getDashboard(Long terrainId) {
+        verifierTerrain(terrainId);
+
         LocalDate aujourdhui = LocalDate.now();
-        List<ReservationPonctuelle> reservations = reservationPonctuelleRepository.findByTerrain_Id(terrainId);
-        
-        java.time.LocalTime heureOuverture = terrain.getHeureOuverture();
-        java.time.LocalTime minuit = java.time.LocalTime.of(0, 0);
-        
-        // Calculer le revenu total des réservations d'hier
-        BigDecimal revenuHier = reservations.stream()
-                .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(hier))
-                .map(ReservationPonctuelle::getPrix)
-                .filter(prix -> prix != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Inclure aussi les réservations d'aujourd'hui (X+1) qui ont une heure de début entre 00:00 et l'heure d'ouverture
-        // mais les attribuer au jour X (hier)
-        if (heureOuverture != null) {
-            BigDecimal revenuAujourdhuiMatin = reservations.stream()
-                    .filter(reservation -> reservation.getDate() != null && reservation.getDate().equals(aujourdhui))
-                    .filter(reservation -> {
-                        if (reservation.getHeureDebut() == null) {
-                            return false;
-                        }
-                        java.time.LocalTime heureDebut = reservation.getHeureDebut();
-                        // Inclure les réservations qui commencent entre 00:00 et l'heure d'ouverture
-                        // Si l'heure d'ouverture est après minuit (ex: terrain ouvre à 18h et ferme à 2h), 
-                        // on inclut les heures entre 00:00 et heureOuverture (ex: 00:00 à 02:00)
-                        // Si l'heure d'ouverture est avant minuit (ex: 8h), on inclut les heures entre 00:00 et heureOuverture (ex: 00:00 à 08:00)
-                        // Vérifier si l'heure de début est >= 00:00 et < heureOuverture
-                        return (heureDebut.equals(minuit) || heureDebut.isAfter(minuit)) && 
-                               heureDebut.isBefore(heureOuverture);
-                    })
-                    .map(ReservationPonctuelle::getPrix)
-                    .filter(prix -> prix != null)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            return revenuHier.add(revenuAujourdhuiMatin);
-        }
-        
-        return revenuHier;
+        LocalDate hier = aujourdhui.minusDays(1);
+        Map<LocalDate, StatistiqueJournaliere> statistiques =
+                statistiqueJournaliereService.getStatistiques(terrainId, List.of(aujourdhui, hier));
+        StatistiqueJournaliere statistiqueAujourdhui = statistiques.get(aujourdhui);
+        StatistiqueJournaliere statistiqueHier = statistiques.get(hier);
+
+        StatistiquesAbonnementsDTO abonnementsActifs = getStatistiquesAbonnementsActifs(terrainId);
+
+        return new DashboardStatistiquesDTO(
+                terrainId,
+                statistiqueAujourdhui.getNombreReservations(),
+                statistiqueAujourdhui.getRevenuReservations(),
+                statistiqueHier.getNombreReservations(),
+                statistiqueHier.getRevenuReservations(),
+                abonnementsActifs.nombre(),
+                abonnementsActifs.revenu(),
+                clientAbonneRepository.countClientsParTerrain(terrainId)
+        );
     }
 
     /**
-     * Retourne la liste des clients qui ont fait une transaction (abonnement ou réservation ponctuelle)
-     * avec un terrain donné
+     * Retourne les statistiques d'un terrain par jour, semaine ou mois sur une période quelconque :
+     * réservations ponctuelles, créneaux d'abonnement, revenus et taux d'occupation
+     * (minutes réservées / minutes d'ouverture du terrain).
+     *
+     * ✅ Agrégation en base (GROUP BY date) lue en flux : aucune liste d'entités n'est chargée,
+     * seules les lignes agrégées par jour sont regroupées par période.
+     * Les créneaux sont attribués à leur date calendaire (sans la règle "après minuit" du tableau de bord).
+     * Les occurrences d'abonnement au-delà de l'horizon de matérialisation sont dépliées depuis leurs règles.
      */
-    public List<ClientAbonneDTO> getClientsParTerrain(Long terrainId) {
-        // Vérifier que le terrain existe
-        terrainServiceRepository.findById(terrainId)
+    @Transactional(readOnly = true)
+    public List<StatistiquesPeriodeDTO> getStatistiquesParPeriode(Long terrainId, LocalDate debut, LocalDate fin,
+                                                                 GranulariteStatistique granularite) {
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            throw new IllegalArgumentException("Période invalide : la date de fin doit être postérieure ou égale à la date de début");
+        }
+        com.matchi.model.TerrainService terrain = terrainServiceRepository.findById(terrainId)
                 .orElseThrow(() -> new IllegalArgumentException("Terrain introuvable avec l'ID: " + terrainId));
-        
-        Set<Long> clientIds = new HashSet<>();
-        Set<Integer> clientTelephones = new HashSet<>();
-        
-        // 1. Récupérer les clients depuis les abonnements
-        List<Abonnement> abonnements = abonnementRepository.findByTerrainId(terrainId);
-        for (Abonnement abonnement : abonnements) {
-            if (abonnement.getClient() != null) {
-                clientIds.add(abonnement.getClient().getId());
-                if (abonnement.getClient().getTelephone() != null) {
-                    clientTelephones.add(abonnement.getClient().getTelephone());
-                }
-            }
+
+        // Toutes les périodes apparaissent, y compris celles sans réservation
+        TreeMap<LocalDate, CumulPeriode> periodes = new TreeMap<>();
+        for (LocalDate periode = granularite.debutPeriode(debut); !periode.isAfter(fin);
+             periode = granularite.periodeSuivante(periode)) {
+            periodes.put(periode, new CumulPeriode());
         }
-        
-        // 2. Récupérer les clients depuis les réservations ponctuelles (via téléphone)
-        List<ReservationPonctuelle> reservations = reservationPonctuelleRepository.findByTerrain_Id(terrainId);
-        for (ReservationPonctuelle reservation : reservations) {
-            if (reservation.getClientTelephone() != null) {
-                clientTelephones.add(reservation.getClientTelephone());
-            }
+
+        try (Stream<AgregatJour> jours = reservationPonctuelleRepository.agregerParJour(terrainId, debut, fin)) {
+            jours.forEach(jour -> periodes.get(granularite.debutPeriode(jour.getJour())).reservations.ajouter(jour));
         }
-        
-        // 3. Récupérer les clients par ID
-        List<ClientAbonne> clientsParId = clientIds.stream()
-                .map(clientAbonneRepository::findById)
-                .filter(java.util.Optional::isPresent)
-                .map(java.util.Optional::get)
-                .collect(Collectors.toList());
-        
-        // 4. Récupérer les clients par téléphone (pour les réservations ponctuelles)
-        List<ClientAbonne> clientsParTelephone = clientTelephones.stream()
-                .map(clientAbonneRepository::findByTelephone)
-                .filter(java.util.Optional::isPresent)
-                .map(java.util.Optional::get)
-                .collect(Collectors.toList());
-        
-        // 5. Combiner et dédupliquer les clients
-        Set<Long> idsUniques = new HashSet<>();
-        List<ClientAbonne> clientsUniques = new java.util.ArrayList<>();
-        
-        // Ajouter les clients par ID
-        for (ClientAbonne client : clientsParId) {
-            if (!idsUniques.contains(client.getId())) {
-                clientsUniques.add(client);
-                idsUniques.add(client.getId());
-            }
+        try (Stream<AgregatJour> jours = abonnementHoraireRepository.agregerParJour(terrainId, debut, fin)) {
+            jours.forEach(jour -> periodes.get(granularite.debutPeriode(jour.getJour())).abonnements.ajouter(jour));
         }
-        
-        // Ajouter les clients par téléphone (qui ne sont pas déjà dans la liste)
-        for (ClientAbonne client : clientsParTelephone) {
-            if (!idsUniques.contains(client.getId())) {
-                clientsUniques.add(client);
-                idsUniques.add(client.getId());
+        for (AbonnementRecurrenceService.Occurrence occurrence :
+                abonnementRecurrenceService.getOccurrencesNonMaterialisees(terrainId, debut, fin)) {
+            periodes.get(granularite.debutPeriode(occurrence.date())).abonnements.ajouter(occurrence);
+        }
+
+        Long minutesOuvertesParJour = minutesOuverture(terrain);
+        List<StatistiquesPeriodeDTO> resultat = new java.util.ArrayList<>(periodes.size());
+        periodes.forEach((periode, cumul) -> {
+            // Les périodes aux bornes sont tronquées à l'intervalle demandé
+            LocalDate debutPeriode = periode.isBefore(debut) ? debut : periode;
+            LocalDate finPeriode = granularite.periodeSuivante(periode).minusDays(1);
+            if (finPeriode.isAfter(fin)) {
+                finPeriode = fin;
             }
+            long minutesReservees = cumul.reservations.minutes + cumul.abonnements.minutes;
+            Long minutesOuvertes = minutesOuvertesParJour != null
+                    ? minutesOuvertesParJour * (ChronoUnit.DAYS.between(debutPeriode, finPeriode) + 1)
+                    : null;
+            resultat.add(new StatistiquesPeriodeDTO(
+                    debutPeriode,
+                    finPeriode,
+                    cumul.reservations.nombre,
+                    cumul.reservations.revenu,
+                    cumul.abonnements.nombre,
+                    cumul.abonnements.revenu,
+                    cumul.reservations.revenu.add(cumul.abonnements.revenu),
+                    minutesReservees,
+                    minutesOuvertes,
+                    minutesOuvertes != null && minutesOuvertes > 0 ? (double) minutesReservees / minutesOuvertes : null
+            ));
+        });
+        return resultat;
+    }
+
+    /**
+     * Minutes d'ouverture quotidiennes du terrain (un terrain qui ferme après minuit, ex : 18h -> 2h, ouvre 8h)
+     */
+    private Long minutesOuverture(com.matchi.model.TerrainService terrain) {
+        if (terrain.getHeureOuverture() == null || terrain.getHeureFermeture() == null) {
+            return null;
         }
-        
-        // 6. Convertir en DTO
-        return clientsUniques.stream()
-                .map(client -> new ClientAbonneDTO(
-                    client.getId(),
-                    client.getNom(),
-                    client.getPrenom(),
-                    client.getTelephone()
-                ))
-                .collect(Collectors.toList());
+        long minutes = ChronoUnit.MINUTES.between(terrain.getHeureOuverture(), terrain.getHeureFermeture());
+        return minutes > 0 ? minutes : minutes + 24 * 60;
+    }
+
+    private static class CumulPeriode {
+        private final Cumul reservations = new Cumul();
+        private final Cumul abonnements = new Cumul();
+    }
+
+    private static class Cumul {
+        private long nombre;
+        private BigDecimal revenu = BigDecimal.ZERO;
+        private long minutes;
+
+        void ajouter(AgregatJour jour) {
+            nombre += jour.getNombre() != null ? jour.getNombre() : 0;
+            revenu = revenu.add(jour.getRevenu() != null ? jour.getRevenu() : BigDecimal.ZERO);
+            minutes += jour.getMinutes() != null ? jour.getMinutes() : 0;
+        }
+
+        // Même calcul que AbonnementHoraireRepository.MINUTES_HORAIRE (fin <= début : le créneau finit le lendemain)
+        void ajouter(AbonnementRecurrenceService.Occurrence occurrence) {
+            nombre++;
+            revenu = revenu.add(occurrence.prixHeure() != null ? occurrence.prixHeure() : BigDecimal.ZERO);
+            long duree = ChronoUnit.MINUTES.between(occurrence.heureDebut(), occurrence.heureFin());
+            minutes += duree > 0 ? duree : duree + 24 * 60;
+        }
+    }
+
+    private StatistiqueJournaliere getStatistiqueJournaliere(Long terrainId, LocalDate jour) {
+        verifierTerrain(terrainId);
+        return statistiqueJournaliereService.getStatistique(terrainId, jour);
+    }
+
+    /**
+     * Retourne la liste des clients qui ont fait une transaction (abonnement ou réservation ponctuelle)
+     * avec un terrain donné
+     * ✅ Une seule requête : les clients des abonnements et ceux des réservations (via téléphone)
+     * sont résolus en base, dédupliqués, projetés en DTO, paginés et triés
+     *
+     * @param pageable page demandée (Pageable.unpaged(tri) pour tous les clients)
+     */
+    public Page<ClientAbonneDTO> getClientsParTerrain(Long terrainId, Pageable pageable) {
+        verifierTerrain(terrainId);
+        return clientAbonneRepository.findClientsParTerrain(terrainId, pageable);
     }
 }
@@ -0,0 +1,299 @@
+package com.matchi.service;
+
+import com.matchi.dto.SynchronisationMetriquesDTO;
+import com.matchi.event.AbonnementHoraireChangeEvent;
+import com.matchi.event.AbonnementModifieEvent;
+import com.matchi.event.ReservationModifieEvent;
+import com.matchi.model.TypeReservation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planificateur de synchronisation des horaires indisponibles.
+ *
+ * Les événements de modification (abonnements, horaires, réservations) reçus APRÈS le commit
+ * ne déclenchent plus chacun une synchronisation : les demandes d'un même terrain arrivées
+ * pendant la fenêtre de regroupement (horaire.sync.fenetre-ms, 200 ms par défaut) sont fusionnées
+ * (union des sourceIds par type) et donnent lieu à UNE seule réconciliation, exécutée
+ * sur un pool de workers borné.
+ *
+ * ✅ File des workers pleine : la soumission est replanifiée (le thread du planificateur n'exécute
+ * jamais de synchronisation lui-même et reste disponible pour les fenêtres des autres terrains)
+ * ✅ Échec : la demande fusionnée est remise en attente pour son terrain, après un délai qui double
+ * à chaque échec consécutif (horaire.sync.backoff-*) ; elle est abandonnée (erreur journalisée et comptée)
+ * après horaire.sync.tentatives-max échecs, ou dès le premier si l'erreur est définitive (terrain supprimé...)
+ * ✅ Arrêt : les demandes encore en attente sont soumises aux workers avant leur arrêt
+ */
+@Service
+@RequiredArgsConstructor
+public class SynchronisationHoraireScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SynchronisationHoraireScheduler.class);
+
+    private final IndisponibleHoraireService indisponibleHoraireService;
+
+    @Value("${horaire.sync.fenetre-ms:200}")
+    private long fenetreMs;
+
+    @Value("${horaire.sync.workers:2}")
+    private int nombreWorkers;
+
+    @Value("${horaire.sync.file-capacite:100}")
+    private int capaciteFile;
+
+    @Value("${horaire.sync.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${horaire.sync.backoff-max-ms:60000}")
+    private long backoffMaxMs;
+
+    @Value("${horaire.sync.tentatives-max:8}")
+    private int tentativesMax;
+
+    /**
+     * Demandes en attente par terrain : sourceIds par type (null = synchronisation complète)
+     */
+    private final ConcurrentHashMap<Long, Map<TypeReservation, Set<Long>>> demandesEnAttente = new ConcurrentHashMap<>();
+
+    /**
+     * Échecs consécutifs par terrain (délai avant la nouvelle tentative)
+     */
+    private final ConcurrentHashMap<Long, Integer> echecsConsecutifs = new ConcurrentHashMap<>();
+
+    private final AtomicLong demandesRecues = new AtomicLong();
+    private final AtomicLong synchronisationsExecutees = new AtomicLong();
+    private final AtomicLong synchronisationsEchouees = new AtomicLong();
+    private final AtomicLong synchronisationsAbandonnees = new AtomicLong();
+
+    private ScheduledExecutorService planificateur;
+    private ThreadPoolExecutor workers;
+    private volatile boolean arrete = false;
+
+    @PostConstruct
+    public void init() {
+        planificateur = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "horaire-sync-planificateur");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger compteur = new AtomicInteger();
+        workers = new ThreadPoolExecutor(
+                nombreWorkers, nombreWorkers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capaciteFile),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "horaire-sync-worker-" + compteur.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // File pleine : RejectedExecutionException, la soumission est replanifiée (voir soumettre)
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("✅ Planificateur de synchronisation initialisé : fenêtre={} ms, workers={}, capacité file={}",
+                fenetreMs, nombreWorkers, capaciteFile);
+    }
+
+    @PreDestroy
+    public void arreter() {
+        arrete = true;
+        // Les fenêtres en cours ne se déclencheront plus : leurs demandes sont soumises tout de suite
+        planificateur.shutdownNow();
+        int soumises = 0;
+        for (Long terrainId : Set.copyOf(demandesEnAttente.keySet())) {
+            Map<TypeReservation, Set<Long>> demandes = demandesEnAttente.remove(terrainId);
+            if (demandes == null) {
+                continue;
+            }
+            try {
+                workers.execute(() -> executer(terrainId, demandes));
+                soumises++;
+            } catch (RejectedExecutionException e) {
+                log.warn("⚠️ Synchronisation du terrain {} abandonnée à l'arrêt (file pleine) : {}", terrainId, demandes);
+            }
+        }
+        if (soumises > 0) {
+            log.info("🛑 Arrêt : {} synchronisation(s) en attente soumise(s) avant l'arrêt des workers", soumises);
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("⚠️ Des synchronisations étaient encore en cours à l'arrêt");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ======== EVENT LISTENERS ========
+
+    /**
+     * ✅ Écoute l'événement de modification/suppression d'abonnement APRÈS le commit
+     * (création, modification des dates ou des horaires, suppression)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAbonnementModifie(AbonnementModifieEvent event) {
+        log.info("📨 Événement AbonnementModifieEvent reçu pour le terrain {}", event.terrainId());
+        demanderSynchronisation(event.terrainId(), TypeReservation.ABONNEMENT, event.sourceIds());
+    }
+
+    /**
+     * ✅ Écoute l'événement de modification/suppression de réservation APRÈS le commit
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationModifie(ReservationModifieEvent event) {
+        log.info("📨 Événement ReservationModifieEvent reçu pour le terrain {}", event.terrainId());
+        demanderSynchronisation(event.terrainId(), TypeReservation.RESERVATION_PONCTUELLE, event.sourceIds());
+    }
+
+    /**
+     * ✅ Écoute l'événement d'ajout/modification/suppression d'un horaire d'abonnement APRÈS le commit
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAbonnementHoraireChange(AbonnementHoraireChangeEvent event) {
+        demanderSynchronisation(event.terrainId(), TypeReservation.ABONNEMENT, event.sourceIds());
+    }
+
+    // ======== PLANIFICATION ========
+
+    /**
+     * Enregistre une demande de synchronisation ; elle est fusionnée avec les demandes
+     * du même terrain déjà en attente.
+     *
+     * @param sourceIds sources modifiées (null = synchronisation complète pour ce type)
+     */
+    public void demanderSynchronisation(Long terrainId, TypeReservation typeReservation, Set<Long> sourceIds) {
+        if (terrainId == null) {
+            return;
+        }
+        demandesRecues.incrementAndGet();
+        Map<TypeReservation, Set<Long>> demande = new EnumMap<>(TypeReservation.class);
+        fusionner(demande, typeReservation, sourceIds);
+        planifier(terrainId, demande, fenetreMs);
+    }
+
+    /**
+     * Fusionne des demandes avec celles déjà en attente pour le terrain. La première demande
+     * d'une rafale planifie la soumission après le délai donné ; les suivantes la rejoignent.
+     */
+    private void planifier(Long terrainId, Map<TypeReservation, Set<Long>> demandes, long delaiMs) {
+        if (arrete) {
+            log.warn("⚠️ Synchronisation du terrain {} ignorée : planificateur arrêté ({})", terrainId, demandes);
+            return;
+        }
+        demandesEnAttente.compute(terrainId, (id, enAttente) -> {
+            if (enAttente == null) {
+                planificateur.schedule(() -> soumettre(id), delaiMs, TimeUnit.MILLISECONDS);
+                return demandes;
+            }
+            demandes.forEach((type, sourceIds) -> fusionner(enAttente, type, sourceIds));
+            return enAttente;
+        });
+    }
+
+    /**
+     * Règles de fusion pour un type : les sourceIds s'additionnent, et une synchronisation complète
+     * (sourceIds null) absorbe toute demande partielle du même type, avant comme après elle
+     */
+    static void fusionner(Map<TypeReservation, Set<Long>> enAttente, TypeReservation typeReservation, Set<Long> sourceIds) {
+        if (!enAttente.containsKey(typeReservation)) {
+            enAttente.put(typeReservation, sourceIds != null ? new HashSet<>(sourceIds) : null);
+        } else if (sourceIds == null) {
+            enAttente.put(typeReservation, null);
+        } else if (enAttente.get(typeReservation) != null) {
+            enAttente.get(typeReservation).addAll(sourceIds);
+        }
+    }
+
+    private void soumettre(Long terrainId) {
+        Map<TypeReservation, Set<Long>> demandes = demandesEnAttente.remove(terrainId);
+        if (demandes == null) {
+            return;
+        }
+        try {
+            workers.execute(() -> executer(terrainId, demandes));
+        } catch (RejectedExecutionException e) {
+            // File des workers pleine : nouvelle tentative après une fenêtre, sans bloquer le planificateur
+            log.warn("⚠️ File de synchronisation pleine : terrain {} replanifié dans {} ms", terrainId, fenetreMs);
+            planifier(terrainId, demandes, fenetreMs);
+        }
+    }
+
+    private void executer(Long terrainId, Map<TypeReservation, Set<Long>> demandes) {
+        synchronisationsExecutees.incrementAndGet();
+        try {
+            // Une synchronisation complète couvre tous les types : inutile de traiter les autres demandes
+            if (demandes.containsValue(null)) {
+                indisponibleHoraireService.synchroniserHorairesIndisponibles(terrainId);
+            } else {
+                demandes.forEach((type, sourceIds) ->
+                        indisponibleHoraireService.synchroniserSources(terrainId, type, sourceIds));
+            }
+            echecsConsecutifs.remove(terrainId);
+            log.info("✅ Synchronisation terminée pour le terrain {} - Les événements (created/updated/deleted) sont dans l'outbox",
+                    terrainId);
+        } catch (Exception e) {
+            synchronisationsEchouees.incrementAndGet();
+            int echecs = echecsConsecutifs.merge(terrainId, 1, Integer::sum);
+            // Erreur définitive (ex : terrain supprimé) ou tentatives épuisées : la demande est abandonnée
+            if (e instanceof IllegalArgumentException || echecs >= tentativesMax) {
+                echecsConsecutifs.remove(terrainId);
+                synchronisationsAbandonnees.incrementAndGet();
+                log.error("❌ Synchronisation du terrain {} abandonnée après {} échec(s) : {} - demandes perdues : {}",
+                        terrainId, echecs, e.getMessage(), demandes, e);
+                return;
+            }
+            long delai = delaiAvantNouvelleTentative(echecs);
+            log.error("❌ Erreur lors de la synchronisation du terrain {} (échec n°{}), nouvelle tentative dans {} ms : {}",
+                    terrainId, echecs, delai, e.getMessage(), e);
+            // La demande fusionnée est remise en attente (avec celles arrivées entre-temps)
+            planifier(terrainId, demandes, delai);
+        }
+    }
+
+    /**
+     * Backoff exponentiel plafonné : backoff-initial-ms, puis le double à chaque échec, jusqu'à backoff-max-ms
+     */
+    long delaiAvantNouvelleTentative(int echecs) {
+        return Math.min(backoffMaxMs, backoffInitialMs << Math.min(echecs - 1, 20));
+    }
+
+    // ======== MÉTRIQUES ========
+
+    /**
+     * Métriques du planificateur : profondeur des files et ratio de regroupement
+     * (nombre moyen de demandes traitées par synchronisation exécutée)
+     */
+    public SynchronisationMetriquesDTO getMetriques() {
+        long demandes = demandesRecues.get();
+        long executions = synchronisationsExecutees.get();
+        return new SynchronisationMetriquesDTO(
+                demandesEnAttente.size(),
+                workers.getQueue().size(),
+                workers.getActiveCount(),
+                demandes,
+                executions,
+                synchronisationsEchouees.get(),
+                synchronisationsAbandonnees.get(),
+                executions > 0 ? (double) demandes / executions : 0.0
+        );
+    }
+}
@@ -0,0 +1,123 @@
+package com.matchi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache en mémoire de la résolution "téléphone du propriétaire -> terrain"
+ * utilisée par le listener Kafka des événements Django (champ numTel).
+ *
+ * ✅ TTL (horaire.cache.telephone-terrain.ttl-ms) et taille bornée (horaire.cache.telephone-terrain.taille-max)
+ * ✅ Les absences de terrain sont aussi mises en cache (un numTel inconnu ne déclenche pas une requête par message)
+ * ✅ Invalidation : ProprietaireService (create/update/delete) et TerrainServiceService (écritures),
+ *    appliquée immédiatement puis de nouveau après le commit de la transaction
+ */
+@Service
+public class TelephoneTerrainCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(TelephoneTerrainCacheService.class);
+
+    /**
+     * Entrée du cache : terrainId null = aucun terrain pour ce téléphone
+     */
+    private record Entree(Long terrainId, long expireA) {}
+
+    @Value("${horaire.cache.telephone-terrain.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${horaire.cache.telephone-terrain.taille-max:10000}")
+    private int tailleMax;
+
+    private final ConcurrentHashMap<Integer, Entree> entrees = new ConcurrentHashMap<>();
+
+    /**
+     * Résout le terrain de chaque téléphone : les entrées valides sont lues dans le cache,
+     * les autres sont chargées en une fois par le chargeur puis mises en cache.
+     *
+     * @param chargeur charge les terrains des téléphones absents du cache (téléphones sans terrain omis)
+     * @return terrainId par téléphone (les téléphones sans terrain sont absents)
+     */
+    public Map<Integer, Long> resoudre(Set<Integer> telephones, Function<Set<Integer>, Map<Integer, Long>> chargeur) {
+        Map<Integer, Long> resultat = new HashMap<>();
+        Set<Integer> manquants = new HashSet<>();
+        long maintenant = System.currentTimeMillis();
+
+        for (Integer telephone : telephones) {
+            Entree entree = entrees.get(telephone);
+            if (entree == null || entree.expireA() < maintenant) {
+                manquants.add(telephone);
+            } else if (entree.terrainId() != null) {
+                resultat.put(telephone, entree.terrainId());
+            }
+        }
+        if (manquants.isEmpty()) {
+            return resultat;
+        }
+
+        Map<Integer, Long> charges = chargeur.apply(manquants);
+        resultat.putAll(charges);
+
+        if (entrees.size() + manquants.size() > tailleMax) {
+            purger(maintenant);
+        }
+        long expireA = maintenant + ttlMs;
+        for (Integer telephone : manquants) {
+            entrees.put(telephone, new Entree(charges.get(telephone), expireA));
+        }
+        log.debug("🔍 Résolution téléphone -> terrain : {} en cache, {} chargé(s)",
+                telephones.size() - manquants.size(), manquants.size());
+        return resultat;
+    }
+
+    /**
+     * Invalide les entrées des téléphones donnés (ex : ancien et nouveau téléphone d'un propriétaire)
+     */
+    public void invalider(Collection<Integer> telephones) {
+        Runnable action = () -> telephones.forEach(telephone -> {
+            if (telephone != null) {
+                entrees.remove(telephone);
+            }
+        });
+        action.run();
+        apresCommit(action);
+    }
+
+    public void invalider(Integer telephone) {
+        invalider(Collections.singletonList(telephone));
+    }
+
+    /**
+     * Retire les entrées expirées ; si le cache reste plein, il est vidé
+     */
+    private void purger(long maintenant) {
+        entrees.values().removeIf(entree -> entree.expireA() < maintenant);
+        if (entrees.size() >= tailleMax) {
+            log.debug("🧹 Cache téléphone -> terrain plein ({} entrées), vidé", entrees.size());
+            entrees.clear();
+        }
+    }
+
+    private void apresCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package com.matchi.service;
 
+import com.matchi.dto.PageCurseur;
 import com.matchi.dto.TerrainServiceDTO;
 import com.matchi.model.Proprietaire;
 import com.matchi.model.TerrainService;
 import com.matchi.repository.ProprietaireRepository;
 import com.matchi.repository.TerrainServiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +22,9 @@ public class TerrainServiceService {
 
     private final TerrainServiceRepository terrainRepository;
     private final ProprietaireRepository proprietaireRepository;
+    private final OccupationIndexService occupationIndexService;
+    private final TelephoneTerrainCacheService telephoneTerrainCacheService;
+    private final StatistiqueJournaliereService statistiqueJournaliereService;
 
     // ======== MAPPERS ========
     private TerrainServiceDTO toDTO(TerrainService terrain) {
@@ -32,6 +39,10 @@ public class TerrainServiceService {
         );
     }
 
+    private Integer telephoneProprietaire(TerrainService terrain) {
+        return terrain.getProprietaire() != null ? terrain.getProprietaire().getTelephone() : null;
+    }
+
     private TerrainService toEntity(TerrainServiceDTO dto) {
         TerrainService terrain = new TerrainService();
         terrain.setId(dto.id());
@@ -80,11 +91,9 @@ public class TerrainServiceService {
     }
 
     // ======== SERVICES ========
-    public List<TerrainServiceDTO> getAllTerrains() {
-        return terrainRepository.findAll()
-                .stream()
-                .map(this::toDTO)
-                .toList();
+    public PageCurseur<TerrainServiceDTO> getAllTerrains(String curseur, int taille) {
+        List<TerrainServiceDTO> lignes = terrainRepository.findApres(PageCurseur.idApres(curseur), Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille, terrain -> String.valueOf(terrain.id()));
     }
 
     public TerrainServiceDTO ajouterTerrain(TerrainServiceDTO dto) {
@@ -95,6 +104,7 @@ public class TerrainServiceService {
         
         TerrainService terrain = toEntity(dto);
         TerrainService saved = terrainRepository.save(terrain);
+        telephoneTerrainCacheService.invalider(telephoneProprietaire(saved));
         return toDTO(saved);
     }
 
@@ -105,16 +115,23 @@ public class TerrainServiceService {
     }
 
     public boolean supprimerTerrain(Long id) {
-        if (!terrainRepository.existsById(id)) {
+        TerrainService terrain = terrainRepository.findById(id).orElse(null);
+        if (terrain == null) {
             return false;
         }
-        terrainRepository.deleteById(id);
+        terrainRepository.delete(terrain);
+        occupationIndexService.invalider(id);
+        statistiqueJournaliereService.supprimerTerrain(id);
+        telephoneTerrainCacheService.invalider(telephoneProprietaire(terrain));
         return true;
     }
 
     public TerrainServiceDTO mettreAJourTerrain(Long id, TerrainServiceDTO dto) {
         return terrainRepository.findById(id)
                 .map(existant -> {
+                    Integer ancienTelephone = telephoneProprietaire(existant);
+                    LocalTime ancienneOuverture = existant.getHeureOuverture();
+                    LocalTime ancienneFermeture = existant.getHeureFermeture();
                     // Mise à jour partielle - uniquement les champs non-null
                     if (dto.nom() != null) {
                         existant.setNom(dto.nom());
@@ -150,7 +167,16 @@ public class TerrainServiceService {
                         existant.setProprietaire(proprietaire);
                     }
 
-                    return toDTO(terrainRepository.save(existant));
+                    TerrainService saved = terrainRepository.save(existant);
+                    // Les heures d'ouverture bornent les créneaux libres de l'index
+                    occupationIndexService.invalider(id);
+                    // Les heures d'ouverture/fermeture déterminent l'attribution des réservations après minuit
+                    if (!Objects.equals(ancienneOuverture, saved.getHeureOuverture())
+                            || !Objects.equals(ancienneFermeture, saved.getHeureFermeture())) {
+                        statistiqueJournaliereService.recalculerTerrain(id);
+                    }
+                    telephoneTerrainCacheService.invalider(Arrays.asList(ancienTelephone, telephoneProprietaire(saved)));
+                    return toDTO(saved);
                 })
                 .orElse(null);
     }
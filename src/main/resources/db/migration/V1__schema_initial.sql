@@ -0,0 +1,103 @@
+-- ============================================================
+-- V1 : schéma initial (état des entités avant les optimisations)
+-- Sur une base existante créée par ddl-auto=update, cette version
+-- est marquée comme baseline et n'est pas rejouée.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS proprietaire (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nom VARCHAR(255),
+    prenom VARCHAR(255),
+    telephone INT,
+    password VARCHAR(255),
+    is_active TINYINT(1) DEFAULT 0,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_proprietaire_telephone UNIQUE (telephone)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS terrain_service (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nom VARCHAR(255),
+    adresse VARCHAR(255),
+    proprietaire_id BIGINT,
+    heure_ouverture TIME,
+    heure_fermeture TIME,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_terrain_proprietaire FOREIGN KEY (proprietaire_id) REFERENCES proprietaire (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS tarif_terrain (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    terrain_id BIGINT,
+    jour_semaine ENUM ('LUNDI', 'MARDI', 'MERCREDI', 'JEUDI', 'VENDREDI', 'SAMEDI', 'DIMANCHE'),
+    heure_debut TIME,
+    heure_fin TIME,
+    prix_par_heure DECIMAL(38, 2),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_tarif_terrain FOREIGN KEY (terrain_id) REFERENCES terrain_service (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS client_abonne (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nom VARCHAR(255),
+    prenom VARCHAR(255),
+    telephone INT,
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS abonnement (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    terrain_id BIGINT,
+    client_id BIGINT,
+    date_debut DATE,
+    date_fin DATE,
+    prix_total DECIMAL(38, 2),
+    status ENUM ('ACTIF', 'SUSPENDU', 'TERMINE'),
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_abonnement_terrain FOREIGN KEY (terrain_id) REFERENCES terrain_service (id),
+    CONSTRAINT fk_abonnement_client FOREIGN KEY (client_id) REFERENCES client_abonne (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS abonnement_horaire (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    abonnement_id BIGINT,
+    jour_semaine ENUM ('LUNDI', 'MARDI', 'MERCREDI', 'JEUDI', 'VENDREDI', 'SAMEDI', 'DIMANCHE'),
+    date DATE,
+    heure_debut TIME,
+    heure_fin TIME,
+    prix_heure DECIMAL(38, 2),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_abonnement_horaire_abonnement FOREIGN KEY (abonnement_id) REFERENCES abonnement (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS reservation_ponctuelle (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    date DATE,
+    heure_debut TIME,
+    heure_fin TIME,
+    prix DECIMAL(38, 2),
+    client_telephone INT,
+    terrain_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reservation_terrain FOREIGN KEY (terrain_id) REFERENCES terrain_service (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS indisponible_horaire (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    uuid BINARY(16) NOT NULL,
+    terrain_id BIGINT,
+    date DATE,
+    heure_debut TIME,
+    heure_fin TIME,
+    type_reservation ENUM ('ABONNEMENT', 'RESERVATION_PONCTUELLE'),
+    source_id BIGINT,
+    description VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_indisponible_uuid UNIQUE (uuid),
+    CONSTRAINT uk_horaire_source UNIQUE (terrain_id, type_reservation, source_id),
+    CONSTRAINT fk_indisponible_terrain FOREIGN KEY (terrain_id) REFERENCES terrain_service (id)
+) ENGINE = InnoDB;
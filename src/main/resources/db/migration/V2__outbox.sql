@@ -0,0 +1,21 @@
+-- ============================================================
+-- V2 : outbox des événements de synchronisation des horaires
+-- (écrite dans la transaction métier, relayée vers Kafka par OutboxRelayService)
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    horaire_uuid BINARY(16) NOT NULL,
+    action VARCHAR(16) NOT NULL,
+    terrain_id BIGINT,
+    date DATE,
+    heure_debut TIME,
+    heure_fin TIME,
+    type_reservation ENUM ('ABONNEMENT', 'RESERVATION_PONCTUELLE'),
+    source_id BIGINT,
+    description VARCHAR(255),
+    proprietaire_telephone INT,
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
@@ -0,0 +1,14 @@
+-- ============================================================
+-- V3 : agrégat journalier des réservations ponctuelles par terrain
+-- (maintenu par StatistiqueJournaliereService, reconstruit au démarrage si vide)
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS statistique_journaliere (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    terrain_id BIGINT NOT NULL,
+    jour DATE NOT NULL,
+    nombre_reservations BIGINT NOT NULL,
+    revenu_reservations DECIMAL(12, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_statistique_terrain_jour UNIQUE (terrain_id, jour)
+) ENGINE = InnoDB;
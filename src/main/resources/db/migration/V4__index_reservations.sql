@@ -0,0 +1,61 @@
+-- ============================================================
+-- V4 : index composites des tables de réservation
+-- MySQL ne supporte pas CREATE INDEX IF NOT EXISTS : chaque index n'est créé
+-- que s'il est absent (il a pu être créé par ddl-auto=update avant le passage à Flyway)
+-- ============================================================
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'reservation_ponctuelle' AND index_name = 'idx_reservation_terrain_date');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_reservation_terrain_date ON reservation_ponctuelle (terrain_id, date, heure_debut)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'reservation_ponctuelle' AND index_name = 'idx_reservation_client_telephone');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_reservation_client_telephone ON reservation_ponctuelle (client_telephone)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'indisponible_horaire' AND index_name = 'idx_indisponible_terrain_date');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_indisponible_terrain_date ON indisponible_horaire (terrain_id, date, heure_debut)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'indisponible_horaire' AND index_name = 'idx_indisponible_type_source');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_indisponible_type_source ON indisponible_horaire (type_reservation, source_id)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'abonnement_horaire' AND index_name = 'idx_abonnement_horaire_abonnement_date');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_abonnement_horaire_abonnement_date ON abonnement_horaire (abonnement_id, date)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'abonnement' AND index_name = 'idx_abonnement_terrain_status');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_abonnement_terrain_status ON abonnement (terrain_id, status)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'abonnement' AND index_name = 'idx_abonnement_client_status');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_abonnement_client_status ON abonnement (client_id, status)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
+
+SET @existe := (SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'client_abonne' AND index_name = 'idx_client_abonne_telephone');
+SET @ddl := IF(@existe = 0, 'CREATE INDEX idx_client_abonne_telephone ON client_abonne (telephone)', 'DO 0');
+PREPARE instruction FROM @ddl;
+EXECUTE instruction;
+DEALLOCATE PREPARE instruction;
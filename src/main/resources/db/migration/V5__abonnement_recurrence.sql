@@ -0,0 +1,32 @@
+-- ============================================================
+-- V5 : règles de récurrence des abonnements
+-- Les occurrences au-delà de l'horizon de matérialisation ne sont plus écrites
+-- dans abonnement_horaire : elles sont dépliées à partir de la règle
+-- (suppression en cascade avec l'abonnement)
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS abonnement_recurrence (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    abonnement_id BIGINT NOT NULL,
+    terrain_id BIGINT NOT NULL,
+    jour_semaine ENUM ('LUNDI', 'MARDI', 'MERCREDI', 'JEUDI', 'VENDREDI', 'SAMEDI', 'DIMANCHE') NOT NULL,
+    heure_debut TIME NOT NULL,
+    heure_fin TIME NOT NULL,
+    prix_heure DECIMAL(38, 2),
+    date_debut DATE NOT NULL,
+    date_fin DATE NOT NULL,
+    materialise_jusqua DATE NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_abonnement_recurrence_terrain_fin (terrain_id, date_fin),
+    INDEX idx_abonnement_recurrence_abonnement (abonnement_id),
+    CONSTRAINT fk_abonnement_recurrence_abonnement FOREIGN KEY (abonnement_id)
+        REFERENCES abonnement (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS abonnement_recurrence_exception (
+    recurrence_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    PRIMARY KEY (recurrence_id, date),
+    CONSTRAINT fk_recurrence_exception_recurrence FOREIGN KEY (recurrence_id)
+        REFERENCES abonnement_recurrence (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
@@ -0,0 +1,54 @@
+package com.matchi.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CurseurCreneauTest {
+
+    private static final LocalDate JOUR = LocalDate.of(2026, 3, 10);
+
+    @Test
+    void encodageReversible() {
+        CurseurCreneau curseur = new CurseurCreneau(JOUR, LocalTime.of(18, 30), 42L);
+
+        assertEquals(curseur, CurseurCreneau.decoder(curseur.encoder()));
+    }
+
+    @Test
+    void heureDebutNulleEncodeeVide() {
+        CurseurCreneau curseur = new CurseurCreneau(JOUR, null, 42L);
+
+        assertEquals("2026-03-10||42", new String(Base64.getUrlDecoder().decode(curseur.encoder()), StandardCharsets.UTF_8));
+        assertEquals(curseur, CurseurCreneau.decoder(curseur.encoder()));
+    }
+
+    @Test
+    void curseurAbsentDonneNull() {
+        assertNull(CurseurCreneau.decoder(null));
+        assertNull(CurseurCreneau.decoder(" "));
+    }
+
+    @Test
+    void curseurInvalideRefuse() {
+        assertThrows(IllegalArgumentException.class, () -> CurseurCreneau.decoder("pas-un-curseur"));
+        assertThrows(IllegalArgumentException.class, () -> CurseurCreneau.decoder(encoder("2026-03-10|18:30")));
+        assertThrows(IllegalArgumentException.class, () -> CurseurCreneau.decoder(encoder("2026-03-10|25:00|1")));
+    }
+
+    @Test
+    void positionDeDepartAvantLaDate() {
+        assertEquals(new CurseurCreneau(JOUR.minusDays(1), LocalTime.MIDNIGHT, 0L), CurseurCreneau.avant(JOUR));
+    }
+
+    private static String encoder(String valeur) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valeur.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+package com.matchi.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCurseurTest {
+
+    @Test
+    void tailleBornee() {
+        assertEquals(PageCurseur.TAILLE_DEFAUT, PageCurseur.taille(null));
+        assertEquals(1, PageCurseur.taille(0));
+        assertEquals(1, PageCurseur.taille(-5));
+        assertEquals(20, PageCurseur.taille(20));
+        assertEquals(PageCurseur.TAILLE_MAX, PageCurseur.taille(10_000));
+    }
+
+    @Test
+    void ligneEnTropDonneLeCurseurDeLaDerniereLigneDeLaPage() {
+        PageCurseur<Long> page = PageCurseur.depuis(List.of(1L, 2L, 3L), 2, String::valueOf);
+
+        assertEquals(List.of(1L, 2L), page.elements());
+        assertEquals("2", page.curseurSuivant());
+    }
+
+    @Test
+    void dernierePageSansCurseur() {
+        assertNull(PageCurseur.depuis(List.of(1L, 2L), 2, String::valueOf).curseurSuivant());
+        assertNull(PageCurseur.depuis(List.of(1L), 2, String::valueOf).curseurSuivant());
+        assertNull(PageCurseur.depuis(List.<Long>of(), 2, String::valueOf).curseurSuivant());
+    }
+
+    @Test
+    void idApresLeCurseur() {
+        assertEquals(0L, PageCurseur.idApres(null));
+        assertEquals(0L, PageCurseur.idApres(""));
+        assertEquals(42L, PageCurseur.idApres("42"));
+        assertThrows(IllegalArgumentException.class, () -> PageCurseur.idApres("abc"));
+    }
+
+    @Test
+    void sansCurseurNiTailleToutesLesPagesSontLues() {
+        List<Integer> taillesDemandees = new ArrayList<>();
+        List<Long> ids = LongStream.rangeClosed(1, PageCurseur.TAILLE_MAX * 2L + 3).boxed().toList();
+
+        ResponseEntity<List<Long>> reponse = PageCurseur.reponse(null, null, pages(ids, taillesDemandees));
+
+        assertEquals(ids, reponse.getBody());
+        assertNull(reponse.getHeaders().getFirst("X-Next-Cursor"));
+        assertEquals(List.of(PageCurseur.TAILLE_MAX, PageCurseur.TAILLE_MAX, PageCurseur.TAILLE_MAX), taillesDemandees);
+    }
+
+    @Test
+    void pageDemandeeAvecCurseurSuivantEnEnTete() {
+        List<Long> ids = LongStream.rangeClosed(1, 10).boxed().toList();
+
+        ResponseEntity<List<Long>> reponse = PageCurseur.reponse("3", 4, pages(ids, new ArrayList<>()));
+
+        assertEquals(List.of(4L, 5L, 6L, 7L), reponse.getBody());
+        assertEquals("7", reponse.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void dernierePageDemandeeSansEnTete() {
+        List<Long> ids = LongStream.rangeClosed(1, 10).boxed().toList();
+
+        ResponseEntity<List<Long>> reponse = PageCurseur.reponse("7", null, pages(ids, new ArrayList<>()));
+
+        assertEquals(List.of(8L, 9L, 10L), reponse.getBody());
+        assertNull(reponse.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    /**
+     * Liste triée par ID lue comme un repository keyset : au plus taille + 1 lignes après le curseur
+     */
+    private static BiFunction<String, Integer, PageCurseur<Long>> pages(List<Long> ids, List<Integer> taillesDemandees) {
+        return (curseur, taille) -> {
+            taillesDemandees.add(taille);
+            long apres = PageCurseur.idApres(curseur);
+            List<Long> lignes = ids.stream().filter(id -> id > apres).limit(taille + 1L).toList();
+            return PageCurseur.depuis(lignes, taille, String::valueOf);
+        };
+    }
+}
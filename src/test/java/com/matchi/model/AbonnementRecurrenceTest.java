@@ -0,0 +1,81 @@
+package com.matchi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AbonnementRecurrenceTest {
+
+    // Mardis du 3 mars au 31 mars 2026
+    private static final LocalDate DEBUT = LocalDate.of(2026, 3, 3);
+    private static final LocalDate FIN = LocalDate.of(2026, 3, 31);
+
+    @Test
+    void depliageHebdomadaireDepuisLeDebutDeLaSerie() {
+        assertEquals(List.of(DEBUT, DEBUT.plusWeeks(1), DEBUT.plusWeeks(2), DEBUT.plusWeeks(3), FIN),
+                regle(DEBUT.minusDays(1)).occurrences(null, FIN));
+    }
+
+    @Test
+    void occurrencesStrictementApresLaDateDonnee() {
+        AbonnementRecurrence regle = regle(DEBUT.minusDays(1));
+
+        // Date d'une occurrence : exclue
+        assertEquals(List.of(DEBUT.plusWeeks(3), FIN), regle.occurrences(DEBUT.plusWeeks(2), FIN));
+        // Date hors série (un jeudi) : reprise au mardi suivant
+        assertEquals(List.of(DEBUT.plusWeeks(2), DEBUT.plusWeeks(3), FIN), regle.occurrences(DEBUT.plusWeeks(1).plusDays(2), FIN));
+    }
+
+    @Test
+    void depliageBorneParLaFinDeLaSerie() {
+        AbonnementRecurrence regle = regle(DEBUT.minusDays(1));
+
+        assertEquals(List.of(DEBUT, DEBUT.plusWeeks(1)), regle.occurrences(null, DEBUT.plusWeeks(1).plusDays(3)));
+        assertEquals(FIN, regle.occurrences(null, FIN.plusYears(1)).get(4));
+        assertEquals(5, regle.occurrences(null, FIN.plusYears(1)).size());
+    }
+
+    @Test
+    void exceptionsExclues() {
+        AbonnementRecurrence regle = regle(DEBUT.minusDays(1));
+        regle.getExceptions().add(DEBUT.plusWeeks(1));
+        regle.getExceptions().add(FIN);
+
+        assertEquals(List.of(DEBUT, DEBUT.plusWeeks(2), DEBUT.plusWeeks(3)), regle.occurrences(null, FIN));
+    }
+
+    @Test
+    void occurrencesNonMaterialiseesApresLHorizon() {
+        AbonnementRecurrence regle = regle(DEBUT.plusWeeks(2));
+
+        assertEquals(List.of(DEBUT.plusWeeks(3), FIN), regle.occurrencesNonMaterialisees());
+        // Période qui commence avant l'horizon : seules les occurrences après l'horizon
+        assertEquals(List.of(DEBUT.plusWeeks(3)), regle.occurrencesNonMaterialisees(DEBUT, DEBUT.plusWeeks(3)));
+        // Période qui commence après l'horizon : bornée par son début (inclus)
+        assertEquals(List.of(FIN), regle.occurrencesNonMaterialisees(FIN, FIN));
+        assertTrue(regle.occurrencesNonMaterialisees(DEBUT, DEBUT.plusWeeks(2)).isEmpty());
+    }
+
+    @Test
+    void serieEntierementMaterialisee() {
+        assertTrue(regle(FIN).occurrencesNonMaterialisees().isEmpty());
+    }
+
+    private static AbonnementRecurrence regle(LocalDate materialiseJusqua) {
+        return AbonnementRecurrence.builder()
+                .abonnementId(7L)
+                .terrainId(1L)
+                .jourSemaine(JourSemaine.MARDI)
+                .heureDebut(LocalTime.of(18, 0))
+                .heureFin(LocalTime.of(19, 0))
+                .dateDebut(DEBUT)
+                .dateFin(FIN)
+                .materialiseJusqua(materialiseJusqua)
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.matchi.repository;
+
+import com.matchi.model.AbonnementHoraire;
+import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.TypeReservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HoraireJdbcRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private HoraireJdbcRepository horaireJdbcRepository;
+
+    // Table simulée : sources déjà présentes (contrainte unique) et lots exécutés
+    private final Set<Long> sourcesExistantes = new HashSet<>();
+    private final List<Integer> taillesDesLots = new ArrayList<>();
+    private long prochainId = 100;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        namedParameterJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        horaireJdbcRepository = new HoraireJdbcRepository(jdbcTemplate, namedParameterJdbcTemplate);
+        ReflectionTestUtils.setField(horaireJdbcRepository, "tailleLot", 2);
+
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter lot = invocation.getArgument(1);
+            KeyHolder cles = invocation.getArgument(2);
+            taillesDesLots.add(lot.getBatchSize());
+
+            // INSERT multi-lignes : rejeté en entier si une ligne viole la contrainte unique
+            List<Long> sources = new ArrayList<>();
+            for (int i = 0; i < lot.getBatchSize(); i++) {
+                sources.add(sourceLiee(lot, i));
+            }
+            if (sources.stream().anyMatch(source -> source != null && sourcesExistantes.contains(source))) {
+                throw new DuplicateKeyException("Duplicate entry");
+            }
+            for (Long source : sources) {
+                if (source != null) {
+                    sourcesExistantes.add(source);
+                }
+                cles.getKeyList().add(Map.of("GENERATED_KEY", prochainId++));
+            }
+            return new int[lot.getBatchSize()];
+        });
+    }
+
+    @Test
+    void horairesDAbonnementInseresParLotsAvecLeursId() {
+        List<AbonnementHoraire> horaires = IntStream.range(0, 5).mapToObj(i -> new AbonnementHoraire()).toList();
+
+        horaireJdbcRepository.insererAbonnementHoraires(horaires);
+
+        assertEquals(List.of(2, 2, 1), taillesDesLots);
+        assertEquals(List.of(100L, 101L, 102L, 103L, 104L), horaires.stream().map(AbonnementHoraire::getId).toList());
+    }
+
+    @Test
+    void horairesIndisponiblesRecoiventUnUuidEtLeurId() {
+        List<IndisponibleHoraire> horaires = List.of(indisponible(10L), indisponible(11L), indisponible(12L));
+
+        List<IndisponibleHoraire> inseres = horaireJdbcRepository.insererIndisponibleHoraires(horaires);
+
+        assertEquals(horaires, inseres);
+        assertEquals(List.of(100L, 101L, 102L), inseres.stream().map(IndisponibleHoraire::getId).toList());
+        inseres.forEach(horaire -> assertNotNull(horaire.getUuid()));
+    }
+
+    @Test
+    void lotRejeteEstReinsereLigneParLigneSansLesDoublons() {
+        sourcesExistantes.add(11L);
+        IndisponibleHoraire premier = indisponible(10L);
+        IndisponibleHoraire doublon = indisponible(11L);
+        IndisponibleHoraire dernier = indisponible(12L);
+
+        List<IndisponibleHoraire> inseres = horaireJdbcRepository.insererIndisponibleHoraires(
+                new ArrayList<>(List.of(premier, doublon, dernier)));
+
+        assertEquals(List.of(premier, dernier), inseres);
+        assertEquals(100L, premier.getId());
+        assertEquals(101L, dernier.getId());
+        // Lot [10, 11] rejeté, lignes 10 puis 11 (doublon), lot [12]
+        assertEquals(List.of(2, 1, 1, 1), taillesDesLots);
+    }
+
+    @Test
+    void lignesDejaEcritesAvantLErreurSontRetrouveesParUuid() {
+        sourcesExistantes.add(11L);
+        IndisponibleHoraire dejaEcrit = indisponible(10L);
+        dejaEcrit.setUuid(UUID.randomUUID());
+        sourcesExistantes.add(10L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            ResultSet ligne = mock(ResultSet.class);
+            when(ligne.getBytes("uuid")).thenReturn(octets(dejaEcrit.getUuid()));
+            when(ligne.getLong("id")).thenReturn(42L);
+            handler.processRow(ligne);
+            return null;
+        }).when(namedParameterJdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        List<IndisponibleHoraire> inseres = horaireJdbcRepository.insererIndisponibleHoraires(
+                new ArrayList<>(List.of(dejaEcrit, indisponible(11L))));
+
+        assertEquals(List.of(dejaEcrit), inseres);
+        assertEquals(42L, dejaEcrit.getId());
+    }
+
+    @Test
+    void nombreDIdInattenduEstUneErreur() {
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenReturn(new int[1]);
+
+        assertThrows(IllegalStateException.class,
+                () -> horaireJdbcRepository.insererAbonnementHoraires(List.of(new AbonnementHoraire())));
+    }
+
+    /**
+     * sourceId lié en 7e paramètre (horaire indisponible, 8 paramètres), null pour un horaire d'abonnement
+     */
+    private static Long sourceLiee(BatchPreparedStatementSetter lot, int index) throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        Map<Integer, Object> parametres = new HashMap<>();
+        doAnswer(invocation -> parametres.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(ps).setObject(anyInt(), any(), anyInt());
+        lot.setValues(ps, index);
+        return parametres.containsKey(8) ? (Long) parametres.get(7) : null;
+    }
+
+    private static IndisponibleHoraire indisponible(Long sourceId) {
+        return IndisponibleHoraire.builder()
+                .typeReservation(TypeReservation.ABONNEMENT)
+                .sourceId(sourceId)
+                .build();
+    }
+
+    private static byte[] octets(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,175 @@
+package com.matchi.service;
+
+import com.matchi.event.AbonnementModifieEvent;
+import com.matchi.model.Abonnement;
+import com.matchi.model.AbonnementHoraire;
+import com.matchi.model.AbonnementRecurrence;
+import com.matchi.model.JourSemaine;
+import com.matchi.model.TerrainService;
+import com.matchi.model.TypeReservation;
+import com.matchi.repository.AbonnementRecurrenceRepository;
+import com.matchi.repository.HoraireJdbcRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AbonnementRecurrenceServiceTest {
+
+    private static final Long ABONNEMENT_ID = 7L;
+    private static final Long TERRAIN_ID = 1L;
+    private static final BigDecimal PRIX = new BigDecimal("50");
+
+    private AbonnementRecurrenceRepository recurrenceRepository;
+    private HoraireJdbcRepository horaireJdbcRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private ConflictEngine conflictEngine;
+    private EntityManager entityManager;
+    private AbonnementRecurrenceService abonnementRecurrenceService;
+
+    @BeforeEach
+    void setUp() {
+        recurrenceRepository = mock(AbonnementRecurrenceRepository.class);
+        horaireJdbcRepository = mock(HoraireJdbcRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        conflictEngine = mock(ConflictEngine.class);
+        entityManager = mock(EntityManager.class);
+
+        abonnementRecurrenceService = new AbonnementRecurrenceService(
+                recurrenceRepository, horaireJdbcRepository, eventPublisher, conflictEngine);
+        ReflectionTestUtils.setField(abonnementRecurrenceService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(abonnementRecurrenceService, "horizonSemaines", 9);
+        ReflectionTestUtils.setField(abonnementRecurrenceService, "fenetreReservationDjangoSemaines", 8);
+    }
+
+    @Test
+    void horizonReleveAuDelaDeLaFenetreDeReservationDjango() {
+        ReflectionTestUtils.setField(abonnementRecurrenceService, "horizonSemaines", 4);
+
+        abonnementRecurrenceService.verifierHorizon();
+
+        assertEquals(9, ReflectionTestUtils.getField(abonnementRecurrenceService, "horizonSemaines"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void planifierNeMaterialiseQueLHorizonEtGardeLesTrousEnExceptions() {
+        LocalDate premier = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.TUESDAY));
+        LocalDate horizon = LocalDate.now().plusWeeks(9);
+        LocalDate trou = premier.plusWeeks(12);
+        List<AbonnementHoraire> occurrences = new ArrayList<>();
+        for (int semaine = 0; semaine < 15; semaine++) {
+            LocalDate date = premier.plusWeeks(semaine);
+            if (!date.equals(trou)) {
+                occurrences.add(occurrence(date));
+            }
+        }
+
+        List<AbonnementHoraire> aInserer = abonnementRecurrenceService.planifier(abonnement(), occurrences);
+
+        assertEquals(occurrences.stream().filter(o -> !o.getDate().isAfter(horizon)).toList(), aInserer);
+        ArgumentCaptor<Iterable<AbonnementRecurrence>> regles = ArgumentCaptor.forClass(Iterable.class);
+        verify(recurrenceRepository).saveAll(regles.capture());
+        AbonnementRecurrence regle = regles.getValue().iterator().next();
+        assertEquals(aInserer.get(aInserer.size() - 1).getDate().plusWeeks(1), regle.getDateDebut());
+        assertEquals(premier.plusWeeks(14), regle.getDateFin());
+        assertEquals(horizon, regle.getMaterialiseJusqua());
+        assertEquals(Set.of(trou), regle.getExceptions());
+        assertEquals(occurrences.size() - aInserer.size(), regle.occurrencesNonMaterialisees().size());
+    }
+
+    @Test
+    void materialisationIgnoreLesCreneauxDejaOccupes() {
+        LocalDate premier = LocalDate.of(2026, 3, 3);
+        AbonnementRecurrence regle = AbonnementRecurrence.builder()
+                .id(3L).abonnementId(ABONNEMENT_ID).terrainId(TERRAIN_ID).jourSemaine(JourSemaine.MARDI)
+                .heureDebut(LocalTime.of(18, 0)).heureFin(LocalTime.of(19, 0)).prixHeure(PRIX)
+                .dateDebut(premier).dateFin(premier.plusWeeks(3)).materialiseJusqua(premier.minusDays(1))
+                .build();
+        when(recurrenceRepository.findByAbonnementId(ABONNEMENT_ID)).thenReturn(List.of(regle));
+        Abonnement abonnement = abonnement();
+        abonnement.setPrixTotal(new BigDecimal("200"));
+        when(entityManager.find(Abonnement.class, ABONNEMENT_ID)).thenReturn(abonnement);
+
+        // Deuxième occurrence déjà occupée (deux occupations sur le même créneau)
+        ConflictEngine.Candidat occupe = new ConflictEngine.Candidat(premier.plusWeeks(1), LocalTime.of(18, 0), LocalTime.of(19, 0));
+        when(conflictEngine.detecterConflits(eq(TERRAIN_ID), anyList(), eq(ConflictEngine.Exclusions.recurrences(Set.of(ABONNEMENT_ID)))))
+                .thenReturn(List.of(
+                        new ConflictEngine.Conflit(1, occupe, occupation(occupe, 90L)),
+                        new ConflictEngine.Conflit(1, occupe, occupation(occupe, 91L))));
+        long[] prochainId = {100};
+        doAnswer(invocation -> {
+            List<AbonnementHoraire> horaires = invocation.getArgument(0);
+            horaires.forEach(horaire -> horaire.setId(prochainId[0]++));
+            return null;
+        }).when(horaireJdbcRepository).insererAbonnementHoraires(anyList());
+
+        List<AbonnementHoraire> inseres = abonnementRecurrenceService.materialiserTout(ABONNEMENT_ID);
+
+        assertEquals(List.of(premier, premier.plusWeeks(2), premier.plusWeeks(3)),
+                inseres.stream().map(AbonnementHoraire::getDate).toList());
+        assertEquals(Set.of(premier.plusWeeks(1)), regle.getExceptions());
+        assertEquals(new BigDecimal("150"), abonnement.getPrixTotal());
+        verify(recurrenceRepository).delete(regle);
+        verify(eventPublisher).publishEvent(new AbonnementModifieEvent(TERRAIN_ID, Set.of(100L, 101L, 102L)));
+    }
+
+    @Test
+    void occurrencesNonMaterialiseesDuTerrain() {
+        LocalDate premier = LocalDate.of(2026, 3, 3);
+        AbonnementRecurrence regle = AbonnementRecurrence.builder()
+                .abonnementId(ABONNEMENT_ID).terrainId(TERRAIN_ID).jourSemaine(JourSemaine.MARDI)
+                .heureDebut(LocalTime.of(18, 0)).heureFin(LocalTime.of(19, 0)).prixHeure(PRIX)
+                .dateDebut(premier).dateFin(premier.plusWeeks(10)).materialiseJusqua(premier.plusWeeks(1))
+                .build();
+        when(recurrenceRepository.findNonMaterialiseesParTerrain(eq(TERRAIN_ID), any(), any())).thenReturn(List.of(regle));
+
+        List<AbonnementRecurrenceService.Occurrence> occurrences = abonnementRecurrenceService
+                .getOccurrencesNonMaterialisees(TERRAIN_ID, premier, premier.plusWeeks(3));
+
+        assertEquals(List.of(premier.plusWeeks(2), premier.plusWeeks(3)),
+                occurrences.stream().map(AbonnementRecurrenceService.Occurrence::date).toList());
+    }
+
+    private static Abonnement abonnement() {
+        Abonnement abonnement = new Abonnement();
+        abonnement.setId(ABONNEMENT_ID);
+        abonnement.setTerrain(TerrainService.builder().id(TERRAIN_ID).build());
+        return abonnement;
+    }
+
+    private static AbonnementHoraire occurrence(LocalDate date) {
+        AbonnementHoraire horaire = new AbonnementHoraire();
+        horaire.setDate(date);
+        horaire.setJourSemaine(JourSemaine.MARDI);
+        horaire.setHeureDebut(LocalTime.of(18, 0));
+        horaire.setHeureFin(LocalTime.of(19, 0));
+        horaire.setPrixHeure(PRIX);
+        return horaire;
+    }
+
+    private static ConflictEngine.Occupation occupation(ConflictEngine.Candidat candidat, Long sourceId) {
+        return new ConflictEngine.Occupation(TypeReservation.RESERVATION_PONCTUELLE, sourceId,
+                candidat.date(), candidat.heureDebut(), candidat.heureFin());
+    }
+}
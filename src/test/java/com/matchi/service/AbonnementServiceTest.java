@@ -0,0 +1,122 @@
+package com.matchi.service;
+
+import com.matchi.dto.AbonnementCreateDTO;
+import com.matchi.dto.AbonnementHoraireDTO;
+import com.matchi.exception.ConflitHoraireException;
+import com.matchi.model.ClientAbonne;
+import com.matchi.model.JourSemaine;
+import com.matchi.model.ReservationPonctuelle;
+import com.matchi.model.TerrainService;
+import com.matchi.repository.AbonnementHoraireRepository;
+import com.matchi.repository.AbonnementRecurrenceRepository;
+import com.matchi.repository.AbonnementRepository;
+import com.matchi.repository.ClientAbonneRepository;
+import com.matchi.repository.HoraireJdbcRepository;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.ReservationPonctuelleRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AbonnementServiceTest {
+
+    private static final Long TERRAIN_ID = 1L;
+    private static final Integer TELEPHONE_CLIENT = 600000001;
+    // Un lundi à venir : les 4 semaines de l'abonnement sont générées
+    private static final LocalDate LUNDI = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).plusWeeks(1);
+
+    private final List<ReservationPonctuelle> reservations = new ArrayList<>();
+
+    private AbonnementRepository abonnementRepository;
+    private AbonnementService abonnementService;
+
+    @BeforeEach
+    void setUp() {
+        abonnementRepository = mock(AbonnementRepository.class);
+        ClientAbonneRepository clientAbonneRepository = mock(ClientAbonneRepository.class);
+        TerrainServiceRepository terrainServiceRepository = mock(TerrainServiceRepository.class);
+        ReservationPonctuelleRepository reservationRepository = mock(ReservationPonctuelleRepository.class);
+
+        when(terrainServiceRepository.findById(TERRAIN_ID)).thenReturn(Optional.of(TerrainService.builder()
+                .id(TERRAIN_ID).heureOuverture(LocalTime.parse("08:00")).heureFermeture(LocalTime.parse("23:00")).build()));
+        when(clientAbonneRepository.findByTelephone(TELEPHONE_CLIENT)).thenReturn(Optional.of(new ClientAbonne()));
+        when(reservationRepository.findByTerrain_IdAndDateBetween(eq(TERRAIN_ID), any(), any())).thenReturn(reservations);
+
+        ConflictEngine conflictEngine = new ConflictEngine(reservationRepository, mock(AbonnementHoraireRepository.class),
+                mock(IndisponibleHoraireRepository.class), mock(AbonnementRecurrenceRepository.class));
+        abonnementService = new AbonnementService(abonnementRepository, clientAbonneRepository, terrainServiceRepository,
+                mock(AbonnementHoraireRepository.class), mock(ApplicationEventPublisher.class), conflictEngine,
+                mock(HoraireJdbcRepository.class), mock(AbonnementRecurrenceService.class));
+    }
+
+    @Test
+    void tousLesConflitsDuLotSontSignalesEnUneFois() {
+        reservations.add(reservation(LUNDI, "18:30", "19:30"));
+        reservations.add(reservation(LUNDI.plusWeeks(2), "17:00", "18:30"));
+
+        ConflitHoraireException exception = assertThrows(ConflitHoraireException.class,
+                () -> abonnementService.createAbonnement(abonnementLeLundi("18:00", "19:00")));
+
+        // Un message par créneau en conflit, dans l'ordre des semaines
+        assertEquals(2, exception.getConflits().size());
+        assertTrue(exception.getConflits().get(0).contains("(semaine 0)"));
+        assertTrue(exception.getConflits().get(1).contains("(semaine 2)"));
+        assertTrue(exception.getMessage().startsWith("2 conflits détectés"));
+        verify(abonnementRepository, never()).save(any());
+    }
+
+    @Test
+    void conflitUniqueSignaleAvecSonSeulMessage() {
+        reservations.add(reservation(LUNDI.plusWeeks(1), "18:00", "19:00"));
+
+        ConflitHoraireException exception = assertThrows(ConflitHoraireException.class,
+                () -> abonnementService.createAbonnement(abonnementLeLundi("18:00", "19:00")));
+
+        assertEquals(1, exception.getConflits().size());
+        assertEquals(exception.getConflits().get(0), exception.getMessage());
+        assertTrue(exception.getMessage().contains("(semaine 1)"));
+    }
+
+    private static AbonnementCreateDTO abonnementLeLundi(String debut, String fin) {
+        AbonnementHoraireDTO horaire = new AbonnementHoraireDTO();
+        horaire.setJourSemaine(JourSemaine.LUNDI);
+        horaire.setHeureDebut(LocalTime.parse(debut));
+        horaire.setHeureFin(LocalTime.parse(fin));
+
+        AbonnementCreateDTO dto = new AbonnementCreateDTO();
+        dto.setTerrainId(TERRAIN_ID);
+        dto.setClientTelephone(TELEPHONE_CLIENT);
+        dto.setDateDebut(LUNDI);
+        dto.setDateFin(LUNDI.plusDays(27));
+        dto.setHoraires(List.of(horaire));
+        return dto;
+    }
+
+    private static ReservationPonctuelle reservation(LocalDate date, String debut, String fin) {
+        ReservationPonctuelle reservation = new ReservationPonctuelle();
+        reservation.setId((long) date.getDayOfYear());
+        reservation.setDate(date);
+        reservation.setHeureDebut(LocalTime.parse(debut));
+        reservation.setHeureFin(LocalTime.parse(fin));
+        return reservation;
+    }
+}
@@ -0,0 +1,182 @@
+package com.matchi.service;
+
+import com.matchi.dto.AbonnementHoraireDTO;
+import com.matchi.model.AbonnementRecurrence;
+import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.JourSemaine;
+import com.matchi.model.ReservationPonctuelle;
+import com.matchi.model.TypeReservation;
+import com.matchi.repository.AbonnementHoraireRepository;
+import com.matchi.repository.AbonnementRecurrenceRepository;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.ReservationPonctuelleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConflictEngineTest {
+
+    private static final Long TERRAIN_ID = 1L;
+    private static final LocalDate JOUR = LocalDate.of(2026, 3, 10);
+
+    private final List<ReservationPonctuelle> reservations = new ArrayList<>();
+    private final List<AbonnementHoraireDTO> abonnementHoraires = new ArrayList<>();
+    private final List<IndisponibleHoraire> indisponibles = new ArrayList<>();
+    private final List<AbonnementRecurrence> regles = new ArrayList<>();
+
+    private ConflictEngine conflictEngine;
+
+    @BeforeEach
+    void setUp() {
+        ReservationPonctuelleRepository reservationRepository = mock(ReservationPonctuelleRepository.class);
+        AbonnementHoraireRepository abonnementHoraireRepository = mock(AbonnementHoraireRepository.class);
+        IndisponibleHoraireRepository indisponibleRepository = mock(IndisponibleHoraireRepository.class);
+        AbonnementRecurrenceRepository recurrenceRepository = mock(AbonnementRecurrenceRepository.class);
+        when(reservationRepository.findByTerrain_IdAndDateBetween(eq(TERRAIN_ID), any(), any())).thenReturn(reservations);
+        when(abonnementHoraireRepository.findDTOByTerrainIdAndDateBetween(eq(TERRAIN_ID), any(), any())).thenReturn(abonnementHoraires);
+        when(indisponibleRepository.findByTerrainIdAndDateBetween(eq(TERRAIN_ID), any(), any())).thenReturn(indisponibles);
+        when(recurrenceRepository.findNonMaterialiseesParTerrain(eq(TERRAIN_ID), any(), any())).thenReturn(regles);
+        conflictEngine = new ConflictEngine(reservationRepository, abonnementHoraireRepository, indisponibleRepository,
+                recurrenceRepository);
+    }
+
+    @Test
+    void creneauxAdjacentsNeSeChevauchentPas() {
+        reserver(10L, JOUR, "10:00", "11:00");
+
+        assertTrue(conflits(candidat(JOUR, "11:00", "12:00")).isEmpty());
+        assertTrue(conflits(candidat(JOUR, "09:00", "10:00")).isEmpty());
+        assertEquals(1, conflits(candidat(JOUR, "10:59", "11:30")).size());
+    }
+
+    @Test
+    void retourneTousLesChevauchementsDansLOrdreDesCandidats() {
+        // Assez d'intervalles pour que l'arbre ait plusieurs niveaux
+        for (int heure = 8; heure < 22; heure++) {
+            reserver((long) heure, JOUR, String.format("%02d:00", heure), String.format("%02d:30", heure));
+        }
+
+        List<ConflictEngine.Conflit> conflits = conflictEngine.detecterConflits(TERRAIN_ID, List.of(
+                candidat(JOUR, "07:00", "08:00"),
+                candidat(JOUR, "12:15", "14:15"),
+                candidat(JOUR, "21:45", "22:00")), ConflictEngine.Exclusions.aucune());
+
+        assertEquals(List.of(12L, 13L, 14L), conflits.stream().map(c -> c.occupation().sourceId()).toList());
+        assertTrue(conflits.stream().allMatch(c -> c.indexCandidat() == 1));
+    }
+
+    @Test
+    void creneauDeLaVeilleDebordantApresMinuitEstDetecte() {
+        reserver(10L, JOUR.minusDays(1), "23:00", "01:00");
+
+        assertEquals(1, conflits(candidat(JOUR, "00:30", "02:00")).size());
+        assertTrue(conflits(candidat(JOUR, "01:00", "02:00")).isEmpty());
+    }
+
+    @Test
+    void candidatDebordantApresMinuitEstCompareAuLendemain() {
+        reserver(10L, JOUR.plusDays(1), "00:00", "01:00");
+
+        assertEquals(1, conflits(candidat(JOUR, "23:00", "00:30")).size());
+        // Fin à minuit : le créneau s'arrête avant celui du lendemain
+        assertTrue(conflits(candidat(JOUR, "23:00", "00:00")).isEmpty());
+    }
+
+    @Test
+    void horaireIndisponibleDUneReservationChargeeNEstPasCompteDeuxFois() {
+        reserver(10L, JOUR, "10:00", "11:00");
+        indisponibles.add(IndisponibleHoraire.builder()
+                .id(100L).date(JOUR).heureDebut(LocalTime.parse("10:00")).heureFin(LocalTime.parse("11:00"))
+                .typeReservation(TypeReservation.RESERVATION_PONCTUELLE).sourceId(10L).build());
+
+        assertEquals(1, conflits(candidat(JOUR, "10:00", "11:00")).size());
+    }
+
+    @Test
+    void horaireDAbonnementEstUnConflitAvantSaSynchronisation() {
+        abonnementHoraires.add(new AbonnementHoraireDTO(20L, 5L, JOUR, JourSemaine.MARDI,
+                LocalTime.parse("18:00"), LocalTime.parse("19:00"), null));
+
+        List<ConflictEngine.Conflit> conflits = conflits(candidat(JOUR, "18:30", "19:30"));
+
+        assertEquals(1, conflits.size());
+        assertEquals(TypeReservation.ABONNEMENT, conflits.get(0).occupation().typeReservation());
+        assertEquals(20L, conflits.get(0).occupation().sourceId());
+    }
+
+    @Test
+    void horaireIndisponibleDUnHoraireDAbonnementChargeNEstPasCompteDeuxFois() {
+        abonnementHoraires.add(new AbonnementHoraireDTO(20L, 5L, JOUR, JourSemaine.MARDI,
+                LocalTime.parse("18:00"), LocalTime.parse("19:00"), null));
+        indisponibles.add(IndisponibleHoraire.builder()
+                .id(100L).date(JOUR).heureDebut(LocalTime.parse("18:00")).heureFin(LocalTime.parse("19:00"))
+                .typeReservation(TypeReservation.ABONNEMENT).sourceId(20L).build());
+
+        assertEquals(1, conflits(candidat(JOUR, "18:00", "19:00")).size());
+        assertTrue(conflictEngine.detecterConflits(TERRAIN_ID, List.of(candidat(JOUR, "18:00", "19:00")),
+                ConflictEngine.Exclusions.abonnementHoraires(Set.of(20L))).isEmpty());
+    }
+
+    @Test
+    void exclusionsIgnorentLesCreneauxDeLElementModifie() {
+        reserver(10L, JOUR, "10:00", "11:00");
+        indisponibles.add(IndisponibleHoraire.builder()
+                .id(100L).date(JOUR).heureDebut(LocalTime.parse("10:00")).heureFin(LocalTime.parse("11:00"))
+                .typeReservation(TypeReservation.ABONNEMENT).sourceId(20L).build());
+
+        List<ConflictEngine.Conflit> conflits = conflictEngine.detecterConflits(TERRAIN_ID,
+                List.of(candidat(JOUR, "10:00", "11:00")),
+                new ConflictEngine.Exclusions(Set.of(10L), Set.of(20L), Set.of()));
+
+        assertTrue(conflits.isEmpty());
+    }
+
+    @Test
+    void occurrencesNonMaterialiseesDesReglesSontDesConflits() {
+        regles.add(AbonnementRecurrence.builder()
+                .abonnementId(5L).terrainId(TERRAIN_ID).jourSemaine(JourSemaine.MARDI)
+                .heureDebut(LocalTime.parse("18:00")).heureFin(LocalTime.parse("19:00"))
+                .dateDebut(JOUR.minusWeeks(4)).dateFin(JOUR.plusWeeks(4)).materialiseJusqua(JOUR.minusDays(1))
+                .build());
+
+        assertEquals(1, conflits(candidat(JOUR, "18:30", "19:30")).size());
+        assertTrue(conflictEngine.detecterConflits(TERRAIN_ID, List.of(candidat(JOUR, "18:30", "19:30")),
+                ConflictEngine.Exclusions.recurrences(Set.of(5L))).isEmpty());
+    }
+
+    @Test
+    void candidatsIncompletsSontIgnores() {
+        reserver(10L, JOUR, "10:00", "11:00");
+
+        assertTrue(conflits(new ConflictEngine.Candidat(JOUR, null, LocalTime.parse("11:00"))).isEmpty());
+    }
+
+    private List<ConflictEngine.Conflit> conflits(ConflictEngine.Candidat candidat) {
+        return conflictEngine.detecterConflits(TERRAIN_ID, List.of(candidat), ConflictEngine.Exclusions.aucune());
+    }
+
+    private void reserver(Long id, LocalDate date, String debut, String fin) {
+        ReservationPonctuelle reservation = new ReservationPonctuelle();
+        reservation.setId(id);
+        reservation.setDate(date);
+        reservation.setHeureDebut(LocalTime.parse(debut));
+        reservation.setHeureFin(LocalTime.parse(fin));
+        reservations.add(reservation);
+    }
+
+    private static ConflictEngine.Candidat candidat(LocalDate date, String debut, String fin) {
+        return new ConflictEngine.Candidat(date, LocalTime.parse(debut), LocalTime.parse(fin));
+    }
+}
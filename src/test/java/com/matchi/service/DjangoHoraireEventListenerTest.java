@@ -0,0 +1,155 @@
+package com.matchi.service;
+
+import com.matchi.dto.HoraireSyncEventRaw;
+import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.TerrainService;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.ProprietaireRepository;
+import com.matchi.repository.ReservationPonctuelleRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DjangoHoraireEventListenerTest {
+
+    private static final Long TERRAIN_ID = 1L;
+    private static final String TOPIC = "horaire-sync-topic";
+
+    // Horaires écrits par transaction commitée
+    private final List<List<UUID>> transactionsCommitees = new ArrayList<>();
+    private final List<UUID> uuidsEnErreur = new ArrayList<>();
+    private RuntimeException erreur = new DataIntegrityViolationException("Duplicate entry");
+
+    private Acknowledgment acknowledgment;
+    private DjangoHoraireEventListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        IndisponibleHoraireRepository indisponibleHoraireRepository = mock(IndisponibleHoraireRepository.class);
+        TerrainServiceRepository terrainServiceRepository = mock(TerrainServiceRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        acknowledgment = mock(Acknowledgment.class);
+
+        when(terrainServiceRepository.findAllById(any())).thenReturn(List.of(TerrainService.builder().id(TERRAIN_ID).build()));
+        when(indisponibleHoraireRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<IndisponibleHoraire> horaires = invocation.getArgument(0);
+            List<UUID> uuids = horaires.stream().map(IndisponibleHoraire::getUuid).toList();
+            if (uuids.stream().anyMatch(uuidsEnErreur::contains)) {
+                throw erreur;
+            }
+            transactionsCommitees.add(uuids);
+            return List.copyOf(horaires);
+        });
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        listener = new DjangoHoraireEventListener(indisponibleHoraireRepository, terrainServiceRepository,
+                mock(ProprietaireRepository.class), mock(ReservationPonctuelleRepository.class),
+                mock(OccupationIndexService.class), transactionTemplate, mock(TelephoneTerrainCacheService.class),
+                mock(StatistiqueJournaliereService.class));
+    }
+
+    @Test
+    void lotAppliqueEnUneTransactionPuisAcquitte() {
+        List<ConsumerRecord<String, HoraireSyncEventRaw>> records = List.of(creation(0), creation(1), creation(2));
+
+        listener.handleHoraireSyncEvents(records, acknowledgment);
+
+        assertEquals(List.of(uuids(records)), transactionsCommitees);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void lotEnEchecRejoueEvenementParEvenementJusquAuFautif() {
+        List<ConsumerRecord<String, HoraireSyncEventRaw>> records = List.of(creation(0), creation(1), creation(2));
+        uuidsEnErreur.add(records.get(1).value().uuid());
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> listener.handleHoraireSyncEvents(records, acknowledgment));
+
+        // Seul l'événement fautif est signalé : le premier est commité, le suivant sera relivré
+        assertEquals(1, exception.getIndex());
+        assertInstanceOf(DataIntegrityViolationException.class, exception.getCause());
+        assertEquals(List.of(List.of(records.get(0).value().uuid())), transactionsCommitees);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void baseIndisponibleSignaleLePremierEvenementSansRienAcquitter() {
+        List<ConsumerRecord<String, HoraireSyncEventRaw>> records = List.of(creation(0), creation(1));
+        uuidsEnErreur.addAll(uuids(records));
+        erreur = new QueryTimeoutException("Lock wait timeout exceeded");
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> listener.handleHoraireSyncEvents(records, acknowledgment));
+
+        assertEquals(0, exception.getIndex());
+        assertInstanceOf(QueryTimeoutException.class, exception.getCause());
+        assertEquals(List.of(), transactionsCommitees);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void messageIllisibleSignaleApresLesMessagesQuiLePrecedent() {
+        List<ConsumerRecord<String, HoraireSyncEventRaw>> records = List.of(creation(0), illisible(1), creation(2));
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> listener.handleHoraireSyncEvents(records, acknowledgment));
+
+        assertEquals(1, exception.getIndex());
+        assertInstanceOf(DeserializationException.class, exception.getCause());
+        assertEquals(List.of(List.of(records.get(0).value().uuid())), transactionsCommitees);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static ConsumerRecord<String, HoraireSyncEventRaw> creation(long offset) {
+        HoraireSyncEventRaw raw = new HoraireSyncEventRaw(UUID.randomUUID(), "created", TERRAIN_ID,
+                LocalDate.now().plusDays(1), LocalTime.of(18, 0).plusHours(offset), LocalTime.of(19, 0).plusHours(offset),
+                "RESERVATION_PONCTUELLE", null, null, null, null, null, null, null, null);
+        return new ConsumerRecord<>(TOPIC, 0, offset, TERRAIN_ID.toString(), raw);
+    }
+
+    private static ConsumerRecord<String, HoraireSyncEventRaw> illisible(long offset) {
+        ConsumerRecord<String, HoraireSyncEventRaw> record = new ConsumerRecord<>(TOPIC, 0, offset, TERRAIN_ID.toString(), null);
+        byte[] donnees = "{pas du json".getBytes(StandardCharsets.UTF_8);
+        SerializationUtils.deserializationException(record.headers(), donnees,
+                new DeserializationException("JSON invalide", donnees, false, new IllegalStateException()), false);
+        return record;
+    }
+
+    private static List<UUID> uuids(List<ConsumerRecord<String, HoraireSyncEventRaw>> records) {
+        return records.stream().map(record -> record.value().uuid()).toList();
+    }
+}
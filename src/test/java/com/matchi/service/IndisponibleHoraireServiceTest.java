@@ -0,0 +1,300 @@
+package com.matchi.service;
+
+import com.matchi.model.Abonnement;
+import com.matchi.model.AbonnementHoraire;
+import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.JourSemaine;
+import com.matchi.model.ReservationPonctuelle;
+import com.matchi.model.TerrainService;
+import com.matchi.model.TypeReservation;
+import com.matchi.repository.AbonnementHoraireRepository;
+import com.matchi.repository.HoraireJdbcRepository;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.ReservationPonctuelleRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndisponibleHoraireServiceTest {
+
+    private static final Long TERRAIN_ID = 1L;
+    private static final LocalDate JOUR = LocalDate.of(2026, 3, 10);
+
+    private final TerrainService terrain = TerrainService.builder().id(TERRAIN_ID).build();
+
+    // Contenu de la base
+    private final List<IndisponibleHoraire> indisponibles = new ArrayList<>();
+    private final List<AbonnementHoraire> abonnementHoraires = new ArrayList<>();
+    private final List<ReservationPonctuelle> reservations = new ArrayList<>();
+
+    // Écritures de la synchronisation
+    private final List<IndisponibleHoraire> crees = new ArrayList<>();
+    private final List<IndisponibleHoraire> misAJour = new ArrayList<>();
+    private final List<IndisponibleHoraire> supprimes = new ArrayList<>();
+
+    private IndisponibleHoraireRepository indisponibleHoraireRepository;
+    private HoraireEventPublisherService horaireEventPublisherService;
+    private Cache cache;
+    private IndisponibleHoraireService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        indisponibleHoraireRepository = mock(IndisponibleHoraireRepository.class);
+        AbonnementHoraireRepository abonnementHoraireRepository = mock(AbonnementHoraireRepository.class);
+        ReservationPonctuelleRepository reservationPonctuelleRepository = mock(ReservationPonctuelleRepository.class);
+        TerrainServiceRepository terrainServiceRepository = mock(TerrainServiceRepository.class);
+        HoraireJdbcRepository horaireJdbcRepository = mock(HoraireJdbcRepository.class);
+        horaireEventPublisherService = mock(HoraireEventPublisherService.class);
+
+        when(terrainServiceRepository.findById(TERRAIN_ID)).thenReturn(Optional.of(terrain));
+        when(indisponibleHoraireRepository.findByTerrainId(TERRAIN_ID)).thenReturn(indisponibles);
+        when(indisponibleHoraireRepository.findByTypeReservationAndSourceIdIn(any(), any())).thenAnswer(invocation -> {
+            TypeReservation type = invocation.getArgument(0);
+            Collection<Long> sourceIds = invocation.getArgument(1);
+            return indisponibles.stream()
+                    .filter(h -> h.getTypeReservation() == type && sourceIds.contains(h.getSourceId()))
+                    .toList();
+        });
+        when(abonnementHoraireRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<Long> liste = new ArrayList<>();
+            ids.forEach(liste::add);
+            return abonnementHoraires.stream().filter(h -> liste.contains(h.getId())).toList();
+        });
+        when(reservationPonctuelleRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<Long> liste = new ArrayList<>();
+            ids.forEach(liste::add);
+            return reservations.stream().filter(r -> liste.contains(r.getId())).toList();
+        });
+        when(horaireJdbcRepository.insererIndisponibleHoraires(anyList())).thenAnswer(invocation -> {
+            crees.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(indisponibleHoraireRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            misAJour.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        doAnswer(invocation -> {
+            supprimes.addAll(invocation.<Collection<IndisponibleHoraire>>getArgument(0));
+            return null;
+        }).when(indisponibleHoraireRepository).deleteAll(anyList());
+
+        // Synchronisation complète : requêtes JPQL et cache L2
+        EntityManager entityManager = mock(EntityManager.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        cache = mock(Cache.class);
+        when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        TypedQuery<AbonnementHoraire> requeteAbonnements = mock(TypedQuery.class);
+        when(requeteAbonnements.getResultList()).thenReturn(abonnementHoraires);
+        when(entityManager.createQuery(anyString(), eq(AbonnementHoraire.class))).thenReturn(requeteAbonnements);
+        TypedQuery<ReservationPonctuelle> requeteReservations = mock(TypedQuery.class);
+        when(requeteReservations.getResultList()).thenReturn(reservations);
+        when(entityManager.createQuery(anyString(), eq(ReservationPonctuelle.class))).thenReturn(requeteReservations);
+
+        service = new IndisponibleHoraireService(indisponibleHoraireRepository, abonnementHoraireRepository,
+                reservationPonctuelleRepository, terrainServiceRepository, mock(DjangoSyncService.class),
+                mock(OccupationIndexService.class), horaireJdbcRepository, null);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "horaireEventPublisherService", horaireEventPublisherService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // ======== SYNCHRONISATION INCRÉMENTALE ========
+
+    @Test
+    void synchroniserSourcesCreeMetAJourEtSupprimeChaqueSource() {
+        reservations.add(reservation(1L, "10:00", "11:00"));
+        reservations.add(reservation(2L, "14:00", "15:30"));
+        reservations.add(reservation(4L, "18:00", "19:00"));
+        IndisponibleHoraire deplace = indisponible(TypeReservation.RESERVATION_PONCTUELLE, 2L, "14:00", "15:00");
+        IndisponibleHoraire orphelin = indisponible(TypeReservation.RESERVATION_PONCTUELLE, 3L, "16:00", "17:00");
+        IndisponibleHoraire inchange = indisponible(TypeReservation.RESERVATION_PONCTUELLE, 4L, "18:00", "19:00");
+        inchange.setDescription("Réservation ponctuelle");
+        indisponibles.addAll(List.of(deplace, orphelin, inchange));
+
+        service.synchroniserSources(TERRAIN_ID, TypeReservation.RESERVATION_PONCTUELLE, Set.of(1L, 2L, 3L, 4L));
+
+        assertEquals(List.of(1L), crees.stream().map(IndisponibleHoraire::getSourceId).toList());
+        assertEquals(List.of(deplace), misAJour);
+        assertEquals(LocalTime.parse("15:30"), deplace.getHeureFin());
+        assertEquals(List.of(orphelin), supprimes);
+        verify(horaireEventPublisherService).publishAllCreated(crees);
+        verify(horaireEventPublisherService).publishAllUpdated(List.of(deplace));
+        verify(horaireEventPublisherService).publishDeletedEvent(eq(orphelin.getUuid()), eq(TERRAIN_ID),
+                any(), any(), any(), any());
+    }
+
+    @Test
+    void synchroniserSourcesSupprimeLesDoublonsDUneSource() {
+        abonnementHoraires.add(abonnementHoraire(10L, "10:00", "11:00"));
+        IndisponibleHoraire conserve = indisponible(TypeReservation.ABONNEMENT, 10L, "10:00", "11:00");
+        IndisponibleHoraire doublon = indisponible(TypeReservation.ABONNEMENT, 10L, "10:00", "11:00");
+        indisponibles.addAll(List.of(conserve, doublon));
+
+        service.synchroniserSources(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(10L));
+
+        assertEquals(List.of(doublon), supprimes);
+        assertEquals(List.of(), crees);
+    }
+
+    @Test
+    void synchroniserSourcesSansChangementNEcritRien() {
+        reservations.add(reservation(4L, "18:00", "19:00"));
+        IndisponibleHoraire inchange = indisponible(TypeReservation.RESERVATION_PONCTUELLE, 4L, "18:00", "19:00");
+        inchange.setDescription("Réservation ponctuelle");
+        indisponibles.add(inchange);
+
+        service.synchroniserSources(TERRAIN_ID, TypeReservation.RESERVATION_PONCTUELLE, Set.of(4L));
+
+        assertEquals(List.of(), crees);
+        assertEquals(List.of(), misAJour);
+        assertEquals(List.of(), supprimes);
+        verify(horaireEventPublisherService, never()).publishAllCreated(any());
+    }
+
+    // ======== SYNCHRONISATION COMPLÈTE ========
+
+    @Test
+    void synchronisationCompleteIndexeLesHorairesParTypeEtSource() {
+        // Même sourceId pour un horaire d'abonnement et une réservation : deux sources distinctes
+        abonnementHoraires.add(abonnementHoraire(10L, "10:00", "11:00"));
+        abonnementHoraires.add(abonnementHoraire(12L, "12:00", "13:00"));
+        reservations.add(reservation(10L, "20:00", "21:00"));
+        IndisponibleHoraire abonnement = indisponible(TypeReservation.ABONNEMENT, 10L, "10:00", "11:00");
+        IndisponibleHoraire reservation = indisponible(TypeReservation.RESERVATION_PONCTUELLE, 10L, "19:00", "20:00");
+        IndisponibleHoraire orphelin = indisponible(TypeReservation.ABONNEMENT, 11L, "15:00", "16:00");
+        indisponibles.addAll(List.of(abonnement, reservation, orphelin));
+
+        service.synchroniserHorairesIndisponibles(TERRAIN_ID);
+
+        assertEquals(List.of(12L), crees.stream().map(IndisponibleHoraire::getSourceId).toList());
+        assertEquals(TypeReservation.ABONNEMENT, crees.get(0).getTypeReservation());
+        assertTrue(misAJour.containsAll(List.of(abonnement, reservation)));
+        assertEquals(LocalTime.parse("20:00"), reservation.getHeureDebut());
+        assertEquals(List.of(orphelin), supprimes);
+        // Seul le terrain synchronisé est retiré du cache L2
+        verify(cache).evict(TerrainService.class, TERRAIN_ID);
+        verify(cache, never()).evictAll();
+    }
+
+    // ======== VERROU PAR TERRAIN ========
+
+    @Test
+    void verrouLibereApresLeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        reservations.add(reservation(1L, "10:00", "11:00"));
+
+        service.synchroniserSources(TERRAIN_ID, TypeReservation.RESERVATION_PONCTUELLE, Set.of(1L));
+
+        // Conservé jusqu'à la fin de la transaction
+        assertTrue(verrou().isHeldByCurrentThread());
+        List<TransactionSynchronization> synchronisations = TransactionSynchronizationManager.getSynchronizations();
+        synchronisations.forEach(TransactionSynchronization::afterCommit);
+        synchronisations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertFalse(verrou().isLocked());
+    }
+
+    @Test
+    void verrouLibereApresLeRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        reservations.add(reservation(1L, "10:00", "11:00"));
+
+        service.synchroniserSources(TERRAIN_ID, TypeReservation.RESERVATION_PONCTUELLE, Set.of(1L));
+
+        assertTrue(verrou().isHeldByCurrentThread());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertFalse(verrou().isLocked());
+    }
+
+    @Test
+    void verrouLibereSiLaSynchronisationEchoueHorsTransaction() {
+        when(indisponibleHoraireRepository.findByTypeReservationAndSourceIdIn(any(), any()))
+                .thenThrow(new IllegalStateException("base indisponible"));
+
+        assertThrows(IllegalStateException.class,
+                () -> service.synchroniserSources(TERRAIN_ID, TypeReservation.RESERVATION_PONCTUELLE, Set.of(1L)));
+
+        assertFalse(verrou().isLocked());
+    }
+
+    private ReentrantLock verrou() {
+        return ReflectionTestUtils.invokeMethod(service, "getTerrainLock", TERRAIN_ID);
+    }
+
+    private ReservationPonctuelle reservation(Long id, String debut, String fin) {
+        ReservationPonctuelle reservation = new ReservationPonctuelle();
+        reservation.setId(id);
+        reservation.setTerrain(terrain);
+        reservation.setDate(JOUR);
+        reservation.setHeureDebut(LocalTime.parse(debut));
+        reservation.setHeureFin(LocalTime.parse(fin));
+        return reservation;
+    }
+
+    private AbonnementHoraire abonnementHoraire(Long id, String debut, String fin) {
+        return AbonnementHoraire.builder()
+                .id(id)
+                .abonnement(Abonnement.builder().id(5L).terrain(terrain).build())
+                .jourSemaine(JourSemaine.MARDI)
+                .date(JOUR)
+                .heureDebut(LocalTime.parse(debut))
+                .heureFin(LocalTime.parse(fin))
+                .build();
+    }
+
+    private IndisponibleHoraire indisponible(TypeReservation type, Long sourceId, String debut, String fin) {
+        return IndisponibleHoraire.builder()
+                .uuid(UUID.randomUUID())
+                .terrain(terrain)
+                .date(JOUR)
+                .heureDebut(LocalTime.parse(debut))
+                .heureFin(LocalTime.parse(fin))
+                .typeReservation(type)
+                .sourceId(sourceId)
+                .build();
+    }
+}
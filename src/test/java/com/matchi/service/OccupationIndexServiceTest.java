@@ -0,0 +1,204 @@
+package com.matchi.service;
+
+import com.matchi.dto.CreneauLibreDTO;
+import com.matchi.dto.HoraireOccupeDTO;
+import com.matchi.model.IndisponibleHoraire;
+import com.matchi.model.TerrainService;
+import com.matchi.repository.IndisponibleHoraireRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OccupationIndexServiceTest {
+
+    private static final Long TERRAIN_ID = 1L;
+    private static final LocalDate DEMAIN = LocalDate.now().plusDays(1);
+
+    private final List<IndisponibleHoraire> horairesEnBase = new ArrayList<>();
+    private final List<AbonnementRecurrenceService.Occurrence> occurrences = new ArrayList<>();
+
+    private IndisponibleHoraireRepository indisponibleHoraireRepository;
+    private TerrainServiceRepository terrainServiceRepository;
+    private OccupationIndexService occupationIndexService;
+
+    @BeforeEach
+    void setUp() {
+        indisponibleHoraireRepository = mock(IndisponibleHoraireRepository.class);
+        terrainServiceRepository = mock(TerrainServiceRepository.class);
+        AbonnementRecurrenceService abonnementRecurrenceService = mock(AbonnementRecurrenceService.class);
+        when(indisponibleHoraireRepository.findByTerrainId(TERRAIN_ID)).thenReturn(horairesEnBase);
+        when(abonnementRecurrenceService.getOccurrencesNonMaterialisees(eq(TERRAIN_ID), any(), any())).thenReturn(occurrences);
+        when(abonnementRecurrenceService.getOccurrencesNonMaterialisees(eq(TERRAIN_ID), any())).thenReturn(occurrences);
+        ouvrir("08:00", "22:00");
+
+        occupationIndexService = new OccupationIndexService(
+                indisponibleHoraireRepository, terrainServiceRepository, abonnementRecurrenceService);
+        ReflectionTestUtils.setField(occupationIndexService, "periodeMaxJours", 62);
+    }
+
+    @Test
+    void creneauxLibresAutourDUnHoraireOccupe() {
+        horairesEnBase.add(horaire(10L, DEMAIN, "10:00", "11:30"));
+
+        assertEquals(List.of(
+                libre(DEMAIN, "08:00", "10:00"),
+                libre(DEMAIN, "11:30", "22:00")), creneauxLibres(DEMAIN, DEMAIN));
+    }
+
+    @Test
+    void creneauPartiellementOccupeEstOccupe() {
+        horairesEnBase.add(horaire(10L, DEMAIN, "10:10", "10:20"));
+
+        assertEquals(List.of(
+                libre(DEMAIN, "08:00", "10:00"),
+                libre(DEMAIN, "10:30", "22:00")), creneauxLibres(DEMAIN, DEMAIN));
+    }
+
+    @Test
+    void retirerUnHoraireNeLibereQueSesCreneaux() {
+        horairesEnBase.add(horaire(10L, DEMAIN, "10:00", "12:00"));
+        horairesEnBase.add(horaire(11L, DEMAIN, "11:00", "13:00"));
+        creneauxLibres(DEMAIN, DEMAIN);
+
+        occupationIndexService.retirer(10L);
+
+        assertEquals(List.of(
+                libre(DEMAIN, "08:00", "11:00"),
+                libre(DEMAIN, "13:00", "22:00")), creneauxLibres(DEMAIN, DEMAIN));
+    }
+
+    @Test
+    void miseAJourAppliqueeSansRechargerLaBase() {
+        creneauxLibres(DEMAIN, DEMAIN);
+
+        occupationIndexService.indexer(horaire(10L, DEMAIN, "08:00", "09:00"));
+        // Déplacement de l'horaire : l'ancien créneau est libéré
+        occupationIndexService.indexer(horaire(10L, DEMAIN, "21:00", "22:00"));
+
+        assertEquals(List.of(libre(DEMAIN, "08:00", "21:00")), creneauxLibres(DEMAIN, DEMAIN));
+        verify(indisponibleHoraireRepository, times(1)).findByTerrainId(TERRAIN_ID);
+    }
+
+    @Test
+    void terrainFermantApresMinuit() {
+        ouvrir("18:00", "02:00");
+        horairesEnBase.add(horaire(10L, DEMAIN, "23:00", "01:00"));
+
+        assertEquals(List.of(
+                libre(DEMAIN, "18:00", "23:00"),
+                libre(DEMAIN, "01:00", "02:00")), creneauxLibres(DEMAIN, DEMAIN));
+    }
+
+    @Test
+    void occurrencesNonMaterialiseesSontOccupees() {
+        occurrences.add(new AbonnementRecurrenceService.Occurrence(
+                5L, DEMAIN, LocalTime.parse("18:00"), LocalTime.parse("20:00"), null));
+
+        assertEquals(List.of(
+                libre(DEMAIN, "08:00", "18:00"),
+                libre(DEMAIN, "20:00", "22:00")), creneauxLibres(DEMAIN, DEMAIN));
+    }
+
+    @Test
+    void periodeBorneeEtJoursPassesIgnores() {
+        LocalDate aujourdhui = LocalDate.now();
+
+        assertThrows(IllegalArgumentException.class, () -> creneauxLibres(aujourdhui, aujourdhui.plusDays(62)));
+        assertThrows(IllegalArgumentException.class, () -> creneauxLibres(DEMAIN, aujourdhui));
+        assertTrue(creneauxLibres(aujourdhui.minusDays(10), aujourdhui.minusDays(1)).isEmpty());
+        // Le début est ramené à aujourd'hui
+        assertEquals(aujourdhui, creneauxLibres(aujourdhui.minusYears(1), aujourdhui).get(0).date());
+    }
+
+    @Test
+    void purgeConserveLaVeilleQuiDebordeSurAujourdhui() {
+        ouvrir(null, null);
+        LocalDate aujourdhui = LocalDate.now();
+        creneauxLibres(aujourdhui, aujourdhui);
+        occupationIndexService.indexer(horaire(10L, aujourdhui.minusDays(1), "23:00", "01:00"));
+        occupationIndexService.indexer(horaire(11L, aujourdhui.minusDays(2), "23:00", "00:30"));
+
+        occupationIndexService.purgerJoursPasses();
+
+        assertEquals(List.of(libre(aujourdhui, "01:00", "00:00")), creneauxLibres(aujourdhui, aujourdhui));
+    }
+
+    @Test
+    void horairesOccupesAVenirTriesDepuisLIndex() {
+        LocalDate aujourdhui = LocalDate.now();
+        horairesEnBase.add(horaire(10L, DEMAIN.plusDays(1), "09:00", "10:00"));
+        horairesEnBase.add(horaire(11L, DEMAIN, "15:00", "16:00"));
+        horairesEnBase.add(horaire(12L, DEMAIN, "09:00", "10:00"));
+        horairesEnBase.add(horaire(13L, aujourdhui.minusDays(1), "09:00", "10:00"));
+
+        List<HoraireOccupeDTO> horaires = occupationIndexService.getHorairesOccupes(TERRAIN_ID);
+        occupationIndexService.getHorairesOccupes(TERRAIN_ID);
+
+        assertEquals(List.of(
+                new HoraireOccupeDTO(DEMAIN, LocalTime.parse("09:00"), LocalTime.parse("10:00"), null, TERRAIN_ID),
+                new HoraireOccupeDTO(DEMAIN, LocalTime.parse("15:00"), LocalTime.parse("16:00"), null, TERRAIN_ID),
+                new HoraireOccupeDTO(DEMAIN.plusDays(1), LocalTime.parse("09:00"), LocalTime.parse("10:00"), null, TERRAIN_ID)),
+                horaires);
+        verify(indisponibleHoraireRepository, times(1)).findByTerrainId(TERRAIN_ID);
+    }
+
+    @Test
+    void horairesOccupesIncluentLesOccurrencesAuDelaDeLHorizon() {
+        LocalDate loin = LocalDate.now().plusWeeks(20);
+        horairesEnBase.add(horaire(10L, DEMAIN, "09:00", "10:00"));
+        occurrences.add(new AbonnementRecurrenceService.Occurrence(
+                5L, loin, LocalTime.parse("18:00"), LocalTime.parse("19:00"), null));
+        occurrences.add(new AbonnementRecurrenceService.Occurrence(
+                5L, DEMAIN, LocalTime.parse("08:00"), LocalTime.parse("09:00"), null));
+
+        assertEquals(List.of(
+                new HoraireOccupeDTO(DEMAIN, LocalTime.parse("08:00"), LocalTime.parse("09:00"), null, TERRAIN_ID),
+                new HoraireOccupeDTO(DEMAIN, LocalTime.parse("09:00"), LocalTime.parse("10:00"), null, TERRAIN_ID),
+                new HoraireOccupeDTO(loin, LocalTime.parse("18:00"), LocalTime.parse("19:00"), null, TERRAIN_ID)),
+                occupationIndexService.getHorairesOccupes(TERRAIN_ID));
+    }
+
+    private List<CreneauLibreDTO> creneauxLibres(LocalDate debut, LocalDate fin) {
+        return occupationIndexService.getCreneauxLibres(TERRAIN_ID, debut, fin);
+    }
+
+    private void ouvrir(String ouverture, String fermeture) {
+        TerrainService terrain = TerrainService.builder()
+                .id(TERRAIN_ID)
+                .heureOuverture(ouverture != null ? LocalTime.parse(ouverture) : null)
+                .heureFermeture(fermeture != null ? LocalTime.parse(fermeture) : null)
+                .build();
+        when(terrainServiceRepository.findById(TERRAIN_ID)).thenReturn(Optional.of(terrain));
+    }
+
+    private static IndisponibleHoraire horaire(Long id, LocalDate date, String debut, String fin) {
+        return IndisponibleHoraire.builder()
+                .id(id)
+                .terrain(TerrainService.builder().id(TERRAIN_ID).build())
+                .date(date)
+                .heureDebut(LocalTime.parse(debut))
+                .heureFin(LocalTime.parse(fin))
+                .build();
+    }
+
+    private static CreneauLibreDTO libre(LocalDate date, String debut, String fin) {
+        return new CreneauLibreDTO(date, LocalTime.parse(debut), LocalTime.parse(fin));
+    }
+}
@@ -0,0 +1,107 @@
+package com.matchi.service;
+
+import com.matchi.event.KafkaEtatChangeEvent;
+import com.matchi.model.OutboxEvenement;
+import com.matchi.repository.OutboxEvenementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayServiceTest {
+
+    private OutboxEvenementRepository outboxEvenementRepository;
+    private KafkaAvailabilityService kafkaAvailabilityService;
+    private HoraireEventPublisherService horaireEventPublisherService;
+    private OutboxRelayService outboxRelayService;
+
+    @BeforeEach
+    void setUp() {
+        outboxEvenementRepository = mock(OutboxEvenementRepository.class);
+        kafkaAvailabilityService = mock(KafkaAvailabilityService.class);
+        horaireEventPublisherService = mock(HoraireEventPublisherService.class);
+        when(kafkaAvailabilityService.isKafkaAvailable()).thenReturn(true);
+
+        outboxRelayService = new OutboxRelayService(outboxEvenementRepository, kafkaAvailabilityService);
+        ReflectionTestUtils.setField(outboxRelayService, "horaireEventPublisherService", horaireEventPublisherService);
+        ReflectionTestUtils.setField(outboxRelayService, "tailleLot", 3);
+        ReflectionTestUtils.setField(outboxRelayService, "backoffInitialMs", 60_000L);
+        ReflectionTestUtils.setField(outboxRelayService, "backoffMaxMs", 60_000L);
+    }
+
+    @Test
+    void enchaineLesLotsCompletsEtPurgeLesEvenementsConfirmes() {
+        when(outboxEvenementRepository.findAllByOrderByIdAsc(any()))
+                .thenReturn(evenements(1, 2, 3))
+                .thenReturn(evenements(4));
+        when(horaireEventPublisherService.envoyerLot(anyList())).thenReturn(3, 1);
+
+        outboxRelayService.relayer();
+
+        verify(outboxEvenementRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(outboxEvenementRepository).deleteAllByIdInBatch(List.of(4L));
+        verify(outboxEvenementRepository, times(2)).findAllByOrderByIdAsc(any());
+    }
+
+    @Test
+    void confirmationPartielleNePurgeQueLaTeteDuLotEtAttendLeBackoff() {
+        when(outboxEvenementRepository.findAllByOrderByIdAsc(any())).thenReturn(evenements(1, 2, 3));
+        when(horaireEventPublisherService.envoyerLot(anyList())).thenReturn(2);
+
+        outboxRelayService.relayer();
+        outboxRelayService.relayer();
+
+        verify(outboxEvenementRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        // Second passage ignoré : backoff en cours
+        verify(outboxEvenementRepository, times(1)).findAllByOrderByIdAsc(any());
+    }
+
+    @Test
+    void aucuneConfirmationNeSupprimeRien() {
+        when(outboxEvenementRepository.findAllByOrderByIdAsc(any())).thenReturn(evenements(1, 2));
+        when(horaireEventPublisherService.envoyerLot(anyList())).thenReturn(0);
+
+        outboxRelayService.relayer();
+
+        verify(outboxEvenementRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void retourDuBrokerAnnuleLeBackoff() {
+        when(outboxEvenementRepository.findAllByOrderByIdAsc(any())).thenReturn(evenements(1, 2));
+        when(horaireEventPublisherService.envoyerLot(anyList())).thenReturn(0, 2);
+
+        outboxRelayService.relayer();
+        outboxRelayService.onKafkaEtatChange(new KafkaEtatChangeEvent(true, null));
+        outboxRelayService.relayer();
+
+        verify(outboxEvenementRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    void brokerIndisponibleLaisseLOutboxIntacte() {
+        when(kafkaAvailabilityService.isKafkaAvailable()).thenReturn(false);
+
+        outboxRelayService.relayer();
+
+        verify(outboxEvenementRepository, never()).findAllByOrderByIdAsc(any());
+        verify(horaireEventPublisherService, never()).envoyerLot(anyList());
+    }
+
+    private static List<OutboxEvenement> evenements(long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> OutboxEvenement.builder().id(id).horaireUuid(UUID.randomUUID()).action("created").build())
+                .toList();
+    }
+}
@@ -0,0 +1,73 @@
+package com.matchi.service;
+
+import com.matchi.dto.ProprietaireDTO;
+import com.matchi.model.Proprietaire;
+import com.matchi.model.TerrainService;
+import com.matchi.repository.ProprietaireRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProprietaireServiceTest {
+
+    private static final Long PROPRIETAIRE_ID = 7L;
+
+    private ProprietaireRepository proprietaireRepository;
+    private OccupationIndexService occupationIndexService;
+    private ProprietaireService proprietaireService;
+    private Proprietaire proprietaire;
+
+    @BeforeEach
+    void setUp() {
+        proprietaireRepository = mock(ProprietaireRepository.class);
+        TerrainServiceRepository terrainServiceRepository = mock(TerrainServiceRepository.class);
+        occupationIndexService = mock(OccupationIndexService.class);
+
+        proprietaire = new Proprietaire();
+        proprietaire.setId(PROPRIETAIRE_ID);
+        proprietaire.setTelephone(600000001);
+        when(proprietaireRepository.findById(PROPRIETAIRE_ID)).thenReturn(Optional.of(proprietaire));
+        when(proprietaireRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(terrainServiceRepository.findByProprietaireId(PROPRIETAIRE_ID)).thenReturn(List.of(
+                TerrainService.builder().id(1L).build(), TerrainService.builder().id(2L).build()));
+
+        proprietaireService = new ProprietaireService(proprietaireRepository, terrainServiceRepository,
+                mock(BCryptPasswordEncoder.class), mock(JwtService.class), mock(TelephoneTerrainCacheService.class),
+                occupationIndexService);
+    }
+
+    @Test
+    void changementDeTelephoneInvalideLOccupationDeSesTerrains() {
+        proprietaireService.update(PROPRIETAIRE_ID, new ProprietaireDTO(null, null, null, 600000002, null, null));
+
+        verify(occupationIndexService).invalider(1L);
+        verify(occupationIndexService).invalider(2L);
+    }
+
+    @Test
+    void miseAJourSansChangementDeTelephoneConserveLIndex() {
+        proprietaireService.update(PROPRIETAIRE_ID, new ProprietaireDTO(null, "Nouveau nom", null, null, null, null));
+
+        verify(occupationIndexService, never()).invalider(anyLong());
+    }
+
+    @Test
+    void suppressionInvalideLOccupationDeSesTerrains() {
+        proprietaireService.delete(PROPRIETAIRE_ID);
+
+        verify(occupationIndexService).invalider(1L);
+        verify(occupationIndexService).invalider(2L);
+        verify(proprietaireRepository).delete(proprietaire);
+    }
+}
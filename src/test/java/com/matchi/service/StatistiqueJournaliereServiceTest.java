@@ -0,0 +1,115 @@
+package com.matchi.service;
+
+import com.matchi.repository.ReservationPonctuelleRepository;
+import com.matchi.repository.StatistiqueJournaliereRepository;
+import com.matchi.repository.TerrainServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class StatistiqueJournaliereServiceTest {
+
+    private static final Long TERRAIN_ID = 1L;
+    private static final LocalDate JOUR = LocalDate.of(2026, 3, 10);
+    private static final BigDecimal PRIX = new BigDecimal("100.00");
+
+    private StatistiqueJournaliereRepository statistiqueJournaliereRepository;
+    private StatistiqueJournaliereService statistiqueJournaliereService;
+
+    @BeforeEach
+    void setUp() {
+        statistiqueJournaliereRepository = mock(StatistiqueJournaliereRepository.class);
+        statistiqueJournaliereService = new StatistiqueJournaliereService(statistiqueJournaliereRepository,
+                mock(ReservationPonctuelleRepository.class), mock(TerrainServiceRepository.class),
+                mock(TransactionTemplate.class));
+    }
+
+    // ======== RÈGLE APRÈS MINUIT ========
+
+    @Test
+    void compteLaVeilleJusquALHeureDeFermetureIncluse() {
+        assertTrue(contribution("00:00", "08:00", "02:00").compteLaVeille());
+        assertTrue(contribution("02:00", "08:00", "02:00").compteLaVeille());
+        assertFalse(contribution("02:30", "08:00", "02:00").compteLaVeille());
+    }
+
+    @Test
+    void fermetureAMinuitCompteToujoursLaVeille() {
+        assertTrue(contribution("20:00", "08:00", "00:00").compteLaVeille());
+    }
+
+    @Test
+    void rapporteLaVeilleAvantLHeureDOuvertureExclue() {
+        assertTrue(contribution("07:59", "08:00", "02:00").rapporteLaVeille());
+        assertFalse(contribution("08:00", "08:00", "02:00").rapporteLaVeille());
+    }
+
+    @Test
+    void heuresInconnuesNeComptentPasLaVeille() {
+        StatistiqueJournaliereService.Contribution contribution = new StatistiqueJournaliereService.Contribution(
+                TERRAIN_ID, JOUR, LocalTime.parse("01:00"), PRIX, null, null);
+
+        assertFalse(contribution.compteLaVeille());
+        assertFalse(contribution.rapporteLaVeille());
+    }
+
+    // ======== MISE À JOUR INCRÉMENTALE ========
+
+    @Test
+    void reservationEnJourneeNeTouchePasLaVeille() {
+        statistiqueJournaliereService.ajouter(contribution("18:00", "08:00", "02:00"));
+
+        verify(statistiqueJournaliereRepository).ajouter(TERRAIN_ID, JOUR, 1, PRIX);
+        verify(statistiqueJournaliereRepository, never()).ajouter(eq(TERRAIN_ID), eq(JOUR.minusDays(1)), anyLong(), any());
+    }
+
+    @Test
+    void reservationApresMinuitCompteAussiPourLaVeille() {
+        statistiqueJournaliereService.ajouter(contribution("01:00", "08:00", "02:00"));
+
+        verify(statistiqueJournaliereRepository).ajouter(TERRAIN_ID, JOUR, 1, PRIX);
+        verify(statistiqueJournaliereRepository).ajouter(TERRAIN_ID, JOUR.minusDays(1), 1, PRIX);
+    }
+
+    @Test
+    void reservationApresLaFermetureRapporteSansCompter() {
+        // Terrain ouvrant à 08:00 et fermant à 02:00 : une réservation à 03:00 compte dans le revenu de la veille seulement
+        statistiqueJournaliereService.ajouter(contribution("03:00", "08:00", "02:00"));
+
+        verify(statistiqueJournaliereRepository).ajouter(TERRAIN_ID, JOUR.minusDays(1), 0, PRIX);
+    }
+
+    @Test
+    void retirerAppliqueLaContributionInverse() {
+        statistiqueJournaliereService.retirer(contribution("01:00", "08:00", "02:00"));
+
+        verify(statistiqueJournaliereRepository).ajouter(TERRAIN_ID, JOUR, -1, PRIX.negate());
+        verify(statistiqueJournaliereRepository).ajouter(TERRAIN_ID, JOUR.minusDays(1), -1, PRIX.negate());
+    }
+
+    @Test
+    void remplacerParLaMemeContributionNeFaitRien() {
+        statistiqueJournaliereService.remplacer(contribution("18:00", "08:00", "02:00"), contribution("18:00", "08:00", "02:00"));
+
+        verifyNoInteractions(statistiqueJournaliereRepository);
+    }
+
+    private static StatistiqueJournaliereService.Contribution contribution(String debut, String ouverture, String fermeture) {
+        return new StatistiqueJournaliereService.Contribution(TERRAIN_ID, JOUR, LocalTime.parse(debut), PRIX,
+                LocalTime.parse(ouverture), LocalTime.parse(fermeture));
+    }
+}
@@ -0,0 +1,169 @@
+package com.matchi.service;
+
+import com.matchi.model.TypeReservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SynchronisationHoraireSchedulerTest {
+
+    private static final Long TERRAIN_ID = 1L;
+
+    private IndisponibleHoraireService indisponibleHoraireService;
+    private SynchronisationHoraireScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        indisponibleHoraireService = mock(IndisponibleHoraireService.class);
+        scheduler = new SynchronisationHoraireScheduler(indisponibleHoraireService);
+        ReflectionTestUtils.setField(scheduler, "fenetreMs", 50L);
+        ReflectionTestUtils.setField(scheduler, "nombreWorkers", 1);
+        ReflectionTestUtils.setField(scheduler, "capaciteFile", 10);
+        ReflectionTestUtils.setField(scheduler, "backoffInitialMs", 20L);
+        ReflectionTestUtils.setField(scheduler, "backoffMaxMs", 100L);
+        ReflectionTestUtils.setField(scheduler, "tentativesMax", 3);
+        scheduler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.arreter();
+    }
+
+    // ======== FUSION ========
+
+    @Test
+    void fusionAdditionneLesSourcesDUnMemeType() {
+        Map<TypeReservation, Set<Long>> enAttente = new EnumMap<>(TypeReservation.class);
+
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.ABONNEMENT, Set.of(1L, 2L));
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.ABONNEMENT, Set.of(2L, 3L));
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.RESERVATION_PONCTUELLE, Set.of(9L));
+
+        assertEquals(Set.of(1L, 2L, 3L), enAttente.get(TypeReservation.ABONNEMENT));
+        assertEquals(Set.of(9L), enAttente.get(TypeReservation.RESERVATION_PONCTUELLE));
+    }
+
+    @Test
+    void synchronisationCompleteAbsorbeLesDemandesPartielles() {
+        Map<TypeReservation, Set<Long>> enAttente = new EnumMap<>(TypeReservation.class);
+
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.ABONNEMENT, Set.of(1L));
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.ABONNEMENT, null);
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.ABONNEMENT, Set.of(2L));
+
+        assertTrue(enAttente.containsKey(TypeReservation.ABONNEMENT));
+        assertNull(enAttente.get(TypeReservation.ABONNEMENT));
+    }
+
+    @Test
+    void fusionCopieLesSourcesRecues() {
+        Map<TypeReservation, Set<Long>> enAttente = new EnumMap<>(TypeReservation.class);
+        Set<Long> sources = new HashSet<>(Set.of(1L));
+
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.ABONNEMENT, sources);
+        SynchronisationHoraireScheduler.fusionner(enAttente, TypeReservation.ABONNEMENT, Set.of(2L));
+
+        assertEquals(Set.of(1L), sources);
+    }
+
+    // ======== PLANIFICATION ========
+
+    @Test
+    void demandesDUneFenetreDonnentUneSeuleSynchronisation() {
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(1L));
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(2L));
+
+        verify(indisponibleHoraireService, timeout(2000))
+                .synchroniserSources(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(1L, 2L));
+        verify(indisponibleHoraireService, never()).synchroniserHorairesIndisponibles(anyLong());
+    }
+
+    @Test
+    void demandeCompleteDeclencheLaSynchronisationDuTerrain() {
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(1L));
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.RESERVATION_PONCTUELLE, null);
+
+        verify(indisponibleHoraireService, timeout(2000)).synchroniserHorairesIndisponibles(TERRAIN_ID);
+        verify(indisponibleHoraireService, never()).synchroniserSources(anyLong(), any(), any());
+    }
+
+    @Test
+    void echecRemetLaDemandeEnAttente() {
+        doThrow(new IllegalStateException("base indisponible"))
+                .doNothing()
+                .when(indisponibleHoraireService).synchroniserSources(eq(TERRAIN_ID), any(), any());
+
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(1L));
+
+        verify(indisponibleHoraireService, timeout(2000).times(2))
+                .synchroniserSources(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(1L));
+        assertEquals(1L, scheduler.getMetriques().synchronisationsEchouees());
+    }
+
+    @Test
+    void demandeAbandonneeApresLeNombreMaximalDeTentatives() throws InterruptedException {
+        doThrow(new IllegalStateException("base indisponible"))
+                .when(indisponibleHoraireService).synchroniserSources(eq(TERRAIN_ID), any(), any());
+
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(1L));
+
+        verify(indisponibleHoraireService, timeout(2000).times(3))
+                .synchroniserSources(TERRAIN_ID, TypeReservation.ABONNEMENT, Set.of(1L));
+        Thread.sleep(300);
+        verify(indisponibleHoraireService, times(3)).synchroniserSources(eq(TERRAIN_ID), any(), any());
+        assertEquals(1L, scheduler.getMetriques().synchronisationsAbandonnees());
+        assertEquals(0, scheduler.getMetriques().terrainsEnAttente());
+    }
+
+    @Test
+    void erreurDefinitiveAbandonneeSansNouvelleTentative() throws InterruptedException {
+        doThrow(new IllegalArgumentException("Terrain non trouvé"))
+                .when(indisponibleHoraireService).synchroniserHorairesIndisponibles(TERRAIN_ID);
+
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.ABONNEMENT, null);
+
+        verify(indisponibleHoraireService, timeout(2000)).synchroniserHorairesIndisponibles(TERRAIN_ID);
+        Thread.sleep(300);
+        verify(indisponibleHoraireService, times(1)).synchroniserHorairesIndisponibles(TERRAIN_ID);
+        assertEquals(1L, scheduler.getMetriques().synchronisationsAbandonnees());
+    }
+
+    @Test
+    void arretSoumetLesDemandesEnAttente() {
+        ReflectionTestUtils.setField(scheduler, "fenetreMs", 60_000L);
+
+        scheduler.demanderSynchronisation(TERRAIN_ID, TypeReservation.ABONNEMENT, null);
+        scheduler.arreter();
+
+        verify(indisponibleHoraireService, times(1)).synchroniserHorairesIndisponibles(TERRAIN_ID);
+    }
+
+    @Test
+    void backoffDoubleJusquAuPlafond() {
+        assertEquals(20L, scheduler.delaiAvantNouvelleTentative(1));
+        assertEquals(40L, scheduler.delaiAvantNouvelleTentative(2));
+        assertEquals(80L, scheduler.delaiAvantNouvelleTentative(3));
+        assertEquals(100L, scheduler.delaiAvantNouvelleTentative(4));
+        assertEquals(100L, scheduler.delaiAvantNouvelleTentative(100));
+    }
+}
@@ -0,0 +1,120 @@
+package com.matchi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TelephoneTerrainCacheServiceTest {
+
+    // Terrains en base, par téléphone du propriétaire
+    private final Map<Integer, Long> terrainsEnBase = new HashMap<>();
+    // Téléphones demandés au chargeur, par appel
+    private final List<Set<Integer>> chargements = new ArrayList<>();
+
+    private final Function<Set<Integer>, Map<Integer, Long>> chargeur = telephones -> {
+        chargements.add(Set.copyOf(telephones));
+        Map<Integer, Long> charges = new HashMap<>();
+        telephones.stream().filter(terrainsEnBase::containsKey).forEach(t -> charges.put(t, terrainsEnBase.get(t)));
+        return charges;
+    };
+
+    private TelephoneTerrainCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TelephoneTerrainCacheService();
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "tailleMax", 100);
+        terrainsEnBase.put(600000001, 1L);
+        terrainsEnBase.put(600000002, 2L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void secondeResolutionLueDansLeCache() {
+        assertEquals(Map.of(600000001, 1L, 600000002, 2L), cache.resoudre(Set.of(600000001, 600000002), chargeur));
+        assertEquals(Map.of(600000001, 1L, 600000002, 2L), cache.resoudre(Set.of(600000001, 600000002), chargeur));
+
+        assertEquals(1, chargements.size());
+    }
+
+    @Test
+    void seulsLesTelephonesAbsentsDuCacheSontCharges() {
+        cache.resoudre(Set.of(600000001), chargeur);
+
+        cache.resoudre(Set.of(600000001, 600000002), chargeur);
+
+        assertEquals(List.of(Set.of(600000001), Set.of(600000002)), chargements);
+    }
+
+    @Test
+    void telephoneSansTerrainMisEnCache() {
+        assertEquals(Map.of(), cache.resoudre(Set.of(699999999), chargeur));
+        assertEquals(Map.of(), cache.resoudre(Set.of(699999999), chargeur));
+
+        assertEquals(1, chargements.size());
+    }
+
+    @Test
+    void entreeExpireeApresLeTtl() {
+        ReflectionTestUtils.setField(cache, "ttlMs", -1L);
+
+        cache.resoudre(Set.of(600000001), chargeur);
+        cache.resoudre(Set.of(600000001), chargeur);
+
+        assertEquals(2, chargements.size());
+    }
+
+    @Test
+    void invalidationRechargeLeTelephone() {
+        cache.resoudre(Set.of(600000001, 600000002), chargeur);
+        terrainsEnBase.put(600000001, 3L);
+
+        cache.invalider(600000001);
+
+        assertEquals(Map.of(600000001, 3L, 600000002, 2L), cache.resoudre(Set.of(600000001, 600000002), chargeur));
+        assertEquals(Set.of(600000001), chargements.get(1));
+    }
+
+    @Test
+    void invalidationRepeteeApresLeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalider(600000001);
+        // Lecture concurrente avant le commit : l'ancienne valeur est remise en cache
+        cache.resoudre(Set.of(600000001), chargeur);
+        terrainsEnBase.put(600000001, 3L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(Map.of(600000001, 3L), cache.resoudre(Set.of(600000001), chargeur));
+    }
+
+    @Test
+    void cachePleinVideAvantDInsererDeNouvellesEntrees() {
+        ReflectionTestUtils.setField(cache, "tailleMax", 2);
+        cache.resoudre(Set.of(600000001, 600000002), chargeur);
+
+        cache.resoudre(Set.of(600000003), chargeur);
+        cache.resoudre(Set.of(600000001), chargeur);
+
+        assertEquals(3, chargements.size());
+    }
+}